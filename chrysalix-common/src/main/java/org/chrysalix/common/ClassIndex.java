@@ -0,0 +1,104 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.common;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the class indexes written at build time by the {@link IndexProcessor} for classes annotated with {@link Indexed}. An
+ * index is a resource, found in every jar or class directory that has one, listing one class name per line.
+ */
+public final class ClassIndex {
+
+    /**
+     * The folder containing the index resources. Value is {@value} .
+     */
+    public static final String FOLDER = "META-INF/chrysalix/index/";
+
+    static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+    /**
+     * @param type
+     *        the type whose index is being read (cannot be <code>null</code>)
+     * @param classLoader
+     *        the class loader whose resources are searched (cannot be <code>null</code>)
+     * @return the names of the indexed classes, in the order found and without duplicates (never <code>null</code>)
+     * @throws IOException
+     *         if an index resource cannot be read
+     */
+    public static List< String > classNames( final Class< ? > type,
+                                             final ClassLoader classLoader ) throws IOException {
+        CheckArg.notNull( type, "type" );
+        CheckArg.notNull( classLoader, "classLoader" );
+        final Set< String > names = new LinkedHashSet<>();
+        final Enumeration< URL > urls = classLoader.getResources( resourceName( type.getName() ) );
+
+        while ( urls.hasMoreElements() ) {
+            try ( final InputStream stream = urls.nextElement().openStream() ) {
+                read( stream, names );
+            }
+        }
+
+        return new ArrayList<>( names );
+    }
+
+    static void read( final InputStream stream,
+                      final Set< String > names ) throws IOException {
+        final BufferedReader reader = new BufferedReader( new InputStreamReader( stream, UTF_8 ) );
+
+        for ( String line = reader.readLine(); line != null; line = reader.readLine() ) {
+            final int comment = line.indexOf( '#' );
+            final String name = ( ( comment < 0 ) ? line : line.substring( 0, comment ) ).trim();
+
+            if ( !name.isEmpty() ) {
+                names.add( name );
+            }
+        }
+    }
+
+    /**
+     * @param typeName
+     *        the fully qualified name of the indexed type (cannot be <code>null</code> or empty)
+     * @return the name of the index resource for the type (never <code>null</code>)
+     */
+    public static String resourceName( final String typeName ) {
+        CheckArg.notEmpty( typeName, "typeName" );
+        return FOLDER + typeName;
+    }
+
+    private ClassIndex() {
+        // prevent instances
+    }
+
+}
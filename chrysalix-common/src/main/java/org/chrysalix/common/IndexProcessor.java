@@ -0,0 +1,166 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * An annotation processor that writes a {@link ClassIndex class index} resource for each type named by an {@link Indexed}
+ * annotation, listing the classes annotated with it. The processor is registered as a service so it runs whenever a module that
+ * depends on this one is compiled.
+ * <p>
+ * Names already in an index from an earlier, incremental compilation are kept, so an index is only ever extended by a build.
+ * Removed classes are ignored by readers that cannot load them.
+ */
+@SupportedAnnotationTypes( "org.chrysalix.common.Indexed" )
+public final class IndexProcessor extends AbstractProcessor {
+
+    private final Map< String, Set< String > > indexes = new HashMap<>();
+
+    private String indexedType( final Element element ) {
+        for ( final AnnotationMirror annotation : element.getAnnotationMirrors() ) {
+            if ( Indexed.class.getName().equals( annotation.getAnnotationType().toString() ) ) {
+                for ( final Entry< ? extends ExecutableElement, ? extends AnnotationValue > entry : annotation.getElementValues()
+                                                                                                               .entrySet() ) {
+                    final Object value = entry.getValue().getValue();
+
+                    if ( value instanceof DeclaredType ) {
+                        return ( ( TypeElement ) ( ( DeclaredType ) value ).asElement() ).getQualifiedName().toString();
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set, javax.annotation.processing.RoundEnvironment)
+     */
+    @Override
+    public boolean process( final Set< ? extends TypeElement > annotations,
+                            final RoundEnvironment roundEnv ) {
+        if ( roundEnv.processingOver() ) {
+            write();
+        } else {
+            for ( final Element element : roundEnv.getElementsAnnotatedWith( Indexed.class ) ) {
+                final String type = indexedType( element );
+
+                if ( type == null ) {
+                    processingEnv.getMessager().printMessage( Kind.ERROR,
+                                                              CommonI18n.localize( "Unable to determine the indexed type" ),
+                                                              element );
+                    continue;
+                }
+
+                Set< String > names = this.indexes.get( type );
+
+                if ( names == null ) {
+                    names = new LinkedHashSet<>();
+                    this.indexes.put( type, names );
+                }
+
+                names.add( processingEnv.getElementUtils().getBinaryName( ( TypeElement ) element ).toString() );
+            }
+        }
+
+        return true;
+    }
+
+    private void write() {
+        for ( final Entry< String, Set< String > > index : this.indexes.entrySet() ) {
+            final String resourceName = ClassIndex.resourceName( index.getKey() );
+            final Set< String > names = new LinkedHashSet<>();
+
+            // keep the entries of an earlier compilation when only some sources are being recompiled
+            try {
+                final FileObject existing = processingEnv.getFiler().getResource( StandardLocation.CLASS_OUTPUT, "", resourceName );
+
+                try ( final InputStream stream = existing.openInputStream() ) {
+                    ClassIndex.read( stream, names );
+                }
+            } catch ( final IOException e ) {
+                // no earlier index
+            }
+
+            names.addAll( index.getValue() );
+            final List< String > sorted = new ArrayList<>( names );
+            Collections.sort( sorted );
+
+            try {
+                final FileObject resource = processingEnv.getFiler().createResource( StandardLocation.CLASS_OUTPUT, "", resourceName );
+
+                try ( final Writer writer = new OutputStreamWriter( resource.openOutputStream(), ClassIndex.UTF_8 ) ) {
+                    for ( final String name : sorted ) {
+                        writer.write( name );
+                        writer.write( '\n' );
+                    }
+                }
+            } catch ( final IOException e ) {
+                processingEnv.getMessager().printMessage( Kind.ERROR,
+                                                          CommonI18n.localize( "Unable to write class index '%s': %s",
+                                                                               resourceName,
+                                                                               e.getMessage() ) );
+            }
+        }
+    }
+
+}
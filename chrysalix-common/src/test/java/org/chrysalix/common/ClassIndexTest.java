@@ -0,0 +1,82 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.common;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+@SuppressWarnings( "javadoc" )
+public final class ClassIndexTest {
+
+    private static File write( final File folder,
+                               final String content ) throws Exception {
+        final File file = new File( folder, ClassIndex.resourceName( Runnable.class.getName() ) );
+        file.getParentFile().mkdirs();
+
+        try ( final OutputStream stream = new FileOutputStream( file ) ) {
+            stream.write( content.getBytes( ClassIndex.UTF_8 ) );
+        }
+
+        return folder;
+    }
+
+    @Test
+    public void shouldIgnoreCommentsBlankLinesAndDuplicates() throws Exception {
+        final Set< String > names = new LinkedHashSet<>();
+        ClassIndex.read( new ByteArrayInputStream( "# header\na.B\n\n  c.D  # trailing\na.B\n".getBytes( ClassIndex.UTF_8 ) ),
+                         names );
+        assertThat( names.toArray(), is( new Object[] { "a.B", "c.D" } ) );
+    }
+
+    @Test
+    public void shouldMergeIndexesFromAllClasspathEntries() throws Exception {
+        final File first = write( Files.createTempDirectory( "index" ).toFile(), "a.B\nc.D\n" );
+        final File second = write( Files.createTempDirectory( "index" ).toFile(), "c.D\ne.F\n" );
+
+        try ( final URLClassLoader loader = new URLClassLoader( new URL[] { first.toURI().toURL(), second.toURI().toURL() }, null ) ) {
+            assertThat( ClassIndex.classNames( Runnable.class, loader ), is( Arrays.asList( "a.B", "c.D", "e.F" ) ) );
+        }
+    }
+
+    @Test
+    public void shouldNotFindNamesWithoutIndex() throws Exception {
+        try ( final URLClassLoader loader = new URLClassLoader( new URL[ 0 ], null ) ) {
+            assertThat( ClassIndex.classNames( Runnable.class, loader ).isEmpty(), is( true ) );
+        }
+    }
+
+}
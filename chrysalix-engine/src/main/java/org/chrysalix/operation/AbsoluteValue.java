@@ -30,6 +30,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -49,6 +50,7 @@ import org.modelspace.ModelspaceException;
  * @see Math#abs(int)
  * @see Math#abs(long)
  */
+@Indexed( Operation.class )
 public final class AbsoluteValue extends AbstractOperation< Number > {
 
     static final String DESCRIPTION = "Finds the absolute value of a number";
@@ -34,8 +34,12 @@ import org.chrysalix.ChrysalixI18n;
 import org.chrysalix.ChrysalixLexicon;
 import org.chrysalix.common.CheckArg;
 import org.chrysalix.common.Logger;
+import org.chrysalix.transformation.ExecutionContext;
+import org.chrysalix.transformation.ExecutionPlan;
+import org.chrysalix.transformation.ExpressionCompiler;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Precision;
 import org.chrysalix.transformation.Transformation;
 import org.chrysalix.transformation.TransformationFactory;
 import org.chrysalix.transformation.ValidationProblems;
@@ -76,6 +80,10 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
     private static final String ERROR_REMOVING_OPERATION_INPUT_UNKNOWN_NAME =
         "There was an error removing terms for operation (name cannot be determined) in transformation '%s'";
     protected static final String HAS_NO_TERMS = "'%s' operation in transformation '%s' has no terms";
+    private static final String INVALID_INPUT_OBJECT =
+        "The '%s' input of operation '%s' in transformation '%s' is not a model object or the model-relative path of one";
+    private static final String INVALID_SINGLE_INPUT_COUNT =
+        "The '%s' operation in transformation '%s' does not have exactly one '%s' input";
     protected static final String INVALID_TERM_COUNT =
         "The operation '%s' in transformation '%s' has an invalid term count of '%s.'";
     protected static final String INVALID_TERM_TYPE =
@@ -92,10 +100,14 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
         "An exception occurred when validating the input of operation '%s' in transformation '%s'";
     private static final String UNABLE_TO_FIND_FACTORY = "Could not find transformation factory for operation";
 
+    private volatile OperationDescriptor< T > descriptor;
+    private final boolean detached;
+    private volatile TransformationFactory factory;
     private final Logger logger;
     protected final ValidationProblems problems;
     private final ModelObject operation;
     private final Transformation transformation;
+    private volatile String path;
 
     /**
      * @param operation
@@ -112,6 +124,7 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
         super( operation.name(), operation );
         this.operation = operation;
         this.transformation = transformation;
+        this.detached = ( operation instanceof DetachedObject );
         this.problems = TransformationFactory.createValidationProblems();
         this.logger = Logger.logger( getClass() );
     }
@@ -163,21 +176,7 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
             try {
                 // add one at a time
                 final ModelObject[] added = this.operation.addChildOfType( ChrysalixLexicon.Input.NODE_TYPE, descriptorId );
-                final ModelObject input = added[ 0 ];
-
-                if ( value instanceof ModelProperty ) {
-                    input.setProperty( ChrysalixLexicon.Input.PATH, true );
-                    input.setProperty( ChrysalixLexicon.Input.VALUE, ( ( ModelProperty ) value ).absolutePath() );
-                } else if ( value instanceof Operation ) {
-                    input.setProperty( ChrysalixLexicon.Input.PATH, true );
-                    input.setProperty( ChrysalixLexicon.Input.VALUE, ( ( Operation< ? > ) value ).absolutePath() );
-                } else if ( value instanceof Value< ? > ) {
-                    input.setProperty( ChrysalixLexicon.Input.PATH, false );
-                    input.setProperty( ChrysalixLexicon.Input.VALUE, ( ( Value< ? > ) value ).get() );
-                } else {
-                    input.setProperty( ChrysalixLexicon.Input.PATH, false );
-                    input.setProperty( ChrysalixLexicon.Input.VALUE, value );
-                }
+                setInputValue( added[ 0 ], value );
             } catch ( final Exception e ) {
                 try {
                     throw new ChrysalixException( ChrysalixI18n.localize( ERROR_ADDING_OR_REMOVING_OPERATION_INPUT,
@@ -194,6 +193,8 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
                 }
             }
         }
+
+        definitionChanged();
     }
 
     /**
@@ -203,41 +204,92 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
      */
     protected abstract T calculate() throws ChrysalixException;
 
+    /**
+     * Records that the definition of the owning transformation has changed. Changes to {@link DetachedModel detached} operations
+     * are not part of any transformation definition and are not recorded.
+     * 
+     * @throws ChrysalixException
+     *         if the transformation cannot be identified
+     */
+    protected void definitionChanged() throws ChrysalixException {
+        if ( this.detached ) {
+            return;
+        }
+
+        final TransformationFactory factory = factory();
+
+        if ( factory != null ) {
+            factory.definitionChanged( transformationId() );
+        }
+    }
+
     @SuppressWarnings( "unchecked" )
     protected final OperationDescriptor< T > descriptor() throws ChrysalixException {
-        return ( OperationDescriptor< T > ) factory().descriptor( descriptorId() );
+        if ( this.descriptor == null ) {
+            this.descriptor = ( OperationDescriptor< T > ) factory().descriptor( descriptorId() );
+        }
+
+        return this.descriptor;
     }
 
     protected ValueDescriptor< ? > descriptor( final String id ) throws ChrysalixException {
-        for ( final ValueDescriptor< ? > descriptor : descriptor().inputDescriptors() ) {
-            if ( descriptor.name().equals( id ) ) {
-                return descriptor;
-            }
-        }
+        return factory().inputDescriptor( descriptor(), id );
+    }
 
-        return null;
+    /**
+     * @return the compiler of the expressions this operation evaluates (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the factory of this operation cannot be found
+     */
+    protected final ExpressionCompiler expressionCompiler() throws ChrysalixException {
+        return factory().expressionCompiler();
     }
 
     private TransformationFactory factory() throws ChrysalixException {
-        String opName = null;
+        if ( this.factory == null ) {
+            String opName = null;
 
-        try {
-            opName = operation.name();
-            return TransformationFactory.REGISTRY.get( this.operation.model().modelspace() );
-        } catch ( final ModelspaceException e ) {
-            throw new ChrysalixException( e, ChrysalixI18n.localize( UNABLE_TO_FIND_FACTORY, opName ) );
+            try {
+                opName = operation.name();
+                this.factory = TransformationFactory.REGISTRY.get( this.operation.model().modelspace() );
+            } catch ( final ModelspaceException e ) {
+                throw new ChrysalixException( e, ChrysalixI18n.localize( UNABLE_TO_FIND_FACTORY, opName ) );
+            }
         }
+
+        return this.factory;
     }
 
     /**
      * {@inheritDoc}
      * <p>
      * <strong>Do not call if there are validation errors as this will throw an exception.</strong>
+     * <p>
+     * When called during an {@link ExecutionContext execution} the result is calculated at most once and then reused.
      * 
      * @see org.chrysalix.operation.ValueImpl#get()
      */
+    @SuppressWarnings( "unchecked" )
     @Override
     public final T get() throws ChrysalixException {
+        final ExecutionContext context = ExecutionContext.current();
+
+        if ( context == null ) {
+            return validateAndCalculate();
+        }
+
+        final String path = path();
+
+        if ( context.hasResult( path ) ) {
+            return ( T ) context.result( path );
+        }
+
+        final T result = validateAndCalculate();
+        context.result( path, result );
+        return result;
+    }
+
+    private T validateAndCalculate() throws ChrysalixException {
         if ( problems().isError() ) {
             try {
                 throw new ChrysalixException( ChrysalixI18n.localize( AbstractOperation.OPERATION_HAS_ERRORS,
@@ -276,17 +328,130 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
             try {
                 throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_FINDING_ALL_INPUTS,
                                                                          name(),
-                                                                         this.transformation.id() ) );
+                                                                         transformationId() ) );
             } catch ( final ModelspaceException error ) {
                 final ChrysalixException pe =
                     new ChrysalixException( ChrysalixI18n.localize( ERROR_FINDING_ALL_INPUTS_UNKNOWN_NAME,
-                                                                    this.transformation.id() ) );
+                                                                    transformationId() ) );
                 pe.addSuppressed( error );
                 throw pe;
             }
         }
     }
 
+    /**
+     * @return the type inferred by the {@link ExecutionPlan execution plan} evaluating this operation for all of its inputs, or
+     *         <code>null</code> if the operation is not being evaluated by a plan or if its inputs are not all known to have the
+     *         same type
+     */
+    protected final Class< ? > inferredInputType() {
+        final ExecutionPlan.Node node = planNode();
+
+        if ( node == null ) {
+            return null;
+        }
+
+        final Class< ? >[] types = node.inputTypes();
+        Class< ? > result = null;
+
+        for ( final Class< ? > type : types ) {
+            if ( ( type == null ) || ( ( result != null ) && ( result != type ) ) ) {
+                return null;
+            }
+
+            result = type;
+        }
+
+        return result;
+    }
+
+    /**
+     * Operations can use the inferred type to choose an implementation that does not check the type of each input value.
+     * 
+     * @return the result type inferred by the {@link ExecutionPlan execution plan} evaluating this operation, or <code>null</code>
+     *         if the operation is not being evaluated by a plan or if the type is not known
+     */
+    protected final Class< ? > inferredType() {
+        final ExecutionPlan.Node node = planNode();
+        return ( ( node == null ) ? null : node.type() );
+    }
+
+    /**
+     * @param descriptor
+     *        the descriptor of an input holding a {@link ModelObject model object} or its model-relative path (cannot be
+     *        <code>null</code>)
+     * @return the model object (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the input is missing or does not resolve to a model object
+     */
+    protected ModelObject inputObject( final ValueDescriptor< ? > descriptor ) throws ChrysalixException {
+        return inputObject( descriptor, inputValue( descriptor ) );
+    }
+
+    private ModelObject inputObject( final ValueDescriptor< ? > descriptor,
+                                     final Object value ) throws ChrysalixException {
+        if ( value instanceof ModelObject ) {
+            return ( ModelObject ) value;
+        }
+
+        ModelspaceException error = null;
+
+        if ( value != null ) {
+            try {
+                final ModelObject object = model().child( value.toString() );
+
+                if ( object != null ) {
+                    return object;
+                }
+            } catch ( final ModelspaceException e ) {
+                error = e;
+            }
+        }
+
+        final ChrysalixException pe =
+            new ChrysalixException( ChrysalixI18n.localize( INVALID_INPUT_OBJECT,
+                                                            descriptor.name(),
+                                                            descriptor().name(),
+                                                            transformationId() ) );
+
+        if ( error != null ) {
+            pe.addSuppressed( error );
+        }
+
+        throw pe;
+    }
+
+    /**
+     * @param descriptor
+     *        the descriptor of inputs each holding a {@link ModelObject model object} or its model-relative path (cannot be
+     *        <code>null</code>)
+     * @return the model objects in input order (never <code>null</code> but can be empty)
+     * @throws ChrysalixException
+     *         if an input does not resolve to a model object
+     */
+    protected List< ModelObject > inputObjects( final ValueDescriptor< ? > descriptor ) throws ChrysalixException {
+        final List< Value< ? > > inputs = inputs( descriptor.name() );
+        final List< ModelObject > objects = new ArrayList<>( inputs.size() );
+
+        for ( final Value< ? > input : inputs ) {
+            objects.add( inputObject( descriptor, input.get() ) );
+        }
+
+        return objects;
+    }
+
+    /**
+     * @param descriptor
+     *        the descriptor of the input whose value is being requested (cannot be <code>null</code>)
+     * @return the value of the first input of the descriptor or <code>null</code> if there is no such input
+     * @throws ChrysalixException
+     *         if an error occurs
+     */
+    protected Object inputValue( final ValueDescriptor< ? > descriptor ) throws ChrysalixException {
+        final List< Value< ? > > inputs = inputs( descriptor.name() );
+        return ( inputs.isEmpty() ? null : inputs.get( 0 ).get() );
+    }
+
     /**
      * @param descriptorId
      *        the identifier of the {@link ValueDescriptor descriptor} whose inputs are being requested (cannot be <code>null</code>
@@ -321,7 +486,7 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
                 throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_FINDING_DESCRIPTOR_INPUTS,
                                                                          descriptorId,
                                                                          name(),
-                                                                         this.transformation.id() ) );
+                                                                         transformationId() ) );
             } catch ( final ModelspaceException error ) {
                 final ChrysalixException pe =
                     new ChrysalixException( ChrysalixI18n.localize( ERROR_FINDING_DESCRIPTOR_INPUTS_UNKNOWN_NAME,
@@ -366,7 +531,7 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
             return descriptorId();
         } catch ( final ChrysalixException e ) {
             try {
-                throw new ModelspaceException( e, ChrysalixI18n.localize( ERROR_FINDING_NAME, this.transformation.id() ) );
+                throw new ModelspaceException( e, ChrysalixI18n.localize( ERROR_FINDING_NAME, transformationId() ) );
             } catch ( final ChrysalixException error ) {
                 final ModelspaceException me = new ModelspaceException( e, ERROR_FINDING_TRANSFORMATION_ID );
                 me.addSuppressed( error );
@@ -375,6 +540,40 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
         }
     }
 
+    /**
+     * @return the absolute path of this operation's model object, which also keys its result in an {@link ExecutionContext
+     *         execution} (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the path cannot be obtained
+     */
+    protected final String path() throws ChrysalixException {
+        if ( this.path == null ) {
+            try {
+                this.path = absolutePath();
+            } catch ( final ModelspaceException e ) {
+                throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_FINDING_PATH, transformationId() ) );
+            }
+        }
+
+        return this.path;
+    }
+
+    private ExecutionPlan.Node planNode() {
+        final ExecutionContext context = ExecutionContext.current();
+        final ExecutionPlan.Node node = ( ( context == null ) ? null : context.node() );
+        return ( ( ( node != null ) && ( node.operation() == this ) ) ? node : null );
+    }
+
+    /**
+     * @return the precision of the numeric operations of the current {@link ExecutionContext execution}, or the
+     *         {@link Precision#MIXED default precision} if this operation is not being evaluated by an execution (never
+     *         <code>null</code>)
+     */
+    protected final Precision precision() {
+        final ExecutionContext context = ExecutionContext.current();
+        return ( ( context == null ) ? Precision.MIXED : context.precision() );
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -386,6 +585,25 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
         return this.problems;
     }
 
+    private boolean references( final Value< ? > input,
+                                final Object value ) throws ModelspaceException {
+        if ( !this.detached ) {
+            return false;
+        }
+
+        final ModelProperty property = input.modelObect().property( ChrysalixLexicon.Input.VALUE );
+        return ( ( property != null ) && ( property.value() == value ) );
+    }
+
+    private void removeInputNode( final Value< ? > input ) throws ModelspaceException {
+        if ( this.detached ) {
+            // detached inputs share their descriptor's name so the exact child is removed
+            ( ( DetachedObject ) this.operation ).remove( input.modelObect() );
+        } else {
+            this.operation.removeChild( input.name() );
+        }
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -437,11 +655,11 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
                 try {
                     throw new ChrysalixException( ChrysalixI18n.localize( ERROR_REMOVING_OPERATION_INPUT,
                                                                           name(),
-                                                                          this.transformation.id() ) );
+                                                                          transformationId() ) );
                 } catch ( final ModelspaceException error ) {
                     final ChrysalixException pe =
                         new ChrysalixException( ChrysalixI18n.localize( ERROR_REMOVING_OPERATION_INPUT_UNKNOWN_NAME,
-                                                                        this.transformation.id() ) );
+                                                                        transformationId() ) );
                     pe.addSuppressed( error );
                     throw pe;
                 }
@@ -452,17 +670,24 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
             // find input
             for ( final Value< ? > input : inputs ) {
                 try {
+                    // check references first so that a referenced operation is not calculated
+                    if ( references( input, valueToDelete ) ) {
+                        removeInputNode( input );
+                        removed = true;
+                        continue;
+                    }
+
                     final Object value = input.get();
 
-                    if ( valueToDelete.equals( input ) || valueToDelete.equals( input.get() ) ) {
-                        this.operation.removeChild( input.name() );
+                    if ( valueToDelete.equals( input ) || valueToDelete.equals( value ) ) {
+                        removeInputNode( input );
                         removed = true;
                     } else {
                         if ( ( valueToDelete instanceof ModelProperty ) || ( valueToDelete instanceof Operation ) ) {
                             final String path = ( ( ModelElement ) valueToDelete ).absolutePath();
 
                             if ( path.equals( value ) ) {
-                                this.operation.removeChild( input.name() );
+                                removeInputNode( input );
                                 removed = true;
                             }
                         }
@@ -471,11 +696,11 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
                     try {
                         throw new ChrysalixException( ChrysalixI18n.localize( ERROR_REMOVING_OPERATION_INPUT,
                                                                               name(),
-                                                                              this.transformation.id() ) );
+                                                                              transformationId() ) );
                     } catch ( final ModelspaceException error ) {
                         final ChrysalixException pe =
                             new ChrysalixException( ChrysalixI18n.localize( ERROR_REMOVING_OPERATION_INPUT_UNKNOWN_NAME,
-                                                                            this.transformation.id() ) );
+                                                                            transformationId() ) );
                         pe.addSuppressed( error );
                         throw pe;
                     }
@@ -491,12 +716,14 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
                 } catch ( final ModelspaceException error ) {
                     final ChrysalixException pe =
                         new ChrysalixException( ChrysalixI18n.localize( ERROR_ADDING_OR_REMOVING_OPERATION_INPUT_UNKNOWN_NAME,
-                                                                        this.transformation.id() ) );
+                                                                        transformationId() ) );
                     pe.addSuppressed( error );
                     throw pe;
                 }
             }
         }
+
+        definitionChanged();
     }
 
     /**
@@ -511,7 +738,7 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
         try {
             throw new UnsupportedOperationException( ChrysalixI18n.localize( OPERATION_RESULT_NOT_MODIFIABLE,
                                                                              name(),
-                                                                             this.transformation.id() ) );
+                                                                             transformationId() ) );
         } catch ( final ModelspaceException e ) {
             final ChrysalixException pe =
                 new ChrysalixException( ChrysalixI18n.localize( OPERATION_RESULT_NOT_MODIFIABLE_UNKNOWN_NAME,
@@ -577,21 +804,7 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
 
             try {
                 final ModelObject[] added = this.operation.addChildOfType( ChrysalixLexicon.Input.NODE_TYPE, descriptorId );
-                final ModelObject input = added[ 0 ];
-
-                if ( value instanceof ModelProperty ) {
-                    input.setProperty( ChrysalixLexicon.Input.PATH, true );
-                    input.setProperty( ChrysalixLexicon.Input.VALUE, ( ( ModelProperty ) value ).absolutePath() );
-                } else if ( value instanceof Operation ) {
-                    input.setProperty( ChrysalixLexicon.Input.PATH, true );
-                    input.setProperty( ChrysalixLexicon.Input.VALUE, ( ( Operation< ? > ) value ).absolutePath() );
-                } else if ( value instanceof Value< ? > ) {
-                    input.setProperty( ChrysalixLexicon.Input.PATH, false );
-                    input.setProperty( ChrysalixLexicon.Input.VALUE, ( ( Value< ? > ) value ).get() );
-                } else {
-                    input.setProperty( ChrysalixLexicon.Input.PATH, false );
-                    input.setProperty( ChrysalixLexicon.Input.VALUE, value );
-                }
+                setInputValue( added[ 0 ], value );
             } catch ( final Exception e ) {
                 try {
                     throw new ChrysalixException( ChrysalixI18n.localize( ERROR_ADDING_OR_REMOVING_OPERATION_INPUT,
@@ -608,6 +821,29 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
                 }
             }
         }
+
+        definitionChanged();
+    }
+
+    private void setInputValue( final ModelObject input,
+                                final Object value ) throws Exception {
+        if ( this.detached && ( ( value instanceof Value< ? > ) || ( value instanceof ModelProperty ) ) ) {
+            // detached inputs have no path that can be resolved so they are held by reference
+            input.setProperty( ChrysalixLexicon.Input.PATH, false );
+            input.setProperty( ChrysalixLexicon.Input.VALUE, value );
+        } else if ( value instanceof ModelProperty ) {
+            input.setProperty( ChrysalixLexicon.Input.PATH, true );
+            input.setProperty( ChrysalixLexicon.Input.VALUE, ( ( ModelProperty ) value ).absolutePath() );
+        } else if ( value instanceof Operation ) {
+            input.setProperty( ChrysalixLexicon.Input.PATH, true );
+            input.setProperty( ChrysalixLexicon.Input.VALUE, ( ( Operation< ? > ) value ).absolutePath() );
+        } else if ( value instanceof Value< ? > ) {
+            input.setProperty( ChrysalixLexicon.Input.PATH, false );
+            input.setProperty( ChrysalixLexicon.Input.VALUE, ( ( Value< ? > ) value ).get() );
+        } else {
+            input.setProperty( ChrysalixLexicon.Input.PATH, false );
+            input.setProperty( ChrysalixLexicon.Input.VALUE, value );
+        }
     }
 
     /**
@@ -651,8 +887,40 @@ abstract class AbstractOperation< T > extends ValueImpl< T > implements Operatio
         return this.transformation;
     }
 
+    /**
+     * Adds an error to the {@link #problems} for each descriptor that has more than one input, or that has no input but
+     * {@link ValueDescriptor#requiredValueCount() requires} one.
+     * 
+     * @param descriptors
+     *        the descriptors of inputs that take at most one value (cannot be <code>null</code>)
+     * @throws ChrysalixException
+     *         if an error occurs
+     */
+    protected void validateSingleInputs( final ValueDescriptor< ? >... descriptors ) throws ChrysalixException {
+        for ( final ValueDescriptor< ? > descriptor : descriptors ) {
+            final int count = inputs( descriptor.name() ).size();
+
+            if ( ( count < descriptor.requiredValueCount() ) || ( count > 1 ) ) {
+                this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                      ChrysalixI18n.localize( INVALID_SINGLE_INPUT_COUNT,
+                                                                                              descriptor().name(),
+                                                                                              transformationId(),
+                                                                                              descriptor.name() ) ) );
+            }
+        }
+    }
+
     protected String transformationId() throws ChrysalixException {
-        return this.transformation.id();
+        if ( this.transformation != null ) {
+            return this.transformation.id();
+        }
+
+        // a detached operation that is not computing for a transformation reports against its detached model
+        try {
+            return this.operation.model().absolutePath();
+        } catch ( final ModelspaceException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_FINDING_TRANSFORMATION_ID ) );
+        }
     }
 
 }
@@ -23,6 +23,8 @@
  */
 package org.chrysalix.operation;
 
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.ValueDescriptor;
 
@@ -34,6 +36,32 @@ import org.chrysalix.transformation.ValueDescriptor;
  */
 abstract class AbstractOperationDescriptor< T > extends ValueDescriptorImpl< T > implements OperationDescriptor< T > {
 
+    /**
+     * The result type of the arithmetic operations, which compute with <code>long</code>s when all terms are integral and with
+     * <code>double</code>s when a term is a floating point number.
+     * 
+     * @param inputTypes
+     *        the concrete types of the terms, where a <code>null</code> element is a type that is not known (cannot be
+     *        <code>null</code>)
+     * @param declaredType
+     *        the type used when the result type cannot be narrowed (cannot be <code>null</code>)
+     * @return {@link Long}, {@link Double}, or the declared type (never <code>null</code>)
+     */
+    static Class< ? > arithmeticType( final Class< ? >[] inputTypes,
+                                      final Class< ? > declaredType ) {
+        Class< ? > result = ( ( inputTypes.length == 0 ) ? declaredType : Long.class );
+
+        for ( final Class< ? > type : inputTypes ) {
+            if ( ( type == Double.class ) || ( type == Float.class ) ) {
+                result = ( ( result == declaredType ) ? declaredType : Double.class );
+            } else if ( ( type != Long.class ) && ( type != Integer.class ) && ( type != Short.class ) && ( type != Byte.class ) ) {
+                result = declaredType;
+            }
+        }
+
+        return result;
+    }
+
     private final ValueDescriptor< ? >[] inputDescriptors;
 
     /**
@@ -58,6 +86,18 @@ abstract class AbstractOperationDescriptor< T > extends ValueDescriptorImpl< T >
                                                                      : operationInputDescriptors;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Operations are deterministic by default.
+     * 
+     * @see org.chrysalix.transformation.OperationDescriptor#deterministic()
+     */
+    @Override
+    public boolean deterministic() {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -68,4 +108,28 @@ abstract class AbstractOperationDescriptor< T > extends ValueDescriptorImpl< T >
         return this.inputDescriptors;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The declared type is used by default.
+     * 
+     * @see org.chrysalix.transformation.OperationDescriptor#resultType(java.lang.Class[])
+     */
+    @Override
+    public Class< ? > resultType( final Class< ? >[] inputTypes ) {
+        return type();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Operations do not choose a strategy by default.
+     * 
+     * @see org.chrysalix.transformation.OperationDescriptor#strategy(org.chrysalix.transformation.Operation)
+     */
+    @Override
+    public String strategy( final Operation< ? > operation ) throws ChrysalixException {
+        return null;
+    }
+
 }
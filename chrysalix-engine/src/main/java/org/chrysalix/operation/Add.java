@@ -25,8 +25,10 @@ package org.chrysalix.operation;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Precision;
 import org.chrysalix.transformation.Transformation;
 import org.chrysalix.transformation.TransformationFactory;
 import org.chrysalix.transformation.ValidationProblem;
@@ -39,6 +41,7 @@ import org.modelspace.ModelspaceException;
 /**
  * Adds a collection of terms.
  */
+@Indexed( Operation.class )
 public final class Add extends AbstractOperation< Number > {
 
     static String DESCRIPTION = "Adds two or more numbers together";
@@ -84,6 +87,16 @@ public final class Add extends AbstractOperation< Number > {
                 return new Add( operation, transformation );
             }
 
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#resultType(java.lang.Class[])
+             */
+            @Override
+            public Class< ? > resultType( final Class< ? >[] inputTypes ) {
+                return arithmeticType( inputTypes, type() );
+            }
+
         };
 
     /**
@@ -111,6 +124,37 @@ public final class Add extends AbstractOperation< Number > {
     @Override
     protected Number calculate() throws ChrysalixException {
         assert !problems().isError();
+        final Precision precision = precision();
+
+        if ( precision.mode() != Precision.Mode.MIXED ) {
+            return Arithmetic.ADD.calculate( inputs(), precision );
+        }
+
+        // the plan inferred the types of the terms, but a source value can have a different type since
+        final long[] longs = ( ( inferredType() == Long.class ) ? Arithmetic.longs( inputs() ) : null );
+
+        if ( longs != null ) {
+            long result = 0;
+
+            for ( final long value : longs ) {
+                result += value;
+            }
+
+            return result;
+        }
+
+        final double[] doubles = ( ( inferredInputType() == Double.class ) ? Arithmetic.doubles( inputs() ) : null );
+
+        if ( doubles != null ) {
+            double result = 0;
+
+            for ( final double value : doubles ) {
+                result += value;
+            }
+
+            return result;
+        }
+
         Number result = new Long( 0 );
 
         for ( final Value< ? > term : inputs() ) {
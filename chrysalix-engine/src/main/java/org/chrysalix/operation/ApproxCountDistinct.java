@@ -0,0 +1,271 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.common.Logger;
+import org.chrysalix.transformation.ExecutionContext;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Estimates the number of distinct values of a property of the children of one or more collection {@link ModelObject model
+ * objects}, or of the names of the children if no value property is provided, in constant memory. <code>null</code> values are not
+ * counted, and numbers with the same numeric value are counted once regardless of their type.
+ * <p>
+ * Each collection is summarized by a {@link HyperLogLog HyperLogLog} sketch whose precision, between 4 and 18, trades memory for
+ * accuracy: a sketch uses 2<sup><em>precision</em></sup> bytes and has a standard error of about 1.04 /
+ * &radic;2<sup><em>precision</em></sup>. The sketches of the collections are merged into the estimate, and each is built the first
+ * time it is needed during an {@link ExecutionContext execution} and shared by every estimate of the execution that includes the
+ * same collection.
+ * 
+ * @see Distinct for the exact distinct values
+ */
+@Indexed( Operation.class )
+public final class ApproxCountDistinct extends AbstractOperation< Long > {
+
+    /**
+     * The precision used when none is provided.
+     */
+    public static final int DEFAULT_PRECISION = HyperLogLog.DEFAULT_PRECISION;
+
+    static final String DESCRIPTION = "Estimates the number of distinct values of the children of model objects";
+    private static final String COLLECTION_DESCRIPTION =
+        "A model object, or its model-relative path, whose children's distinct values are counted";
+    private static final String COLLECTION_NAME = "Collection";
+    private static final String ERROR_READING_VALUES =
+        "Approximate count distinct operation in transformation '%s' could not read the values of collection '%s'";
+    private static final String INVALID_PRECISION =
+        "Approximate count distinct operation in transformation '%s' has precision %s which is not between %s and %s";
+    static final String NAME = "Approximate Count Distinct";
+    private static final String PRECISION_DESCRIPTION = "The precision of the estimate, between 4 and 18";
+    private static final String PRECISION_NAME = "Precision";
+    private static final String SKETCH_KEY = "distinct-sketch:%s|%s|%s";
+    private static final String VALUE_PROP_DESCRIPTION =
+        "The name of the property holding the values of each child instead of its name";
+    private static final String VALUE_PROP_NAME = "Value Property";
+    private static final Logger LOGGER = Logger.logger( ApproxCountDistinct.class );
+
+    /**
+     * The descriptor for the model objects whose children's distinct values are counted.
+     */
+    public static final ValueDescriptor< Object > COLLECTION_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( ApproxCountDistinct.class, "collection" ),
+                                                     ChrysalixI18n.localize( COLLECTION_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( COLLECTION_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     true );
+
+    /**
+     * The descriptor for the optional name of the property holding the values of each child.
+     */
+    public static final ValueDescriptor< String > VALUE_PROP_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( ApproxCountDistinct.class, "valueProperty" ),
+                                                     ChrysalixI18n.localize( VALUE_PROP_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( VALUE_PROP_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional precision of the estimate.
+     */
+    public static final ValueDescriptor< Number > PRECISION_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( ApproxCountDistinct.class, "precision" ),
+                                                     ChrysalixI18n.localize( PRECISION_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( PRECISION_NAME ),
+                                                     Number.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = {
+                    COLLECTION_DESCRIPTOR,
+                    VALUE_PROP_DESCRIPTOR,
+                    PRECISION_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< Long > DESCRIPTOR =
+        new AbstractOperationDescriptor< Long >( TransformationFactory.createId( ApproxCountDistinct.class ),
+                                                 ChrysalixI18n.localize( DESCRIPTION ),
+                                                 ChrysalixI18n.localize( NAME ),
+                                                 Long.class,
+                                                 INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< Long > newInstance( final ModelObject operation,
+                                                  final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new ApproxCountDistinct( operation, transformation );
+            }
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * An approximate count distinct reads model objects that are not inputs, so it is never folded, shared, or cached.
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#deterministic()
+             */
+            @Override
+            public boolean deterministic() {
+                return false;
+            }
+
+        };
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    ApproxCountDistinct( final ModelObject operation,
+                         final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected Long calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final Object valueProp = inputValue( VALUE_PROP_DESCRIPTOR );
+        final int precision = sketchPrecision();
+        final HyperLogLog sketch = new HyperLogLog( precision );
+
+        for ( final ModelObject collection : inputObjects( COLLECTION_DESCRIPTOR ) ) {
+            sketch.merge( sketch( collection, ( valueProp == null ) ? null : valueProp.toString(), precision ) );
+        }
+
+        return sketch.estimate();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( VALUE_PROP_DESCRIPTOR, PRECISION_DESCRIPTOR );
+        final int precision = sketchPrecision();
+
+        if ( ( precision < HyperLogLog.MIN_PRECISION ) || ( precision > HyperLogLog.MAX_PRECISION ) ) {
+            this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                  ChrysalixI18n.localize( INVALID_PRECISION,
+                                                                                          transformationId(),
+                                                                                          precision,
+                                                                                          HyperLogLog.MIN_PRECISION,
+                                                                                          HyperLogLog.MAX_PRECISION ) ) );
+        }
+
+        return super.problems();
+    }
+
+    private HyperLogLog sketch( final ModelObject collection,
+                                final String valueProp,
+                                final int precision ) throws ChrysalixException {
+        String collectionPath = null;
+
+        try {
+            collectionPath = collection.absolutePath();
+            final ExecutionContext context = ExecutionContext.current();
+            final String key = String.format( SKETCH_KEY, collectionPath, valueProp, precision );
+
+            if ( ( context != null ) && context.hasResult( key ) ) {
+                return ( HyperLogLog ) context.result( key );
+            }
+
+            final long start = System.nanoTime();
+            final HyperLogLog sketch = new HyperLogLog( precision );
+            long count = 0;
+
+            for ( final ModelObject kid : collection.children() ) {
+                if ( valueProp == null ) {
+                    ++count;
+                    sketch.add( kid.name() );
+                } else {
+                    final ModelProperty property = kid.property( valueProp );
+
+                    if ( property != null ) {
+                        for ( final Object value : property.values() ) {
+                            if ( value != null ) {
+                                ++count;
+                                sketch.add( value );
+                            }
+                        }
+                    }
+                }
+            }
+
+            LOGGER.debug( "Sketched %s values of '%s' in %s ms", count, collectionPath, ( System.nanoTime() - start ) / 1000000 );
+
+            if ( context != null ) {
+                context.result( key, sketch );
+            }
+
+            return sketch;
+        } catch ( final ModelspaceException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_READING_VALUES, transformationId(), collectionPath ) );
+        }
+    }
+
+    private int sketchPrecision() throws ChrysalixException {
+        final Object precision = inputValue( PRECISION_DESCRIPTOR );
+        return ( ( precision instanceof Number ) ? ( ( Number ) precision ).intValue() : DEFAULT_PRECISION );
+    }
+
+}
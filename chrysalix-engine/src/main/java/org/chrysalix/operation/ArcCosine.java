@@ -25,6 +25,7 @@ package org.chrysalix.operation;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -41,6 +42,7 @@ import org.modelspace.ModelspaceException;
  * 
  * @see Math#acos(double)
  */
+@Indexed( Operation.class )
 public final class ArcCosine extends AbstractOperation< Double > {
 
     static final String DESCRIPTION = "Calculates the arc cosine of a numeric term";
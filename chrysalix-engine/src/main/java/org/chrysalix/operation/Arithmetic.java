@@ -0,0 +1,313 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.transformation.Precision;
+import org.chrysalix.transformation.Value;
+
+/**
+ * The arithmetic of the {@link Add}, {@link Subtract}, {@link Multiply}, and {@link Divide} operations, and of the
+ * {@link Average}, {@link Max}, {@link Min}, and {@link Median} aggregates, in the {@link Precision.Mode#DOUBLE double} and
+ * {@link Precision.Mode#DECIMAL decimal} precision modes. The terms are combined from left to right.
+ * <p>
+ * In the {@link Precision.Mode#MIXED mixed} mode, the operations read their terms with {@link #longs(Value[])} or
+ * {@link #doubles(Value[])} when the execution plan inferred that all terms are integral or doubles. The plan infers the types of
+ * source properties when it is compiled, and a source property can hold a value of another type since, so these check each value.
+ */
+enum Arithmetic {
+
+    ADD {
+
+        @Override
+        BigDecimal apply( final BigDecimal thisTerm,
+                          final BigDecimal thatTerm,
+                          final MathContext mathContext ) {
+            return thisTerm.add( thatTerm, mathContext );
+        }
+
+        @Override
+        double apply( final double thisTerm,
+                      final double thatTerm ) {
+            return ( thisTerm + thatTerm );
+        }
+
+    },
+
+    DIVIDE {
+
+        @Override
+        BigDecimal apply( final BigDecimal thisTerm,
+                          final BigDecimal thatTerm,
+                          final MathContext mathContext ) {
+            return thisTerm.divide( thatTerm, mathContext );
+        }
+
+        @Override
+        double apply( final double thisTerm,
+                      final double thatTerm ) {
+            return ( thisTerm / thatTerm );
+        }
+
+    },
+
+    MULTIPLY {
+
+        @Override
+        BigDecimal apply( final BigDecimal thisTerm,
+                          final BigDecimal thatTerm,
+                          final MathContext mathContext ) {
+            return thisTerm.multiply( thatTerm, mathContext );
+        }
+
+        @Override
+        double apply( final double thisTerm,
+                      final double thatTerm ) {
+            return ( thisTerm * thatTerm );
+        }
+
+    },
+
+    SUBTRACT {
+
+        @Override
+        BigDecimal apply( final BigDecimal thisTerm,
+                          final BigDecimal thatTerm,
+                          final MathContext mathContext ) {
+            return thisTerm.subtract( thatTerm, mathContext );
+        }
+
+        @Override
+        double apply( final double thisTerm,
+                      final double thatTerm ) {
+            return ( thisTerm - thatTerm );
+        }
+
+    };
+
+    private static Number extreme( final Value< ? >[] terms,
+                                   final Precision precision,
+                                   final int sign ) throws ChrysalixException {
+        assert ( terms.length != 0 );
+        assert ( precision.mode() != Precision.Mode.MIXED );
+
+        if ( precision.mode() == Precision.Mode.DECIMAL ) {
+            BigDecimal result = Precision.toDecimal( ( Number ) terms[ 0 ].get() );
+
+            for ( int i = 1; i < terms.length; ++i ) {
+                final BigDecimal term = Precision.toDecimal( ( Number ) terms[ i ].get() );
+
+                if ( ( term.compareTo( result ) * sign ) > 0 ) {
+                    result = term;
+                }
+            }
+
+            return result.round( precision.mathContext() );
+        }
+
+        double result = ( ( Number ) terms[ 0 ].get() ).doubleValue();
+
+        for ( int i = 1; i < terms.length; ++i ) {
+            final double term = ( ( Number ) terms[ i ].get() ).doubleValue();
+            result = ( ( sign > 0 ) ? Math.max( result, term ) : Math.min( result, term ) );
+        }
+
+        return result;
+    }
+
+    /**
+     * @param terms
+     *        the terms (cannot be <code>null</code>)
+     * @return the values of the terms or <code>null</code> if a value is not a {@link Double}
+     * @throws ChrysalixException
+     *         if a term cannot be read
+     */
+    static double[] doubles( final Value< ? >[] terms ) throws ChrysalixException {
+        final double[] values = new double[ terms.length ];
+
+        for ( int i = 0; i < terms.length; ++i ) {
+            final Object value = terms[ i ].get();
+
+            if ( !( value instanceof Double ) ) {
+                return null;
+            }
+
+            values[ i ] = ( ( Double ) value ).doubleValue();
+        }
+
+        return values;
+    }
+
+    /**
+     * @param terms
+     *        the terms (cannot be <code>null</code>)
+     * @return the values of the terms or <code>null</code> if a value is not a {@link Long}, {@link Integer}, {@link Short}, or
+     *         {@link Byte}
+     * @throws ChrysalixException
+     *         if a term cannot be read
+     */
+    static long[] longs( final Value< ? >[] terms ) throws ChrysalixException {
+        final long[] values = new long[ terms.length ];
+
+        for ( int i = 0; i < terms.length; ++i ) {
+            final Object value = terms[ i ].get();
+
+            if ( !( ( value instanceof Long ) || ( value instanceof Integer ) || ( value instanceof Short )
+                    || ( value instanceof Byte ) ) ) {
+                return null;
+            }
+
+            values[ i ] = ( ( Number ) value ).longValue();
+        }
+
+        return values;
+    }
+
+    /**
+     * @param terms
+     *        the terms, which must all be {@link Number numbers} (cannot be <code>null</code> or empty)
+     * @param precision
+     *        the precision, which cannot be the {@link Precision.Mode#MIXED mixed} mode (cannot be <code>null</code>)
+     * @return the largest term, as a {@link Double} in the double mode and a {@link BigDecimal} in the decimal mode (never
+     *         <code>null</code>)
+     * @throws ChrysalixException
+     *         if a term cannot be read
+     */
+    static Number max( final Value< ? >[] terms,
+                       final Precision precision ) throws ChrysalixException {
+        return extreme( terms, precision, 1 );
+    }
+
+    /**
+     * @param terms
+     *        the terms, which must all be {@link Number numbers} (cannot be <code>null</code> or empty)
+     * @param precision
+     *        the precision, which cannot be the {@link Precision.Mode#MIXED mixed} mode (cannot be <code>null</code>)
+     * @return the mean of the terms, as a {@link Double} in the double mode and a {@link BigDecimal} in the decimal mode (never
+     *         <code>null</code>)
+     * @throws ChrysalixException
+     *         if a term cannot be read
+     */
+    static Number mean( final Value< ? >[] terms,
+                        final Precision precision ) throws ChrysalixException {
+        final Number sum = ADD.calculate( terms, precision );
+
+        if ( precision.mode() == Precision.Mode.DECIMAL ) {
+            return DIVIDE.apply( ( BigDecimal ) sum, BigDecimal.valueOf( terms.length ), precision.mathContext() );
+        }
+
+        return DIVIDE.apply( sum.doubleValue(), terms.length );
+    }
+
+    /**
+     * @param lower
+     *        the middle number, or the lower middle number when there is an even number of terms (cannot be <code>null</code>)
+     * @param upper
+     *        the upper middle number or <code>null</code> when there is an odd number of terms
+     * @param precision
+     *        the precision, which cannot be the {@link Precision.Mode#MIXED mixed} mode (cannot be <code>null</code>)
+     * @return the median, as a {@link Double} in the double mode and a {@link BigDecimal} in the decimal mode (never
+     *         <code>null</code>)
+     */
+    static Number median( final Number lower,
+                          final Number upper,
+                          final Precision precision ) {
+        assert ( precision.mode() != Precision.Mode.MIXED );
+
+        if ( precision.mode() == Precision.Mode.DECIMAL ) {
+            final MathContext mathContext = precision.mathContext();
+
+            if ( upper == null ) {
+                return Precision.toDecimal( lower ).round( mathContext );
+            }
+
+            final BigDecimal sum = ADD.apply( Precision.toDecimal( lower ), Precision.toDecimal( upper ), mathContext );
+            return DIVIDE.apply( sum, BigDecimal.valueOf( 2 ), mathContext );
+        }
+
+        return ( ( upper == null ) ? lower.doubleValue() : ( ( lower.doubleValue() + upper.doubleValue() ) / 2 ) );
+    }
+
+    /**
+     * @param terms
+     *        the terms, which must all be {@link Number numbers} (cannot be <code>null</code> or empty)
+     * @param precision
+     *        the precision, which cannot be the {@link Precision.Mode#MIXED mixed} mode (cannot be <code>null</code>)
+     * @return the smallest term, as a {@link Double} in the double mode and a {@link BigDecimal} in the decimal mode (never
+     *         <code>null</code>)
+     * @throws ChrysalixException
+     *         if a term cannot be read
+     */
+    static Number min( final Value< ? >[] terms,
+                       final Precision precision ) throws ChrysalixException {
+        return extreme( terms, precision, -1 );
+    }
+
+    abstract BigDecimal apply( final BigDecimal thisTerm,
+                               final BigDecimal thatTerm,
+                               final MathContext mathContext );
+
+    abstract double apply( final double thisTerm,
+                           final double thatTerm );
+
+    /**
+     * @param terms
+     *        the terms, which must all be {@link Number numbers} (cannot be <code>null</code> or empty)
+     * @param precision
+     *        the precision, which cannot be the {@link Precision.Mode#MIXED mixed} mode (cannot be <code>null</code>)
+     * @return a {@link Double} in the double mode and a {@link BigDecimal} in the decimal mode (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if a term cannot be read
+     * @throws ArithmeticException
+     *         if a decimal division is by zero
+     */
+    Number calculate( final Value< ? >[] terms,
+                      final Precision precision ) throws ChrysalixException {
+        assert ( terms.length != 0 );
+        assert ( precision.mode() != Precision.Mode.MIXED );
+
+        if ( precision.mode() == Precision.Mode.DECIMAL ) {
+            final MathContext mathContext = precision.mathContext();
+            BigDecimal result = Precision.toDecimal( ( Number ) terms[ 0 ].get() ).round( mathContext );
+
+            for ( int i = 1; i < terms.length; ++i ) {
+                result = apply( result, Precision.toDecimal( ( Number ) terms[ i ].get() ), mathContext );
+            }
+
+            return result;
+        }
+
+        double result = ( ( Number ) terms[ 0 ].get() ).doubleValue();
+
+        for ( int i = 1; i < terms.length; ++i ) {
+            result = apply( result, ( ( Number ) terms[ i ].get() ).doubleValue() );
+        }
+
+        return result;
+    }
+
+}
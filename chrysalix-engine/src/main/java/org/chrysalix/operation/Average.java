@@ -25,8 +25,10 @@ package org.chrysalix.operation;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Precision;
 import org.chrysalix.transformation.Transformation;
 import org.chrysalix.transformation.TransformationFactory;
 import org.chrysalix.transformation.ValidationProblem;
@@ -39,6 +41,7 @@ import org.modelspace.ModelspaceException;
 /**
  * Computes the average value of a collection of number terms.
  */
+@Indexed( Operation.class )
 public final class Average extends AbstractOperation< Number > {
 
     private static String ADD_OPERATION_NOT_FOUND = "Add operation child of the average operation was not found";
@@ -89,6 +92,9 @@ public final class Average extends AbstractOperation< Number > {
 
         };
 
+    private volatile Add addOperation;
+    private volatile Divide divideOperation;
+
     /**
      * @param operation
      *        the operation model object (cannot be <code>null</code>)
@@ -136,6 +142,10 @@ public final class Average extends AbstractOperation< Number > {
     }
 
     private Add addOperation() throws ChrysalixException {
+        if ( this.addOperation != null ) {
+            return this.addOperation;
+        }
+
         ModelObject modelObject = null;
 
         try {
@@ -145,7 +155,8 @@ public final class Average extends AbstractOperation< Number > {
                 throw new ChrysalixException( ChrysalixI18n.localize( ADD_OPERATION_NOT_FOUND ) );
             }
 
-            return ( Add ) Add.DESCRIPTOR.newInstance( modelObject, transformation() );
+            this.addOperation = ( Add ) Add.DESCRIPTOR.newInstance( modelObject, transformation() );
+            return this.addOperation;
         } catch ( final ModelspaceException e ) {
             throw new ChrysalixException( e, ChrysalixI18n.localize( ADD_OPERATION_NOT_FOUND ) );
         }
@@ -159,10 +170,26 @@ public final class Average extends AbstractOperation< Number > {
     @Override
     protected Number calculate() throws ChrysalixException {
         assert !problems().isError();
-        return divideOperation().get();
+        final Precision precision = precision();
+
+        if ( precision.mode() != Precision.Mode.MIXED ) {
+            return Arithmetic.mean( addOperation().inputs(), precision );
+        }
+
+        final NumberStatistics statistics = new NumberStatistics();
+
+        for ( final Value< ? > term : addOperation().inputs() ) {
+            statistics.add( ( Number ) term.get() );
+        }
+
+        return statistics.mean();
     }
 
     private Divide divideOperation() throws ChrysalixException {
+        if ( this.divideOperation != null ) {
+            return this.divideOperation;
+        }
+
         ModelObject modelObject = null;
 
         try {
@@ -172,7 +199,8 @@ public final class Average extends AbstractOperation< Number > {
                 throw new ChrysalixException( ChrysalixI18n.localize( DIVIDE_OPERATION_NOT_FOUND ) );
             }
 
-            return ( Divide ) Divide.DESCRIPTOR.newInstance( modelObject, transformation() );
+            this.divideOperation = ( Divide ) Divide.DESCRIPTOR.newInstance( modelObject, transformation() );
+            return this.divideOperation;
         } catch ( final ModelspaceException e ) {
             throw new ChrysalixException( e, ChrysalixI18n.localize( DIVIDE_OPERATION_NOT_FOUND ) );
         }
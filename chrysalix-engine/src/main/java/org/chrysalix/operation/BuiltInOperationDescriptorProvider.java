@@ -23,37 +23,30 @@
  */
 package org.chrysalix.operation;
 
-import java.io.File;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.net.URL;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.List;
 
+import org.chrysalix.common.ClassIndex;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.common.Logger;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptorProvider;
 import org.chrysalix.transformation.ValueDescriptor;
 
 /**
- * A provider for the built-in {@link Operation operation} descriptors.
+ * A provider for the built-in {@link Operation operation} descriptors. Operations are found using the {@link ClassIndex class
+ * index} generated at build time for classes annotated with <code>{@link Indexed @Indexed}( Operation.class )</code>, so the
+ * classpath is not scanned and discovery works the same from class directories and jars.
  */
 public final class BuiltInOperationDescriptorProvider implements OperationDescriptorProvider {
 
-    private static final String CLASS_EXT = ".class";
-    private static final String PKG_NAME = BuiltInOperationDescriptorProvider.class.getPackage().getName();
-    private static final String PATH = PKG_NAME.replace( '.', '/' );
+    private static final String ERROR_LOADING_OPERATION = "Unable to load the descriptors of indexed operation '%s'";
+    private static final String ERROR_READING_INDEX = "Unable to read the operation class index";
 
     private List< ValueDescriptor< ? > > descriptors;
 
-    private String className( final File file ) {
-        if ( file.getName().endsWith( CLASS_EXT ) ) {
-            return ( PKG_NAME + '.' + file.getName().substring( 0, file.getName().length() - CLASS_EXT.length() ) );
-        }
-
-        return null;
-    }
-
     /**
      * {@inheritDoc}
      * 
@@ -72,56 +65,47 @@ public final class BuiltInOperationDescriptorProvider implements OperationDescri
      * Discover and add descriptors.
      */
     private void discoverDescriptors() {
-        descriptors = new ArrayList<>();
+        final List< ValueDescriptor< ? > > discovered = new ArrayList<>();
+        final ClassLoader classLoader = getClass().getClassLoader();
+        List< String > classNames;
 
         try {
-            final Enumeration< URL > urls = getClass().getClassLoader().getResources( PATH );
-            final List< File > files = new ArrayList<>();
-
-            while ( urls.hasMoreElements() ) {
-                final URL url = urls.nextElement();
-                final File file = new File( url.getFile() );
-                findFiles( file, files );
-            }
-
-            for ( final File file : files ) {
-                final String className = className( file );
-
-                if ( className != null ) {
-                    final Class< ? > clazz = Class.forName( className );
+            classNames = ClassIndex.classNames( Operation.class, classLoader );
+        } catch ( final Exception e ) {
+            logger().error( e, ERROR_READING_INDEX );
+            classNames = new ArrayList<>();
+        }
 
-                    if ( isOperation( clazz ) ) {
-                        // find all static fields that are descriptors
-                        for ( final Field field : clazz.getFields() ) {
-                            if ( Modifier.isStatic( field.getModifiers() )
-                                 && !Modifier.isAbstract( field.getModifiers() )
-                                 && ValueDescriptor.class.isAssignableFrom( field.getType() ) ) {
-                                this.descriptors.add( ( ValueDescriptor< ? > ) field.get( null ) );
-                            }
+        for ( final String className : classNames ) {
+            try {
+                final Class< ? > clazz = Class.forName( className, true, classLoader );
+
+                if ( isOperation( clazz ) ) {
+                    // find all static fields that are descriptors
+                    for ( final Field field : clazz.getFields() ) {
+                        if ( Modifier.isStatic( field.getModifiers() )
+                             && !Modifier.isAbstract( field.getModifiers() )
+                             && ValueDescriptor.class.isAssignableFrom( field.getType() ) ) {
+                            discovered.add( ( ValueDescriptor< ? > ) field.get( null ) );
                         }
                     }
                 }
+            } catch ( final Exception | LinkageError e ) {
+                // an index can name a class removed since it was written
+                logger().error( e, ERROR_LOADING_OPERATION, className );
             }
-        } catch ( final Exception e ) {
-            e.printStackTrace();
         }
-    }
-
-    private void findFiles( final File file,
-                            final List< File > files ) {
-        if ( file.isDirectory() ) {
-            final File dir = file;
 
-            for ( final File dirFile : dir.listFiles() ) {
-                findFiles( dirFile, files );
-            }
-        } else {
-            files.add( file );
-        }
+        this.descriptors = discovered;
     }
 
     private boolean isOperation( final Class< ? > clazz ) {
         return ( Operation.class.isAssignableFrom( clazz ) && !Modifier.isAbstract( clazz.getModifiers() ) );
     }
 
+    private Logger logger() {
+        // only created when there is something to report since creating a logger inspects the caller's class file
+        return Logger.logger( getClass() );
+    }
+
 }
@@ -0,0 +1,395 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.common.Logger;
+import org.chrysalix.transformation.ExecutionContext;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Maps a property of each child of a source {@link ModelObject model object} to a property of a corresponding child of a target
+ * model object. One operation replaces a {@link Map map} operation per child. The children whose names match the optional source
+ * pattern are read one at a time, and the target of each is found using the target template, in which <code>{name}</code> is
+ * replaced by the source child's name. Target writes are handed off in batches, to the commit of the current
+ * {@link ExecutionContext execution} if there is one, or written directly otherwise.
+ * <p>
+ * A child that cannot be mapped, for instance because it has no source property or no target, does not stop the other children
+ * from being mapped. It is reported as one of the {@link #itemProblems() item problems} of the last calculation. The result is
+ * the number of children mapped.
+ */
+@Indexed( Operation.class )
+public final class BulkMap extends AbstractOperation< Integer > {
+
+    /**
+     * The number of target writes handed off at once when no batch size is provided.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * The target template used when none is provided, which maps each source child to the target child with the same name.
+     */
+    public static final String DEFAULT_TARGET_TEMPLATE = "{name}";
+
+    static final String DESCRIPTION = "Maps a property of each matching child of a source model object to a target property";
+    private static final String BATCH_SIZE_DESCRIPTION = "The number of target writes handed off at once";
+    private static final String BATCH_SIZE_NAME = "Batch Size";
+    private static final String ERROR_MAPPING_ITEM = "Bulk map operation in transformation '%s' could not map source object '%s'";
+    private static final String ERROR_READING_SOURCE =
+        "Bulk map operation in transformation '%s' could not read the children of its source";
+    private static final String NAME_PLACEHOLDER = "{name}";
+    static final String NAME = "Bulk Map";
+    private static final String NO_SOURCE_PROPERTY =
+        "Source object '%s' of a bulk map operation in transformation '%s' does not have property '%s'";
+    private static final String NO_TARGET =
+        "Source object '%s' of a bulk map operation in transformation '%s' has no target '%s'";
+    private static final String SOURCE_DESCRIPTION = "The model object, or its model-relative path, whose children are mapped";
+    private static final String SOURCE_NAME = "Source";
+    private static final String SOURCE_PATTERN_DESCRIPTION =
+        "The pattern, where '*' matches any characters and '?' one character, that the names of mapped children must match";
+    private static final String SOURCE_PATTERN_NAME = "Source Pattern";
+    private static final String SOURCE_PROP_DESCRIPTION = "The name of the property read from each source child";
+    private static final String SOURCE_PROP_NAME = "Source Property";
+    private static final String TARGET_DESCRIPTION = "The model object, or its model-relative path, containing the targets";
+    private static final String TARGET_NAME = "Target";
+    private static final String TARGET_PROP_DESCRIPTION = "The name of the property written to each target";
+    private static final String TARGET_PROP_NAME = "Target Property";
+    private static final String TARGET_TEMPLATE_DESCRIPTION =
+        "The path of each target relative to the target object, where '{name}' is replaced by the source child's name";
+    private static final String TARGET_TEMPLATE_NAME = "Target Template";
+    private static final Logger LOGGER = Logger.logger( BulkMap.class );
+
+    /**
+     * The descriptor for the model object whose children are mapped.
+     */
+    public static final ValueDescriptor< Object > SOURCE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( BulkMap.class, "source" ),
+                                                     ChrysalixI18n.localize( SOURCE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( SOURCE_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional pattern the names of mapped children must match.
+     */
+    public static final ValueDescriptor< String > SOURCE_PATTERN_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( BulkMap.class, "sourcePattern" ),
+                                                     ChrysalixI18n.localize( SOURCE_PATTERN_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( SOURCE_PATTERN_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the name of the property read from each source child.
+     */
+    public static final ValueDescriptor< String > SOURCE_PROP_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( BulkMap.class, "sourceProperty" ),
+                                                     ChrysalixI18n.localize( SOURCE_PROP_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( SOURCE_PROP_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the model object containing the targets.
+     */
+    public static final ValueDescriptor< Object > TARGET_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( BulkMap.class, "target" ),
+                                                     ChrysalixI18n.localize( TARGET_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( TARGET_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional template of the target paths.
+     */
+    public static final ValueDescriptor< String > TARGET_TEMPLATE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( BulkMap.class, "targetTemplate" ),
+                                                     ChrysalixI18n.localize( TARGET_TEMPLATE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( TARGET_TEMPLATE_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the name of the property written to each target.
+     */
+    public static final ValueDescriptor< String > TARGET_PROP_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( BulkMap.class, "targetProperty" ),
+                                                     ChrysalixI18n.localize( TARGET_PROP_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( TARGET_PROP_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional number of target writes handed off at once.
+     */
+    public static final ValueDescriptor< Number > BATCH_SIZE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( BulkMap.class, "batchSize" ),
+                                                     ChrysalixI18n.localize( BATCH_SIZE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( BATCH_SIZE_NAME ),
+                                                     Number.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = {
+                    SOURCE_DESCRIPTOR,
+                    SOURCE_PATTERN_DESCRIPTOR,
+                    SOURCE_PROP_DESCRIPTOR,
+                    TARGET_DESCRIPTOR,
+                    TARGET_TEMPLATE_DESCRIPTOR,
+                    TARGET_PROP_DESCRIPTOR,
+                    BATCH_SIZE_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< Integer > DESCRIPTOR =
+        new AbstractOperationDescriptor< Integer >( TransformationFactory.createId( BulkMap.class ),
+                                                    ChrysalixI18n.localize( DESCRIPTION ),
+                                                    ChrysalixI18n.localize( NAME ),
+                                                    Integer.class,
+                                                    INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< Integer > newInstance( final ModelObject operation,
+                                                     final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new BulkMap( operation, transformation );
+            }
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * A bulk map reads and writes model objects that are not inputs, so it is never folded, shared, or cached.
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#deterministic()
+             */
+            @Override
+            public boolean deterministic() {
+                return false;
+            }
+
+        };
+
+    private volatile ValidationProblems itemProblems = TransformationFactory.createValidationProblems();
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    BulkMap( final ModelObject operation,
+             final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected Integer calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final ModelObject source = inputObject( SOURCE_DESCRIPTOR );
+        final String sourceProp = ( String ) inputValue( SOURCE_PROP_DESCRIPTOR );
+        final ModelObject target = inputObject( TARGET_DESCRIPTOR );
+        final String targetProp = ( String ) inputValue( TARGET_PROP_DESCRIPTOR );
+        final Object patternInput = inputValue( SOURCE_PATTERN_DESCRIPTOR );
+        final Pattern pattern = ( ( patternInput == null ) ? null : Values.glob( patternInput.toString() ) );
+        final Object templateInput = inputValue( TARGET_TEMPLATE_DESCRIPTOR );
+        final String template = ( ( templateInput == null ) ? DEFAULT_TARGET_TEMPLATE : templateInput.toString() );
+        final Object batchSizeInput = inputValue( BATCH_SIZE_DESCRIPTOR );
+        final int batchSize =
+            ( batchSizeInput instanceof Number ) ? Math.max( 1, ( ( Number ) batchSizeInput ).intValue() ) : DEFAULT_BATCH_SIZE;
+
+        final ValidationProblems problems = TransformationFactory.createValidationProblems();
+        final List< ModelObject > targets = new ArrayList<>( Math.min( batchSize, DEFAULT_BATCH_SIZE ) );
+        final List< Object[] > values = new ArrayList<>( Math.min( batchSize, DEFAULT_BATCH_SIZE ) );
+        final ExecutionContext context = ExecutionContext.current();
+        int mapped = 0;
+        int batches = 0;
+
+        try {
+            for ( final ModelObject item : source.children() ) {
+                final String name = item.name();
+
+                if ( ( pattern != null ) && !pattern.matcher( name ).matches() ) {
+                    continue;
+                }
+
+                try {
+                    final ModelProperty property = item.property( sourceProp );
+
+                    if ( property == null ) {
+                        problems.add( TransformationFactory.createWarning( transformationId(),
+                                                                           ChrysalixI18n.localize( NO_SOURCE_PROPERTY,
+                                                                                                   name,
+                                                                                                   transformationId(),
+                                                                                                   sourceProp ) ) );
+                        continue;
+                    }
+
+                    final String targetPath = template.replace( NAME_PLACEHOLDER, name );
+                    final ModelObject targetObject = target.child( targetPath );
+
+                    if ( targetObject == null ) {
+                        problems.add( TransformationFactory.createWarning( transformationId(),
+                                                                           ChrysalixI18n.localize( NO_TARGET,
+                                                                                                   name,
+                                                                                                   transformationId(),
+                                                                                                   targetPath ) ) );
+                        continue;
+                    }
+
+                    targets.add( targetObject );
+                    values.add( property.values() );
+                } catch ( final ModelspaceException e ) {
+                    problems.add( TransformationFactory.createError( transformationId(),
+                                                                     ChrysalixI18n.localize( ERROR_MAPPING_ITEM,
+                                                                                             transformationId(),
+                                                                                             name ) ) );
+                    continue;
+                }
+
+                if ( targets.size() == batchSize ) {
+                    mapped += write( context, targets, values, targetProp, problems );
+                    ++batches;
+                }
+            }
+
+            if ( !targets.isEmpty() ) {
+                mapped += write( context, targets, values, targetProp, problems );
+                ++batches;
+            }
+        } catch ( final ModelspaceException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_READING_SOURCE, transformationId() ) );
+        }
+
+        this.itemProblems = problems;
+        LOGGER.debug( "Bulk map in transformation '%s' mapped %s objects in %s batches with %s problems",
+                      transformationId(),
+                      mapped,
+                      batches,
+                      problems.size() );
+        return mapped;
+    }
+
+    /**
+     * @return the problems mapping individual source objects found by the last calculation (never <code>null</code>)
+     */
+    public ValidationProblems itemProblems() {
+        return this.itemProblems;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( INPUT_DESCRIPTORS );
+        return super.problems();
+    }
+
+    /**
+     * Hands off a batch of target writes and clears it.
+     * 
+     * @return the number of targets written or deferred
+     */
+    private int write( final ExecutionContext context,
+                       final List< ModelObject > targets,
+                       final List< Object[] > values,
+                       final String targetProp,
+                       final ValidationProblems problems ) throws ChrysalixException {
+        int written = 0;
+
+        for ( int i = 0; i < targets.size(); ++i ) {
+            final ModelObject target = targets.get( i );
+
+            try {
+                if ( context == null ) {
+                    target.setProperty( targetProp, values.get( i ) );
+                } else {
+                    context.defer( target, targetProp, values.get( i ) );
+                }
+
+                ++written;
+            } catch ( final ModelspaceException e ) {
+                problems.add( TransformationFactory.createError( transformationId(),
+                                                                 ChrysalixI18n.localize( ERROR_MAPPING_ITEM,
+                                                                                         transformationId(),
+                                                                                         String.valueOf( target ) ) ) );
+            }
+        }
+
+        targets.clear();
+        values.clear();
+        return written;
+    }
+
+}
@@ -23,8 +23,14 @@
  */
 package org.chrysalix.operation;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.CheckArg;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -37,14 +43,22 @@ import org.modelspace.ModelObject;
 import org.modelspace.ModelspaceException;
 
 /**
- * A string concatenation operation.
+ * A string concatenation operation. An optional separator is placed between the terms.
+ * <p>
+ * The result is built in a buffer sized from the lengths of the term values, so it is never regrown. Very large concatenations
+ * can instead be {@link #writeTo(Writer) written} to a stream one term at a time, without building the result.
  */
+@Indexed( Operation.class )
 public final class Concat extends AbstractOperation< String > {
 
     static final String DESCRIPTION = "Concatenates the string representation of two or more terms";
+    private static final String ERROR_WRITING = "Concat operation in transformation '%s' could not write its result";
     private static final String INPUT_DESCRIPTION = "An input term being concatenated with other terms";
     private static final String INPUT_NAME = "Input";
     static final String NAME = "Concat";
+    private static final String NULL = "null";
+    private static final String SEPARATOR_DESCRIPTION = "The text placed between the terms";
+    private static final String SEPARATOR_NAME = "Separator";
 
     /**
      * The input term descriptor.
@@ -57,10 +71,23 @@ public final class Concat extends AbstractOperation< String > {
                                                      true,
                                                      2,
                                                      true );
+
+    /**
+     * The descriptor for the optional separator.
+     */
+    public static final ValueDescriptor< String > SEPARATOR_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Concat.class, "separator" ),
+                                                     ChrysalixI18n.localize( SEPARATOR_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( SEPARATOR_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
     /**
      * The input descriptors.
      */
-    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = { TERM_DESCRIPTOR };
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = { TERM_DESCRIPTOR, SEPARATOR_DESCRIPTOR };
 
     /**
      * The output descriptor.
@@ -86,6 +113,10 @@ public final class Concat extends AbstractOperation< String > {
 
         };
 
+    private static CharSequence text( final Object value ) {
+        return ( ( value instanceof CharSequence ) ? ( CharSequence ) value : ( value == null ) ? NULL : value.toString() );
+    }
+
     /**
      * @param operation
      *        the operation model object (cannot be <code>null</code>)
@@ -111,11 +142,24 @@ public final class Concat extends AbstractOperation< String > {
     @Override
     protected String calculate() throws ChrysalixException {
         assert !problems().isError();
-        final StringBuilder result = new StringBuilder();
+        final List< Value< ? > > terms = inputs( TERM_DESCRIPTOR.name() );
+        final CharSequence separator = separator();
+        final CharSequence[] texts = new CharSequence[ terms.size() ];
+        long length = ( long ) separator.length() * Math.max( texts.length - 1, 0 );
 
-        for ( final Value< ? > term : inputs() ) {
-            final Object value = term.get();
-            result.append( ( value == null ) ? "null" : value.toString() );
+        for ( int ndx = 0; ndx < texts.length; ++ndx ) {
+            texts[ ndx ] = text( terms.get( ndx ).get() );
+            length += texts[ ndx ].length();
+        }
+
+        final StringBuilder result = new StringBuilder( ( int ) Math.min( length, Integer.MAX_VALUE ) );
+
+        for ( int ndx = 0; ndx < texts.length; ++ndx ) {
+            if ( ndx != 0 ) {
+                result.append( separator );
+            }
+
+            result.append( texts[ ndx ] );
         }
 
         return result.toString();
@@ -131,17 +175,58 @@ public final class Concat extends AbstractOperation< String > {
         this.problems.clear();
 
         // validate number of terms
-        if ( inputs().length < TERM_DESCRIPTOR.requiredValueCount() ) {
+        final int count = inputs( TERM_DESCRIPTOR.name() ).size();
+
+        if ( count < TERM_DESCRIPTOR.requiredValueCount() ) {
             final ValidationProblem problem =
                 TransformationFactory.createError( transformationId(),
                                                    ChrysalixI18n.localize( AbstractOperation.INVALID_TERM_COUNT,
                                                                            NAME,
                                                                            transformationId(),
-                                                                           inputs().length ) );
-            problems().add( problem );
+                                                                           count ) );
+            this.problems.add( problem );
         }
 
+        validateSingleInputs( SEPARATOR_DESCRIPTOR );
         return super.problems();
     }
 
+    private CharSequence separator() throws ChrysalixException {
+        final Object separator = inputValue( SEPARATOR_DESCRIPTOR );
+        return ( ( separator == null ) ? "" : text( separator ) );
+    }
+
+    /**
+     * Writes the concatenation to a stream one term at a time, so that it is never held in memory as a whole. The writer is
+     * neither flushed nor closed.
+     * 
+     * @param writer
+     *        the writer the concatenation is written to (cannot be <code>null</code>)
+     * @throws ChrysalixException
+     *         if the operation has errors, if a term cannot be evaluated, or if the concatenation cannot be written
+     */
+    public void writeTo( final Writer writer ) throws ChrysalixException {
+        CheckArg.notNull( writer, "writer" );
+        if ( problems().isError() ) {
+            throw new ChrysalixException( ChrysalixI18n.localize( AbstractOperation.OPERATION_HAS_ERRORS, path(), transformationId() ) );
+        }
+
+        final CharSequence separator = separator();
+        boolean first = true;
+
+        try {
+            for ( final Value< ? > term : inputs( TERM_DESCRIPTOR.name() ) ) {
+                if ( first ) {
+                    first = false;
+                } else {
+                    writer.append( separator );
+                }
+
+                writer.append( text( term.get() ) );
+            }
+        } catch ( final IOException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_WRITING, transformationId() ) );
+        }
+    }
+
 }
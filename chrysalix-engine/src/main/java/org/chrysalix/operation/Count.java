@@ -25,6 +25,7 @@ package org.chrysalix.operation;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -36,6 +37,7 @@ import org.modelspace.ModelspaceException;
 /**
  * Counts the number of terms.
  */
+@Indexed( Operation.class )
 public final class Count extends AbstractOperation< Integer > {
 
     static final String DESCRIPTION = "Counts the number of terms";
@@ -0,0 +1,244 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Adds an amount of time to a date. The date is a number of milliseconds since the epoch, a {@link java.util.Calendar calendar}, a
+ * {@link java.util.Date}, or ISO 8601 text, and the amount, which can be negative, is in milliseconds unless a unit is provided.
+ * Days are 24 hours long, and months and years keep the day of the month, or use the last day of a shorter month, in coordinated
+ * universal time.
+ * <p>
+ * The result is the number of milliseconds since the epoch unless a {@link java.util.Calendar calendar}, as needed by date
+ * properties, is requested. A <code>null</code> date results in <code>null</code>.
+ */
+@Indexed( Operation.class )
+public final class DateAdd extends AbstractOperation< Object > {
+
+    private static final String AMOUNT_DESCRIPTION = "The amount of time being added";
+    private static final String AMOUNT_NAME = "Amount";
+    private static final String CALENDAR_DESCRIPTION = "Indicates if the result is a calendar instead of milliseconds since the epoch";
+    private static final String CALENDAR_NAME = "As Calendar";
+    private static final String DATE_DESCRIPTION = "The date the amount of time is added to";
+    private static final String DATE_NAME = "Date";
+    static final String DESCRIPTION = "Adds an amount of time to a date";
+    private static final String INVALID_DATE = "Date add operation in transformation '%s' cannot add to '%s' as it is not a date";
+    private static final String INVALID_UNIT = "Date add operation in transformation '%s' has invalid unit '%s'";
+    private static final String MONTHS = "MONTHS";
+    static final String NAME = "Date Add";
+    private static final String UNIT_DESCRIPTION =
+        "The unit of the amount: MILLISECONDS, SECONDS, MINUTES, HOURS, DAYS, MONTHS, or YEARS";
+    private static final String UNIT_NAME = "Unit";
+    private static final String YEARS = "YEARS";
+    private static final List< String > UNITS = Arrays.asList( TimeUnit.MILLISECONDS.name(),
+                                                               TimeUnit.SECONDS.name(),
+                                                               TimeUnit.MINUTES.name(),
+                                                               TimeUnit.HOURS.name(),
+                                                               TimeUnit.DAYS.name(),
+                                                               MONTHS,
+                                                               YEARS );
+
+    /**
+     * The descriptor for the date the amount of time is added to.
+     */
+    public static final ValueDescriptor< Object > DATE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( DateAdd.class, "date" ),
+                                                     ChrysalixI18n.localize( DATE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( DATE_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the amount of time being added.
+     */
+    public static final ValueDescriptor< Number > AMOUNT_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( DateAdd.class, "amount" ),
+                                                     ChrysalixI18n.localize( AMOUNT_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( AMOUNT_NAME ),
+                                                     Number.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional unit of the amount.
+     */
+    public static final ValueDescriptor< String > UNIT_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( DateAdd.class, "unit" ),
+                                                     ChrysalixI18n.localize( UNIT_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( UNIT_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional indicator of a calendar result.
+     */
+    public static final ValueDescriptor< Boolean > CALENDAR_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( DateAdd.class, "calendar" ),
+                                                     ChrysalixI18n.localize( CALENDAR_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( CALENDAR_NAME ),
+                                                     Boolean.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = {
+                    DATE_DESCRIPTOR,
+                    AMOUNT_DESCRIPTOR,
+                    UNIT_DESCRIPTOR,
+                    CALENDAR_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< Object > DESCRIPTOR =
+        new AbstractOperationDescriptor< Object >( TransformationFactory.createId( DateAdd.class ),
+                                                   ChrysalixI18n.localize( DESCRIPTION ),
+                                                   ChrysalixI18n.localize( NAME ),
+                                                   Object.class,
+                                                   INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< Object > newInstance( final ModelObject operation,
+                                                    final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new DateAdd( operation, transformation );
+            }
+
+        };
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    DateAdd( final ModelObject operation,
+             final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected Object calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final Object date = inputValue( DATE_DESCRIPTOR );
+
+        if ( date == null ) {
+            return null;
+        }
+
+        final long millis = Dates.millis( date );
+        final long amount = ( ( Number ) inputValue( AMOUNT_DESCRIPTOR ) ).longValue();
+        final String unit = unit();
+        final long result;
+
+        if ( MONTHS.equals( unit ) ) {
+            result = Dates.plusMonths( millis, amount );
+        } else if ( YEARS.equals( unit ) ) {
+            result = Dates.plusMonths( millis, amount * 12 );
+        } else {
+            result = millis + TimeUnit.valueOf( unit ).toMillis( amount );
+        }
+
+        return ( Boolean.TRUE.equals( inputValue( CALENDAR_DESCRIPTOR ) ) ? Dates.calendar( result, Dates.UTC ) : ( Object ) result );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( INPUT_DESCRIPTORS );
+        final Object date = inputValue( DATE_DESCRIPTOR );
+
+        if ( ( date != null ) && ( Dates.millis( date ) == Dates.INVALID ) ) {
+            this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                  ChrysalixI18n.localize( INVALID_DATE, transformationId(), date ) ) );
+        }
+
+        if ( !inputs( AMOUNT_DESCRIPTOR.name() ).isEmpty() && !( inputValue( AMOUNT_DESCRIPTOR ) instanceof Number ) ) {
+            this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                  ChrysalixI18n.localize( AbstractOperation.INVALID_TERM_TYPE,
+                                                                                          NAME,
+                                                                                          transformationId() ) ) );
+        }
+
+        final String unit = unit();
+
+        if ( !UNITS.contains( unit ) ) {
+            this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                  ChrysalixI18n.localize( INVALID_UNIT, transformationId(), unit ) ) );
+        }
+
+        return super.problems();
+    }
+
+    private String unit() throws ChrysalixException {
+        final Object unit = inputValue( UNIT_DESCRIPTOR );
+        return ( ( unit == null ) ? TimeUnit.MILLISECONDS.name() : unit.toString().toUpperCase( Locale.ROOT ) );
+    }
+
+}
@@ -0,0 +1,438 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.text.DateFormat;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Date and time conversions used by the date operations. Dates are represented as milliseconds since the epoch, so that values
+ * flow between operations without creating {@link Calendar calendars}.
+ * <p>
+ * ISO 8601 text, as used by XML Schema <code>dateTime</code> and <code>date</code> values and by SQL timestamps, is parsed and
+ * formatted directly using the proleptic Gregorian calendar. Text in other formats uses {@link SimpleDateFormat formatters} which,
+ * as they are not thread safe, are cached per pattern, time zone, and thread. The formatter cache is bounded and cleared when
+ * full.
+ */
+final class Dates {
+
+    /**
+     * The result of {@link #parseIso(CharSequence)} when the text is not valid.
+     */
+    static final long INVALID = Long.MIN_VALUE;
+
+    /**
+     * The maximum number of cached formatter patterns.
+     */
+    static final int MAX_CACHED = 256;
+
+    /**
+     * The number of milliseconds in a day.
+     */
+    static final long MILLIS_PER_DAY = 86400000L;
+
+    /**
+     * The coordinated universal time zone.
+     */
+    static final TimeZone UTC = TimeZone.getTimeZone( "UTC" );
+
+    private static final int[] DAYS_IN_MONTH = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+    private static final ConcurrentMap< String, ThreadLocal< DateFormat > > FORMATS = new ConcurrentHashMap<>();
+
+    /**
+     * @param millis
+     *        the milliseconds since the epoch
+     * @param timeZone
+     *        the time zone of the calendar (cannot be <code>null</code>)
+     * @return a new calendar (never <code>null</code>)
+     */
+    static Calendar calendar( final long millis,
+                              final TimeZone timeZone ) {
+        final Calendar calendar = new GregorianCalendar( timeZone );
+        calendar.setTimeInMillis( millis );
+        return calendar;
+    }
+
+    private static void digits( final char[] chars,
+                                final int offset,
+                                final int count,
+                                final int value ) {
+        int remaining = value;
+
+        for ( int ndx = offset + count - 1; ndx >= offset; --ndx ) {
+            chars[ ndx ] = ( char ) ( '0' + ( remaining % 10 ) );
+            remaining /= 10;
+        }
+    }
+
+    private static int digits( final CharSequence text,
+                               final int offset,
+                               final int count ) {
+        if ( ( offset + count ) > text.length() ) {
+            return -1;
+        }
+
+        int value = 0;
+
+        for ( int ndx = offset; ndx < ( offset + count ); ++ndx ) {
+            final char c = text.charAt( ndx );
+
+            if ( ( c < '0' ) || ( c > '9' ) ) {
+                return -1;
+            }
+
+            value = ( value * 10 ) + ( c - '0' );
+        }
+
+        return value;
+    }
+
+    /**
+     * @param year
+     *        the year
+     * @param month
+     *        the month, from 1 to 12
+     * @param day
+     *        the day of the month, from 1
+     * @return the number of days since the epoch
+     */
+    static long epochDay( final long year,
+                          final int month,
+                          final int day ) {
+        final long y = ( month <= 2 ) ? ( year - 1 ) : year;
+        final long era = ( ( y >= 0 ) ? y : ( y - 399 ) ) / 400;
+        final long yearOfEra = y - ( era * 400 );
+        final long dayOfYear = ( ( ( 153 * ( month + ( ( month > 2 ) ? -3 : 9 ) ) ) + 2 ) / 5 ) + day - 1;
+        final long dayOfEra = ( yearOfEra * 365 ) + ( yearOfEra / 4 ) - ( yearOfEra / 100 ) + dayOfYear;
+        return ( era * 146097 ) + dayOfEra - 719468;
+    }
+
+    /**
+     * @param dividend
+     *        the dividend
+     * @param divisor
+     *        the divisor (cannot be zero)
+     * @return the largest integer less than or equal to the quotient
+     */
+    static long floorDiv( final long dividend,
+                          final long divisor ) {
+        final long quotient = dividend / divisor;
+        return ( ( ( dividend % divisor ) != 0 ) && ( ( dividend < 0 ) != ( divisor < 0 ) ) ) ? ( quotient - 1 ) : quotient;
+    }
+
+    /**
+     * @param dividend
+     *        the dividend
+     * @param divisor
+     *        the divisor (cannot be zero)
+     * @return the remainder of the {@link #floorDiv(long, long) floor division}, which has the sign of the divisor
+     */
+    static long floorMod( final long dividend,
+                          final long divisor ) {
+        return dividend - ( floorDiv( dividend, divisor ) * divisor );
+    }
+
+    /**
+     * @param pattern
+     *        the {@link SimpleDateFormat} pattern (cannot be <code>null</code>)
+     * @param timeZone
+     *        the time zone of the formatter (cannot be <code>null</code>)
+     * @return the non-lenient formatter of the current thread (never <code>null</code>)
+     * @throws IllegalArgumentException
+     *         if the pattern is invalid
+     */
+    static DateFormat format( final String pattern,
+                              final TimeZone timeZone ) {
+        final String key = timeZone.getID() + '|' + pattern;
+        ThreadLocal< DateFormat > formats = FORMATS.get( key );
+
+        if ( formats == null ) {
+            new SimpleDateFormat( pattern ); // fail before caching an invalid pattern
+
+            formats = new ThreadLocal< DateFormat >() {
+
+                @Override
+                protected DateFormat initialValue() {
+                    final DateFormat format = new SimpleDateFormat( pattern );
+                    format.setLenient( false );
+                    format.setTimeZone( timeZone );
+                    return format;
+                }
+            };
+
+            if ( FORMATS.size() >= MAX_CACHED ) {
+                FORMATS.clear();
+            }
+
+            final ThreadLocal< DateFormat > cached = FORMATS.putIfAbsent( key, formats );
+
+            if ( cached != null ) {
+                formats = cached;
+            }
+        }
+
+        return formats.get();
+    }
+
+    /**
+     * @param millis
+     *        the milliseconds since the epoch
+     * @param pattern
+     *        the {@link SimpleDateFormat} pattern (cannot be <code>null</code>)
+     * @param timeZone
+     *        the time zone of the text (cannot be <code>null</code>)
+     * @return the text (never <code>null</code>)
+     * @throws IllegalArgumentException
+     *         if the pattern is invalid
+     */
+    static String format( final long millis,
+                          final String pattern,
+                          final TimeZone timeZone ) {
+        return format( pattern, timeZone ).format( new Date( millis ) );
+    }
+
+    /**
+     * Formats a date as an ISO 8601 coordinated universal time, like <code>2014-06-30T17:05:09.250Z</code>. The fraction of a
+     * second is omitted when it is zero.
+     * 
+     * @param millis
+     *        the milliseconds since the epoch
+     * @return the text (never <code>null</code>)
+     */
+    static String formatIso( final long millis ) {
+        final long epochDay = floorDiv( millis, MILLIS_PER_DAY );
+        final int millisOfDay = ( int ) floorMod( millis, MILLIS_PER_DAY );
+        final long[] date = fromEpochDay( epochDay );
+
+        if ( ( date[ 0 ] < 0 ) || ( date[ 0 ] > 9999 ) ) {
+            return format( millis, "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", UTC );
+        }
+
+        final char[] chars = "0000-00-00T00:00:00.000Z".toCharArray();
+        digits( chars, 0, 4, ( int ) date[ 0 ] );
+        digits( chars, 5, 2, ( int ) date[ 1 ] );
+        digits( chars, 8, 2, ( int ) date[ 2 ] );
+        digits( chars, 11, 2, millisOfDay / 3600000 );
+        digits( chars, 14, 2, ( millisOfDay / 60000 ) % 60 );
+        digits( chars, 17, 2, ( millisOfDay / 1000 ) % 60 );
+
+        if ( ( millisOfDay % 1000 ) == 0 ) {
+            chars[ 19 ] = 'Z';
+            return new String( chars, 0, 20 );
+        }
+
+        digits( chars, 20, 3, millisOfDay % 1000 );
+        return new String( chars );
+    }
+
+    /**
+     * @param epochDay
+     *        the number of days since the epoch
+     * @return the year, month from 1 to 12, and day of the month (never <code>null</code>)
+     */
+    static long[] fromEpochDay( final long epochDay ) {
+        final long days = epochDay + 719468;
+        final long era = ( ( days >= 0 ) ? days : ( days - 146096 ) ) / 146097;
+        final long dayOfEra = days - ( era * 146097 );
+        final long yearOfEra = ( dayOfEra - ( dayOfEra / 1460 ) + ( dayOfEra / 36524 ) - ( dayOfEra / 146096 ) ) / 365;
+        final long dayOfYear = dayOfEra - ( ( 365 * yearOfEra ) + ( yearOfEra / 4 ) - ( yearOfEra / 100 ) );
+        final long shiftedMonth = ( ( 5 * dayOfYear ) + 2 ) / 153;
+        final long day = dayOfYear - ( ( ( 153 * shiftedMonth ) + 2 ) / 5 ) + 1;
+        final long month = ( shiftedMonth < 10 ) ? ( shiftedMonth + 3 ) : ( shiftedMonth - 9 );
+        return new long[] { ( yearOfEra + ( era * 400 ) + ( ( month <= 2 ) ? 1 : 0 ) ), month, day };
+    }
+
+    /**
+     * @param year
+     *        the year
+     * @param month
+     *        the month, from 1 to 12
+     * @return the number of days in the month
+     */
+    static int lengthOfMonth( final long year,
+                              final int month ) {
+        if ( ( month == 2 ) && ( ( year % 4 ) == 0 ) && ( ( ( year % 100 ) != 0 ) || ( ( year % 400 ) == 0 ) ) ) {
+            return 29;
+        }
+
+        return DAYS_IN_MONTH[ month - 1 ];
+    }
+
+    /**
+     * @param value
+     *        a {@link Number} of milliseconds since the epoch, a {@link Calendar}, a {@link Date}, or ISO 8601 text (can be
+     *        <code>null</code>)
+     * @return the milliseconds since the epoch or {@link #INVALID} if the value is not a date
+     */
+    static long millis( final Object value ) {
+        if ( value instanceof Number ) {
+            return ( ( Number ) value ).longValue();
+        }
+
+        if ( value instanceof Calendar ) {
+            return ( ( Calendar ) value ).getTimeInMillis();
+        }
+
+        if ( value instanceof Date ) {
+            return ( ( Date ) value ).getTime();
+        }
+
+        if ( value instanceof CharSequence ) {
+            return parseIso( ( CharSequence ) value );
+        }
+
+        return INVALID;
+    }
+
+    /**
+     * @param text
+     *        the text being parsed (cannot be <code>null</code>)
+     * @param pattern
+     *        the {@link SimpleDateFormat} pattern (cannot be <code>null</code>)
+     * @param timeZone
+     *        the time zone of text without one (cannot be <code>null</code>)
+     * @return the milliseconds since the epoch or {@link #INVALID} if the whole text does not match the pattern
+     * @throws IllegalArgumentException
+     *         if the pattern is invalid
+     */
+    static long parse( final String text,
+                       final String pattern,
+                       final TimeZone timeZone ) {
+        final ParsePosition position = new ParsePosition( 0 );
+        final Date date = format( pattern, timeZone ).parse( text, position );
+        return ( ( ( date == null ) || ( position.getIndex() != text.length() ) ) ? INVALID : date.getTime() );
+    }
+
+    /**
+     * Parses ISO 8601 text without creating objects. The text is a date, like <code>2014-06-30</code>, optionally followed by a
+     * <code>T</code> or a space and a time, like <code>17:05:09</code>, with an optional fraction of a second, and then by an
+     * optional <code>Z</code> or offset, like <code>+02:00</code>. Text without an offset is in coordinated universal time, and
+     * fractions of a millisecond are truncated.
+     * 
+     * @param text
+     *        the text being parsed (cannot be <code>null</code>)
+     * @return the milliseconds since the epoch or {@link #INVALID} if the text is not valid
+     */
+    static long parseIso( final CharSequence text ) {
+        final int length = text.length();
+        final int year = digits( text, 0, 4 );
+        final int month = digits( text, 5, 2 );
+        final int day = digits( text, 8, 2 );
+
+        if ( ( year < 0 ) || ( month < 1 ) || ( month > 12 ) || ( day < 1 ) || ( text.charAt( 4 ) != '-' )
+             || ( text.charAt( 7 ) != '-' ) || ( day > lengthOfMonth( year, month ) ) ) {
+            return INVALID;
+        }
+
+        long millis = epochDay( year, month, day ) * MILLIS_PER_DAY;
+        int ndx = 10;
+
+        if ( ( ndx < length ) && ( ( text.charAt( ndx ) == 'T' ) || ( text.charAt( ndx ) == ' ' ) ) ) {
+            final int hour = digits( text, 11, 2 );
+            final int minute = digits( text, 14, 2 );
+            final int second = digits( text, 17, 2 );
+
+            if ( ( hour < 0 ) || ( hour > 23 ) || ( minute < 0 ) || ( minute > 59 ) || ( second < 0 ) || ( second > 59 )
+                 || ( text.charAt( 13 ) != ':' ) || ( text.charAt( 16 ) != ':' ) ) {
+                return INVALID;
+            }
+
+            millis += ( ( ( hour * 60L ) + minute ) * 60 + second ) * 1000;
+            ndx = 19;
+
+            if ( ( ndx < length ) && ( text.charAt( ndx ) == '.' ) ) {
+                int scale = 100;
+                final int start = ++ndx;
+
+                for ( ; ( ndx < length ) && ( text.charAt( ndx ) >= '0' ) && ( text.charAt( ndx ) <= '9' ); ++ndx ) {
+                    millis += ( text.charAt( ndx ) - '0' ) * scale;
+                    scale /= 10;
+                }
+
+                if ( ndx == start ) {
+                    return INVALID;
+                }
+            }
+        }
+
+        if ( ndx == length ) {
+            return millis;
+        }
+
+        if ( ( text.charAt( ndx ) == 'Z' ) && ( ndx == ( length - 1 ) ) ) {
+            return millis;
+        }
+
+        final char sign = text.charAt( ndx );
+        final int hours = digits( text, ndx + 1, 2 );
+        final int minutes = digits( text, ndx + 4, 2 );
+
+        if ( ( ( sign != '+' ) && ( sign != '-' ) ) || ( hours < 0 ) || ( hours > 14 ) || ( minutes < 0 ) || ( minutes > 59 )
+             || ( text.charAt( ndx + 3 ) != ':' ) || ( length != ( ndx + 6 ) ) ) {
+            return INVALID;
+        }
+
+        final long offset = ( ( hours * 60L ) + minutes ) * 60000;
+        return ( ( sign == '+' ) ? ( millis - offset ) : ( millis + offset ) );
+    }
+
+    /**
+     * @param millis
+     *        the milliseconds since the epoch
+     * @param months
+     *        the number of months being added, which can be negative
+     * @return the milliseconds since the epoch of the same time of day in the resulting month of the coordinated universal time
+     *         calendar, on the same day of the month or on the last day of the month if it is shorter
+     */
+    static long plusMonths( final long millis,
+                            final long months ) {
+        final long[] date = fromEpochDay( floorDiv( millis, MILLIS_PER_DAY ) );
+        final long total = ( date[ 0 ] * 12 ) + ( date[ 1 ] - 1 ) + months;
+        final long year = floorDiv( total, 12 );
+        final int month = ( int ) floorMod( total, 12 ) + 1;
+        final int day = ( int ) Math.min( date[ 2 ], lengthOfMonth( year, month ) );
+        return ( epochDay( year, month, day ) * MILLIS_PER_DAY ) + floorMod( millis, MILLIS_PER_DAY );
+    }
+
+    /**
+     * @param id
+     *        the identifier of a time zone, like <code>America/Chicago</code> or <code>GMT+02:00</code> (can be <code>null</code>)
+     * @return the time zone, which is {@link #UTC} if the identifier is <code>null</code> (never <code>null</code>)
+     */
+    static TimeZone timeZone( final Object id ) {
+        return ( ( id == null ) ? UTC : TimeZone.getTimeZone( id.toString() ) );
+    }
+
+    private Dates() {
+        // static methods only
+    }
+
+}
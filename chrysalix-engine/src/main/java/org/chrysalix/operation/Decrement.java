@@ -25,6 +25,7 @@ package org.chrysalix.operation;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -39,6 +40,7 @@ import org.modelspace.ModelspaceException;
 /**
  * Decrements the term.
  */
+@Indexed( Operation.class )
 public final class Decrement extends AbstractOperation< Integer > {
 
     static final String DESCRIPTION = "Decrements its integer term";
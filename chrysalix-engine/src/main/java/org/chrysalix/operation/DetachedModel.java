@@ -0,0 +1,204 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.ChrysalixLexicon;
+import org.chrysalix.common.CheckArg;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.Value;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.Metamodel;
+import org.modelspace.Model;
+import org.modelspace.Modelspace;
+import org.modelspace.ModelspaceException;
+import org.modelspace.spi.Dependency;
+
+/**
+ * An in-memory {@link Model model} used for scratch computation. The {@link Operation operations} and {@link Value values}
+ * created here use the same descriptors and calculation logic as persisted ones, but their inputs are only held in memory and
+ * nothing is ever written to the modelspace. Inputs that are other values, operations, or model properties are held by
+ * reference instead of by path, so detached operations can be composed freely.
+ * <p>
+ * The modelspace is only used to find the {@link TransformationFactory factory} that supplies the descriptors. Changing a
+ * detached operation never changes the definition of a transformation. Instances are not thread safe.
+ * 
+ * @see TransformationFactory#createDetachedModel()
+ */
+public final class DetachedModel extends DetachedObject implements Model {
+
+    private static final String ERROR_CREATING_OPERATION = "Unable to create detached operation '%s'";
+    private static final String NAME = "detached";
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final Modelspace modelspace;
+
+    /**
+     * @param modelspace
+     *        the modelspace whose transformation factory supplies the descriptors (cannot be <code>null</code>)
+     */
+    public DetachedModel( final Modelspace modelspace ) {
+        // a unique name keeps the paths of detached operations from colliding in an execution context
+        super( null, NAME + SEQUENCE.incrementAndGet(), ChrysalixLexicon.Transformation.NODE_TYPE );
+        CheckArg.notNull( modelspace, "modelspace" );
+        this.modelspace = modelspace;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.DetachedObject#absolutePath()
+     */
+    @Override
+    public String absolutePath() {
+        return ( '/' + name() );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.Model#allDependenciesExist()
+     */
+    @Override
+    public boolean allDependenciesExist() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.Model#dependencies()
+     */
+    @Override
+    public Set< Dependency > dependencies() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.Model#externalLocation()
+     */
+    @Override
+    public URL externalLocation() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.Model#metamodel()
+     */
+    @Override
+    public Metamodel metamodel() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.Model#missingDependencies()
+     */
+    @Override
+    public Set< Dependency > missingDependencies() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.DetachedObject#model()
+     */
+    @Override
+    public Model model() {
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.DetachedObject#modelRelativePath()
+     */
+    @Override
+    public String modelRelativePath() {
+        return "";
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.Model#modelspace()
+     */
+    @Override
+    public Modelspace modelspace() {
+        return this.modelspace;
+    }
+
+    /**
+     * @param descriptor
+     *        the descriptor of the operation being created (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation the operation is computing for (can be <code>null</code>)
+     * @return the new detached operation (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the operation cannot be created
+     */
+    public < T > Operation< T > newOperation( final OperationDescriptor< T > descriptor,
+                                              final Transformation transformation ) throws ChrysalixException {
+        CheckArg.notNull( descriptor, "descriptor" );
+        final DetachedObject operation = newChild( ChrysalixLexicon.Operation.NODE_TYPE, descriptor.id() );
+
+        try {
+            return descriptor.newInstance( operation, transformation );
+        } catch ( final ModelspaceException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_CREATING_OPERATION, descriptor.id() ) );
+        }
+    }
+
+    /**
+     * @param descriptor
+     *        the descriptor of the value being created (cannot be <code>null</code>)
+     * @param initialValue
+     *        the initial value, which may be another value or operation held by reference (can be <code>null</code>)
+     * @return the new detached value (never <code>null</code>)
+     */
+    public < T > Value< T > newValue( final ValueDescriptor< T > descriptor,
+                                      final Object initialValue ) {
+        CheckArg.notNull( descriptor, "descriptor" );
+        final DetachedObject input = newChild( ChrysalixLexicon.Input.NODE_TYPE, descriptor.id() );
+        input.setProperty( ChrysalixLexicon.Input.PATH, false );
+        input.setProperty( ChrysalixLexicon.Input.VALUE, initialValue );
+        return new ValueImpl<>( descriptor.id(), input );
+    }
+
+}
@@ -0,0 +1,651 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Pattern;
+
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.CheckArg;
+import org.modelspace.Descriptor;
+import org.modelspace.Model;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+import org.modelspace.PropertyDescriptor;
+
+/**
+ * A {@link ModelObject model object} whose children and properties are only held in memory. Detached objects are never written
+ * to a modelspace and so every method here is cheap. Instances are not thread safe.
+ * 
+ * @see DetachedModel
+ */
+class DetachedObject implements ModelObject {
+
+    private static final String CHILD_NOT_FOUND = "Child '%s' of detached object '%s' was not found";
+    static final String UNSTRUCTURED = "nt:unstructured";
+
+    static Descriptor descriptor( final String typeName ) {
+        return new Descriptor() {
+
+            @Override
+            public Descriptor[] childDescriptors() {
+                return new Descriptor[ 0 ];
+            }
+
+            @Override
+            public String name() {
+                return typeName;
+            }
+
+            @Override
+            public PropertyDescriptor[] propertyDescriptors() {
+                return PropertyDescriptor.NO_DESCRIPTORS;
+            }
+
+            @Override
+            public String toString() {
+                return typeName;
+            }
+
+        };
+    }
+
+    /**
+     * @param childName
+     *        a child name or name pattern (cannot be <code>null</code>)
+     * @return <code>true</code> if the name is a repository name pattern, which has alternatives separated by '|' and where '*'
+     *         matches any characters
+     */
+    static boolean isNamePattern( final String childName ) {
+        return ( ( childName.indexOf( '*' ) != -1 ) || ( childName.indexOf( '|' ) != -1 ) );
+    }
+
+    private static Pattern namePattern( final String childName ) {
+        final StringBuilder regex = new StringBuilder();
+
+        for ( final String alternative : childName.split( "\\|" ) ) {
+            if ( regex.length() != 0 ) {
+                regex.append( '|' );
+            }
+
+            final String[] literals = alternative.trim().split( "\\*", -1 );
+
+            for ( int i = 0; i < literals.length; ++i ) {
+                if ( i != 0 ) {
+                    regex.append( ".*" );
+                }
+
+                if ( !literals[ i ].isEmpty() ) {
+                    regex.append( Pattern.quote( literals[ i ] ) );
+                }
+            }
+        }
+
+        return Pattern.compile( regex.toString() );
+    }
+
+    private final List< DetachedObject > children = new ArrayList<>();
+    private final List< String > mixinTypes = new ArrayList<>();
+    private final String name;
+    private final DetachedObject parent;
+    private String primaryType;
+    private final Map< String, Object[] > properties = new LinkedHashMap<>();
+
+    /**
+     * @param parent
+     *        the parent object (can be <code>null</code> only for a {@link DetachedModel model})
+     * @param name
+     *        the object name (cannot be <code>null</code> or empty)
+     * @param primaryType
+     *        the primary type (can be <code>null</code> or empty)
+     */
+    DetachedObject( final DetachedObject parent,
+                    final String name,
+                    final String primaryType ) {
+        CheckArg.notEmpty( name, "name" );
+        this.parent = parent;
+        this.name = name;
+        this.primaryType = ( ( ( primaryType == null ) || primaryType.isEmpty() ) ? UNSTRUCTURED : primaryType );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelElement#absolutePath()
+     */
+    @Override
+    public String absolutePath() {
+        return ( this.parent.absolutePath() + '/' + segment() );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#addChild(java.lang.String, java.lang.String[])
+     */
+    @Override
+    public ModelObject[] addChild( final String childName,
+                                   final String... additionalChildNames ) {
+        return addChildOfType( null, childName, additionalChildNames );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#addChildOfType(java.lang.String, java.lang.String, java.util.Map)
+     */
+    @Override
+    public ModelObject addChildOfType( final String primaryTypeId,
+                                       final String childName,
+                                       final Map< String, ? > valuesByProperty ) {
+        final DetachedObject child = newChild( primaryTypeId, childName );
+        child.setProperties( valuesByProperty );
+        return child;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#addChildOfType(java.lang.String, java.lang.String, java.lang.String[])
+     */
+    @Override
+    public ModelObject[] addChildOfType( final String primaryTypeId,
+                                         final String childName,
+                                         final String... additionalChildNames ) {
+        final int count = ( ( additionalChildNames == null ) ? 0 : additionalChildNames.length );
+        final ModelObject[] added = new ModelObject[ count + 1 ];
+        added[ 0 ] = newChild( primaryTypeId, childName );
+
+        for ( int i = 0; i < count; ++i ) {
+            added[ i + 1 ] = newChild( primaryTypeId, additionalChildNames[ i ] );
+        }
+
+        return added;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#addMixinType(java.lang.String, java.util.Map)
+     */
+    @Override
+    public void addMixinType( final String typeId,
+                              final Map< String, ? > valuesByProperty ) {
+        CheckArg.notEmpty( typeId, "typeId" );
+
+        if ( !this.mixinTypes.contains( typeId ) ) {
+            this.mixinTypes.add( typeId );
+        }
+
+        setProperties( valuesByProperty );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#addMixinType(java.lang.String, java.lang.String[])
+     */
+    @Override
+    public void addMixinType( final String typeId,
+                              final String... additionalTypeIds ) {
+        addMixinType( typeId, ( Map< String, ? > ) null );
+
+        if ( additionalTypeIds != null ) {
+            for ( final String additionalTypeId : additionalTypeIds ) {
+                addMixinType( additionalTypeId, ( Map< String, ? > ) null );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#child(java.lang.String)
+     */
+    @Override
+    public ModelObject child( final String childName ) {
+        CheckArg.notEmpty( childName, "childName" );
+
+        for ( final DetachedObject kid : this.children ) {
+            if ( kid.name.equals( childName ) ) {
+                return kid;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#childHasSameNameSiblings(java.lang.String)
+     */
+    @Override
+    public boolean childHasSameNameSiblings( final String childName ) {
+        return ( children( childName ).length > 1 );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#children()
+     */
+    @Override
+    public ModelObject[] children() {
+        return this.children.toArray( new ModelObject[ this.children.size() ] );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * As in a repository, the name can be a name pattern.
+     * 
+     * @see #isNamePattern(String)
+     * @see org.modelspace.ModelObject#children(java.lang.String)
+     */
+    @Override
+    public ModelObject[] children( final String childName ) {
+        CheckArg.notEmpty( childName, "childName" );
+        final Pattern pattern = ( isNamePattern( childName ) ? namePattern( childName ) : null );
+        final List< ModelObject > kids = new ArrayList<>();
+
+        for ( final DetachedObject kid : this.children ) {
+            if ( ( pattern == null ) ? kid.name.equals( childName ) : pattern.matcher( kid.name ).matches() ) {
+                kids.add( kid );
+            }
+        }
+
+        return kids.toArray( new ModelObject[ kids.size() ] );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#childrenOfType(java.lang.String)
+     */
+    @Override
+    public ModelObject[] childrenOfType( final String primaryTypeId ) {
+        CheckArg.notEmpty( primaryTypeId, "primaryTypeId" );
+        final List< ModelObject > kids = new ArrayList<>();
+
+        for ( final DetachedObject kid : this.children ) {
+            if ( kid.primaryType.equals( primaryTypeId ) ) {
+                kids.add( kid );
+            }
+        }
+
+        return kids.toArray( new ModelObject[ kids.size() ] );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#hasChild(java.lang.String)
+     */
+    @Override
+    public boolean hasChild( final String childName ) {
+        return ( child( childName ) != null );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#hasChildren()
+     */
+    @Override
+    public boolean hasChildren() {
+        return !this.children.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#hasProperties()
+     */
+    @Override
+    public boolean hasProperties() {
+        return !this.properties.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#hasProperty(java.lang.String)
+     */
+    @Override
+    public boolean hasProperty( final String propertyName ) {
+        CheckArg.notEmpty( propertyName, "propertyName" );
+        return this.properties.containsKey( propertyName );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Like the modelspace implementation, the index of the first object with a given name is zero.
+     * 
+     * @see org.modelspace.ModelObject#index()
+     */
+    @Override
+    public int index() {
+        if ( this.parent == null ) {
+            return 0;
+        }
+
+        int index = 0;
+
+        for ( final DetachedObject sibling : this.parent.children ) {
+            if ( sibling == this ) {
+                break;
+            }
+
+            if ( sibling.name.equals( this.name ) ) {
+                ++index;
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#mixinTypes()
+     */
+    @Override
+    public Descriptor[] mixinTypes() {
+        final Descriptor[] mixins = new Descriptor[ this.mixinTypes.size() ];
+
+        for ( int i = 0; i < mixins.length; ++i ) {
+            mixins[ i ] = descriptor( this.mixinTypes.get( i ) );
+        }
+
+        return mixins;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#model()
+     */
+    @Override
+    public Model model() {
+        return this.parent.model();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#modelRelativePath()
+     */
+    @Override
+    public String modelRelativePath() {
+        if ( this.parent instanceof DetachedModel ) {
+            return segment();
+        }
+
+        return ( this.parent.modelRelativePath() + '/' + segment() );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#name()
+     */
+    @Override
+    public String name() {
+        return this.name;
+    }
+
+    DetachedObject newChild( final String primaryTypeId,
+                                     final String childName ) {
+        final DetachedObject child = new DetachedObject( this, childName, primaryTypeId );
+        this.children.add( child );
+        return child;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#primaryType()
+     */
+    @Override
+    public Descriptor primaryType() {
+        return descriptor( this.primaryType );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#print()
+     */
+    @Override
+    public void print() {
+        final StringBuilder builder = new StringBuilder();
+        print( builder, 0 );
+        System.out.print( builder );
+    }
+
+    private void print( final StringBuilder builder,
+                        final int depth ) {
+        for ( int i = 0; i < depth; ++i ) {
+            builder.append( "  " );
+        }
+
+        builder.append( segment() ).append( " [" ).append( this.primaryType ).append( ']' );
+
+        for ( final Entry< String, Object[] > entry : this.properties.entrySet() ) {
+            builder.append( ' ' ).append( entry.getKey() ).append( '=' );
+
+            final Object[] values = entry.getValue();
+            builder.append( ( values.length == 1 ) ? String.valueOf( values[ 0 ] ) : Arrays.toString( values ) );
+        }
+
+        builder.append( '\n' );
+
+        for ( final DetachedObject kid : this.children ) {
+            kid.print( builder, depth + 1 );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#property(java.lang.String)
+     */
+    @Override
+    public ModelProperty property( final String propertyName ) {
+        return ( hasProperty( propertyName ) ? new DetachedProperty( this, propertyName ) : null );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#propertyNames()
+     */
+    @Override
+    public String[] propertyNames() {
+        return this.properties.keySet().toArray( new String[ this.properties.size() ] );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#removeChild(java.lang.String, java.lang.String[])
+     */
+    @Override
+    public void removeChild( final String childName,
+                             final String... additionalChildNames ) throws ModelspaceException {
+        CheckArg.notEmpty( childName, "childName" );
+        removeChild( childName );
+
+        if ( additionalChildNames != null ) {
+            for ( final String additionalChildName : additionalChildNames ) {
+                removeChild( additionalChildName );
+            }
+        }
+    }
+
+    void remove( final ModelObject child ) {
+        this.children.remove( child );
+    }
+
+    private void removeChild( final String childName ) throws ModelspaceException {
+        final ModelObject kid = child( childName );
+
+        if ( kid == null ) {
+            throw new ModelspaceException( ChrysalixI18n.localize( CHILD_NOT_FOUND, childName, absolutePath() ) );
+        }
+
+        this.children.remove( kid );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#removeMixinType(java.lang.String, java.lang.String[])
+     */
+    @Override
+    public void removeMixinType( final String typeId,
+                                 final String... additionalTypeIds ) {
+        CheckArg.notEmpty( typeId, "typeId" );
+        this.mixinTypes.remove( typeId );
+
+        if ( additionalTypeIds != null ) {
+            for ( final String additionalTypeId : additionalTypeIds ) {
+                this.mixinTypes.remove( additionalTypeId );
+            }
+        }
+    }
+
+    private String segment() {
+        final int index = index();
+        return ( ( index == 0 ) ? this.name : ( this.name + '[' + ( index + 1 ) + ']' ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#setMixinType(java.lang.String, java.util.Map)
+     */
+    @Override
+    public void setMixinType( final String typeId,
+                              final Map< String, ? > valuesByProperty ) {
+        this.mixinTypes.clear();
+
+        if ( typeId != null ) {
+            this.mixinTypes.add( typeId );
+        }
+
+        setProperties( valuesByProperty );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#setMixinTypes(java.lang.String[])
+     */
+    @Override
+    public void setMixinTypes( final String... typeIds ) {
+        this.mixinTypes.clear();
+
+        if ( typeIds != null ) {
+            for ( final String typeId : typeIds ) {
+                if ( ( typeId != null ) && !this.mixinTypes.contains( typeId ) ) {
+                    this.mixinTypes.add( typeId );
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#setPrimaryType(java.lang.String)
+     */
+    @Override
+    public void setPrimaryType( final String typeId ) {
+        this.primaryType = ( ( ( typeId == null ) || typeId.isEmpty() ) ? UNSTRUCTURED : typeId );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelObject#setPrimaryType(java.lang.String, java.util.Map)
+     */
+    @Override
+    public void setPrimaryType( final String typeId,
+                                final Map< String, ? > valuesByProperty ) {
+        setPrimaryType( typeId );
+        setProperties( valuesByProperty );
+    }
+
+    private void setProperties( final Map< String, ? > valuesByProperty ) {
+        if ( valuesByProperty != null ) {
+            for ( final Entry< String, ? > entry : valuesByProperty.entrySet() ) {
+                setProperty( entry.getKey(), entry.getValue() );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Values are held as given, so {@link org.chrysalix.transformation.Value values} and {@link ModelProperty properties} are kept
+     * by reference. Setting a <code>null</code> value or no values removes the property.
+     * 
+     * @see org.modelspace.ModelObject#setProperty(java.lang.String, java.lang.Object[])
+     */
+    @Override
+    public void setProperty( final String propertyName,
+                             final Object... values ) {
+        CheckArg.notEmpty( propertyName, "propertyName" );
+
+        if ( ( values == null ) || ( values.length == 0 ) || ( ( values.length == 1 ) && ( values[ 0 ] == null ) ) ) {
+            this.properties.remove( propertyName );
+        } else {
+            this.properties.put( propertyName, values.clone() );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return absolutePath();
+    }
+
+    Object[] values( final String propertyName ) {
+        return this.properties.get( propertyName );
+    }
+
+}
@@ -0,0 +1,468 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Date;
+
+import org.chrysalix.ChrysalixI18n;
+import org.modelspace.Model;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+import org.modelspace.PropertyDescriptor;
+import org.modelspace.PropertyDescriptor.Type;
+
+/**
+ * A live view of a property of a {@link DetachedObject detached object}. Values are converted the way the modelspace converts
+ * them, so numbers and strings are interchangeable where that makes sense.
+ */
+final class DetachedProperty implements ModelProperty {
+
+    private static final String UNABLE_TO_CONVERT = "Unable to convert '%s' of detached property '%s' to a %s";
+
+    private final String name;
+    private final DetachedObject parent;
+
+    DetachedProperty( final DetachedObject parent,
+                      final String name ) {
+        this.parent = parent;
+        this.name = name;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelElement#absolutePath()
+     */
+    @Override
+    public String absolutePath() {
+        return ( this.parent.absolutePath() + '/' + this.name );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#booleanValue()
+     */
+    @Override
+    public boolean booleanValue() throws ModelspaceException {
+        return toBoolean( value() );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#booleanValues()
+     */
+    @Override
+    public boolean[] booleanValues() throws ModelspaceException {
+        final Object[] values = values();
+        final boolean[] result = new boolean[ values.length ];
+
+        for ( int i = 0; i < values.length; ++i ) {
+            result[ i ] = toBoolean( values[ i ] );
+        }
+
+        return result;
+    }
+
+    private ModelspaceException conversionError( final Object value,
+                                                 final Class< ? > type ) {
+        return new ModelspaceException( ChrysalixI18n.localize( UNABLE_TO_CONVERT, value, absolutePath(), type.getSimpleName() ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#dateValue()
+     */
+    @Override
+    public Calendar dateValue() throws ModelspaceException {
+        return toCalendar( value() );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#dateValues()
+     */
+    @Override
+    public Calendar[] dateValues() throws ModelspaceException {
+        final Object[] values = values();
+        final Calendar[] result = new Calendar[ values.length ];
+
+        for ( int i = 0; i < values.length; ++i ) {
+            result[ i ] = toCalendar( values[ i ] );
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#decimalValue()
+     */
+    @Override
+    public BigDecimal decimalValue() throws ModelspaceException {
+        return toDecimal( value() );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#decimalValues()
+     */
+    @Override
+    public BigDecimal[] decimalValues() throws ModelspaceException {
+        final Object[] values = values();
+        final BigDecimal[] result = new BigDecimal[ values.length ];
+
+        for ( int i = 0; i < values.length; ++i ) {
+            result[ i ] = toDecimal( values[ i ] );
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#descriptor()
+     */
+    @Override
+    public PropertyDescriptor descriptor() {
+        final Object[] values = values();
+        final boolean multiple = ( values.length > 1 );
+        final Type type = type( ( values.length == 0 ) ? null : values[ 0 ] );
+
+        return new PropertyDescriptor() {
+
+            @Override
+            public Object[] defaultValues() {
+                return NO_VALUES;
+            }
+
+            @Override
+            public boolean mandatory() {
+                return false;
+            }
+
+            @Override
+            public boolean modifiable() {
+                return true;
+            }
+
+            @Override
+            public boolean multiple() {
+                return multiple;
+            }
+
+            @Override
+            public String name() {
+                return DetachedProperty.this.name;
+            }
+
+            @Override
+            public Type type() {
+                return type;
+            }
+
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#doubleValue()
+     */
+    @Override
+    public double doubleValue() throws ModelspaceException {
+        return toDouble( value() );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#doubleValues()
+     */
+    @Override
+    public double[] doubleValues() throws ModelspaceException {
+        final Object[] values = values();
+        final double[] result = new double[ values.length ];
+
+        for ( int i = 0; i < values.length; ++i ) {
+            result[ i ] = toDouble( values[ i ] );
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#longValue()
+     */
+    @Override
+    public long longValue() throws ModelspaceException {
+        return toLong( value() );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#longValues()
+     */
+    @Override
+    public long[] longValues() throws ModelspaceException {
+        final Object[] values = values();
+        final long[] result = new long[ values.length ];
+
+        for ( int i = 0; i < values.length; ++i ) {
+            result[ i ] = toLong( values[ i ] );
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelElement#model()
+     */
+    @Override
+    public Model model() {
+        return this.parent.model();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelElement#modelRelativePath()
+     */
+    @Override
+    public String modelRelativePath() {
+        if ( this.parent instanceof DetachedModel ) {
+            return this.name;
+        }
+
+        return ( this.parent.modelRelativePath() + '/' + this.name );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelElement#name()
+     */
+    @Override
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#parent()
+     */
+    @Override
+    public ModelObject parent() {
+        return this.parent;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#set(java.lang.Object[])
+     */
+    @Override
+    public void set( final Object... values ) {
+        this.parent.setProperty( this.name, values );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#stringValue()
+     */
+    @Override
+    public String stringValue() {
+        return String.valueOf( value() );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#stringValues()
+     */
+    @Override
+    public String[] stringValues() {
+        final Object[] values = values();
+        final String[] result = new String[ values.length ];
+
+        for ( int i = 0; i < values.length; ++i ) {
+            result[ i ] = String.valueOf( values[ i ] );
+        }
+
+        return result;
+    }
+
+    private boolean toBoolean( final Object value ) throws ModelspaceException {
+        if ( value instanceof Boolean ) {
+            return ( Boolean ) value;
+        }
+
+        if ( value instanceof String ) {
+            return Boolean.parseBoolean( ( String ) value );
+        }
+
+        throw conversionError( value, Boolean.class );
+    }
+
+    private Calendar toCalendar( final Object value ) throws ModelspaceException {
+        if ( value instanceof Calendar ) {
+            return ( Calendar ) value;
+        }
+
+        if ( ( value instanceof Date ) || ( value instanceof Long ) ) {
+            final Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis( ( value instanceof Date ) ? ( ( Date ) value ).getTime() : ( Long ) value );
+            return calendar;
+        }
+
+        throw conversionError( value, Calendar.class );
+    }
+
+    private BigDecimal toDecimal( final Object value ) throws ModelspaceException {
+        if ( value instanceof BigDecimal ) {
+            return ( BigDecimal ) value;
+        }
+
+        try {
+            if ( ( value instanceof Number ) || ( value instanceof String ) ) {
+                return new BigDecimal( value.toString() );
+            }
+        } catch ( final NumberFormatException e ) {
+            // reported below
+        }
+
+        throw conversionError( value, BigDecimal.class );
+    }
+
+    private double toDouble( final Object value ) throws ModelspaceException {
+        if ( value instanceof Number ) {
+            return ( ( Number ) value ).doubleValue();
+        }
+
+        try {
+            if ( value instanceof String ) {
+                return Double.parseDouble( ( String ) value );
+            }
+        } catch ( final NumberFormatException e ) {
+            // reported below
+        }
+
+        throw conversionError( value, Double.class );
+    }
+
+    private long toLong( final Object value ) throws ModelspaceException {
+        if ( value instanceof Number ) {
+            return ( ( Number ) value ).longValue();
+        }
+
+        try {
+            if ( value instanceof String ) {
+                return Long.parseLong( ( String ) value );
+            }
+        } catch ( final NumberFormatException e ) {
+            // reported below
+        }
+
+        throw conversionError( value, Long.class );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return absolutePath();
+    }
+
+    private Type type( final Object value ) {
+        if ( value instanceof Boolean ) {
+            return Type.BOOLEAN;
+        }
+
+        if ( ( value instanceof Calendar ) || ( value instanceof Date ) ) {
+            return Type.DATE;
+        }
+
+        if ( value instanceof BigDecimal ) {
+            return Type.DECIMAL;
+        }
+
+        if ( ( value instanceof Double ) || ( value instanceof Float ) ) {
+            return Type.DOUBLE;
+        }
+
+        if ( value instanceof Number ) {
+            return Type.LONG;
+        }
+
+        if ( value instanceof String ) {
+            return Type.STRING;
+        }
+
+        return Type.UNDEFINED;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first value is returned when the property has more than one.
+     * 
+     * @see org.modelspace.ModelProperty#value()
+     */
+    @Override
+    public Object value() {
+        final Object[] values = this.parent.values( this.name );
+        return ( ( values == null ) ? null : values[ 0 ] );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.modelspace.ModelProperty#values()
+     */
+    @Override
+    public Object[] values() {
+        final Object[] values = this.parent.values( this.name );
+        return ( ( values == null ) ? new Object[ 0 ] : values.clone() );
+    }
+
+}
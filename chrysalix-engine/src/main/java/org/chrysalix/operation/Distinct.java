@@ -0,0 +1,254 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.common.Logger;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Removes the duplicates from the values of a property of the children of one or more collection {@link ModelObject model
+ * objects}, or from the names of the children if no value property is provided, for instance to find the unique type names used
+ * across many schemas. Numbers with the same numeric value are duplicates regardless of their type.
+ * <p>
+ * Whole numbers are tracked in a primitive open-addressing hash set of <code>long</code>s, and other numbers by their bits in a
+ * second one, so that numeric values are never boxed while being deduplicated. Other values are tracked in a hash set.
+ * <p>
+ * The result is an array of the first occurrence of each distinct value, in collection order.
+ * 
+ * @see ApproxCountDistinct for counting distinct values in constant memory
+ */
+@Indexed( Operation.class )
+public final class Distinct extends AbstractOperation< Object[] > {
+
+    /**
+     * The values seen so far.
+     */
+    private static final class Seen {
+
+        private final LongHashSet fractions = new LongHashSet( 0 );
+        private boolean nullSeen;
+        private final Set< Object > objects = new HashSet<>();
+        private final LongHashSet wholes = new LongHashSet( 0 );
+
+        boolean add( final Object value ) {
+            if ( value == null ) {
+                if ( this.nullSeen ) return false;
+                this.nullSeen = true;
+                return true;
+            }
+
+            if ( !( value instanceof Number ) ) {
+                return this.objects.add( value );
+            }
+
+            final Number number = ( Number ) value;
+
+            if ( NumberStatistics.isIntegral( number ) ) {
+                return this.wholes.add( number.longValue() );
+            }
+
+            final double doubleValue = number.doubleValue();
+
+            if ( HyperLogLog.isWhole( doubleValue ) ) {
+                return this.wholes.add( ( long ) doubleValue );
+            }
+
+            return this.fractions.add( Double.doubleToLongBits( doubleValue ) );
+        }
+
+    }
+
+    static final String DESCRIPTION = "Removes the duplicates from the values of the children of model objects";
+    private static final String COLLECTION_DESCRIPTION =
+        "A model object, or its model-relative path, whose children's values are deduplicated";
+    private static final String COLLECTION_NAME = "Collection";
+    private static final String ERROR_READING_VALUES =
+        "Distinct operation in transformation '%s' could not read the values of collection '%s'";
+    static final String NAME = "Distinct";
+    private static final String VALUE_PROP_DESCRIPTION =
+        "The name of the property holding the values of each child instead of its name";
+    private static final String VALUE_PROP_NAME = "Value Property";
+    private static final Logger LOGGER = Logger.logger( Distinct.class );
+
+    /**
+     * The descriptor for the model objects whose children's values are deduplicated.
+     */
+    public static final ValueDescriptor< Object > COLLECTION_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Distinct.class, "collection" ),
+                                                     ChrysalixI18n.localize( COLLECTION_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( COLLECTION_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     true );
+
+    /**
+     * The descriptor for the optional name of the property holding the values of each child.
+     */
+    public static final ValueDescriptor< String > VALUE_PROP_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Distinct.class, "valueProperty" ),
+                                                     ChrysalixI18n.localize( VALUE_PROP_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( VALUE_PROP_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = { COLLECTION_DESCRIPTOR, VALUE_PROP_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< Object[] > DESCRIPTOR =
+        new AbstractOperationDescriptor< Object[] >( TransformationFactory.createId( Distinct.class ),
+                                                     ChrysalixI18n.localize( DESCRIPTION ),
+                                                     ChrysalixI18n.localize( NAME ),
+                                                     Object[].class,
+                                                     INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< Object[] > newInstance( final ModelObject operation,
+                                                      final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new Distinct( operation, transformation );
+            }
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * A distinct reads model objects that are not inputs, so it is never folded, shared, or cached.
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#deterministic()
+             */
+            @Override
+            public boolean deterministic() {
+                return false;
+            }
+
+        };
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    Distinct( final ModelObject operation,
+              final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected Object[] calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final Object valueProp = inputValue( VALUE_PROP_DESCRIPTOR );
+        final Seen seen = new Seen();
+        final List< Object > distinct = new ArrayList<>();
+        final long start = System.nanoTime();
+        long count = 0;
+
+        for ( final ModelObject collection : inputObjects( COLLECTION_DESCRIPTOR ) ) {
+            String collectionPath = null;
+
+            try {
+                collectionPath = collection.absolutePath();
+
+                for ( final ModelObject kid : collection.children() ) {
+                    if ( valueProp == null ) {
+                        ++count;
+
+                        if ( seen.add( kid.name() ) ) {
+                            distinct.add( kid.name() );
+                        }
+                    } else {
+                        final ModelProperty property = kid.property( valueProp.toString() );
+
+                        if ( property != null ) {
+                            for ( final Object value : property.values() ) {
+                                ++count;
+
+                                if ( seen.add( value ) ) {
+                                    distinct.add( value );
+                                }
+                            }
+                        }
+                    }
+                }
+            } catch ( final ModelspaceException e ) {
+                throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_READING_VALUES, transformationId(), collectionPath ) );
+            }
+        }
+
+        LOGGER.debug( "Found %s distinct values among %s in %s ms", distinct.size(), count, ( System.nanoTime() - start ) / 1000000 );
+        return distinct.toArray();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( VALUE_PROP_DESCRIPTOR );
+        return super.problems();
+    }
+
+}
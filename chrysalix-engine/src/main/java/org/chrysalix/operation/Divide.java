@@ -25,8 +25,10 @@ package org.chrysalix.operation;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Precision;
 import org.chrysalix.transformation.Transformation;
 import org.chrysalix.transformation.TransformationFactory;
 import org.chrysalix.transformation.ValidationProblem;
@@ -39,6 +41,7 @@ import org.modelspace.ModelspaceException;
 /**
  * Divides a collection of terms.
  */
+@Indexed( Operation.class )
 public final class Divide extends AbstractOperation< Number > {
 
     static final String DESCRIPTION = "Divides two or more numbers together";
@@ -85,6 +88,16 @@ public final class Divide extends AbstractOperation< Number > {
                 return new Divide( operation, transformation );
             }
 
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#resultType(java.lang.Class[])
+             */
+            @Override
+            public Class< ? > resultType( final Class< ? >[] inputTypes ) {
+                return arithmeticType( inputTypes, type() );
+            }
+
         };
 
     /**
@@ -112,6 +125,37 @@ public final class Divide extends AbstractOperation< Number > {
     @Override
     protected Number calculate() throws ChrysalixException {
         assert !problems().isError();
+        final Precision precision = precision();
+
+        if ( precision.mode() != Precision.Mode.MIXED ) {
+            return Arithmetic.DIVIDE.calculate( inputs(), precision );
+        }
+
+        // the plan inferred the types of the terms, but a source value can have a different type since
+        final long[] longs = ( ( inferredType() == Long.class ) ? Arithmetic.longs( inputs() ) : null );
+
+        if ( longs != null ) {
+            long result = longs[ 0 ];
+
+            for ( int i = 1; i < longs.length; ++i ) {
+                result /= longs[ i ];
+            }
+
+            return result;
+        }
+
+        final double[] doubles = ( ( inferredInputType() == Double.class ) ? Arithmetic.doubles( inputs() ) : null );
+
+        if ( doubles != null ) {
+            double result = doubles[ 0 ];
+
+            for ( int i = 1; i < doubles.length; ++i ) {
+                result /= doubles[ i ];
+            }
+
+            return result;
+        }
+
         Number result = null;
         int i = 0;
 
@@ -0,0 +1,270 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import org.chrysalix.common.CheckArg;
+
+/**
+ * Parses decimal text into <code>double</code>s without creating intermediate strings or throwing exceptions for invalid text.
+ * Whether the text of the last call was valid is reported by {@link #valid()} instead, so that columns of mostly numeric text can
+ * be parsed quickly. Text with at most 15 significant digits and a decimal exponent between -22 and 22, which covers almost all
+ * values found in models, is converted exactly with a single multiplication or division. All other valid text is converted by
+ * {@link Double#parseDouble(String)}.
+ * <p>
+ * The accepted text is the decimal form accepted by {@link Double#valueOf(String)}, surrounded by optional whitespace, plus the
+ * <code>NaN</code>, <code>Infinity</code>, and XML Schema <code>INF</code> special values with an optional sign. Hexadecimal
+ * text and text with a <code>d</code> or <code>f</code> type suffix are not accepted.
+ * <p>
+ * A parser is not thread safe but is cheap to create.
+ */
+public final class DoubleParser {
+
+    private static final int MAX_DIGITS = 18; // any 18-digit number fits in a long
+    private static final int MAX_EXACT_DIGITS = 15; // any 15-digit number is exact in a double
+    private static final int MAX_EXPONENT = 100000; // larger exponents overflow or underflow anyway
+
+    private static final double[] POWERS_OF_TEN = {
+                    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private static boolean matches( final CharSequence text,
+                                    final int start,
+                                    final int end,
+                                    final String word ) {
+        if ( ( end - start ) != word.length() ) {
+            return false;
+        }
+
+        for ( int ndx = start; ndx < end; ++ndx ) {
+            if ( text.charAt( ndx ) != word.charAt( ndx - start ) ) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int invalid;
+    private boolean failed;
+
+    /**
+     * @return the number of values of the last call that could not be parsed
+     */
+    public int invalid() {
+        return this.invalid;
+    }
+
+    /**
+     * Parses a column of text. Values that cannot be parsed, including <code>null</code> values, are {@link Double#NaN} and are
+     * counted by {@link #invalid()}.
+     * 
+     * @param column
+     *        the text being parsed (cannot be <code>null</code>)
+     * @return the parsed values, in column order (never <code>null</code>)
+     */
+    public double[] parse( final CharSequence[] column ) {
+        CheckArg.notNull( column, "column" );
+        final double[] values = new double[ column.length ];
+        int count = 0;
+
+        for ( int ndx = 0; ndx < column.length; ++ndx ) {
+            final CharSequence text = column[ ndx ];
+
+            if ( text == null ) {
+                values[ ndx ] = Double.NaN;
+                ++count;
+            } else {
+                values[ ndx ] = value( text, 0, text.length() );
+
+                if ( this.failed ) {
+                    ++count;
+                }
+            }
+        }
+
+        this.invalid = count;
+        return values;
+    }
+
+    /**
+     * @param text
+     *        the text being parsed (can be <code>null</code>)
+     * @return the parsed value or {@link Double#NaN} if the text is not {@link #valid() valid}
+     */
+    public double parse( final CharSequence text ) {
+        return ( ( text == null ) ? parse( "", 0, 0 ) : parse( text, 0, text.length() ) );
+    }
+
+    /**
+     * @param text
+     *        the text being parsed (cannot be <code>null</code>)
+     * @param start
+     *        the index of the first character being parsed
+     * @param end
+     *        the index after the last character being parsed
+     * @return the parsed value or {@link Double#NaN} if the text is not {@link #valid() valid}
+     * @throws IndexOutOfBoundsException
+     *         if the indexes are not within the text
+     */
+    public double parse( final CharSequence text,
+                         final int start,
+                         final int end ) {
+        CheckArg.notNull( text, "text" );
+
+        if ( ( start < 0 ) || ( end > text.length() ) || ( start > end ) ) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        final double value = value( text, start, end );
+        this.invalid = ( this.failed ? 1 : 0 );
+        return value;
+    }
+
+    /**
+     * @return <code>true</code> if all the values of the last call were parsed
+     */
+    public boolean valid() {
+        return ( this.invalid == 0 );
+    }
+
+    private double value( final CharSequence text,
+                          final int first,
+                          final int last ) {
+        this.failed = true;
+        int start = first;
+        int end = last;
+
+        while ( ( start < end ) && ( text.charAt( start ) <= ' ' ) ) {
+            ++start;
+        }
+
+        while ( ( end > start ) && ( text.charAt( end - 1 ) <= ' ' ) ) {
+            --end;
+        }
+
+        if ( start == end ) {
+            return Double.NaN;
+        }
+
+        int ndx = start;
+        final boolean negative = ( text.charAt( ndx ) == '-' );
+
+        if ( negative || ( text.charAt( ndx ) == '+' ) ) {
+            ++ndx;
+        }
+
+        if ( matches( text, ndx, end, "NaN" ) ) {
+            this.failed = false;
+            return Double.NaN;
+        }
+
+        if ( matches( text, ndx, end, "Infinity" ) || matches( text, ndx, end, "INF" ) ) {
+            this.failed = false;
+            return ( negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY );
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        boolean truncated = false;
+
+        for ( ; ( ndx < end ) && ( text.charAt( ndx ) >= '0' ) && ( text.charAt( ndx ) <= '9' ); ++ndx ) {
+            hasDigits = true;
+
+            if ( digits < MAX_DIGITS ) {
+                mantissa = ( mantissa * 10 ) + ( text.charAt( ndx ) - '0' );
+
+                if ( mantissa != 0 ) {
+                    ++digits;
+                }
+            } else {
+                truncated = true;
+                ++exponent;
+            }
+        }
+
+        if ( ( ndx < end ) && ( text.charAt( ndx ) == '.' ) ) {
+            for ( ++ndx; ( ndx < end ) && ( text.charAt( ndx ) >= '0' ) && ( text.charAt( ndx ) <= '9' ); ++ndx ) {
+                hasDigits = true;
+
+                if ( digits < MAX_DIGITS ) {
+                    mantissa = ( mantissa * 10 ) + ( text.charAt( ndx ) - '0' );
+                    --exponent;
+
+                    if ( mantissa != 0 ) {
+                        ++digits;
+                    }
+                } else {
+                    truncated = true;
+                }
+            }
+        }
+
+        if ( !hasDigits ) {
+            return Double.NaN;
+        }
+
+        if ( ( ndx < end ) && ( ( text.charAt( ndx ) == 'e' ) || ( text.charAt( ndx ) == 'E' ) ) ) {
+            ++ndx;
+            final boolean negativeExponent = ( ( ndx < end ) && ( text.charAt( ndx ) == '-' ) );
+
+            if ( negativeExponent || ( ( ndx < end ) && ( text.charAt( ndx ) == '+' ) ) ) {
+                ++ndx;
+            }
+
+            if ( ( ndx == end ) || ( text.charAt( ndx ) < '0' ) || ( text.charAt( ndx ) > '9' ) ) {
+                return Double.NaN;
+            }
+
+            int explicit = 0;
+
+            for ( ; ( ndx < end ) && ( text.charAt( ndx ) >= '0' ) && ( text.charAt( ndx ) <= '9' ); ++ndx ) {
+                if ( explicit < MAX_EXPONENT ) {
+                    explicit = ( explicit * 10 ) + ( text.charAt( ndx ) - '0' );
+                }
+            }
+
+            exponent += ( negativeExponent ? -explicit : explicit );
+        }
+
+        if ( ndx != end ) {
+            return Double.NaN;
+        }
+
+        this.failed = false;
+        double value;
+
+        if ( mantissa == 0 ) {
+            value = 0;
+        } else if ( !truncated && ( digits <= MAX_EXACT_DIGITS ) && ( Math.abs( exponent ) < POWERS_OF_TEN.length ) ) {
+            value = ( ( exponent < 0 ) ? ( mantissa / POWERS_OF_TEN[ -exponent ] ) : ( mantissa * POWERS_OF_TEN[ exponent ] ) );
+        } else {
+            return Double.parseDouble( text.subSequence( start, end ).toString() ); // already signed
+        }
+
+        return ( negative ? -value : value );
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.transformation.Expression;
+import org.chrysalix.transformation.ExpressionCompiler;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Evaluates an expression, such as <code>SquareRoot(@width * @width + @height * @height)</code>, against an optional context
+ * {@link ModelObject model object}. The expression is compiled once by the factory's {@link ExpressionCompiler expression
+ * compiler} into a chain of method handles and shared by every operation using the same expression text.
+ * 
+ * @see ExpressionCompiler
+ */
+@Indexed( Operation.class )
+public final class Evaluate extends AbstractOperation< Object > {
+
+    static final String DESCRIPTION = "Evaluates an expression against a model object";
+    private static final String CONTEXT_DESCRIPTION =
+        "The model object, or its model-relative path, whose properties are referenced by the expression";
+    private static final String CONTEXT_NAME = "Context";
+    private static final String EXPRESSION_DESCRIPTION = "The text of the expression being evaluated";
+    private static final String EXPRESSION_NAME = "Expression";
+    private static final String INVALID_EXPRESSION = "Evaluate operation in transformation '%s' has an invalid expression: %s";
+    static final String NAME = "Evaluate";
+
+    /**
+     * The descriptor for the text of the expression.
+     */
+    public static final ValueDescriptor< String > EXPRESSION_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Evaluate.class, "expression" ),
+                                                     ChrysalixI18n.localize( EXPRESSION_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( EXPRESSION_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional model object whose properties are referenced.
+     */
+    public static final ValueDescriptor< Object > CONTEXT_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Evaluate.class, "context" ),
+                                                     ChrysalixI18n.localize( CONTEXT_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( CONTEXT_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = { EXPRESSION_DESCRIPTOR, CONTEXT_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< Object > DESCRIPTOR =
+        new AbstractOperationDescriptor< Object >( TransformationFactory.createId( Evaluate.class ),
+                                                   ChrysalixI18n.localize( DESCRIPTION ),
+                                                   ChrysalixI18n.localize( NAME ),
+                                                   Object.class,
+                                                   INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< Object > newInstance( final ModelObject operation,
+                                                    final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new Evaluate( operation, transformation );
+            }
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * An expression reads properties of model objects that are not inputs, so it is never folded, shared, or cached.
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#deterministic()
+             */
+            @Override
+            public boolean deterministic() {
+                return false;
+            }
+
+        };
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    Evaluate( final ModelObject operation,
+              final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected Object calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final Expression expression = expressionCompiler().compile( inputValue( EXPRESSION_DESCRIPTOR ).toString() );
+        final ModelObject context = ( inputs( CONTEXT_DESCRIPTOR.name() ).isEmpty() ? null : inputObject( CONTEXT_DESCRIPTOR ) );
+        return expression.evaluate( context );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( INPUT_DESCRIPTORS );
+        final Object text = inputValue( EXPRESSION_DESCRIPTOR );
+
+        if ( ( text != null ) && !text.toString().isEmpty() ) {
+            try {
+                expressionCompiler().compile( text.toString() );
+            } catch ( final ChrysalixException e ) {
+                this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                      ChrysalixI18n.localize( INVALID_EXPRESSION,
+                                                                                              transformationId(),
+                                                                                              e.getMessage() ) ) );
+            }
+        }
+
+        return super.problems();
+    }
+
+}
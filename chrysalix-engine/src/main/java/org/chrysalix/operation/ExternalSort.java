@@ -0,0 +1,387 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A stable sort of numbers and strings, used by {@link Sort sort} operations, that holds at most a threshold number of values in
+ * memory. Values are buffered until the threshold is reached, and each full buffer is sorted and written to a temporary run file.
+ * The runs are then merged, at most {@link #MERGE_WIDTH} at a time, and the final merge passes each value to a {@link Sink sink}
+ * in order, so the sort itself never holds more than the threshold number of values or one value per merged run.
+ * <p>
+ * <code>null</code> values come first, then numbers in numeric order, then strings in lexicographic order. Integers and longs are
+ * kept as is, other numbers become doubles, and every other value becomes its string, so that the result is the same whether or
+ * not values were spilled.
+ */
+final class ExternalSort implements AutoCloseable {
+
+    /**
+     * The maximum number of runs merged at once.
+     */
+    static final int MERGE_WIDTH = 64;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte DOUBLE_VALUE = 0;
+    private static final byte INTEGER_VALUE = 1;
+    private static final byte LONG_VALUE = 2;
+    private static final byte NULL_VALUE = 3;
+    private static final byte STRING_VALUE = 4;
+
+    private static Object normalize( final Object value ) {
+        if ( ( value == null ) || ( value instanceof Integer ) || ( value instanceof Long ) || ( value instanceof Double )
+             || ( value instanceof String ) ) {
+            return value;
+        }
+
+        return ( ( value instanceof Number ) ? ( Object ) ( ( Number ) value ).doubleValue() : value.toString() );
+    }
+
+    private static Object read( final DataInputStream in ) throws IOException {
+        switch ( in.readByte() ) {
+            case DOUBLE_VALUE:
+                return in.readDouble();
+            case INTEGER_VALUE:
+                return in.readInt();
+            case LONG_VALUE:
+                return in.readLong();
+            case NULL_VALUE:
+                return null;
+            default:
+                final byte[] bytes = new byte[ in.readInt() ];
+                in.readFully( bytes );
+                return new String( bytes, StandardCharsets.UTF_8 );
+        }
+    }
+
+    private static void write( final DataOutputStream out,
+                               final Object value ) throws IOException {
+        if ( value == null ) {
+            out.writeByte( NULL_VALUE );
+        } else if ( value instanceof Integer ) {
+            out.writeByte( INTEGER_VALUE );
+            out.writeInt( ( Integer ) value );
+        } else if ( value instanceof Long ) {
+            out.writeByte( LONG_VALUE );
+            out.writeLong( ( Long ) value );
+        } else if ( value instanceof Double ) {
+            out.writeByte( DOUBLE_VALUE );
+            out.writeDouble( ( Double ) value );
+        } else {
+            final byte[] bytes = ( ( String ) value ).getBytes( StandardCharsets.UTF_8 );
+            out.writeByte( STRING_VALUE );
+            out.writeInt( bytes.length );
+            out.write( bytes );
+        }
+    }
+
+    /**
+     * A run file being merged, holding its next value.
+     */
+    private static final class Run implements Comparable< Run > {
+
+        private final DataInputStream in;
+        private final int index;
+        private final Comparator< Object > order;
+        private Object next;
+        private long remaining;
+
+        Run( final RunFile file,
+             final int index,
+             final Comparator< Object > order ) throws IOException {
+            this.in = new DataInputStream( new BufferedInputStream( Files.newInputStream( file.path ), BUFFER_SIZE ) );
+            this.index = index;
+            this.order = order;
+            this.remaining = file.size;
+        }
+
+        boolean advance() throws IOException {
+            if ( this.remaining == 0 ) return false;
+            --this.remaining;
+            this.next = read( this.in );
+            return true;
+        }
+
+        @Override
+        public int compareTo( final Run that ) {
+            final int result = this.order.compare( this.next, that.next );
+
+            // earlier runs hold earlier values, so breaking ties by run keeps the sort stable
+            return ( ( result == 0 ) ? Integer.compare( this.index, that.index ) : result );
+        }
+
+    }
+
+    /**
+     * A sorted run written to a temporary file.
+     */
+    private static final class RunFile {
+
+        final Path path;
+        final long size;
+
+        RunFile( final Path path,
+                 final long size ) {
+            this.path = path;
+            this.size = size;
+        }
+
+    }
+
+    private final List< Object > buffer = new ArrayList<>();
+    private int mergePasses;
+    private final Comparator< Object > order;
+    private final List< RunFile > runs = new ArrayList<>();
+    private long size;
+    private int spilledRuns;
+    private long spilledValues;
+    private final int threshold;
+
+    /**
+     * @param threshold
+     *        the maximum number of values held in memory (must be positive)
+     */
+    ExternalSort( final int threshold ) {
+        this( threshold, false );
+    }
+
+    /**
+     * @param threshold
+     *        the maximum number of values held in memory (must be positive)
+     * @param descending
+     *        <code>true</code> if values are sorted in descending order, where equal values still keep the order they were added in
+     */
+    ExternalSort( final int threshold,
+                  final boolean descending ) {
+        assert threshold > 0;
+        this.threshold = threshold;
+        this.order = ( descending ? Collections.reverseOrder( Values.ORDER ) : Values.ORDER );
+    }
+
+    /**
+     * @param value
+     *        the value being sorted (can be <code>null</code>)
+     * @throws IOException
+     *         if a full buffer cannot be spilled
+     */
+    void add( final Object value ) throws IOException {
+        this.buffer.add( normalize( value ) );
+        ++this.size;
+
+        if ( this.buffer.size() >= this.threshold ) {
+            spill();
+        }
+    }
+
+    /**
+     * Deletes any run files.
+     * 
+     * @see java.lang.AutoCloseable#close()
+     */
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+
+        for ( final RunFile run : this.runs ) {
+            try {
+                Files.deleteIfExists( run.path );
+            } catch ( final IOException e ) {
+                if ( error == null ) {
+                    error = e;
+                } else {
+                    error.addSuppressed( e );
+                }
+            }
+        }
+
+        this.runs.clear();
+
+        if ( error != null ) {
+            throw error;
+        }
+    }
+
+    private void merge( final List< RunFile > merging,
+                        final Sink sink ) throws IOException {
+        final PriorityQueue< Run > queue = new PriorityQueue<>( merging.size() );
+        final List< Run > open = new ArrayList<>( merging.size() );
+
+        try {
+            for ( int i = 0; i < merging.size(); ++i ) {
+                final Run run = new Run( merging.get( i ), i, this.order );
+                open.add( run );
+
+                if ( run.advance() ) {
+                    queue.add( run );
+                }
+            }
+
+            while ( !queue.isEmpty() ) {
+                final Run run = queue.poll();
+                sink.accept( run.next );
+
+                if ( run.advance() ) {
+                    queue.add( run );
+                }
+            }
+        } finally {
+            for ( final Run run : open ) {
+                run.in.close();
+            }
+        }
+
+        for ( final RunFile run : merging ) {
+            Files.deleteIfExists( run.path );
+        }
+    }
+
+    /**
+     * @return the number of passes that merged runs into larger runs before the final merge
+     */
+    int mergePasses() {
+        return this.mergePasses;
+    }
+
+    /**
+     * @return the number of values added
+     */
+    long size() {
+        return this.size;
+    }
+
+    /**
+     * Completes the sort by merging any runs with the values still in memory, passing each value to the sink in order. This method
+     * can only be called once.
+     * 
+     * @param sink
+     *        the sink receiving the sorted values (cannot be <code>null</code>)
+     * @throws IOException
+     *         if a run cannot be written or read, or the sink fails
+     */
+    void sorted( final Sink sink ) throws IOException {
+        if ( this.runs.isEmpty() ) {
+            Collections.sort( this.buffer, this.order );
+
+            for ( final Object value : this.buffer ) {
+                sink.accept( value );
+            }
+
+            this.buffer.clear();
+            return;
+        }
+
+        if ( !this.buffer.isEmpty() ) {
+            spill();
+        }
+
+        // the oldest runs are merged into a run that replaces them first so that ties stay in their original order
+        while ( this.runs.size() > MERGE_WIDTH ) {
+            final List< RunFile > merging = new ArrayList<>( this.runs.subList( 0, MERGE_WIDTH ) );
+            final Path path = Files.createTempFile( "chrysalix-sort", ".run" );
+            final long[] size = new long[ 1 ];
+
+            try ( final DataOutputStream out =
+                new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( path ), BUFFER_SIZE ) ) ) {
+                merge( merging, new Sink() {
+
+                    @Override
+                    public void accept( final Object value ) throws IOException {
+                        write( out, value );
+                        ++size[ 0 ];
+                    }
+                } );
+            } catch ( final IOException e ) {
+                try {
+                    Files.deleteIfExists( path );
+                } catch ( final IOException error ) {
+                    e.addSuppressed( error );
+                }
+
+                throw e;
+            }
+
+            this.runs.subList( 0, MERGE_WIDTH ).clear();
+            this.runs.add( 0, new RunFile( path, size[ 0 ] ) );
+            ++this.mergePasses;
+        }
+
+        final List< RunFile > merging = new ArrayList<>( this.runs );
+        merge( merging, sink );
+        this.runs.clear();
+    }
+
+    private void spill() throws IOException {
+        Collections.sort( this.buffer, this.order );
+        final Path path = Files.createTempFile( "chrysalix-sort", ".run" );
+        this.runs.add( new RunFile( path, this.buffer.size() ) );
+
+        try ( final DataOutputStream out =
+            new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( path ), BUFFER_SIZE ) ) ) {
+            for ( final Object value : this.buffer ) {
+                write( out, value );
+            }
+        }
+
+        ++this.spilledRuns;
+        this.spilledValues += this.buffer.size();
+        this.buffer.clear();
+    }
+
+    /**
+     * @return the number of sorted runs written when the threshold was reached
+     */
+    int spilledRuns() {
+        return this.spilledRuns;
+    }
+
+    /**
+     * @return the number of values written to sorted runs
+     */
+    long spilledValues() {
+        return this.spilledValues;
+    }
+
+    /**
+     * Receives sorted values in order.
+     */
+    interface Sink {
+
+        void accept( Object value ) throws IOException;
+
+    }
+
+}
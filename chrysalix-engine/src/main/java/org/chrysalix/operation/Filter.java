@@ -0,0 +1,379 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.common.Logger;
+import org.chrysalix.transformation.ExecutionPlan;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Selects the children of a collection {@link ModelObject model object} that match every provided predicate: a name pattern, where
+ * '*' matches any characters and '?' one character, a primary type, and a property that equals a value or falls within an
+ * inclusive range. Numbers are compared numerically and all other values as strings.
+ * <p>
+ * When the name pattern can be expressed as a repository name pattern, that is when it does not use '?', the repository selects
+ * the children by name so that the other children are never read. Otherwise every child is read and matched in memory. The
+ * {@link #strategy() strategy} reports which is used, and the {@link ExecutionPlan execution plan} records it when it is compiled.
+ * <p>
+ * The result is an array of the matching children in collection order.
+ */
+@Indexed( Operation.class )
+public final class Filter extends AbstractOperation< ModelObject[] > {
+
+    /**
+     * How the children are selected.
+     */
+    public enum Strategy {
+
+        /**
+         * The repository selects the children by name before the other predicates are matched in memory.
+         */
+        NAME_PATTERN,
+
+        /**
+         * Every child is read and matched in memory.
+         */
+        SCAN
+
+    }
+
+    static final String DESCRIPTION = "Selects the children of a model object that match a predicate";
+    private static final String COLLECTION_DESCRIPTION = "The model object, or its model-relative path, whose children are filtered";
+    private static final String COLLECTION_NAME = "Collection";
+    private static final String ERROR_FILTERING =
+        "Filter operation in transformation '%s' could not filter the children of collection '%s'";
+    private static final String MAX_DESCRIPTION = "The inclusive maximum value of the filtered property";
+    private static final String MAX_NAME = "Maximum";
+    private static final String MIN_DESCRIPTION = "The inclusive minimum value of the filtered property";
+    private static final String MIN_NAME = "Minimum";
+    static final String NAME = "Filter";
+    private static final String NAME_PATTERN_DESCRIPTION =
+        "The pattern, where '*' matches any characters and '?' one character, that the names of selected children must match";
+    private static final String NAME_PATTERN_NAME = "Name Pattern";
+    private static final String NO_PROPERTY =
+        "Filter operation in transformation '%s' compares property values but does not have a property";
+    private static final String PROPERTY_DESCRIPTION = "The name of the property compared to the value or range";
+    private static final String PROPERTY_NAME = "Property";
+    private static final String TYPE_DESCRIPTION = "The name of the primary type of selected children";
+    private static final String TYPE_NAME = "Type";
+    private static final String VALUE_DESCRIPTION = "The value the filtered property must have";
+    private static final String VALUE_NAME = "Value";
+    private static final Logger LOGGER = Logger.logger( Filter.class );
+
+    /**
+     * The descriptor for the model object whose children are filtered.
+     */
+    public static final ValueDescriptor< Object > COLLECTION_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Filter.class, "collection" ),
+                                                     ChrysalixI18n.localize( COLLECTION_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( COLLECTION_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional pattern the names of selected children must match.
+     */
+    public static final ValueDescriptor< String > NAME_PATTERN_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Filter.class, "namePattern" ),
+                                                     ChrysalixI18n.localize( NAME_PATTERN_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( NAME_PATTERN_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional name of the primary type of selected children.
+     */
+    public static final ValueDescriptor< String > TYPE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Filter.class, "type" ),
+                                                     ChrysalixI18n.localize( TYPE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( TYPE_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional name of the property compared to the value or range.
+     */
+    public static final ValueDescriptor< String > PROPERTY_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Filter.class, "property" ),
+                                                     ChrysalixI18n.localize( PROPERTY_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( PROPERTY_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional value the filtered property must have.
+     */
+    public static final ValueDescriptor< Object > VALUE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Filter.class, "value" ),
+                                                     ChrysalixI18n.localize( VALUE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( VALUE_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional inclusive minimum value of the filtered property.
+     */
+    public static final ValueDescriptor< Object > MIN_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Filter.class, "min" ),
+                                                     ChrysalixI18n.localize( MIN_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( MIN_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional inclusive maximum value of the filtered property.
+     */
+    public static final ValueDescriptor< Object > MAX_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Filter.class, "max" ),
+                                                     ChrysalixI18n.localize( MAX_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( MAX_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = {
+                    COLLECTION_DESCRIPTOR,
+                    NAME_PATTERN_DESCRIPTOR,
+                    TYPE_DESCRIPTOR,
+                    PROPERTY_DESCRIPTOR,
+                    VALUE_DESCRIPTOR,
+                    MIN_DESCRIPTOR,
+                    MAX_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< ModelObject[] > DESCRIPTOR =
+        new AbstractOperationDescriptor< ModelObject[] >( TransformationFactory.createId( Filter.class ),
+                                                          ChrysalixI18n.localize( DESCRIPTION ),
+                                                          ChrysalixI18n.localize( NAME ),
+                                                          ModelObject[].class,
+                                                          INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< ModelObject[] > newInstance( final ModelObject operation,
+                                                           final Transformation transformation ) throws ModelspaceException,
+                                                                                                 ChrysalixException {
+                return new Filter( operation, transformation );
+            }
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * A filter reads model objects that are not inputs, so it is never folded, shared, or cached.
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#deterministic()
+             */
+            @Override
+            public boolean deterministic() {
+                return false;
+            }
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#strategy(org.chrysalix.transformation.Operation)
+             */
+            @Override
+            public String strategy( final Operation< ? > operation ) throws ChrysalixException {
+                return ( ( operation instanceof Filter ) ? ( ( Filter ) operation ).strategy().name() : null );
+            }
+
+        };
+
+    private static int compare( final Object thisValue,
+                                final Object thatValue ) {
+        if ( ( thisValue instanceof Number ) && ( thatValue instanceof Number ) ) {
+            return Values.ORDER.compare( thisValue, thatValue );
+        }
+
+        return thisValue.toString().compareTo( thatValue.toString() );
+    }
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    Filter( final ModelObject operation,
+            final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected ModelObject[] calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final ModelObject collection = inputObject( COLLECTION_DESCRIPTOR );
+        final Object namePattern = inputValue( NAME_PATTERN_DESCRIPTOR );
+        final Object type = inputValue( TYPE_DESCRIPTOR );
+        final Object property = inputValue( PROPERTY_DESCRIPTOR );
+        final Object value = inputValue( VALUE_DESCRIPTOR );
+        final Object min = inputValue( MIN_DESCRIPTOR );
+        final Object max = inputValue( MAX_DESCRIPTOR );
+        final Strategy strategy = strategy();
+        final long start = System.nanoTime();
+        String collectionPath = null;
+
+        try {
+            collectionPath = collection.absolutePath();
+            final ModelObject[] candidates;
+            Pattern pattern = null;
+
+            if ( strategy == Strategy.NAME_PATTERN ) {
+                candidates = collection.children( namePattern.toString() );
+            } else {
+                candidates = collection.children();
+
+                if ( namePattern != null ) {
+                    pattern = Values.glob( namePattern.toString() );
+                }
+            }
+
+            final List< ModelObject > matches = new ArrayList<>();
+
+            for ( final ModelObject candidate : candidates ) {
+                if ( ( ( pattern == null ) || pattern.matcher( candidate.name() ).matches() )
+                     && ( ( type == null ) || type.toString().equals( candidate.primaryType().name() ) )
+                     && ( ( property == null ) || matches( candidate.property( property.toString() ), value, min, max ) ) ) {
+                    matches.add( candidate );
+                }
+            }
+
+            LOGGER.debug( "Filtered %s of %s candidates of '%s' using the %s strategy in %s ms",
+                          matches.size(),
+                          candidates.length,
+                          collectionPath,
+                          strategy,
+                          ( System.nanoTime() - start ) / 1000000 );
+            return matches.toArray( new ModelObject[ matches.size() ] );
+        } catch ( final ModelspaceException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_FILTERING, transformationId(), collectionPath ) );
+        }
+    }
+
+    private boolean matches( final ModelProperty property,
+                             final Object value,
+                             final Object min,
+                             final Object max ) throws ModelspaceException {
+        if ( property == null ) {
+            return false;
+        }
+
+        for ( final Object propertyValue : property.values() ) {
+            if ( ( propertyValue != null ) && ( ( value == null ) || ( compare( propertyValue, value ) == 0 ) )
+                 && ( ( min == null ) || ( compare( propertyValue, min ) >= 0 ) )
+                 && ( ( max == null ) || ( compare( propertyValue, max ) <= 0 ) ) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( INPUT_DESCRIPTORS );
+
+        if ( inputs( PROPERTY_DESCRIPTOR.name() ).isEmpty()
+             && !( inputs( VALUE_DESCRIPTOR.name() ).isEmpty() && inputs( MIN_DESCRIPTOR.name() ).isEmpty()
+                   && inputs( MAX_DESCRIPTOR.name() ).isEmpty() ) ) {
+            this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                  ChrysalixI18n.localize( NO_PROPERTY, transformationId() ) ) );
+        }
+
+        return super.problems();
+    }
+
+    /**
+     * @return how the children are selected given the current inputs (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the inputs cannot be read
+     */
+    public Strategy strategy() throws ChrysalixException {
+        final Object namePattern = inputValue( NAME_PATTERN_DESCRIPTOR );
+
+        if ( ( namePattern != null ) && !namePattern.toString().isEmpty() && ( namePattern.toString().indexOf( '?' ) == -1 )
+             && ( namePattern.toString().indexOf( '|' ) == -1 ) ) {
+            return Strategy.NAME_PATTERN;
+        }
+
+        return Strategy.SCAN;
+    }
+
+}
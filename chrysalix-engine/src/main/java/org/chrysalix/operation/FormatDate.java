@@ -0,0 +1,199 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Formats a date as a string. The date is a number of milliseconds since the epoch, a {@link java.util.Calendar calendar}, a
+ * {@link java.util.Date}, or ISO 8601 text. Without a pattern or time zone the date is formatted as an ISO 8601 coordinated
+ * universal time, like an XML Schema <code>dateTime</code>, without creating intermediate objects. Otherwise it is formatted
+ * using a {@link java.text.SimpleDateFormat} pattern, which defaults to ISO 8601 with an offset. A <code>null</code> date results
+ * in <code>null</code>.
+ * 
+ * @see Dates#formatIso(long)
+ */
+@Indexed( Operation.class )
+public final class FormatDate extends AbstractOperation< String > {
+
+    private static final String DATE_DESCRIPTION = "The date being formatted";
+    private static final String DATE_NAME = "Date";
+    static final String DESCRIPTION = "Formats a date as a string";
+    private static final String INVALID_DATE = "Format date operation in transformation '%s' cannot format '%s' as a date";
+    private static final String INVALID_PATTERN = "Format date operation in transformation '%s' has invalid pattern '%s'";
+    private static final String ISO_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX";
+    static final String NAME = "Format Date";
+    private static final String PATTERN_DESCRIPTION = "The date format pattern used instead of ISO 8601";
+    private static final String PATTERN_NAME = "Pattern";
+    private static final String TIME_ZONE_DESCRIPTION = "The time zone of the formatted date instead of UTC";
+    private static final String TIME_ZONE_NAME = "Time Zone";
+
+    /**
+     * The descriptor for the date being formatted.
+     */
+    public static final ValueDescriptor< Object > DATE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( FormatDate.class, "date" ),
+                                                     ChrysalixI18n.localize( DATE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( DATE_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional date format pattern.
+     */
+    public static final ValueDescriptor< String > PATTERN_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( FormatDate.class, "pattern" ),
+                                                     ChrysalixI18n.localize( PATTERN_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( PATTERN_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional time zone identifier.
+     */
+    public static final ValueDescriptor< String > TIME_ZONE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( FormatDate.class, "timeZone" ),
+                                                     ChrysalixI18n.localize( TIME_ZONE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( TIME_ZONE_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = { DATE_DESCRIPTOR, PATTERN_DESCRIPTOR, TIME_ZONE_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< String > DESCRIPTOR =
+        new AbstractOperationDescriptor< String >( TransformationFactory.createId( FormatDate.class ),
+                                                   ChrysalixI18n.localize( DESCRIPTION ),
+                                                   ChrysalixI18n.localize( NAME ),
+                                                   String.class,
+                                                   INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< String > newInstance( final ModelObject operation,
+                                                    final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new FormatDate( operation, transformation );
+            }
+
+        };
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    FormatDate( final ModelObject operation,
+                final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected String calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final Object date = inputValue( DATE_DESCRIPTOR );
+        return ( ( date == null ) ? null : format( Dates.millis( date ) ) );
+    }
+
+    private String format( final long millis ) throws ChrysalixException {
+        final Object pattern = inputValue( PATTERN_DESCRIPTOR );
+        final Object timeZone = inputValue( TIME_ZONE_DESCRIPTOR );
+
+        if ( ( pattern == null ) && ( timeZone == null ) ) {
+            return Dates.formatIso( millis );
+        }
+
+        return Dates.format( millis, ( pattern == null ) ? ISO_PATTERN : pattern.toString(), Dates.timeZone( timeZone ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( INPUT_DESCRIPTORS );
+        final Object date = inputValue( DATE_DESCRIPTOR );
+
+        if ( ( date != null ) && ( Dates.millis( date ) == Dates.INVALID ) ) {
+            this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                  ChrysalixI18n.localize( INVALID_DATE, transformationId(), date ) ) );
+        }
+
+        final Object pattern = inputValue( PATTERN_DESCRIPTOR );
+
+        if ( pattern != null ) {
+            try {
+                Dates.format( pattern.toString(), Dates.UTC );
+            } catch ( final IllegalArgumentException e ) {
+                this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                      ChrysalixI18n.localize( INVALID_PATTERN,
+                                                                                              transformationId(),
+                                                                                              pattern ) ) );
+            }
+        }
+
+        return super.problems();
+    }
+
+}
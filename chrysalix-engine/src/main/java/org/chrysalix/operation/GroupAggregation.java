@@ -0,0 +1,334 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.chrysalix.transformation.OperationDescriptor;
+
+/**
+ * A single-pass hash aggregation of rows into groups, used by {@link GroupBy group by} operations. Each row has a group key and
+ * zero or more numbers, and each group has one accumulator holding its row count and the {@link NumberStatistics statistics} of
+ * its numbers.
+ * <p>
+ * When a maximum number of groups is provided, rows of groups that are not already in memory once the maximum is reached are
+ * spilled to partition files by hash of their key. Every row of a spilled key lands in the same partition, so each partition is
+ * aggregated separately once every row has been added, spilling again with different hash bits if it is itself too large.
+ */
+final class GroupAggregation implements AutoCloseable {
+
+    /**
+     * The aggregates that can be computed per group.
+     */
+    enum Aggregate {
+
+        AVERAGE( Average.DESCRIPTOR ),
+        COUNT( Count.DESCRIPTOR ),
+        MAX( Max.DESCRIPTOR ),
+        MIN( Min.DESCRIPTOR ),
+        SUM( Add.DESCRIPTOR );
+
+        /**
+         * @param descriptor
+         *        an operation descriptor, or the identifier or name of one (can be <code>null</code>)
+         * @return the aggregate computed by the operation or <code>null</code> if the operation is not a supported aggregate
+         */
+        static Aggregate of( final Object descriptor ) {
+            if ( descriptor == null ) {
+                return null;
+            }
+
+            for ( final Aggregate aggregate : values() ) {
+                if ( ( descriptor == aggregate.descriptor ) || aggregate.descriptor.id().equals( descriptor.toString() )
+                     || aggregate.descriptor.name().equalsIgnoreCase( descriptor.toString() ) ) {
+                    return aggregate;
+                }
+            }
+
+            return null;
+        }
+
+        private final OperationDescriptor< ? > descriptor;
+
+        private Aggregate( final OperationDescriptor< ? > descriptor ) {
+            this.descriptor = descriptor;
+        }
+
+        Object value( final Group group ) {
+            switch ( this ) {
+                case AVERAGE:
+                    return group.statistics.mean();
+                case COUNT:
+                    return group.rows;
+                case MAX:
+                    return group.statistics.max();
+                case MIN:
+                    return group.statistics.min();
+                default:
+                    return group.statistics.sum();
+            }
+        }
+
+    }
+
+    /**
+     * The accumulator of a group.
+     */
+    static final class Group {
+
+        long rows;
+        final NumberStatistics statistics = new NumberStatistics();
+
+    }
+
+    // the number of hash bits used to pick a partition, and so the number of partitions, at each spill level
+    private static final int PARTITION_BITS = 4;
+    private static final int PARTITIONS = 1 << PARTITION_BITS;
+    private static final int MAX_LEVEL = ( Integer.SIZE / PARTITION_BITS ) - 1;
+
+    private static final byte DOUBLE_VALUE = 1;
+    private static final byte LONG_VALUE = 0;
+
+    private final int level;
+    private final int maxGroups;
+    private final LinkedHashMap< String, Group > groups = new LinkedHashMap<>();
+    private final Path[] partitionFiles = new Path[ PARTITIONS ];
+    private final DataOutputStream[] partitions = new DataOutputStream[ PARTITIONS ];
+    private long rows;
+    private int spillFiles;
+    private long spilledRows;
+
+    /**
+     * @param maxGroups
+     *        the maximum number of groups held in memory before rows are spilled, or zero if there is no maximum
+     */
+    GroupAggregation( final int maxGroups ) {
+        this( maxGroups, 0 );
+    }
+
+    private GroupAggregation( final int maxGroups,
+                              final int level ) {
+        this.maxGroups = maxGroups;
+        this.level = level;
+    }
+
+    /**
+     * @param key
+     *        the group key of the row (cannot be <code>null</code>)
+     * @param values
+     *        the numbers of the row (cannot be <code>null</code> but can be empty)
+     * @throws IOException
+     *         if the row cannot be spilled
+     */
+    void add( final String key,
+              final List< Number > values ) throws IOException {
+        ++this.rows;
+        Group group = this.groups.get( key );
+
+        if ( group == null ) {
+            if ( ( this.maxGroups > 0 ) && ( this.groups.size() >= this.maxGroups ) && ( this.level <= MAX_LEVEL ) ) {
+                spill( key, values );
+                return;
+            }
+
+            group = new Group();
+            this.groups.put( key, group );
+        }
+
+        ++group.rows;
+
+        for ( final Number value : values ) {
+            group.statistics.add( value );
+        }
+    }
+
+    /**
+     * Deletes any partition files.
+     * 
+     * @see java.lang.AutoCloseable#close()
+     */
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+
+        for ( int i = 0; i < PARTITIONS; ++i ) {
+            try {
+                if ( this.partitions[ i ] != null ) {
+                    this.partitions[ i ].close();
+                    this.partitions[ i ] = null;
+                }
+
+                if ( this.partitionFiles[ i ] != null ) {
+                    Files.deleteIfExists( this.partitionFiles[ i ] );
+                    this.partitionFiles[ i ] = null;
+                }
+            } catch ( final IOException e ) {
+                if ( error == null ) {
+                    error = e;
+                } else {
+                    error.addSuppressed( e );
+                }
+            }
+        }
+
+        if ( error != null ) {
+            throw error;
+        }
+    }
+
+    /**
+     * Completes the aggregation by aggregating any spilled partitions, passing each group to the sink as soon as it is complete.
+     * In-memory groups come first, in the order their first rows were added, followed by the groups of each spilled partition.
+     * Groups are released once they have been passed to the sink, so at most the in-memory groups and those of one partition are
+     * held at once. This method can only be called once.
+     * 
+     * @param sink
+     *        the sink receiving each group (cannot be <code>null</code>)
+     * @throws IOException
+     *         if a spilled partition cannot be read or the sink fails
+     */
+    void groups( final Sink sink ) throws IOException {
+        for ( final java.util.Map.Entry< String, Group > entry : this.groups.entrySet() ) {
+            sink.accept( entry.getKey(), entry.getValue() );
+        }
+
+        this.groups.clear();
+
+        for ( int i = 0; i < PARTITIONS; ++i ) {
+            if ( this.partitions[ i ] == null ) {
+                continue;
+            }
+
+            this.partitions[ i ].close();
+            this.partitions[ i ] = null;
+
+            try ( final GroupAggregation partition = new GroupAggregation( this.maxGroups, this.level + 1 );
+                  final DataInputStream in =
+                      new DataInputStream( new BufferedInputStream( Files.newInputStream( this.partitionFiles[ i ] ) ) ) ) {
+                final List< Number > values = new ArrayList<>();
+
+                while ( true ) {
+                    final int length;
+
+                    try {
+                        length = in.readInt();
+                    } catch ( final EOFException e ) {
+                        break;
+                    }
+
+                    final byte[] bytes = new byte[ length ];
+                    in.readFully( bytes );
+                    final String key = new String( bytes, StandardCharsets.UTF_8 );
+                    values.clear();
+
+                    for ( int count = in.readInt(); count > 0; --count ) {
+                        values.add( ( in.readByte() == LONG_VALUE ) ? ( Number ) in.readLong() : ( Number ) in.readDouble() );
+                    }
+
+                    partition.add( key, values );
+                }
+
+                partition.groups( sink );
+                this.spillFiles += partition.spillFiles;
+                this.spilledRows += partition.spilledRows;
+            }
+
+            Files.deleteIfExists( this.partitionFiles[ i ] );
+            this.partitionFiles[ i ] = null;
+        }
+    }
+
+    /**
+     * @return the number of rows added
+     */
+    long rows() {
+        return this.rows;
+    }
+
+    private void spill( final String key,
+                        final List< Number > values ) throws IOException {
+        final int partition = ( key.hashCode() >>> ( this.level * PARTITION_BITS ) ) & ( PARTITIONS - 1 );
+        DataOutputStream out = this.partitions[ partition ];
+
+        if ( out == null ) {
+            this.partitionFiles[ partition ] = Files.createTempFile( "chrysalix-group", ".spill" );
+            out = new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( this.partitionFiles[ partition ] ) ) );
+            this.partitions[ partition ] = out;
+            ++this.spillFiles;
+        }
+
+        // keys are written with their length, rather than with writeUTF, so that keys of any length can be spilled
+        final byte[] bytes = key.getBytes( StandardCharsets.UTF_8 );
+        ++this.spilledRows;
+        out.writeInt( bytes.length );
+        out.write( bytes );
+        out.writeInt( values.size() );
+
+        for ( final Number value : values ) {
+            if ( NumberStatistics.isIntegral( value ) ) {
+                out.writeByte( LONG_VALUE );
+                out.writeLong( value.longValue() );
+            } else {
+                out.writeByte( DOUBLE_VALUE );
+                out.writeDouble( value.doubleValue() );
+            }
+        }
+    }
+
+    /**
+     * @return the number of partition files written, including those written while aggregating spilled partitions
+     */
+    int spillFiles() {
+        return this.spillFiles;
+    }
+
+    /**
+     * @return the number of rows written to partition files, including those written while aggregating spilled partitions
+     */
+    long spilledRows() {
+        return this.spilledRows;
+    }
+
+    /**
+     * Receives completed groups.
+     */
+    interface Sink {
+
+        void accept( String key,
+                     Group group ) throws IOException;
+
+    }
+
+}
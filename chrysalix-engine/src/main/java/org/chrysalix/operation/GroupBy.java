@@ -0,0 +1,388 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.common.Logger;
+import org.chrysalix.operation.GroupAggregation.Aggregate;
+import org.chrysalix.operation.GroupAggregation.Group;
+import org.chrysalix.transformation.ExecutionContext;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.Value;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Groups the children of a collection {@link ModelObject model object} by the value of their key property and computes one or
+ * more aggregates per group, for instance the number of columns per table type or the average length per data type. The
+ * aggregates are named by the descriptor, or descriptor identifier or name, of the {@link Count count}, {@link Add add},
+ * {@link Average average}, {@link Min min}, and {@link Max max} operations. Count is the number of children in a group, and the
+ * other aggregates are over the numeric values of the value property of the children in a group.
+ * <p>
+ * The children are read once, and each is added to the accumulator of its group in a hash table. When a maximum number of groups
+ * is provided, children of groups beyond the maximum are spilled to temporary files and aggregated after the other groups, so that
+ * memory stays bounded for collections with very many groups. The groups are computed the first time they are requested during an
+ * {@link ExecutionContext execution} and shared by every group by of the execution with the same inputs other than the group.
+ * <p>
+ * The result is an unmodifiable map of group key to aggregate, or to an array of the aggregates in input order when there are
+ * several. When a group is provided the result is instead just the aggregate of that group, or <code>null</code> if the group has
+ * no children, so that it can be the source of a {@link Map map} operation.
+ */
+@Indexed( Operation.class )
+public final class GroupBy extends AbstractOperation< Object > {
+
+    static final String DESCRIPTION = "Computes aggregates for each group of the children of a model object";
+    private static final String AGGREGATE_DESCRIPTION =
+        "The descriptor, or its identifier or name, of a Count, Add, Average, Min, or Max operation computed for each group";
+    private static final String AGGREGATE_NAME = "Aggregate";
+    private static final String COLLECTION_DESCRIPTION =
+        "The model object, or its model-relative path, whose children are grouped";
+    private static final String COLLECTION_NAME = "Collection";
+    private static final String ERROR_GROUPING =
+        "Group by operation in transformation '%s' could not group the children of collection '%s'";
+    private static final String GROUP_DESCRIPTION = "The key of the group whose aggregates are the result";
+    private static final String GROUP_NAME = "Group";
+    private static final String GROUPS_KEY = "group-by:%s|%s|%s|%s|%s";
+    private static final String KEY_PROP_DESCRIPTION = "The name of the property holding the group key of each child";
+    private static final String KEY_PROP_NAME = "Key Property";
+    private static final String MAX_GROUPS_DESCRIPTION = "The maximum number of groups held in memory before children are spilled";
+    private static final String MAX_GROUPS_NAME = "Maximum Groups";
+    static final String NAME = "Group By";
+    private static final String UNSUPPORTED_AGGREGATE =
+        "Group by operation in transformation '%s' does not support aggregate '%s'";
+    private static final String VALUE_PROP_DESCRIPTION =
+        "The name of the property holding the values aggregated for each child";
+    private static final String VALUE_PROP_NAME = "Value Property";
+    private static final Logger LOGGER = Logger.logger( GroupBy.class );
+
+    /**
+     * The descriptor for the model object whose children are grouped.
+     */
+    public static final ValueDescriptor< Object > COLLECTION_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( GroupBy.class, "collection" ),
+                                                     ChrysalixI18n.localize( COLLECTION_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( COLLECTION_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the name of the property holding the group key of each child.
+     */
+    public static final ValueDescriptor< String > KEY_PROP_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( GroupBy.class, "keyProperty" ),
+                                                     ChrysalixI18n.localize( KEY_PROP_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( KEY_PROP_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional name of the property holding the values aggregated for each child.
+     */
+    public static final ValueDescriptor< String > VALUE_PROP_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( GroupBy.class, "valueProperty" ),
+                                                     ChrysalixI18n.localize( VALUE_PROP_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( VALUE_PROP_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the aggregates computed for each group.
+     */
+    public static final ValueDescriptor< Object > AGGREGATE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( GroupBy.class, "aggregate" ),
+                                                     ChrysalixI18n.localize( AGGREGATE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( AGGREGATE_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     true );
+
+    /**
+     * The descriptor for the optional key of the group whose aggregates are the result.
+     */
+    public static final ValueDescriptor< Object > GROUP_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( GroupBy.class, "group" ),
+                                                     ChrysalixI18n.localize( GROUP_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( GROUP_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional maximum number of groups held in memory before children are spilled.
+     */
+    public static final ValueDescriptor< Number > MAX_GROUPS_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( GroupBy.class, "maxGroups" ),
+                                                     ChrysalixI18n.localize( MAX_GROUPS_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( MAX_GROUPS_NAME ),
+                                                     Number.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = {
+                    COLLECTION_DESCRIPTOR,
+                    KEY_PROP_DESCRIPTOR,
+                    VALUE_PROP_DESCRIPTOR,
+                    AGGREGATE_DESCRIPTOR,
+                    GROUP_DESCRIPTOR,
+                    MAX_GROUPS_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< Object > DESCRIPTOR =
+        new AbstractOperationDescriptor< Object >( TransformationFactory.createId( GroupBy.class ),
+                                                   ChrysalixI18n.localize( DESCRIPTION ),
+                                                   ChrysalixI18n.localize( NAME ),
+                                                   Object.class,
+                                                   INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< Object > newInstance( final ModelObject operation,
+                                                    final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new GroupBy( operation, transformation );
+            }
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * A group by reads model objects that are not inputs, so it is never folded, shared, or cached.
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#deterministic()
+             */
+            @Override
+            public boolean deterministic() {
+                return false;
+            }
+
+        };
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    GroupBy( final ModelObject operation,
+             final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    private List< Aggregate > aggregates() throws ChrysalixException {
+        final List< Aggregate > aggregates = new ArrayList<>();
+
+        for ( final Value< ? > input : inputs( AGGREGATE_DESCRIPTOR.name() ) ) {
+            aggregates.add( Aggregate.of( input.get() ) );
+        }
+
+        return aggregates;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected Object calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final Object valueProp = inputValue( VALUE_PROP_DESCRIPTOR );
+        final Object maxGroupsInput = inputValue( MAX_GROUPS_DESCRIPTOR );
+        final int maxGroups = ( maxGroupsInput instanceof Number ) ? Math.max( 0, ( ( Number ) maxGroupsInput ).intValue() ) : 0;
+        final java.util.Map< String, Object > groups = groups( inputObject( COLLECTION_DESCRIPTOR ),
+                                                              inputValue( KEY_PROP_DESCRIPTOR ).toString(),
+                                                              ( valueProp == null ) ? null : valueProp.toString(),
+                                                              aggregates(),
+                                                              maxGroups );
+        final List< Value< ? > > group = inputs( GROUP_DESCRIPTOR.name() );
+
+        if ( group.isEmpty() ) {
+            return groups;
+        }
+
+        final Object key = group.get( 0 ).get();
+        return ( ( key == null ) ? null : groups.get( key.toString() ) );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private java.util.Map< String, Object > groups( final ModelObject collection,
+                                                   final String keyProp,
+                                                   final String valueProp,
+                                                   final List< Aggregate > aggregates,
+                                                   final int maxGroups ) throws ChrysalixException {
+        String collectionPath = null;
+
+        try {
+            collectionPath = collection.absolutePath();
+            final ExecutionContext context = ExecutionContext.current();
+            final String key = String.format( GROUPS_KEY, collectionPath, keyProp, valueProp, aggregates, maxGroups );
+
+            if ( ( context != null ) && context.hasResult( key ) ) {
+                return ( java.util.Map< String, Object > ) context.result( key );
+            }
+
+            final long start = System.nanoTime();
+            final java.util.Map< String, Object > result = new LinkedHashMap<>();
+
+            try ( final GroupAggregation aggregation = new GroupAggregation( maxGroups ) ) {
+                final List< Number > values = new ArrayList<>();
+
+                for ( final ModelObject kid : collection.children() ) {
+                    final ModelProperty keyProperty = kid.property( keyProp );
+
+                    if ( keyProperty == null ) {
+                        continue;
+                    }
+
+                    values.clear();
+                    final ModelProperty valueProperty = ( ( valueProp == null ) ? null : kid.property( valueProp ) );
+
+                    if ( valueProperty != null ) {
+                        for ( final Object value : valueProperty.values() ) {
+                            if ( value instanceof Number ) {
+                                values.add( ( Number ) value );
+                            }
+                        }
+                    }
+
+                    aggregation.add( String.valueOf( keyProperty.value() ), values );
+                }
+
+                // each group is reduced to its aggregate values as soon as it is complete
+                aggregation.groups( new GroupAggregation.Sink() {
+
+                    @Override
+                    public void accept( final String groupKey,
+                                        final Group group ) {
+                        result.put( groupKey, value( group, aggregates ) );
+                    }
+                } );
+
+                LOGGER.debug( "Grouped %s objects of '%s' into %s groups in %s ms, spilling %s objects to %s files",
+                              aggregation.rows(),
+                              collectionPath,
+                              result.size(),
+                              ( System.nanoTime() - start ) / 1000000,
+                              aggregation.spilledRows(),
+                              aggregation.spillFiles() );
+            }
+
+            final java.util.Map< String, Object > groups = Collections.unmodifiableMap( result );
+
+            if ( context != null ) {
+                context.result( key, groups );
+            }
+
+            return groups;
+        } catch ( final ModelspaceException | IOException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_GROUPING, transformationId(), collectionPath ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( COLLECTION_DESCRIPTOR, KEY_PROP_DESCRIPTOR, VALUE_PROP_DESCRIPTOR, GROUP_DESCRIPTOR,
+                              MAX_GROUPS_DESCRIPTOR );
+        final List< Value< ? > > aggregates = inputs( AGGREGATE_DESCRIPTOR.name() );
+
+        if ( aggregates.isEmpty() ) {
+            this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                  ChrysalixI18n.localize( AbstractOperation.HAS_NO_TERMS,
+                                                                                          NAME,
+                                                                                          transformationId() ) ) );
+        }
+
+        for ( final Value< ? > aggregate : aggregates ) {
+            final Object descriptor = aggregate.get();
+
+            if ( Aggregate.of( descriptor ) == null ) {
+                this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                      ChrysalixI18n.localize( UNSUPPORTED_AGGREGATE,
+                                                                                              transformationId(),
+                                                                                              descriptor ) ) );
+            }
+        }
+
+        return super.problems();
+    }
+
+    private Object value( final Group group,
+                          final List< Aggregate > aggregates ) {
+        if ( aggregates.size() == 1 ) {
+            return aggregates.get( 0 ).value( group );
+        }
+
+        final Object[] values = new Object[ aggregates.size() ];
+
+        for ( int i = 0; i < values.length; ++i ) {
+            values[ i ] = aggregates.get( i ).value( group );
+        }
+
+        return values;
+    }
+
+}
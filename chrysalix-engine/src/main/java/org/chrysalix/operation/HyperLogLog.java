@@ -0,0 +1,198 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Estimates the number of distinct values in a stream in constant memory using the HyperLogLog algorithm of Flajolet et al. Each
+ * value is hashed to 64 bits, the top <em>precision</em> bits pick one of 2<sup><em>precision</em></sup> one-byte registers, and
+ * the register keeps the longest run of leading zeros seen in the remaining bits. The standard error of the estimate is about
+ * 1.04 / &radic;2<sup><em>precision</em></sup>, so the default precision of 14 uses 16 KB for an error of about 0.8%.
+ * <p>
+ * Sketches of the same precision can be {@link #merge(HyperLogLog) merged}, so that values counted separately, for instance by
+ * parallel evaluations, are counted once overall.
+ */
+final class HyperLogLog {
+
+    /**
+     * The precision used when none is provided.
+     */
+    static final int DEFAULT_PRECISION = 14;
+
+    /**
+     * The largest supported precision.
+     */
+    static final int MAX_PRECISION = 18;
+
+    /**
+     * The smallest supported precision.
+     */
+    static final int MIN_PRECISION = 4;
+
+    // distinguishes the hash of a fractional double from the hash of a long with the same bits
+    private static final long DOUBLE_SALT = 0x9e3779b97f4a7c15L;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Numbers with the same numeric value hash the same regardless of their type, and all other values hash by their string.
+     * 
+     * @param value
+     *        the value being hashed (cannot be <code>null</code>)
+     * @return the 64-bit hash
+     */
+    static long hash( final Object value ) {
+        if ( value instanceof Number ) {
+            final Number number = ( Number ) value;
+
+            if ( NumberStatistics.isIntegral( number ) ) {
+                return LongHashSet.mix( number.longValue() );
+            }
+
+            final double doubleValue = number.doubleValue();
+
+            if ( isWhole( doubleValue ) ) {
+                return LongHashSet.mix( ( long ) doubleValue );
+            }
+
+            return LongHashSet.mix( Double.doubleToLongBits( doubleValue ) ^ DOUBLE_SALT );
+        }
+
+        long hash = FNV_OFFSET_BASIS;
+
+        for ( final byte b : value.toString().getBytes( StandardCharsets.UTF_8 ) ) {
+            hash ^= ( b & 0xff );
+            hash *= FNV_PRIME;
+        }
+
+        return LongHashSet.mix( hash );
+    }
+
+    /**
+     * @param value
+     *        the value being checked
+     * @return <code>true</code> if the value is a whole number that a <code>long</code> holds exactly
+     */
+    static boolean isWhole( final double value ) {
+        return ( ( value == Math.rint( value ) ) && ( value >= Long.MIN_VALUE ) && ( value < Long.MAX_VALUE ) );
+    }
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * @param precision
+     *        the number of hash bits that pick a register (must be between {@link #MIN_PRECISION} and {@link #MAX_PRECISION})
+     * @throws IllegalArgumentException
+     *         if the precision is out of range
+     */
+    HyperLogLog( final int precision ) {
+        if ( ( precision < MIN_PRECISION ) || ( precision > MAX_PRECISION ) ) {
+            throw new IllegalArgumentException( Integer.toString( precision ) );
+        }
+
+        this.precision = precision;
+        this.registers = new byte[ 1 << precision ];
+    }
+
+    /**
+     * @param value
+     *        the value being counted (cannot be <code>null</code>)
+     */
+    void add( final Object value ) {
+        final long hash = hash( value );
+        final int register = ( int ) ( hash >>> ( Long.SIZE - this.precision ) );
+
+        // the marker bit bounds the rank when every remaining bit is zero
+        final int rank = Long.numberOfLeadingZeros( ( hash << this.precision ) | ( 1L << ( this.precision - 1 ) ) ) + 1;
+
+        if ( rank > this.registers[ register ] ) {
+            this.registers[ register ] = ( byte ) rank;
+        }
+    }
+
+    /**
+     * @return the estimated number of distinct values added
+     */
+    long estimate() {
+        final int registerCount = this.registers.length;
+        double sum = 0;
+        int zeros = 0;
+
+        for ( final byte register : this.registers ) {
+            sum += Math.scalb( 1.0D, -register );
+
+            if ( register == 0 ) {
+                ++zeros;
+            }
+        }
+
+        final double alpha;
+
+        switch ( registerCount ) {
+            case 16:
+                alpha = 0.673D;
+                break;
+            case 32:
+                alpha = 0.697D;
+                break;
+            case 64:
+                alpha = 0.709D;
+                break;
+            default:
+                alpha = 0.7213D / ( 1 + ( 1.079D / registerCount ) );
+        }
+
+        final double estimate = ( alpha * registerCount * registerCount ) / sum;
+
+        // small cardinalities are estimated more accurately by linear counting of the empty registers
+        if ( ( estimate <= ( 2.5D * registerCount ) ) && ( zeros != 0 ) ) {
+            return Math.round( registerCount * Math.log( ( double ) registerCount / zeros ) );
+        }
+
+        return Math.round( estimate );
+    }
+
+    /**
+     * Adds the values of another sketch to this sketch, which then estimates the number of distinct values added to either.
+     * 
+     * @param other
+     *        the sketch being merged (cannot be <code>null</code>)
+     * @throws IllegalArgumentException
+     *         if the sketches do not have the same precision
+     */
+    void merge( final HyperLogLog other ) {
+        if ( other.precision != this.precision ) {
+            throw new IllegalArgumentException( Integer.toString( other.precision ) );
+        }
+
+        for ( int i = 0; i < this.registers.length; ++i ) {
+            if ( other.registers[ i ] > this.registers[ i ] ) {
+                this.registers[ i ] = other.registers[ i ];
+            }
+        }
+    }
+
+}
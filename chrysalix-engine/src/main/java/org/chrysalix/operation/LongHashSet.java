@@ -0,0 +1,132 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+/**
+ * A set of <code>long</code>s stored in a single primitive array with open addressing and linear probing, so that adding a value
+ * neither boxes it nor allocates an entry. Zero marks an empty slot, so whether zero is in the set is tracked separately.
+ */
+final class LongHashSet {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private static boolean insert( final long[] table,
+                                   final int mask,
+                                   final long key ) {
+        for ( int slot = ( int ) mix( key ) & mask;; slot = ( slot + 1 ) & mask ) {
+            if ( table[ slot ] == 0 ) {
+                table[ slot ] = key;
+                return true;
+            }
+
+            if ( table[ slot ] == key ) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The finalizer of the 64-bit MurmurHash3, which spreads every bit of the key over the whole hash.
+     * 
+     * @param key
+     *        the key being hashed
+     * @return the hash
+     */
+    static long mix( final long key ) {
+        long hash = key;
+        hash ^= ( hash >>> 33 );
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= ( hash >>> 33 );
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= ( hash >>> 33 );
+        return hash;
+    }
+
+    private boolean containsZero;
+    private long[] keys;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expectedSize
+     *        the number of values expected, used to size the table (must not be negative)
+     */
+    LongHashSet( final int expectedSize ) {
+        int capacity = 16;
+
+        // keep the table at most half full
+        while ( ( capacity < MAX_CAPACITY ) && ( capacity < ( 2L * expectedSize ) ) ) {
+            capacity <<= 1;
+        }
+
+        this.keys = new long[ capacity ];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @param key
+     *        the value being added
+     * @return <code>true</code> if the value was not already in the set
+     */
+    boolean add( final long key ) {
+        if ( key == 0 ) {
+            if ( this.containsZero ) return false;
+            this.containsZero = true;
+            ++this.size;
+            return true;
+        }
+
+        if ( !insert( this.keys, this.mask, key ) ) {
+            return false;
+        }
+
+        if ( ( ++this.size > ( this.keys.length >>> 1 ) ) && ( this.keys.length < MAX_CAPACITY ) ) {
+            grow();
+        }
+
+        return true;
+    }
+
+    private void grow() {
+        final long[] grown = new long[ this.keys.length << 1 ];
+        final int grownMask = grown.length - 1;
+
+        for ( final long key : this.keys ) {
+            if ( key != 0 ) {
+                insert( grown, grownMask, key );
+            }
+        }
+
+        this.keys = grown;
+        this.mask = grownMask;
+    }
+
+    /**
+     * @return the number of values in the set
+     */
+    int size() {
+        return this.size;
+    }
+
+}
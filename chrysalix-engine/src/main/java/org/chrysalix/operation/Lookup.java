@@ -0,0 +1,310 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.List;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.common.Logger;
+import org.chrysalix.transformation.ExecutionContext;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Finds the children of a collection {@link ModelObject model object} whose key matches the probed key, for instance the table
+ * referenced by a foreign key column or the complex type referenced by an XSD type reference. The key of a child is the value of
+ * its key property, or its name if no key property is provided.
+ * <p>
+ * The collection is indexed by a hash index the first time it is probed during an {@link ExecutionContext execution}, and the
+ * index is shared by every lookup of the execution probing the same collection with the same key options. Each probe is then a
+ * hash lookup rather than a scan of the collection. Without an execution the index is built for each calculation.
+ * <p>
+ * The result is the first matching child, or the value of its value property if one is provided, or <code>null</code> if nothing
+ * matches. When multiple matches are requested the result is an array of all the matches, which can be empty.
+ */
+@Indexed( Operation.class )
+public final class Lookup extends AbstractOperation< Object > {
+
+    static final String DESCRIPTION = "Finds the children of a model object whose key matches a key";
+    private static final String CASE_INSENSITIVE_DESCRIPTION = "Indicates if keys are compared ignoring case";
+    private static final String CASE_INSENSITIVE_NAME = "Case Insensitive";
+    private static final String COLLECTION_DESCRIPTION =
+        "The model object, or its model-relative path, whose children are searched";
+    private static final String COLLECTION_NAME = "Collection";
+    private static final String ERROR_BUILDING_INDEX = "Lookup operation in transformation '%s' could not index collection '%s'";
+    private static final String ERROR_READING_VALUE =
+        "Lookup operation in transformation '%s' could not read value property '%s'";
+    private static final String INDEX_KEY = "lookup-index:%s|%s|%s";
+    private static final String KEY_DESCRIPTION = "The key being looked up";
+    private static final String KEY_NAME = "Key";
+    private static final String KEY_PROP_DESCRIPTION =
+        "The name of the property holding the key of each child instead of its name";
+    private static final String KEY_PROP_NAME = "Key Property";
+    private static final String MULTIPLE_DESCRIPTION = "Indicates if all matches, rather than the first, are the result";
+    private static final String MULTIPLE_NAME = "Multiple";
+    static final String NAME = "Lookup";
+    private static final String VALUE_PROP_DESCRIPTION =
+        "The name of the property of a match that is the result instead of the match";
+    private static final String VALUE_PROP_NAME = "Value Property";
+    private static final Logger LOGGER = Logger.logger( Lookup.class );
+
+    /**
+     * The descriptor for the model object whose children are searched.
+     */
+    public static final ValueDescriptor< Object > COLLECTION_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Lookup.class, "collection" ),
+                                                     ChrysalixI18n.localize( COLLECTION_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( COLLECTION_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the key being looked up.
+     */
+    public static final ValueDescriptor< Object > KEY_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Lookup.class, "key" ),
+                                                     ChrysalixI18n.localize( KEY_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( KEY_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional name of the property holding the key of each child.
+     */
+    public static final ValueDescriptor< String > KEY_PROP_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Lookup.class, "keyProperty" ),
+                                                     ChrysalixI18n.localize( KEY_PROP_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( KEY_PROP_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional name of the property of a match that is the result.
+     */
+    public static final ValueDescriptor< String > VALUE_PROP_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Lookup.class, "valueProperty" ),
+                                                     ChrysalixI18n.localize( VALUE_PROP_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( VALUE_PROP_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional flag indicating if keys are compared ignoring case.
+     */
+    public static final ValueDescriptor< Boolean > CASE_INSENSITIVE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Lookup.class, "caseInsensitive" ),
+                                                     ChrysalixI18n.localize( CASE_INSENSITIVE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( CASE_INSENSITIVE_NAME ),
+                                                     Boolean.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional flag indicating if all matches are the result.
+     */
+    public static final ValueDescriptor< Boolean > MULTIPLE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Lookup.class, "multiple" ),
+                                                     ChrysalixI18n.localize( MULTIPLE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( MULTIPLE_NAME ),
+                                                     Boolean.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = {
+                    COLLECTION_DESCRIPTOR,
+                    KEY_DESCRIPTOR,
+                    KEY_PROP_DESCRIPTOR,
+                    VALUE_PROP_DESCRIPTOR,
+                    CASE_INSENSITIVE_DESCRIPTOR,
+                    MULTIPLE_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< Object > DESCRIPTOR =
+        new AbstractOperationDescriptor< Object >( TransformationFactory.createId( Lookup.class ),
+                                                   ChrysalixI18n.localize( DESCRIPTION ),
+                                                   ChrysalixI18n.localize( NAME ),
+                                                   Object.class,
+                                                   INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< Object > newInstance( final ModelObject operation,
+                                                    final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new Lookup( operation, transformation );
+            }
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * A lookup reads model objects that are not inputs, so it is never folded, shared, or cached.
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#deterministic()
+             */
+            @Override
+            public boolean deterministic() {
+                return false;
+            }
+
+        };
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    Lookup( final ModelObject operation,
+            final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected Object calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final Object keyProp = inputValue( KEY_PROP_DESCRIPTOR );
+        final Object valueProp = inputValue( VALUE_PROP_DESCRIPTOR );
+        final boolean caseInsensitive = Boolean.TRUE.equals( inputValue( CASE_INSENSITIVE_DESCRIPTOR ) );
+        final boolean multiple = Boolean.TRUE.equals( inputValue( MULTIPLE_DESCRIPTOR ) );
+        final LookupIndex index = index( inputObject( COLLECTION_DESCRIPTOR ),
+                                         ( keyProp == null ) ? null : keyProp.toString(),
+                                         caseInsensitive );
+        final List< ModelObject > matches = index.matches( inputValue( KEY_DESCRIPTOR ) );
+
+        if ( !multiple ) {
+            return ( matches.isEmpty() ? null : result( matches.get( 0 ), valueProp ) );
+        }
+
+        final Object[] results = new Object[ matches.size() ];
+
+        for ( int i = 0; i < results.length; ++i ) {
+            results[ i ] = result( matches.get( i ), valueProp );
+        }
+
+        return results;
+    }
+
+    private LookupIndex index( final ModelObject collection,
+                               final String keyProp,
+                               final boolean caseInsensitive ) throws ChrysalixException {
+        String collectionPath = null;
+
+        try {
+            collectionPath = collection.absolutePath();
+            final ExecutionContext context = ExecutionContext.current();
+            final String key = String.format( INDEX_KEY, collectionPath, keyProp, caseInsensitive );
+
+            if ( ( context != null ) && context.hasResult( key ) ) {
+                return ( LookupIndex ) context.result( key );
+            }
+
+            final LookupIndex index = LookupIndex.build( collection, keyProp, caseInsensitive );
+            LOGGER.debug( "Built lookup index over '%s' with %s keys for %s objects in %s ms using about %s bytes",
+                          collectionPath,
+                          index.keys(),
+                          index.objects(),
+                          index.buildNanos() / 1000000,
+                          index.estimatedBytes() );
+
+            if ( context != null ) {
+                context.result( key, index );
+            }
+
+            return index;
+        } catch ( final ModelspaceException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_BUILDING_INDEX, transformationId(), collectionPath ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( INPUT_DESCRIPTORS );
+        return super.problems();
+    }
+
+    private Object result( final ModelObject match,
+                           final Object valueProp ) throws ChrysalixException {
+        if ( valueProp == null ) {
+            return match;
+        }
+
+        try {
+            final ModelProperty property = match.property( valueProp.toString() );
+
+            if ( property == null ) {
+                return null;
+            }
+
+            return ( property.descriptor().multiple() ? property.values() : property.value() );
+        } catch ( final ModelspaceException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_READING_VALUE, transformationId(), valueProp ) );
+        }
+    }
+
+}
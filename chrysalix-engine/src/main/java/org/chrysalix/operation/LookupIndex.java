@@ -0,0 +1,174 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+
+/**
+ * A hash index of the children of a {@link ModelObject model object} by key, built once and probed by {@link Lookup lookup}
+ * operations. The key of a child is the value, or each of the values, of its key property, or its name if there is no key
+ * property. Keys are compared as strings.
+ */
+final class LookupIndex {
+
+    // rough per-entry cost of a hash map entry, its key string, and a reference to the indexed object
+    private static final int ENTRY_OVERHEAD = 32 + 40 + 8;
+    private static final int LIST_OVERHEAD = 40;
+
+    /**
+     * @param collection
+     *        the model object whose children are indexed (cannot be <code>null</code>)
+     * @param keyProperty
+     *        the name of the key property or <code>null</code> if children are indexed by name
+     * @param caseInsensitive
+     *        <code>true</code> if keys are compared ignoring case
+     * @return the index (never <code>null</code>)
+     * @throws ModelspaceException
+     *         if the children cannot be read
+     */
+    static LookupIndex build( final ModelObject collection,
+                              final String keyProperty,
+                              final boolean caseInsensitive ) throws ModelspaceException {
+        final long start = System.nanoTime();
+        final ModelObject[] kids = collection.children();
+        final LookupIndex index = new LookupIndex( caseInsensitive, kids.length );
+
+        for ( final ModelObject kid : kids ) {
+            if ( keyProperty == null ) {
+                index.add( kid.name(), kid );
+            } else {
+                final ModelProperty property = kid.property( keyProperty );
+
+                if ( property != null ) {
+                    for ( final Object key : property.values() ) {
+                        index.add( key, kid );
+                    }
+                }
+            }
+        }
+
+        index.buildNanos = System.nanoTime() - start;
+        return index;
+    }
+
+    private final boolean caseInsensitive;
+    private final HashMap< String, Object > objectsByKey;
+    private long buildNanos;
+    private long estimatedBytes;
+    private int objects;
+
+    private LookupIndex( final boolean caseInsensitive,
+                         final int expectedSize ) {
+        this.caseInsensitive = caseInsensitive;
+        this.objectsByKey = new HashMap<>( Math.max( 16, ( int ) ( expectedSize / 0.75f ) + 1 ) );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private void add( final Object key,
+                      final ModelObject object ) {
+        if ( key == null ) {
+            return;
+        }
+
+        final String normalized = normalize( key );
+        final Object existing = this.objectsByKey.get( normalized );
+        ++this.objects;
+
+        if ( existing == null ) {
+            this.objectsByKey.put( normalized, object );
+            this.estimatedBytes += ENTRY_OVERHEAD + ( 2L * normalized.length() );
+        } else if ( existing instanceof List ) {
+            ( ( List< ModelObject > ) existing ).add( object );
+            this.estimatedBytes += 8;
+        } else {
+            final List< ModelObject > matches = new ArrayList<>( 2 );
+            matches.add( ( ModelObject ) existing );
+            matches.add( object );
+            this.objectsByKey.put( normalized, matches );
+            this.estimatedBytes += LIST_OVERHEAD + 16;
+        }
+    }
+
+    /**
+     * @return the time taken to build the index, in nanoseconds
+     */
+    long buildNanos() {
+        return this.buildNanos;
+    }
+
+    /**
+     * @return an estimate of the memory used by the index, in bytes
+     */
+    long estimatedBytes() {
+        return this.estimatedBytes;
+    }
+
+    /**
+     * @return the number of distinct keys
+     */
+    int keys() {
+        return this.objectsByKey.size();
+    }
+
+    /**
+     * @param key
+     *        the key being probed (can be <code>null</code>)
+     * @return the objects with the key, in collection order (never <code>null</code> but can be empty)
+     */
+    @SuppressWarnings( "unchecked" )
+    List< ModelObject > matches( final Object key ) {
+        final Object match = ( ( key == null ) ? null : this.objectsByKey.get( normalize( key ) ) );
+
+        if ( match == null ) {
+            return Collections.emptyList();
+        }
+
+        if ( match instanceof List ) {
+            return Collections.unmodifiableList( ( List< ModelObject > ) match );
+        }
+
+        return Collections.singletonList( ( ModelObject ) match );
+    }
+
+    private String normalize( final Object key ) {
+        final String text = key.toString();
+        return ( this.caseInsensitive ? text.toLowerCase( Locale.ROOT ) : text );
+    }
+
+    /**
+     * @return the number of indexed objects, counting an object once per key
+     */
+    int objects() {
+        return this.objects;
+    }
+
+}
@@ -27,6 +27,8 @@ import java.util.List;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.transformation.ExecutionContext;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -43,6 +45,7 @@ import org.modelspace.ModelspaceException;
 /**
  * Maps one {@link ModelObject model object's} property to another model object's property.
  */
+@Indexed( Operation.class )
 public final class Map extends AbstractOperation< Void > {
 
     static final String DESCRIPTION = "Maps one model object's property to another model object's property";
@@ -155,14 +158,14 @@ public final class Map extends AbstractOperation< Void > {
 
                 if ( sourceProp.descriptor().multiple() ) {
                     final Object[] values = sourceProp.values();
-                    targetProp.set( values );
+                    write( targetProp, values );
                 } else {
                     final Object value = sourceProp.value();
-                    targetProp.set( value );
+                    write( targetProp, value );
                 }
             } else if ( source instanceof Operation ) {
                 final Object value = ( ( Operation< ? > ) source ).get();
-                targetProp.set( value );
+                write( targetProp, value );
             }
 
             return null;
@@ -295,4 +298,18 @@ public final class Map extends AbstractOperation< Void > {
         return super.problems();
     }
 
+    /**
+     * Sets the target property, or defers the write to the commit of the current execution if there is one.
+     */
+    private void write( final ModelProperty targetProp,
+                        final Object... values ) throws ModelspaceException {
+        final ExecutionContext context = ExecutionContext.current();
+
+        if ( context == null ) {
+            targetProp.set( values );
+        } else {
+            context.defer( targetProp, values );
+        }
+    }
+
 }
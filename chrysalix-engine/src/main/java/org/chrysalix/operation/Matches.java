@@ -0,0 +1,173 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Indicates if the string representation of the input term entirely matches a regular expression. A <code>null</code> input does
+ * not match.
+ * 
+ * @see PatternCache for how patterns are compiled
+ */
+@Indexed( Operation.class )
+public final class Matches extends AbstractOperation< Boolean > {
+
+    static final String DESCRIPTION = "Indicates if a string matches a regular expression";
+    private static final String INPUT_DESCRIPTION = "The string being matched";
+    private static final String INPUT_NAME = "Input";
+    private static final String INVALID_PATTERN = "Matches operation in transformation '%s' has invalid pattern '%s': %s";
+    static final String NAME = "Matches";
+    private static final String PATTERN_DESCRIPTION = "The regular expression the input must match";
+    private static final String PATTERN_NAME = "Pattern";
+
+    /**
+     * The descriptor for the string being matched.
+     */
+    public static final ValueDescriptor< String > INPUT_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Matches.class, "input" ),
+                                                     ChrysalixI18n.localize( INPUT_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( INPUT_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the regular expression.
+     */
+    public static final ValueDescriptor< String > PATTERN_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Matches.class, "pattern" ),
+                                                     ChrysalixI18n.localize( PATTERN_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( PATTERN_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = { INPUT_DESCRIPTOR, PATTERN_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< Boolean > DESCRIPTOR =
+        new AbstractOperationDescriptor< Boolean >( TransformationFactory.createId( Matches.class ),
+                                                    ChrysalixI18n.localize( DESCRIPTION ),
+                                                    ChrysalixI18n.localize( NAME ),
+                                                    Boolean.class,
+                                                    INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< Boolean > newInstance( final ModelObject operation,
+                                                     final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new Matches( operation, transformation );
+            }
+
+        };
+
+    private Pattern pattern;
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    Matches( final ModelObject operation,
+             final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected Boolean calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final Object input = inputValue( INPUT_DESCRIPTOR );
+        return ( ( input != null ) && pattern().matcher( input.toString() ).matches() );
+    }
+
+    private Pattern pattern() throws ChrysalixException {
+        final Pattern pattern = PatternCache.pattern( this.pattern, inputValue( PATTERN_DESCRIPTOR ).toString() );
+        this.pattern = pattern;
+        return pattern;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( INPUT_DESCRIPTORS );
+
+        if ( inputValue( PATTERN_DESCRIPTOR ) != null ) {
+            try {
+                pattern();
+            } catch ( final PatternSyntaxException e ) {
+                this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                      ChrysalixI18n.localize( INVALID_PATTERN,
+                                                                                              transformationId(),
+                                                                                              e.getPattern(),
+                                                                                              e.getDescription() ) ) );
+            }
+        }
+
+        return super.problems();
+    }
+
+}
@@ -25,8 +25,10 @@ package org.chrysalix.operation;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Precision;
 import org.chrysalix.transformation.Transformation;
 import org.chrysalix.transformation.TransformationFactory;
 import org.chrysalix.transformation.ValidationProblem;
@@ -39,6 +41,7 @@ import org.modelspace.ModelspaceException;
 /**
  * Determines the maximum value of a collection of terms.
  */
+@Indexed( Operation.class )
 public final class Max extends AbstractOperation< Number > {
 
     static final String DESCRIPTION = "Finds the maximum value of two or more numbers";
@@ -112,37 +115,19 @@ public final class Max extends AbstractOperation< Number > {
     @Override
     protected Number calculate() throws ChrysalixException {
         assert !problems().isError();
-        Number result = null;
-        int i = 0;
+        final Precision precision = precision();
 
-        for ( final Value< ? > term : inputs() ) {
-            Number value = ( Number ) term.get();
-
-            if ( ( value instanceof Integer ) || ( value instanceof Short ) || ( value instanceof Byte ) ) {
-                value = value.longValue();
-            } else if ( value instanceof Float ) {
-                value = ( ( Float ) value ).doubleValue();
-            }
+        if ( precision.mode() != Precision.Mode.MIXED ) {
+            return Arithmetic.max( inputs(), precision );
+        }
 
-            if ( i == 0 ) {
-                if ( value instanceof Long ) {
-                    result = new Long( ( Long ) value );
-                } else {
-                    assert ( result instanceof Double );
-                    result = new Double( ( Double ) value );
-                }
-            } else if ( result != null ) {
-                if ( ( result instanceof Double ) || ( value instanceof Double ) ) {
-                    result = Math.max( result.doubleValue(), value.doubleValue() );
-                } else {
-                    result = Math.max( result.longValue(), value.longValue() );
-                }
-            }
+        final NumberStatistics statistics = new NumberStatistics();
 
-            ++i;
+        for ( final Value< ? > term : inputs() ) {
+            statistics.add( ( Number ) term.get() );
         }
 
-        return result;
+        return statistics.max();
     }
 
     /**
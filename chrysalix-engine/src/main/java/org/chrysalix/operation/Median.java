@@ -25,26 +25,34 @@ package org.chrysalix.operation;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Precision;
 import org.chrysalix.transformation.Transformation;
 import org.chrysalix.transformation.TransformationFactory;
 import org.chrysalix.transformation.ValidationProblem;
 import org.chrysalix.transformation.ValidationProblems;
 import org.chrysalix.transformation.Value;
 import org.chrysalix.transformation.ValueDescriptor;
+import org.chrysalix.transformation.ValueSorter;
 import org.modelspace.ModelObject;
 import org.modelspace.ModelspaceException;
 
 /**
- * Computes the median value of a collection of number terms.
+ * Computes the median value of a collection of number terms. The median is exact unless the optional
+ * {@link #APPROXIMATE_DESCRIPTOR approximate} input is <code>true</code>, in which case it is estimated as a double by a
+ * {@link QuantileSketch quantile sketch} without sorting the terms.
  */
+@Indexed( Operation.class )
 public final class Median extends AbstractOperation< Number > {
 
     private static String ADD_OPERATION_NOT_FOUND = "Add operation child of the median operation was not found";
+    private static final String APPROXIMATE_DESCRIPTION =
+        "Indicates if the median is estimated in constant memory instead of being computed exactly";
+    private static final String APPROXIMATE_NAME = "Approximate";
     static final String DESCRIPTION = "Computes the median value of a collection of numeric terms";
     private static String DIVIDE_OPERATION_NOT_FOUND = "Divide operation child of the median operation was not found";
-    private static final String ERROR = "Median operation in transformation '%s' failed to calculate";
     private static final String INPUT_DESCRIPTION = "An input term used to determine the median value of a set of terms.";
     private static final String INPUT_NAME = "Input";
     static final String NAME = "Median";
@@ -61,10 +69,23 @@ public final class Median extends AbstractOperation< Number > {
                                                      1,
                                                      true );
 
+    /**
+     * The descriptor for the optional flag indicating if the median is estimated by a quantile sketch instead of being computed
+     * exactly.
+     */
+    public static final ValueDescriptor< Boolean > APPROXIMATE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Median.class, "approximate" ),
+                                                     ChrysalixI18n.localize( APPROXIMATE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( APPROXIMATE_NAME ),
+                                                     Boolean.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
     /**
      * The input descriptors.
      */
-    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = { TERM_DESCRIPTOR };
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = { TERM_DESCRIPTOR, APPROXIMATE_DESCRIPTOR };
 
     /**
      * The output descriptor.
@@ -90,6 +111,9 @@ public final class Median extends AbstractOperation< Number > {
 
         };
 
+    private volatile Add addOperation;
+    private volatile Divide divideOperation;
+
     /**
      * @param operation
      *        the operation model object (cannot be <code>null</code>)
@@ -131,12 +155,21 @@ public final class Median extends AbstractOperation< Number > {
             }
         }
 
+        if ( APPROXIMATE_DESCRIPTOR.name().equals( descriptorId ) ) {
+            super.addInput( descriptorId, valuesBeingAdded );
+            return;
+        }
+
         final Add add = addOperation();
         add.addInput( Add.TERM_DESCRIPTOR.id(), valuesBeingAdded );
         divideOperation().setInput( Divide.TERM_DESCRIPTOR.id(), add, valuesBeingAdded.length );
     }
 
     private Add addOperation() throws ChrysalixException {
+        if ( this.addOperation != null ) {
+            return this.addOperation;
+        }
+
         ModelObject modelObject = null;
 
         try {
@@ -146,7 +179,8 @@ public final class Median extends AbstractOperation< Number > {
                 throw new ChrysalixException( ChrysalixI18n.localize( ADD_OPERATION_NOT_FOUND ) );
             }
 
-            return ( Add ) Add.DESCRIPTOR.newInstance( modelObject, transformation() );
+            this.addOperation = ( Add ) Add.DESCRIPTOR.newInstance( modelObject, transformation() );
+            return this.addOperation;
         } catch ( final ModelspaceException e ) {
             throw new ChrysalixException( e, ChrysalixI18n.localize( ADD_OPERATION_NOT_FOUND ) );
         }
@@ -157,54 +191,44 @@ public final class Median extends AbstractOperation< Number > {
      * 
      * @see org.chrysalix.operation.AbstractOperation#calculate()
      */
-    @SuppressWarnings( "unchecked" )
     @Override
     protected Number calculate() throws ChrysalixException {
-        // assert !problems().isError();
-        //
-        // // convert terms to number terms
-        // final Value< ? >[] inputs = addOperation().inputs();
-        // final int size = inputs.length;
-        // final List< Value< Number >> numberTerms = new ArrayList<>( size );
-        //
-        // // OK to cast since this method should not be run if there is a non-number term
-        // for ( final Value< ? > term : inputs ) {
-        // numberTerms.add( ( Value< Number > ) term );
-        // }
-        //
-        // // sort values
-        // Collections.sort( numberTerms, Value.ASCENDING_NUMBER_SORTER );
-        //
-        // final boolean even = ( ( size & 1 ) == 0 );
-        // final int halfwayIndex = ( size / 2 );
-        //
-        // if ( even ) {
-        // final Value< ? > first = numberTerms.get( halfwayIndex - 1 );
-        // final Value< ? > second = numberTerms.get( halfwayIndex );
-        // final Add addOp = new Add( transformation() );
-        //
-        // try {
-        // addOp.addInput( Add.TERM_DESCRIPTOR.name(), first, second );
-        // final Number sum = addOp.get();
-        //
-        // final Divide divideOp = new Divide( transformation() );
-        // divideOp.addInput( Divide.TERM_DESCRIPTOR.name(), sum, 2 );
-        //
-        // return divideOp.get();
-        // } catch ( final ChrysalixException e ) {
-        // final ValidationProblem problem =
-        // TransformationFactory.createError( transformationId(),
-        // ChrysalixI18n.localize( ERROR, transformationId() ) );
-        // problems().add( problem );
-        // }
-        // }
-        //
-        // return numberTerms.get( halfwayIndex ).get();
-        // TODO impl
-        return 0;
+        assert !problems().isError();
+
+        if ( Boolean.TRUE.equals( inputValue( APPROXIMATE_DESCRIPTOR ) ) ) {
+            final QuantileSketch sketch = new QuantileSketch( 0.5D );
+
+            for ( final Value< ? > term : addOperation().inputs() ) {
+                sketch.add( ( ( Number ) term.get() ).doubleValue() );
+            }
+
+            return sketch.estimate();
+        }
+
+        final ValueSorter< Value< ? > > sorter = new ValueSorter<>( addOperation().inputs() );
+        final int half = ( sorter.size() / 2 );
+        final boolean odd = ( ( sorter.size() & 1 ) == 1 );
+        final Precision precision = precision();
+
+        if ( precision.mode() != Precision.Mode.MIXED ) {
+            return Arithmetic.median( sorter.number( odd ? half : ( half - 1 ) ), odd ? null : sorter.number( half ), precision );
+        }
+
+        // an odd number of terms produces the middle term's value as is
+        if ( odd ) {
+            return sorter.number( half );
+        }
+
+        final double lower = sorter.number( half - 1 ).doubleValue();
+        final double upper = sorter.number( half ).doubleValue();
+        return ( ( lower + upper ) / 2 );
     }
 
     private Divide divideOperation() throws ChrysalixException {
+        if ( this.divideOperation != null ) {
+            return this.divideOperation;
+        }
+
         ModelObject modelObject = null;
 
         try {
@@ -214,7 +238,8 @@ public final class Median extends AbstractOperation< Number > {
                 throw new ChrysalixException( ChrysalixI18n.localize( DIVIDE_OPERATION_NOT_FOUND ) );
             }
 
-            return ( Divide ) Divide.DESCRIPTOR.newInstance( modelObject, transformation() );
+            this.divideOperation = ( Divide ) Divide.DESCRIPTOR.newInstance( modelObject, transformation() );
+            return this.divideOperation;
         } catch ( final ModelspaceException e ) {
             throw new ChrysalixException( e, ChrysalixI18n.localize( DIVIDE_OPERATION_NOT_FOUND ) );
         }
@@ -228,28 +253,30 @@ public final class Median extends AbstractOperation< Number > {
     @Override
     public ValidationProblems problems() throws ChrysalixException {
         this.problems.clear();
+        validateSingleInputs( APPROXIMATE_DESCRIPTOR );
+        final Value< ? >[] inputs = addOperation().inputs();
 
         // make sure there are terms
-        if ( inputs().length == 0 ) {
+        if ( inputs.length == 0 ) {
             final ValidationProblem problem =
                 TransformationFactory.createError( transformationId(),
                                                    ChrysalixI18n.localize( AbstractOperation.HAS_NO_TERMS,
                                                                            NAME,
                                                                            transformationId() ) );
-            problems().add( problem );
+            this.problems.add( problem );
         } else {
-            if ( inputs().length < INPUT_DESCRIPTORS[ 0 ].requiredValueCount() ) {
+            if ( inputs.length < INPUT_DESCRIPTORS[ 0 ].requiredValueCount() ) {
                 final ValidationProblem problem =
                     TransformationFactory.createError( transformationId(),
                                                        ChrysalixI18n.localize( AbstractOperation.INVALID_TERM_COUNT,
                                                                                NAME,
                                                                                transformationId(),
-                                                                               inputs().length ) );
-                problems().add( problem );
+                                                                               inputs.length ) );
+                this.problems.add( problem );
             }
 
             // make sure all the terms have types of Number
-            for ( final Value< ? > term : inputs() ) {
+            for ( final Value< ? > term : inputs ) {
                 Object value;
 
                 try {
@@ -261,7 +288,7 @@ public final class Median extends AbstractOperation< Number > {
                                                                ChrysalixI18n.localize( AbstractOperation.INVALID_TERM_TYPE,
                                                                                        NAME,
                                                                                        transformationId() ) );
-                        problems().add( problem );
+                        this.problems.add( problem );
                     }
                 } catch ( final ChrysalixException e ) {
                     final ValidationProblem problem =
@@ -269,7 +296,7 @@ public final class Median extends AbstractOperation< Number > {
                                                            ChrysalixI18n.localize( AbstractOperation.OPERATION_VALIDATION_ERROR,
                                                                                    NAME,
                                                                                    transformationId() ) );
-                    problems().add( problem );
+                    this.problems.add( problem );
                 }
             }
         }
@@ -301,6 +328,11 @@ public final class Median extends AbstractOperation< Number > {
             }
         }
 
+        if ( APPROXIMATE_DESCRIPTOR.name().equals( descriptorId ) ) {
+            super.removeInput( descriptorId, valuesBeingRemoved );
+            return;
+        }
+
         final Add add = addOperation();
         add.removeInput( Add.TERM_DESCRIPTOR.id(), valuesBeingRemoved );
         divideOperation().setInput( Divide.TERM_DESCRIPTOR.id(), add, add.inputs().length );
@@ -330,6 +362,11 @@ public final class Median extends AbstractOperation< Number > {
             }
         }
 
+        if ( APPROXIMATE_DESCRIPTOR.name().equals( descriptorId ) ) {
+            super.setInput( descriptorId, valuesBeingSet );
+            return;
+        }
+
         final Add add = addOperation();
         add.setInput( Add.TERM_DESCRIPTOR.id(), valuesBeingSet );
         divideOperation().setInput( Divide.TERM_DESCRIPTOR.id(), add, valuesBeingSet.length );
@@ -23,13 +23,9 @@
  */
 package org.chrysalix.operation;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -44,6 +40,7 @@ import org.modelspace.ModelspaceException;
 /**
  * Calculates the mode, or most common term, of a collection of terms.
  */
+@Indexed( Operation.class )
 public final class Mode extends AbstractOperation< Number[] > {
 
     static final String DESCRIPTION = "Finds the mode of two or more numbers";
@@ -117,30 +114,13 @@ public final class Mode extends AbstractOperation< Number[] > {
     @Override
     protected Number[] calculate() throws ChrysalixException {
         assert !problems().isError();
-        final Map< Number, Integer > result = new HashMap<>();
-        int max = 0;
-        final List< Number > maxElems = new ArrayList<>();
+        final NumberFrequencies frequencies = new NumberFrequencies();
 
         for ( final Value< ? > term : inputs() ) {
-            final Number value = ( Number ) term.get();
-
-            if ( result.containsKey( value ) ) {
-                result.put( value, ( result.get( value ) + 1 ) );
-            } else {
-                result.put( value, 1 );
-            }
-
-            if ( result.get( value ) > max ) {
-                max = result.get( value );
-                maxElems.clear();
-                maxElems.add( value );
-            } else if ( result.get( value ) == max ) {
-                maxElems.add( value );
-            }
+            frequencies.add( ( Number ) term.get() );
         }
 
-        if ( maxElems.size() == inputs().length ) return new Number[ 0 ];
-        return maxElems.toArray( new Number[ maxElems.size() ] );
+        return frequencies.modes();
     }
 
     /**
@@ -27,6 +27,7 @@ import java.util.List;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -41,6 +42,7 @@ import org.modelspace.ModelspaceException;
 /**
  * Calculates the modulus (remainder) of the first term divided by the second term.
  */
+@Indexed( Operation.class )
 public final class Modulus extends AbstractOperation< Double > {
 
     static final String DESCRIPTION = "Calculates the remainder of the first term divided by the second term";
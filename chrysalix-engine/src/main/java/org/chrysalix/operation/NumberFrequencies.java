@@ -0,0 +1,192 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.Arrays;
+
+/**
+ * Counts occurrences of numbers in a single pass using an open-addressing hash table keyed by primitive <code>long</code>s, so
+ * no boxed keys or map entries are created per value. Numbers are compared by numeric value: whole numbers share a key
+ * regardless of their boxed type, and other values are keyed by their <code>double</code> bits.
+ */
+final class NumberFrequencies {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final byte EMPTY = 0;
+    private static final byte FLOATING = 2;
+    private static final byte WHOLE = 1;
+
+    private static long mix( final long key ) {
+        // finalizer from MurmurHash3 to spread sequential keys across the table
+        long h = key;
+        h ^= ( h >>> 33 );
+        h *= 0xff51afd7ed558ccdL;
+        h ^= ( h >>> 33 );
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= ( h >>> 33 );
+        return h;
+    }
+
+    private int[] counts;
+    private int distinct;
+    private int[] entries;
+    private long[] keys;
+    private byte[] kinds;
+    private long total;
+    private Number[] values;
+
+    NumberFrequencies() {
+        this.keys = new long[ DEFAULT_CAPACITY ];
+        this.kinds = new byte[ DEFAULT_CAPACITY ];
+        this.entries = new int[ DEFAULT_CAPACITY ];
+        this.counts = new int[ DEFAULT_CAPACITY / 2 ];
+        this.values = new Number[ DEFAULT_CAPACITY / 2 ];
+    }
+
+    /**
+     * @param value
+     *        the value being counted (cannot be <code>null</code>)
+     * @return the number of times the value has now been seen
+     */
+    int add( final Number value ) {
+        long key;
+        byte kind;
+
+        if ( NumberStatistics.isIntegral( value ) ) {
+            key = value.longValue();
+            kind = WHOLE;
+        } else {
+            final double doubleValue = value.doubleValue();
+
+            if ( ( doubleValue == Math.rint( doubleValue ) ) && ( doubleValue >= Long.MIN_VALUE ) && ( doubleValue < Long.MAX_VALUE ) ) {
+                key = ( long ) doubleValue;
+                kind = WHOLE;
+            } else {
+                key = Double.doubleToLongBits( doubleValue );
+                kind = FLOATING;
+            }
+        }
+
+        ++this.total;
+        final int mask = this.keys.length - 1;
+        int slot = ( int ) mix( key + kind ) & mask;
+
+        while ( this.kinds[ slot ] != EMPTY ) {
+            if ( ( this.kinds[ slot ] == kind ) && ( this.keys[ slot ] == key ) ) {
+                return ++this.counts[ this.entries[ slot ] ];
+            }
+
+            slot = ( slot + 1 ) & mask;
+        }
+
+        if ( this.distinct == this.values.length ) {
+            this.values = Arrays.copyOf( this.values, this.distinct * 2 );
+            this.counts = Arrays.copyOf( this.counts, this.distinct * 2 );
+        }
+
+        this.values[ this.distinct ] = value;
+        this.counts[ this.distinct ] = 1;
+        this.keys[ slot ] = key;
+        this.kinds[ slot ] = kind;
+        this.entries[ slot ] = this.distinct++;
+
+        // keep the load factor at or below one half
+        if ( ( this.distinct * 2 ) > this.keys.length ) {
+            rehash();
+        }
+
+        return 1;
+    }
+
+    /**
+     * @return the number of distinct values seen
+     */
+    int distinct() {
+        return this.distinct;
+    }
+
+    /**
+     * The most frequently occurring values in the order they were first seen, each represented by the first instance seen. If no
+     * value occurs more than once there is no mode and an empty array is returned.
+     * 
+     * @return the modes (never <code>null</code>)
+     */
+    Number[] modes() {
+        int max = 0;
+        int numModes = 0;
+
+        for ( int i = 0; i < this.distinct; ++i ) {
+            if ( this.counts[ i ] > max ) {
+                max = this.counts[ i ];
+                numModes = 1;
+            } else if ( this.counts[ i ] == max ) {
+                ++numModes;
+            }
+        }
+
+        if ( max < 2 ) return new Number[ 0 ];
+        final Number[] modes = new Number[ numModes ];
+
+        for ( int i = 0, j = 0; j < numModes; ++i ) {
+            if ( this.counts[ i ] == max ) {
+                modes[ j++ ] = this.values[ i ];
+            }
+        }
+
+        return modes;
+    }
+
+    private void rehash() {
+        final long[] oldKeys = this.keys;
+        final byte[] oldKinds = this.kinds;
+        final int[] oldEntries = this.entries;
+        final int capacity = oldKeys.length * 2;
+        final int mask = capacity - 1;
+        this.keys = new long[ capacity ];
+        this.kinds = new byte[ capacity ];
+        this.entries = new int[ capacity ];
+
+        for ( int i = 0; i < oldKeys.length; ++i ) {
+            if ( oldKinds[ i ] != EMPTY ) {
+                int slot = ( int ) mix( oldKeys[ i ] + oldKinds[ i ] ) & mask;
+
+                while ( this.kinds[ slot ] != EMPTY ) {
+                    slot = ( slot + 1 ) & mask;
+                }
+
+                this.keys[ slot ] = oldKeys[ i ];
+                this.kinds[ slot ] = oldKinds[ i ];
+                this.entries[ slot ] = oldEntries[ i ];
+            }
+        }
+    }
+
+    /**
+     * @return the number of values counted
+     */
+    long total() {
+        return this.total;
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+/**
+ * A single-pass accumulator of the count, minimum, maximum, sum, and mean of a stream of numbers. Nothing but a handful of
+ * primitives is retained, so any number of values can be consumed.
+ * <p>
+ * Integral values (<code>Byte</code>, <code>Short</code>, <code>Integer</code>, and <code>Long</code>) are tracked as
+ * <code>long</code>s so long as every value seen is integral; otherwise results are <code>Double</code>s. The mean is maintained
+ * with Welford's update so that it stays accurate, and cannot overflow, for very large inputs.
+ */
+final class NumberStatistics {
+
+    static boolean isIntegral( final Number value ) {
+        return ( value instanceof Long ) || ( value instanceof Integer ) || ( value instanceof Short ) || ( value instanceof Byte );
+    }
+
+    private long count;
+    private boolean integral = true;
+    private double doubleMax = Double.NEGATIVE_INFINITY;
+    private double doubleMin = Double.POSITIVE_INFINITY;
+    private long longMax = Long.MIN_VALUE;
+    private long longMin = Long.MAX_VALUE;
+    private double doubleSum;
+    private long longSum;
+    private double mean;
+    private boolean overflowed;
+
+    /**
+     * @param value
+     *        the value being accumulated (cannot be <code>null</code>)
+     */
+    void add( final Number value ) {
+        final double doubleValue = value.doubleValue();
+        ++this.count;
+
+        if ( this.integral && isIntegral( value ) ) {
+            final long longValue = value.longValue();
+            this.longMin = Math.min( this.longMin, longValue );
+            this.longMax = Math.max( this.longMax, longValue );
+
+            if ( !this.overflowed ) {
+                final long sum = this.longSum + longValue;
+
+                // overflow only when both operands have the same sign and the sum's sign differs
+                if ( ( ( this.longSum ^ sum ) & ( longValue ^ sum ) ) < 0 ) {
+                    this.overflowed = true;
+                } else {
+                    this.longSum = sum;
+                }
+            }
+        } else {
+            this.integral = false;
+        }
+
+        this.doubleMin = Math.min( this.doubleMin, doubleValue );
+        this.doubleMax = Math.max( this.doubleMax, doubleValue );
+        this.doubleSum += doubleValue;
+        this.mean += ( doubleValue - this.mean ) / this.count;
+    }
+
+    /**
+     * @return the number of values accumulated
+     */
+    long count() {
+        return this.count;
+    }
+
+    /**
+     * @return <code>true</code> if every value accumulated was integral
+     */
+    boolean integral() {
+        return this.integral;
+    }
+
+    /**
+     * @return the maximum value or <code>null</code> if no values have been accumulated
+     */
+    Number max() {
+        if ( this.count == 0 ) return null;
+        if ( this.integral ) return this.longMax;
+        return this.doubleMax;
+    }
+
+    /**
+     * Integral inputs whose sum fits in a <code>long</code> produce the truncated integral mean, matching integer division of the
+     * sum by the count. All other inputs produce the floating point mean.
+     * 
+     * @return the mean or <code>null</code> if no values have been accumulated
+     */
+    Number mean() {
+        if ( this.count == 0 ) return null;
+        if ( this.integral && !this.overflowed ) return this.longSum / this.count;
+        return this.mean;
+    }
+
+    /**
+     * @return the minimum value or <code>null</code> if no values have been accumulated
+     */
+    Number min() {
+        if ( this.count == 0 ) return null;
+        if ( this.integral ) return this.longMin;
+        return this.doubleMin;
+    }
+
+    /**
+     * Integral inputs whose sum fits in a <code>long</code> produce an integral sum. All other inputs produce the floating point sum.
+     * 
+     * @return the sum or <code>null</code> if no values have been accumulated
+     */
+    Number sum() {
+        if ( this.count == 0 ) return null;
+        if ( this.integral && !this.overflowed ) return this.longSum;
+        return this.doubleSum;
+    }
+
+}
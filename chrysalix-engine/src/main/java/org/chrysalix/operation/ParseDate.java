@@ -0,0 +1,224 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.Calendar;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Parses the string representation of the input term into a date. Without a pattern the input is ISO 8601 text, like an XML
+ * Schema <code>dateTime</code> or <code>date</code> or a SQL timestamp, which is parsed without creating objects. Otherwise the
+ * input must match a {@link java.text.SimpleDateFormat} pattern.
+ * <p>
+ * The date is the number of milliseconds since the epoch unless a {@link Calendar calendar}, as needed by date properties, is
+ * requested. A <code>null</code> input results in <code>null</code>.
+ * 
+ * @see Dates#parseIso(CharSequence)
+ */
+@Indexed( Operation.class )
+public final class ParseDate extends AbstractOperation< Object > {
+
+    private static final String CALENDAR_DESCRIPTION = "Indicates if the date is a calendar instead of milliseconds since the epoch";
+    private static final String CALENDAR_NAME = "As Calendar";
+    static final String DESCRIPTION = "Parses a string into a date";
+    private static final String INPUT_DESCRIPTION = "The string being parsed";
+    private static final String INPUT_NAME = "Input";
+    private static final String INVALID_DATE = "Parse date operation in transformation '%s' cannot parse '%s'";
+    private static final String INVALID_PATTERN = "Parse date operation in transformation '%s' has invalid pattern '%s'";
+    static final String NAME = "Parse Date";
+    private static final String PATTERN_DESCRIPTION = "The date format pattern the input matches instead of ISO 8601";
+    private static final String PATTERN_NAME = "Pattern";
+    private static final String TIME_ZONE_DESCRIPTION = "The time zone of an input without one, and of the calendar, instead of UTC";
+    private static final String TIME_ZONE_NAME = "Time Zone";
+
+    /**
+     * The descriptor for the string being parsed.
+     */
+    public static final ValueDescriptor< String > INPUT_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( ParseDate.class, "input" ),
+                                                     ChrysalixI18n.localize( INPUT_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( INPUT_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional date format pattern.
+     */
+    public static final ValueDescriptor< String > PATTERN_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( ParseDate.class, "pattern" ),
+                                                     ChrysalixI18n.localize( PATTERN_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( PATTERN_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional time zone identifier.
+     */
+    public static final ValueDescriptor< String > TIME_ZONE_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( ParseDate.class, "timeZone" ),
+                                                     ChrysalixI18n.localize( TIME_ZONE_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( TIME_ZONE_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional indicator of a calendar result.
+     */
+    public static final ValueDescriptor< Boolean > CALENDAR_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( ParseDate.class, "calendar" ),
+                                                     ChrysalixI18n.localize( CALENDAR_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( CALENDAR_NAME ),
+                                                     Boolean.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = {
+                    INPUT_DESCRIPTOR,
+                    PATTERN_DESCRIPTOR,
+                    TIME_ZONE_DESCRIPTOR,
+                    CALENDAR_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< Object > DESCRIPTOR =
+        new AbstractOperationDescriptor< Object >( TransformationFactory.createId( ParseDate.class ),
+                                                   ChrysalixI18n.localize( DESCRIPTION ),
+                                                   ChrysalixI18n.localize( NAME ),
+                                                   Object.class,
+                                                   INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< Object > newInstance( final ModelObject operation,
+                                                    final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new ParseDate( operation, transformation );
+            }
+
+        };
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    ParseDate( final ModelObject operation,
+               final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected Object calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final Object input = inputValue( INPUT_DESCRIPTOR );
+
+        if ( input == null ) {
+            return null;
+        }
+
+        final long millis = millis( input );
+        return ( Boolean.TRUE.equals( inputValue( CALENDAR_DESCRIPTOR ) )
+                        ? Dates.calendar( millis, Dates.timeZone( inputValue( TIME_ZONE_DESCRIPTOR ) ) )
+                        : ( Object ) millis );
+    }
+
+    private long millis( final Object input ) throws ChrysalixException {
+        final Object pattern = inputValue( PATTERN_DESCRIPTOR );
+
+        if ( pattern == null ) {
+            return Dates.parseIso( input.toString() );
+        }
+
+        return Dates.parse( input.toString(), pattern.toString(), Dates.timeZone( inputValue( TIME_ZONE_DESCRIPTOR ) ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( INPUT_DESCRIPTORS );
+        final Object input = inputValue( INPUT_DESCRIPTOR );
+
+        if ( input != null ) {
+            try {
+                if ( millis( input ) == Dates.INVALID ) {
+                    this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                          ChrysalixI18n.localize( INVALID_DATE,
+                                                                                                  transformationId(),
+                                                                                                  input ) ) );
+                }
+            } catch ( final IllegalArgumentException e ) {
+                this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                      ChrysalixI18n.localize( INVALID_PATTERN,
+                                                                                              transformationId(),
+                                                                                              inputValue( PATTERN_DESCRIPTOR ) ) ) );
+            }
+        }
+
+        return super.problems();
+    }
+
+}
@@ -25,6 +25,7 @@ package org.chrysalix.operation;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -37,25 +38,27 @@ import org.modelspace.ModelObject;
 import org.modelspace.ModelspaceException;
 
 /**
- * Parses the string term into a double value.
+ * Parses the string term into a double value. A numeric term is converted to a double value.
  * 
- * @see Double#valueOf(String)
+ * @see DoubleParser for the accepted text
  */
+@Indexed( Operation.class )
 public final class ParseDouble extends AbstractOperation< Double > {
 
     static final String DESCRIPTION = "Parses the string term into a double value";
     private static final String INPUT_DESCRIPTION = "The input term whose values is being converted to a double";
     private static final String INPUT_NAME = "Input";
+    private static final String INVALID_TEXT = "Parse double operation in transformation '%s' cannot parse '%s'";
     static final String NAME = "Parse Double";
 
     /**
      * The input term descriptor.
      */
-    public static final ValueDescriptor< Number > TERM_DESCRIPTOR =
+    public static final ValueDescriptor< String > TERM_DESCRIPTOR =
         TransformationFactory.createWritableBoundedOneValueDescriptor( TransformationFactory.createId( ParseDouble.class, "input" ),
                                                                        ChrysalixI18n.localize( INPUT_DESCRIPTION ),
                                                                        ChrysalixI18n.localize( INPUT_NAME ),
-                                                                       Number.class );
+                                                                       String.class );
 
     /**
      * The input descriptors.
@@ -86,6 +89,18 @@ public final class ParseDouble extends AbstractOperation< Double > {
 
         };
 
+    /**
+     * Parses the text of this operation. Access is synchronized on the parser.
+     */
+    private final DoubleParser parser = new DoubleParser();
+
+    /**
+     * The text last parsed by the {@link #parser}, so that validating and calculating parse the same text only once. Text that is
+     * not a {@link String} is not kept, as it could be changed by its owner, and is parsed again.
+     */
+    private String parsedText;
+    private double parsedValue;
+
     /**
      * @param operation
      *        the operation model object (cannot be <code>null</code>)
@@ -111,8 +126,25 @@ public final class ParseDouble extends AbstractOperation< Double > {
     @Override
     protected Double calculate() throws ChrysalixException {
         assert !problems().isError();
-        final String value = ( String ) inputs()[ 0 ].get();
-        return Double.valueOf( value );
+        final Object value = inputs()[ 0 ].get();
+
+        if ( value instanceof Number ) {
+            return ( ( Number ) value ).doubleValue();
+        }
+
+        synchronized ( this.parser ) {
+            return parse( ( CharSequence ) value );
+        }
+    }
+
+    private double parse( final CharSequence text ) {
+        // String.equals is false for any other kind of text
+        if ( ( this.parsedText == null ) || !this.parsedText.equals( text ) ) {
+            this.parsedValue = this.parser.parse( text );
+            this.parsedText = ( ( text instanceof String ) ? ( String ) text : null );
+        }
+
+        return this.parsedValue;
     }
 
     /**
@@ -131,22 +163,36 @@ public final class ParseDouble extends AbstractOperation< Double > {
                                                    ChrysalixI18n.localize( AbstractOperation.MUST_HAVE_ONE_TERM,
                                                                            NAME,
                                                                            transformationId() ) );
-            problems().add( problem );
+            this.problems.add( problem );
         } else {
-            // make sure term is a number
+            // make sure term is a number or parsable text
             final Value< ? > term = inputs()[ 0 ];
             Object value;
 
             try {
                 value = term.get();
 
-                if ( !( value instanceof Number ) ) {
+                if ( value instanceof CharSequence ) {
+                    final boolean valid;
+
+                    synchronized ( this.parser ) {
+                        parse( ( CharSequence ) value );
+                        valid = this.parser.valid();
+                    }
+
+                    if ( !valid ) {
+                        final ValidationProblem problem =
+                            TransformationFactory.createError( transformationId(),
+                                                               ChrysalixI18n.localize( INVALID_TEXT, transformationId(), value ) );
+                        this.problems.add( problem );
+                    }
+                } else if ( !( value instanceof Number ) ) {
                     final ValidationProblem problem =
                         TransformationFactory.createError( transformationId(),
                                                            ChrysalixI18n.localize( AbstractOperation.INVALID_TERM_TYPE,
                                                                                    NAME,
                                                                                    transformationId() ) );
-                    problems().add( problem );
+                    this.problems.add( problem );
                 }
             } catch ( final ChrysalixException e ) {
                 final ValidationProblem problem =
@@ -154,7 +200,7 @@ public final class ParseDouble extends AbstractOperation< Double > {
                                                        ChrysalixI18n.localize( AbstractOperation.OPERATION_VALIDATION_ERROR,
                                                                                NAME,
                                                                                transformationId() ) );
-                problems().add( problem );
+                this.problems.add( problem );
             }
         }
 
@@ -0,0 +1,97 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded cache of compiled regular expressions shared by all string operations, so that a pattern is compiled once instead of
+ * once per value. The cache is cleared when it is full. An operation also keeps the last pattern it used, so a literal pattern is
+ * compiled at most once per operation no matter how the cache is used by other operations.
+ */
+final class PatternCache {
+
+    /**
+     * The maximum number of cached patterns.
+     */
+    static final int MAX_CACHED = 512;
+
+    private static final ConcurrentMap< String, Pattern > PATTERNS = new ConcurrentHashMap<>();
+
+    /**
+     * @return the number of cached patterns
+     */
+    static int cached() {
+        return PATTERNS.size();
+    }
+
+    /**
+     * @param regex
+     *        the regular expression (cannot be <code>null</code>)
+     * @return the compiled pattern (never <code>null</code>)
+     * @throws java.util.regex.PatternSyntaxException
+     *         if the regular expression is invalid
+     */
+    static Pattern pattern( final String regex ) {
+        Pattern pattern = PATTERNS.get( regex );
+
+        if ( pattern == null ) {
+            pattern = Pattern.compile( regex );
+
+            if ( PATTERNS.size() >= MAX_CACHED ) {
+                PATTERNS.clear();
+            }
+
+            final Pattern cached = PATTERNS.putIfAbsent( regex, pattern );
+
+            if ( cached != null ) {
+                pattern = cached;
+            }
+        }
+
+        return pattern;
+    }
+
+    /**
+     * @param previous
+     *        the pattern last used by the caller (can be <code>null</code>)
+     * @param regex
+     *        the regular expression (cannot be <code>null</code>)
+     * @return the previous pattern if it was compiled from the regular expression, or the compiled pattern (never
+     *         <code>null</code>)
+     * @throws java.util.regex.PatternSyntaxException
+     *         if the regular expression is invalid
+     */
+    static Pattern pattern( final Pattern previous,
+                            final String regex ) {
+        return ( ( ( previous != null ) && previous.pattern().equals( regex ) ) ? previous : pattern( regex ) );
+    }
+
+    private PatternCache() {
+        // static methods only
+    }
+
+}
@@ -29,6 +29,7 @@ import java.util.List;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -45,6 +46,7 @@ import org.modelspace.ModelspaceException;
  * 
  * @see Math#pow(double, double)
  */
+@Indexed( Operation.class )
 public final class Power extends AbstractOperation< Number > {
 
     private static final String BASE_DESCRIPTION = "The input term whose value is being raised to a power";
@@ -0,0 +1,157 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.Arrays;
+
+/**
+ * Estimates a single quantile of a stream of numbers in constant memory using the P<sup>2</sup> algorithm of Jain and Chlamtac,
+ * which keeps five markers whose heights are adjusted by piecewise-parabolic interpolation as values arrive. The estimate is exact
+ * for five or fewer values.
+ * 
+ * @see org.chrysalix.transformation.ValueSorter for exact order statistics
+ */
+final class QuantileSketch {
+
+    private long count;
+    private final double[] desired = new double[ 5 ];
+    private final double[] heights = new double[ 5 ];
+    private final double[] increments = new double[ 5 ];
+    private final long[] positions = new long[ 5 ];
+    private final double quantile;
+
+    /**
+     * @param quantile
+     *        the quantile being estimated (must be between zero and one inclusive)
+     * @throws IllegalArgumentException
+     *         if the quantile is out of range
+     */
+    QuantileSketch( final double quantile ) {
+        if ( !( ( quantile >= 0 ) && ( quantile <= 1 ) ) ) throw new IllegalArgumentException( Double.toString( quantile ) );
+        this.quantile = quantile;
+        this.increments[ 1 ] = quantile / 2;
+        this.increments[ 2 ] = quantile;
+        this.increments[ 3 ] = ( 1 + quantile ) / 2;
+        this.increments[ 4 ] = 1;
+    }
+
+    /**
+     * @param value
+     *        the value being added
+     */
+    void add( final double value ) {
+        if ( this.count < 5 ) {
+            this.heights[ ( int ) this.count++ ] = value;
+
+            if ( this.count == 5 ) {
+                Arrays.sort( this.heights );
+
+                for ( int i = 0; i < 5; ++i ) {
+                    this.positions[ i ] = i + 1;
+                    this.desired[ i ] = 1 + ( 4 * this.increments[ i ] );
+                }
+            }
+
+            return;
+        }
+
+        ++this.count;
+        int cell;
+
+        if ( value < this.heights[ 0 ] ) {
+            this.heights[ 0 ] = value;
+            cell = 0;
+        } else if ( value >= this.heights[ 4 ] ) {
+            this.heights[ 4 ] = Math.max( this.heights[ 4 ], value );
+            cell = 3;
+        } else {
+            cell = 0;
+            while ( value >= this.heights[ cell + 1 ] ) ++cell;
+        }
+
+        for ( int i = cell + 1; i < 5; ++i ) {
+            ++this.positions[ i ];
+        }
+
+        for ( int i = 0; i < 5; ++i ) {
+            this.desired[ i ] += this.increments[ i ];
+        }
+
+        // move the three middle markers toward their desired positions
+        for ( int i = 1; i < 4; ++i ) {
+            final double offset = this.desired[ i ] - this.positions[ i ];
+
+            if ( ( ( offset >= 1 ) && ( ( this.positions[ i + 1 ] - this.positions[ i ] ) > 1 ) )
+                 || ( ( offset <= -1 ) && ( ( this.positions[ i - 1 ] - this.positions[ i ] ) < -1 ) ) ) {
+                final int step = ( offset >= 0 ) ? 1 : -1;
+                final double height = parabolic( i, step );
+
+                if ( ( this.heights[ i - 1 ] < height ) && ( height < this.heights[ i + 1 ] ) ) {
+                    this.heights[ i ] = height;
+                } else {
+                    this.heights[ i ] += step * ( this.heights[ i + step ] - this.heights[ i ] )
+                                         / ( this.positions[ i + step ] - this.positions[ i ] );
+                }
+
+                this.positions[ i ] += step;
+            }
+        }
+    }
+
+    /**
+     * @return the number of values added
+     */
+    long count() {
+        return this.count;
+    }
+
+    /**
+     * @return the estimated quantile or {@link Double#NaN} if no values have been added
+     */
+    double estimate() {
+        if ( this.count == 0 ) return Double.NaN;
+        if ( this.count > 5 ) return this.heights[ 2 ];
+
+        // too few values for the markers to be initialized so compute exactly
+        final int size = ( int ) this.count;
+        final double[] sorted = Arrays.copyOf( this.heights, size );
+        Arrays.sort( sorted );
+        final double rank = this.quantile * ( size - 1 );
+        final int lower = ( int ) Math.floor( rank );
+        final int upper = ( int ) Math.ceil( rank );
+        return sorted[ lower ] + ( ( rank - lower ) * ( sorted[ upper ] - sorted[ lower ] ) );
+    }
+
+    private double parabolic( final int i,
+                              final int step ) {
+        final double n = this.positions[ i ];
+        final double nPrev = this.positions[ i - 1 ];
+        final double nNext = this.positions[ i + 1 ];
+        return this.heights[ i ]
+               + ( step / ( nNext - nPrev ) )
+               * ( ( ( ( n - nPrev ) + step ) * ( this.heights[ i + 1 ] - this.heights[ i ] ) / ( nNext - n ) )
+                   + ( ( ( nNext - n ) - step ) * ( this.heights[ i ] - this.heights[ i - 1 ] ) / ( n - nPrev ) ) );
+    }
+
+}
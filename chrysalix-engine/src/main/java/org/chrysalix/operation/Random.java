@@ -23,13 +23,16 @@
  */
 package org.chrysalix.operation;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.transformation.ExecutionContext;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
 import org.chrysalix.transformation.TransformationFactory;
-import org.chrysalix.transformation.ValidationProblem;
 import org.chrysalix.transformation.ValidationProblems;
 import org.chrysalix.transformation.ValueDescriptor;
 import org.modelspace.ModelObject;
@@ -38,13 +41,37 @@ import org.modelspace.ModelspaceException;
 /**
  * Provides a random number with a positive sign, greater than or equal to {@code 0.0} and less than {@code 1.0}. There is an
  * optional term for a seed value.
+ * <p>
+ * The number is drawn from a {@link SplitMix64 SplitMix64} stream split, by this operation's path, from the seed term or, if there
+ * is none, from the {@link ExecutionContext#seed() seed} of the execution. Operations evaluated in parallel therefore never share
+ * a generator, and an operation with a seed term, or an execution with the same seed, produces the same number every time.
+ * Outside of an execution and without a seed term, the number is drawn from the generator of the current thread.
  */
+@Indexed( Operation.class )
 public final class Random extends AbstractOperation< Double > {
 
     static final String DESCRIPTION =
         "Provides a random number with a positive sign, greater than or equal to 0.0 and less than 1.0.";
-    private static final String INVALID_NUMBER_OF_TERMS = "Random operation in transformation '%s' cannot have any terms";
     static final String NAME = "Random";
+    private static final String SEED_DESCRIPTION = "The seed from which the random number is derived";
+    private static final String SEED_NAME = "Seed";
+
+    /**
+     * The descriptor for the optional seed.
+     */
+    public static final ValueDescriptor< Number > SEED_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Random.class, "seed" ),
+                                                     ChrysalixI18n.localize( SEED_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( SEED_NAME ),
+                                                     Number.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = { SEED_DESCRIPTOR };
 
     /**
      * The output descriptor.
@@ -54,7 +81,19 @@ public final class Random extends AbstractOperation< Double > {
                                                    ChrysalixI18n.localize( DESCRIPTION ),
                                                    ChrysalixI18n.localize( NAME ),
                                                    Double.class,
-                                                   ValueDescriptor.NO_DESCRIPTORS ) {
+                                                   INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * Each random operation produces its own value so its result is never shared.
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#deterministic()
+             */
+            @Override
+            public boolean deterministic() {
+                return false;
+            }
 
             /**
              * {@inheritDoc}
@@ -95,7 +134,19 @@ public final class Random extends AbstractOperation< Double > {
     @Override
     protected Double calculate() throws ChrysalixException {
         assert !problems().isError();
-        return Math.random();
+        final Object seed = inputValue( SEED_DESCRIPTOR );
+
+        if ( seed instanceof Number ) {
+            return new SplitMix64( ( ( Number ) seed ).longValue() ).split( path() ).nextDouble();
+        }
+
+        final ExecutionContext context = ExecutionContext.current();
+
+        if ( context == null ) {
+            return ThreadLocalRandom.current().nextDouble();
+        }
+
+        return new SplitMix64( context.seed() ).split( path() ).nextDouble();
     }
 
     /**
@@ -106,15 +157,7 @@ public final class Random extends AbstractOperation< Double > {
     @Override
     public ValidationProblems problems() throws ChrysalixException {
         this.problems.clear();
-
-        // make sure there is at most one term
-        if ( inputs().length != 0 ) {
-            final ValidationProblem problem =
-                TransformationFactory.createError( transformationId(),
-                                                   ChrysalixI18n.localize( INVALID_NUMBER_OF_TERMS, transformationId() ) );
-            problems().add( problem );
-        }
-
+        validateSingleInputs( SEED_DESCRIPTOR );
         return super.problems();
     }
 
@@ -31,6 +31,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -47,6 +48,7 @@ import org.modelspace.ModelspaceException;
  * 
  * @see Math#round(double)
  */
+@Indexed( Operation.class )
 public final class Round extends AbstractOperation< Number > {
 
     static final String DESCRIPTION = "Calculates the nearest number";
@@ -28,6 +28,7 @@ import java.math.BigInteger;
 
 import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.OperationDescriptor;
 import org.chrysalix.transformation.Transformation;
@@ -47,6 +48,7 @@ import org.modelspace.ModelspaceException;
  * @see BigInteger#signum()
  * @see BigDecimal#signum()
  */
+@Indexed( Operation.class )
 public final class Sign extends AbstractOperation< Integer > {
 
     static final String DESCRIPTION = "Determines the sign (0, 1, -1) of a number";
@@ -0,0 +1,278 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.io.IOException;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.common.Logger;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Sorts the values of a property of the children of a collection {@link ModelObject model object}, or the names of the children
+ * if no value property is provided, for instance to produce ordered columns or a sorted enumeration. <code>null</code> values come
+ * first, then numbers in numeric order, then strings in lexicographic order, and equal values keep their collection order.
+ * <p>
+ * Up to a threshold number of values are sorted in memory. Larger collections are sorted externally: each threshold-sized buffer
+ * of values is sorted and written to a temporary file, and the files are merged into the result. The number of files and values
+ * spilled by the most recent calculation are available for tuning the threshold.
+ * <p>
+ * The result is an array of the sorted values, so it must fit in memory. The threshold only bounds the values held while sorting,
+ * in addition to the result.
+ */
+@Indexed( Operation.class )
+public final class Sort extends AbstractOperation< Object[] > {
+
+    /**
+     * The maximum number of values sorted in memory when no threshold is provided.
+     */
+    public static final int DEFAULT_THRESHOLD = 100000;
+
+    static final String DESCRIPTION = "Sorts the values of a property of the children of a model object";
+    private static final String COLLECTION_DESCRIPTION =
+        "The model object, or its model-relative path, whose children's values are sorted";
+    private static final String COLLECTION_NAME = "Collection";
+    private static final String DESCENDING_DESCRIPTION = "Indicates if the values are sorted in descending order";
+    private static final String DESCENDING_NAME = "Descending";
+    private static final String ERROR_SORTING = "Sort operation in transformation '%s' could not sort the values of collection '%s'";
+    static final String NAME = "Sort";
+    private static final String THRESHOLD_DESCRIPTION = "The maximum number of values sorted in memory";
+    private static final String THRESHOLD_NAME = "Threshold";
+    private static final String VALUE_PROP_DESCRIPTION =
+        "The name of the property holding the values of each child instead of its name";
+    private static final String VALUE_PROP_NAME = "Value Property";
+    private static final Logger LOGGER = Logger.logger( Sort.class );
+
+    /**
+     * The descriptor for the model object whose children's values are sorted.
+     */
+    public static final ValueDescriptor< Object > COLLECTION_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Sort.class, "collection" ),
+                                                     ChrysalixI18n.localize( COLLECTION_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( COLLECTION_NAME ),
+                                                     Object.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional name of the property holding the values of each child.
+     */
+    public static final ValueDescriptor< String > VALUE_PROP_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Sort.class, "valueProperty" ),
+                                                     ChrysalixI18n.localize( VALUE_PROP_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( VALUE_PROP_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional flag indicating if the values are sorted in descending order.
+     */
+    public static final ValueDescriptor< Boolean > DESCENDING_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Sort.class, "descending" ),
+                                                     ChrysalixI18n.localize( DESCENDING_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( DESCENDING_NAME ),
+                                                     Boolean.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The descriptor for the optional maximum number of values sorted in memory.
+     */
+    public static final ValueDescriptor< Number > THRESHOLD_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Sort.class, "threshold" ),
+                                                     ChrysalixI18n.localize( THRESHOLD_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( THRESHOLD_NAME ),
+                                                     Number.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = {
+                    COLLECTION_DESCRIPTOR,
+                    VALUE_PROP_DESCRIPTOR,
+                    DESCENDING_DESCRIPTOR,
+                    THRESHOLD_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< Object[] > DESCRIPTOR =
+        new AbstractOperationDescriptor< Object[] >( TransformationFactory.createId( Sort.class ),
+                                                     ChrysalixI18n.localize( DESCRIPTION ),
+                                                     ChrysalixI18n.localize( NAME ),
+                                                     Object[].class,
+                                                     INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< Object[] > newInstance( final ModelObject operation,
+                                                      final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new Sort( operation, transformation );
+            }
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * A sort reads model objects that are not inputs, so it is never folded, shared, or cached.
+             * 
+             * @see org.chrysalix.operation.AbstractOperationDescriptor#deterministic()
+             */
+            @Override
+            public boolean deterministic() {
+                return false;
+            }
+
+        };
+
+    private volatile int spilledRuns;
+    private volatile long spilledValues;
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    Sort( final ModelObject operation,
+          final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected Object[] calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final ModelObject collection = inputObject( COLLECTION_DESCRIPTOR );
+        final Object valueProp = inputValue( VALUE_PROP_DESCRIPTOR );
+        final boolean descending = Boolean.TRUE.equals( inputValue( DESCENDING_DESCRIPTOR ) );
+        final Object thresholdInput = inputValue( THRESHOLD_DESCRIPTOR );
+        final int threshold =
+            ( thresholdInput instanceof Number ) ? Math.max( 1, ( ( Number ) thresholdInput ).intValue() ) : DEFAULT_THRESHOLD;
+        final long start = System.nanoTime();
+        String collectionPath = null;
+
+        try ( final ExternalSort sort = new ExternalSort( threshold, descending ) ) {
+            collectionPath = collection.absolutePath();
+
+            for ( final ModelObject kid : collection.children() ) {
+                if ( valueProp == null ) {
+                    sort.add( kid.name() );
+                } else {
+                    final ModelProperty property = kid.property( valueProp.toString() );
+
+                    if ( property != null ) {
+                        for ( final Object value : property.values() ) {
+                            sort.add( value );
+                        }
+                    }
+                }
+            }
+
+            // the sorted values are written straight into the result, which is the only copy of every value held in memory
+            final Object[] sorted = new Object[ ( int ) sort.size() ];
+            sort.sorted( new ExternalSort.Sink() {
+
+                private int index;
+
+                @Override
+                public void accept( final Object value ) {
+                    sorted[ this.index++ ] = value;
+                }
+            } );
+
+            this.spilledRuns = sort.spilledRuns();
+            this.spilledValues = sort.spilledValues();
+            LOGGER.debug( "Sorted %s values of '%s' in %s ms with threshold %s, spilling %s values to %s runs in %s merge passes",
+                          sorted.length,
+                          collectionPath,
+                          ( System.nanoTime() - start ) / 1000000,
+                          threshold,
+                          sort.spilledValues(),
+                          sort.spilledRuns(),
+                          sort.mergePasses() );
+            return sorted;
+        } catch ( final ModelspaceException | IOException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_SORTING, transformationId(), collectionPath ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( INPUT_DESCRIPTORS );
+        return super.problems();
+    }
+
+    /**
+     * @return the number of sorted runs written to temporary files by the most recent calculation, or zero if it sorted in memory
+     */
+    public int spilledRuns() {
+        return this.spilledRuns;
+    }
+
+    /**
+     * @return the number of values written to temporary files by the most recent calculation
+     */
+    public long spilledValues() {
+        return this.spilledValues;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+/**
+ * A splittable pseudo-random number generator using the SplitMix64 algorithm of Steele, Lea, and Flood, which is the algorithm of
+ * {@link java.util.SplittableRandom}. The state is a 64-bit counter advanced by the golden ratio gamma, and each value is the
+ * counter passed through a 64-bit finalizer, so a generator is cheap to create and the streams of generators with different seeds
+ * are statistically independent.
+ * <p>
+ * A generator is not thread safe. Parallel evaluations {@link #split(String) split} their own generators instead of sharing one,
+ * so that they do not contend and the values of each stream do not depend on how evaluations are scheduled.
+ */
+final class SplitMix64 {
+
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * @param value
+     *        the value being mixed
+     * @return the value with its bits avalanched by the SplitMix64 finalizer
+     */
+    static long mix64( final long value ) {
+        long z = ( value ^ ( value >>> 30 ) ) * 0xbf58476d1ce4e5b9L;
+        z = ( z ^ ( z >>> 27 ) ) * 0x94d049bb133111ebL;
+        return ( z ^ ( z >>> 31 ) );
+    }
+
+    private long seed;
+
+    /**
+     * @param seed
+     *        the initial state of the generator
+     */
+    SplitMix64( final long seed ) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return a pseudo-random number greater than or equal to <code>0.0</code> and less than <code>1.0</code> with 53 random bits
+     */
+    double nextDouble() {
+        return ( ( nextLong() >>> 11 ) * DOUBLE_UNIT );
+    }
+
+    /**
+     * @return a pseudo-random number uniformly distributed over all <code>long</code> values
+     */
+    long nextLong() {
+        this.seed += GOLDEN_GAMMA;
+        return mix64( this.seed );
+    }
+
+    /**
+     * Creates a generator for a named stream. The generator depends only on the current state of this generator and the name, so
+     * the same names always obtain the same streams.
+     * 
+     * @param name
+     *        the name of the stream (cannot be <code>null</code>)
+     * @return the new generator (never <code>null</code>)
+     */
+    SplitMix64 split( final String name ) {
+        long hash = FNV_OFFSET_BASIS;
+
+        for ( int ndx = 0, length = name.length(); ndx < length; ++ndx ) {
+            hash = ( hash ^ name.charAt( ndx ) ) * FNV_PRIME;
+        }
+
+        return new SplitMix64( mix64( this.seed ^ mix64( hash ) ) );
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.Indexed;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.ValidationProblems;
+import org.chrysalix.transformation.ValueDescriptor;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Obtains the part of the string representation of the input term between a begin index, inclusive, and an optional end index,
+ * exclusive. Indexes are clamped to the string, so that for instance an identifier can be truncated to a maximum length whether or
+ * not it is longer. A <code>null</code> input results in <code>null</code>.
+ */
+@Indexed( Operation.class )
+public final class Substring extends AbstractOperation< String > {
+
+    private static final String BEGIN_DESCRIPTION = "The index of the first character of the substring";
+    private static final String BEGIN_NAME = "Begin";
+    static final String DESCRIPTION = "Obtains part of a string";
+    private static final String END_DESCRIPTION = "The index after the last character of the substring";
+    private static final String END_NAME = "End";
+    private static final String INPUT_DESCRIPTION = "The string whose part is being obtained";
+    private static final String INPUT_NAME = "Input";
+    static final String NAME = "Substring";
+
+    /**
+     * The descriptor for the string whose part is being obtained.
+     */
+    public static final ValueDescriptor< String > INPUT_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Substring.class, "input" ),
+                                                     ChrysalixI18n.localize( INPUT_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( INPUT_NAME ),
+                                                     String.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the begin index.
+     */
+    public static final ValueDescriptor< Number > BEGIN_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Substring.class, "begin" ),
+                                                     ChrysalixI18n.localize( BEGIN_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( BEGIN_NAME ),
+                                                     Number.class,
+                                                     true,
+                                                     1,
+                                                     false );
+
+    /**
+     * The descriptor for the optional end index. The substring extends to the end of the string if there is no end index.
+     */
+    public static final ValueDescriptor< Number > END_DESCRIPTOR =
+        TransformationFactory.createValueDescriptor( TransformationFactory.createId( Substring.class, "end" ),
+                                                     ChrysalixI18n.localize( END_DESCRIPTION ),
+                                                     ChrysalixI18n.localize( END_NAME ),
+                                                     Number.class,
+                                                     true,
+                                                     0,
+                                                     false );
+
+    /**
+     * The input descriptors.
+     */
+    private static final ValueDescriptor< ? >[] INPUT_DESCRIPTORS = { INPUT_DESCRIPTOR, BEGIN_DESCRIPTOR, END_DESCRIPTOR };
+
+    /**
+     * The output descriptor.
+     */
+    public static final OperationDescriptor< String > DESCRIPTOR =
+        new AbstractOperationDescriptor< String >( TransformationFactory.createId( Substring.class ),
+                                                   ChrysalixI18n.localize( DESCRIPTION ),
+                                                   ChrysalixI18n.localize( NAME ),
+                                                   String.class,
+                                                   INPUT_DESCRIPTORS ) {
+
+            /**
+             * {@inheritDoc}
+             * 
+             * @see org.chrysalix.transformation.OperationDescriptor#newInstance(org.modelspace.ModelObject,
+             *      org.chrysalix.transformation.Transformation)
+             */
+            @Override
+            public Operation< String > newInstance( final ModelObject operation,
+                                                    final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+                return new Substring( operation, transformation );
+            }
+
+        };
+
+    /**
+     * @param operation
+     *        the operation model object (cannot be <code>null</code>)
+     * @param transformation
+     *        the transformation containing this operation (cannot be <code>null</code>)
+     * @throws ModelspaceException
+     *         if an error with the model object occurs
+     * @throws ChrysalixException
+     *         if a non-model object error occurs
+     * @throws IllegalArgumentException
+     *         if the input is <code>null</code>
+     */
+    Substring( final ModelObject operation,
+               final Transformation transformation ) throws ModelspaceException, ChrysalixException {
+        super( operation, transformation );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#calculate()
+     */
+    @Override
+    protected String calculate() throws ChrysalixException {
+        assert !problems().isError();
+        final Object input = inputValue( INPUT_DESCRIPTOR );
+
+        if ( input == null ) {
+            return null;
+        }
+
+        final String text = input.toString();
+        final Object end = inputValue( END_DESCRIPTOR );
+        final int beginIndex = Math.min( Math.max( ( ( Number ) inputValue( BEGIN_DESCRIPTOR ) ).intValue(), 0 ), text.length() );
+        final int endIndex =
+            ( end instanceof Number ) ? Math.min( Math.max( ( ( Number ) end ).intValue(), beginIndex ), text.length() ) : text.length();
+        return text.substring( beginIndex, endIndex );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.chrysalix.operation.AbstractOperation#problems()
+     */
+    @Override
+    public ValidationProblems problems() throws ChrysalixException {
+        this.problems.clear();
+        validateSingleInputs( INPUT_DESCRIPTORS );
+
+        if ( !this.problems.isError() && !( inputValue( BEGIN_DESCRIPTOR ) instanceof Number ) ) {
+            this.problems.add( TransformationFactory.createError( transformationId(),
+                                                                  ChrysalixI18n.localize( AbstractOperation.INVALID_TERM_TYPE,
+                                                                                          NAME,
+                                                                                          transformationId() ) ) );
+        }
+
+        return super.problems();
+    }
+
+}
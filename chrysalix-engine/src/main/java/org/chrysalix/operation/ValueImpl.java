@@ -27,6 +27,7 @@ import org.chrysalix.ChrysalixException;
 import org.chrysalix.ChrysalixI18n;
 import org.chrysalix.ChrysalixLexicon;
 import org.chrysalix.common.CheckArg;
+import org.chrysalix.transformation.ExecutionContext;
 import org.chrysalix.transformation.Operation;
 import org.chrysalix.transformation.TransformationFactory;
 import org.chrysalix.transformation.Value;
@@ -52,7 +53,9 @@ public class ValueImpl< T > implements Value< T > {
     private static final String TRANSFORMATION_FACTORY_ERROR = "Unable to obtain transformation factory";
     static final String VALUE_NOT_MODIFIABLE = "The value '%s' is not modifiable";
 
+    private volatile ValueDescriptor< T > descriptor;
     private final String descriptorId;
+    private volatile TransformationFactory factory;
     private final ModelObject input;
 
     /**
@@ -82,12 +85,11 @@ public class ValueImpl< T > implements Value< T > {
 
     @SuppressWarnings( "unchecked" )
     private ValueDescriptor< T > descriptor() throws ChrysalixException {
-        try {
-            final TransformationFactory factory = TransformationFactory.REGISTRY.get( this.input.model().modelspace() );
-            return ( ValueDescriptor< T > ) factory.descriptor( this.descriptorId );
-        } catch ( final ModelspaceException e ) {
-            throw new ChrysalixException( e, ChrysalixI18n.localize( TRANSFORMATION_FACTORY_ERROR ) );
+        if ( this.descriptor == null ) {
+            this.descriptor = ( ValueDescriptor< T > ) factory().descriptor( this.descriptorId );
         }
+
+        return this.descriptor;
     }
 
     /**
@@ -131,6 +133,18 @@ public class ValueImpl< T > implements Value< T > {
         return proposedValue;
     }
 
+    private TransformationFactory factory() throws ChrysalixException {
+        if ( this.factory == null ) {
+            try {
+                this.factory = TransformationFactory.REGISTRY.get( this.input.model().modelspace() );
+            } catch ( final ModelspaceException e ) {
+                throw new ChrysalixException( e, ChrysalixI18n.localize( TRANSFORMATION_FACTORY_ERROR ) );
+            }
+        }
+
+        return this.factory;
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -156,6 +170,13 @@ public class ValueImpl< T > implements Value< T > {
                 // value is a model property path
                 if ( hasValue ) {
                     final String propPath = this.input.property( ChrysalixLexicon.Input.VALUE ).stringValue();
+                    final ExecutionContext context = ExecutionContext.current();
+
+                    // path of an operation already evaluated by the current execution
+                    if ( ( context != null ) && context.hasResult( propPath ) ) {
+                        return ( T ) context.result( propPath );
+                    }
+
                     final ModelProperty modelProperty = this.model().property( propPath );
 
                     if ( modelProperty.descriptor().multiple() ) {
@@ -170,7 +191,18 @@ public class ValueImpl< T > implements Value< T > {
 
             // value is a literal
             if ( hasValue ) {
-                return ( T ) this.input.property( ChrysalixLexicon.Input.VALUE ).value();
+                final Object value = this.input.property( ChrysalixLexicon.Input.VALUE ).value();
+
+                // detached inputs hold values and properties by reference
+                if ( value instanceof Value< ? > ) {
+                    return ( ( Value< T > ) value ).get();
+                }
+
+                if ( ( value instanceof ModelProperty ) && ( this.input instanceof DetachedObject ) ) {
+                    return ( T ) ( ( ModelProperty ) value ).value();
+                }
+
+                return ( T ) value;
             }
 
             return null; // no value set
@@ -233,7 +265,11 @@ public class ValueImpl< T > implements Value< T > {
         boolean isPath = false;
         Object newValue = null;
 
-        if ( proposedValue != null ) {
+        final boolean detached = ( this.input instanceof DetachedObject );
+
+        if ( detached ) {
+            newValue = proposedValue;
+        } else if ( proposedValue != null ) {
             newValue = determineValueBasedOn( proposedValue );
             isPath = determinePathValueBasedOn( proposedValue );
         }
@@ -241,7 +277,22 @@ public class ValueImpl< T > implements Value< T > {
         try {
             this.input.setProperty( ChrysalixLexicon.Input.PATH, isPath );
             this.input.setProperty( ChrysalixLexicon.Input.VALUE, newValue );
-        } catch ( final ModelspaceException e ) {
+
+            if ( detached ) {
+                return;
+            }
+
+            // the input belongs to a transformation model whose definition has now changed
+            final TransformationFactory factory = factory();
+
+            if ( factory != null ) {
+                final String transformationId = this.input.model().absolutePath();
+
+                if ( transformationId != null ) {
+                    factory.definitionChanged( transformationId );
+                }
+            }
+        } catch ( final ChrysalixException | ModelspaceException e ) {
             throw new UnsupportedOperationException( ChrysalixI18n.localize( ERROR_SETTING_VALUE, this.descriptorId ) );
         }
     }
@@ -0,0 +1,109 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import java.util.Comparator;
+import java.util.regex.Pattern;
+
+/**
+ * The matching and ordering of values shared by the operations that select, map, and sort the values of collections.
+ */
+final class Values {
+
+    /**
+     * The order of the values: <code>null</code> first, then numbers in numeric order, then strings in lexicographic order.
+     */
+    static final Comparator< Object > ORDER = new Comparator< Object >() {
+
+        @Override
+        public int compare( final Object thisValue,
+                            final Object thatValue ) {
+            final int thisRank = rank( thisValue );
+            final int thatRank = rank( thatValue );
+
+            if ( thisRank != thatRank ) {
+                return Integer.compare( thisRank, thatRank );
+            }
+
+            if ( thisRank == NUMBER_RANK ) {
+                final Number thisNumber = ( Number ) thisValue;
+                final Number thatNumber = ( Number ) thatValue;
+
+                if ( NumberStatistics.isIntegral( thisNumber ) && NumberStatistics.isIntegral( thatNumber ) ) {
+                    return Long.compare( thisNumber.longValue(), thatNumber.longValue() );
+                }
+
+                return Double.compare( thisNumber.doubleValue(), thatNumber.doubleValue() );
+            }
+
+            return ( ( thisRank == STRING_RANK ) ? ( ( String ) thisValue ).compareTo( ( String ) thatValue ) : 0 );
+        }
+
+        private int rank( final Object value ) {
+            if ( value == null ) return NULL_RANK;
+            return ( ( value instanceof Number ) ? NUMBER_RANK : STRING_RANK );
+        }
+
+    };
+
+    private static final int NULL_RANK = 0;
+    private static final int NUMBER_RANK = 1;
+    private static final int STRING_RANK = 2;
+
+    /**
+     * Converts a pattern, where '*' matches any characters and '?' matches one character, into a regular expression.
+     * 
+     * @param glob
+     *        the pattern (cannot be <code>null</code>)
+     * @return the compiled regular expression (never <code>null</code>)
+     */
+    static Pattern glob( final String glob ) {
+        final StringBuilder regex = new StringBuilder( glob.length() + 8 );
+        int literalStart = 0;
+
+        for ( int i = 0; i < glob.length(); ++i ) {
+            final char c = glob.charAt( i );
+
+            if ( ( c == '*' ) || ( c == '?' ) ) {
+                if ( i > literalStart ) {
+                    regex.append( Pattern.quote( glob.substring( literalStart, i ) ) );
+                }
+
+                regex.append( ( c == '*' ) ? ".*" : "." );
+                literalStart = i + 1;
+            }
+        }
+
+        if ( literalStart < glob.length() ) {
+            regex.append( Pattern.quote( glob.substring( literalStart ) ) );
+        }
+
+        return Pattern.compile( regex.toString() );
+    }
+
+    private Values() {
+        // static methods only
+    }
+
+}
@@ -0,0 +1,471 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.CheckArg;
+import org.modelspace.Model;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+
+/**
+ * The state of a single {@link TransformationExecutor execution} of an {@link ExecutionPlan execution plan}. The context holds
+ * the results of the operations already evaluated and the target property writes requested by operations. Writes are not applied
+ * while operations are running, possibly concurrently, but are {@link #commit() committed} serially, in plan order, once all
+ * operations have been evaluated.
+ * <p>
+ * The context is bound to the thread evaluating an operation so that values and operations can find it using {@link #current()}.
+ * <p>
+ * Each context has a {@link #seed() seed} from which operations like random number generators derive their values, so that an
+ * execution can be replayed by creating its context with the same seed.
+ */
+public final class ExecutionContext {
+
+    private static final ThreadLocal< ExecutionContext > CURRENT = new ThreadLocal<>();
+    private static final Object NULL_RESULT = new Object();
+    private static final String ERROR_COMMITTING_WRITE = "Error writing property '%s' when committing transformation '%s'";
+    private static final String NO_NODE = "";
+
+    /**
+     * @return the context bound to the current thread or <code>null</code> if no execution is in progress on this thread
+     */
+    public static ExecutionContext current() {
+        return CURRENT.get();
+    }
+
+    private final ExecutionPlan plan;
+    private final Precision precision;
+    private final long seed;
+    private final ConcurrentMap< String, Object > results = new ConcurrentHashMap<>();
+    private final ConcurrentMap< String, List< PendingWrite > > writes = new ConcurrentHashMap<>();
+    private final ThreadLocal< String > currentNode = new ThreadLocal<>();
+    private final List< PendingWrite > committed = new ArrayList<>();
+
+    /**
+     * @param plan
+     *        the plan being executed (cannot be <code>null</code>)
+     */
+    public ExecutionContext( final ExecutionPlan plan ) {
+        this( plan, Precision.MIXED );
+    }
+
+    /**
+     * @param plan
+     *        the plan being executed (cannot be <code>null</code>)
+     * @param precision
+     *        the precision of the numeric operations (cannot be <code>null</code>)
+     */
+    public ExecutionContext( final ExecutionPlan plan,
+                             final Precision precision ) {
+        this( plan, precision, ThreadLocalRandom.current().nextLong() );
+    }
+
+    /**
+     * @param plan
+     *        the plan being executed (cannot be <code>null</code>)
+     * @param precision
+     *        the precision of the numeric operations (cannot be <code>null</code>)
+     * @param seed
+     *        the seed of the pseudo-random values of the execution
+     */
+    public ExecutionContext( final ExecutionPlan plan,
+                             final Precision precision,
+                             final long seed ) {
+        CheckArg.notNull( plan, "plan" );
+        CheckArg.notNull( precision, "precision" );
+        this.plan = plan;
+        this.precision = precision;
+        this.seed = seed;
+
+        // folded results were computed with the default precision
+        if ( precision.mode() == Precision.Mode.MIXED ) {
+            for ( final ExecutionPlan.Node node : plan.folded() ) {
+                result( node, node.constant() );
+            }
+        }
+    }
+
+    /**
+     * Constructs a context for an incremental execution that reuses the results, and the seed, of an earlier execution of the same
+     * plan. Results of operations outside of the plan are not reused.
+     * 
+     * @param plan
+     *        the plan being executed (cannot be <code>null</code>)
+     * @param previous
+     *        the context of an earlier execution of the plan (cannot be <code>null</code>)
+     * @param stale
+     *        the nodes whose results must not be reused (cannot be <code>null</code>)
+     */
+    ExecutionContext( final ExecutionPlan plan,
+                      final ExecutionContext previous,
+                      final Set< ExecutionPlan.Node > stale ) {
+        this( plan, previous.precision, previous.seed );
+        CheckArg.notNull( stale, "stale" );
+        final List< ExecutionPlan.Node > nodes = new ArrayList<>( plan.folded() );
+        nodes.addAll( plan.nodes() );
+
+        for ( final ExecutionPlan.Node node : nodes ) {
+            if ( !stale.contains( node ) ) {
+                final Object result = previous.results.get( node.key() );
+
+                if ( result != null ) {
+                    this.results.put( node.key(), result );
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes all deferred property values. Writes are applied in plan order, and in request order for each node, regardless of
+     * the order the operations were evaluated in.
+     * 
+     * @throws ChrysalixException
+     *         if one or more writes fail (all writes are attempted)
+     */
+    public void commit() throws ChrysalixException {
+        ChrysalixException error = null;
+        final List< String > keys = new ArrayList<>( this.plan.nodes().size() + 1 );
+
+        for ( final ExecutionPlan.Node node : this.plan.nodes() ) {
+            keys.add( node.key() );
+        }
+
+        keys.add( NO_NODE );
+
+        for ( final String key : keys ) {
+            final List< PendingWrite > pending = this.writes.remove( key );
+
+            if ( pending == null ) {
+                continue;
+            }
+
+            for ( final PendingWrite write : pending ) {
+                try {
+                    write.apply();
+                    this.committed.add( write );
+                } catch ( final ModelspaceException e ) {
+                    final ChrysalixException pe = new ChrysalixException( e, ChrysalixI18n.localize( ERROR_COMMITTING_WRITE,
+                                                                                                     write.path(),
+                                                                                                     this.plan.transformation().id() ) );
+
+                    if ( error == null ) {
+                        error = pe;
+                    } else {
+                        error.addSuppressed( pe );
+                    }
+                }
+            }
+        }
+
+        if ( error != null ) {
+            throw error;
+        }
+    }
+
+    /**
+     * @return the writes successfully applied by {@link #commit()}, in the order they were applied (never <code>null</code>)
+     */
+    List< PendingWrite > committed() {
+        return Collections.unmodifiableList( this.committed );
+    }
+
+    /**
+     * Requests that the specified property be set when the context is {@link #commit() committed}.
+     * 
+     * @param target
+     *        the property being written (cannot be <code>null</code>)
+     * @param values
+     *        the new values (can be <code>null</code>)
+     */
+    public void defer( final ModelProperty target,
+                       final Object... values ) {
+        CheckArg.notNull( target, "target" );
+        defer( new PendingWrite( target, null, null, values ) );
+    }
+
+    /**
+     * Requests that the specified property of a model object be set, and created if necessary, when the context is
+     * {@link #commit() committed}.
+     * 
+     * @param target
+     *        the model object whose property is being written (cannot be <code>null</code>)
+     * @param propertyName
+     *        the name of the property being written (cannot be <code>null</code> or empty)
+     * @param values
+     *        the new values (can be <code>null</code>)
+     */
+    public void defer( final ModelObject target,
+                       final String propertyName,
+                       final Object... values ) {
+        CheckArg.notNull( target, "target" );
+        CheckArg.notEmpty( propertyName, "propertyName" );
+        defer( new PendingWrite( null, target, propertyName, values ) );
+    }
+
+    private void defer( final PendingWrite write ) {
+        String key = this.currentNode.get();
+
+        if ( key == null ) {
+            key = NO_NODE;
+        }
+
+        List< PendingWrite > pending = this.writes.get( key );
+
+        if ( pending == null ) {
+            final List< PendingWrite > added = Collections.synchronizedList( new ArrayList< PendingWrite >() );
+            pending = this.writes.putIfAbsent( key, added );
+
+            if ( pending == null ) {
+                pending = added;
+            }
+        }
+
+        pending.add( write );
+    }
+
+    /**
+     * Binds this context, and the specified node, to the current thread.
+     * 
+     * @param node
+     *        the node about to be evaluated (can be <code>null</code>)
+     * @return the binding that was replaced and must be passed to {@link #exit(Binding)} (never <code>null</code>)
+     */
+    Binding enter( final ExecutionPlan.Node node ) {
+        final ExecutionContext previous = CURRENT.get();
+        final Binding binding = new Binding( previous, ( previous == null ) ? null : previous.currentNode.get() );
+        CURRENT.set( this );
+        this.currentNode.set( ( node == null ) ? NO_NODE : node.key() );
+        return binding;
+    }
+
+    /**
+     * Restores the thread binding replaced by {@link #enter(ExecutionPlan.Node)}.
+     * 
+     * @param binding
+     *        the binding being restored (cannot be <code>null</code>)
+     */
+    void exit( final Binding binding ) {
+        this.currentNode.remove();
+
+        if ( binding.context == null ) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set( binding.context );
+            binding.context.currentNode.set( binding.node );
+        }
+    }
+
+    /**
+     * Discards the result of an operation outside of the plan, like an operation whose result depends on arguments that change
+     * between evaluations.
+     * 
+     * @param path
+     *        the absolute path of the operation (cannot be <code>null</code> or empty)
+     */
+    void forget( final String path ) {
+        if ( this.plan.node( path ) == null ) {
+            this.results.remove( path );
+        }
+    }
+
+    /**
+     * @param path
+     *        the absolute or model-relative path of an operation (can be <code>null</code> or empty)
+     * @return <code>true</code> if the operation, or an identical operation whose result it shares, has been evaluated in this
+     *         context
+     */
+    public boolean hasResult( final String path ) {
+        final String key = key( path );
+        return ( ( key != null ) && this.results.containsKey( key ) );
+    }
+
+    private String key( final String path ) {
+        final ExecutionPlan.Node node = this.plan.node( path );
+        return ( ( node == null ) ? path : node.canonical().key() );
+    }
+
+    /**
+     * @return the node being evaluated by the current thread or <code>null</code> if none
+     */
+    public ExecutionPlan.Node node() {
+        final String key = this.currentNode.get();
+        return ( ( key == null ) ? null : this.plan.node( key ) );
+    }
+
+    /**
+     * @return the number of property writes waiting to be committed
+     */
+    public int pendingWrites() {
+        int count = 0;
+
+        for ( final List< PendingWrite > pending : this.writes.values() ) {
+            count += pending.size();
+        }
+
+        return count;
+    }
+
+    /**
+     * @return the plan being executed (never <code>null</code>)
+     */
+    public ExecutionPlan plan() {
+        return this.plan;
+    }
+
+    /**
+     * @return the precision of the numeric operations (never <code>null</code>)
+     */
+    public Precision precision() {
+        return this.precision;
+    }
+
+    /**
+     * @param path
+     *        the absolute or model-relative path of an operation (can be <code>null</code> or empty)
+     * @return the result of the operation or <code>null</code> if the result is <code>null</code> or it has not been evaluated
+     */
+    public Object result( final String path ) {
+        final String key = key( path );
+
+        if ( key == null ) {
+            return null;
+        }
+
+        final Object result = this.results.get( key );
+        return ( ( result == NULL_RESULT ) ? null : result );
+    }
+
+    private void result( final ExecutionPlan.Node node,
+                         final Object result ) {
+        this.results.put( node.key(), ( result == null ) ? NULL_RESULT : result );
+    }
+
+    /**
+     * Records the result of an operation so that it is evaluated at most once per execution. Operations that are not part of the
+     * plan, like the operations an operation uses internally, are recorded using their path.
+     * 
+     * @param path
+     *        the absolute path of the operation (cannot be <code>null</code> or empty)
+     * @param result
+     *        the result (can be <code>null</code>)
+     */
+    public void result( final String path,
+                        final Object result ) {
+        CheckArg.notEmpty( path, "path" );
+        final ExecutionPlan.Node node = this.plan.node( path );
+
+        if ( node == null ) {
+            this.results.put( path, ( result == null ) ? NULL_RESULT : result );
+        } else {
+            result( node.canonical(), result );
+        }
+    }
+
+    /**
+     * @return the number of recorded results, including those of folded operations and operations outside of the plan
+     */
+    int results() {
+        return this.results.size();
+    }
+
+    /**
+     * @return the seed of the pseudo-random values of this execution
+     */
+    public long seed() {
+        return this.seed;
+    }
+
+    static final class Binding {
+
+        final ExecutionContext context;
+        final String node;
+
+        Binding( final ExecutionContext context,
+                 final String node ) {
+            this.context = context;
+            this.node = node;
+        }
+
+    }
+
+    static final class PendingWrite {
+
+        final ModelProperty target;
+        final ModelObject object;
+        final String propertyName;
+        final Object[] values;
+
+        PendingWrite( final ModelProperty target,
+                      final ModelObject object,
+                      final String propertyName,
+                      final Object[] values ) {
+            this.target = target;
+            this.object = object;
+            this.propertyName = propertyName;
+            this.values = values;
+        }
+
+        void apply() throws ModelspaceException {
+            if ( this.target == null ) {
+                this.object.setProperty( this.propertyName, this.values );
+            } else {
+                this.target.set( this.values );
+            }
+        }
+
+        Model model() throws ModelspaceException {
+            return ( ( this.target == null ) ? this.object.model() : this.target.model() );
+        }
+
+        String modelRelativePath() throws ModelspaceException {
+            if ( this.target != null ) {
+                return this.target.modelRelativePath();
+            }
+
+            final String objectPath = this.object.modelRelativePath();
+            return ( ( ( objectPath == null ) || objectPath.isEmpty() ) ? this.propertyName : objectPath + '/' + this.propertyName );
+        }
+
+        String path() {
+            try {
+                return ( ( this.target == null ) ? this.object.absolutePath() + '/' + this.propertyName
+                                                : this.target.absolutePath() );
+            } catch ( final ModelspaceException e ) {
+                return String.valueOf( ( this.target == null ) ? this.object : this.target );
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,1074 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.ChrysalixLexicon;
+import org.chrysalix.common.CheckArg;
+import org.chrysalix.common.Logger;
+import org.modelspace.ModelElement;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+import org.modelspace.PropertyDescriptor;
+
+/**
+ * The compiled, dependency-ordered form of a {@link Transformation transformation}. Each {@link Operation operation} of the
+ * transformation becomes a {@link Node node} and an input that refers to another operation of the same transformation becomes
+ * an edge. Nodes are grouped into levels so that all nodes of a level only depend on nodes of earlier levels and can therefore
+ * be evaluated concurrently. The ordering of nodes within a level follows the transformation's operation order, so the plan is
+ * deterministic.
+ * <p>
+ * Identical {@link OperationDescriptor#deterministic() deterministic} operations, those with the same descriptor and the same
+ * inputs, are only evaluated once. The duplicates are {@link Node#canonical() aliases} of the first such operation and share its
+ * result.
+ * <p>
+ * Deterministic operations whose inputs are all literal values, or results of other such operations, are evaluated once when the
+ * plan is compiled and are not evaluated again when the plan is executed. A plan is therefore only valid for the
+ * {@link #definitionVersion() definition version} of the transformation it was compiled from.
+ * <p>
+ * The plan also indexes the {@link #sources() source paths} read by its operations so that, when source properties change, only
+ * the {@link #affected(Collection) affected} operations and the operations downstream of them need to be evaluated again.
+ * <p>
+ * The concrete {@link Node#type() result type} of each operation is inferred when the plan is compiled, from the types of literal
+ * inputs, the types of the source properties, and the inferred types of the operations it depends on. Operations can use the
+ * inferred types to choose a specialized implementation, and inputs whose types can never match their descriptors are reported as
+ * {@link #problems() problems} before the plan is executed. The {@link Node#strategy() strategy} chosen by an operation whose
+ * implementation depends on its inputs is recorded on its node and reported as an informational problem.
+ */
+public final class ExecutionPlan {
+
+    private static final String CYCLE_FOUND = "Transformation '%s' contains a cycle involving operation '%s'";
+    private static final String ERROR_COMPILING_PLAN = "Unable to compile an execution plan for transformation '%s'";
+    private static final String NO_FINGERPRINT = "";
+    private static final String STRATEGY = "Operation '%s' in transformation '%s' uses the %s strategy";
+    private static final String TYPE_MISMATCH =
+        "Input '%s' of operation '%s' in transformation '%s' has type '%s' but requires type '%s'";
+    static final Logger LOGGER = Logger.logger( ExecutionPlan.class );
+
+    private static final Comparator< Node > LEVEL_ORDER = new Comparator< Node >() {
+
+        @Override
+        public int compare( final Node thisNode,
+                            final Node thatNode ) {
+            final int result = Integer.compare( thisNode.level, thatNode.level );
+            return ( ( result == 0 ) ? Integer.compare( thisNode.index, thatNode.index ) : result );
+        }
+
+    };
+
+    /**
+     * @param transformation
+     *        the transformation being compiled (cannot be <code>null</code>)
+     * @return the plan (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the operations cannot be read or if the operations contain a dependency cycle
+     */
+    public static ExecutionPlan compile( final Transformation transformation ) throws ChrysalixException {
+        CheckArg.notNull( transformation, "transformation" );
+        return compile( transformation, factory( transformation ) );
+    }
+
+    /**
+     * @param transformation
+     *        the transformation being compiled (cannot be <code>null</code>)
+     * @param factory
+     *        the factory used to find operation descriptors (can be <code>null</code> if operations should not be shared or
+     *        folded)
+     * @return the plan (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the operations cannot be read or if the operations contain a dependency cycle
+     */
+    public static ExecutionPlan compile( final Transformation transformation,
+                                         final TransformationFactory factory ) throws ChrysalixException {
+        CheckArg.notNull( transformation, "transformation" );
+
+        // read version first so that concurrent changes make this plan stale
+        final long version = ( ( factory == null ) ? -1 : factory.definitionVersion( transformation.id() ) );
+        final List< Node > nodes = new ArrayList<>();
+        final Map< String, Node > nodesByPath = new HashMap<>();
+
+        try {
+            for ( final Operation< ? > operation : transformation.operations() ) {
+                final Node node = new Node( operation.absolutePath(), operation, nodes.size() );
+                nodes.add( node );
+                nodesByPath.put( node.key, node );
+                nodesByPath.put( operation.modelRelativePath(), node );
+            }
+
+            for ( final Node node : nodes ) {
+                final Value< ? >[] inputs = node.operation.inputs();
+                node.inputs = new Object[ inputs.length ];
+                node.inputIds = new String[ inputs.length ];
+                node.inputTypes = new Class< ? >[ inputs.length ];
+
+                for ( int i = 0; i < inputs.length; ++i ) {
+                    final String reference = reference( inputs[ i ] );
+                    final Node dependency = nodesByPath.get( reference );
+                    node.inputIds[ i ] = inputs[ i ].descriptorId();
+
+                    if ( ( dependency != null ) && ( dependency != node ) ) {
+                        node.dependencies.add( dependency );
+                        node.inputs[ i ] = dependency;
+                    } else {
+                        node.inputs[ i ] = signature( inputs[ i ], reference );
+                        node.literal &= ( reference == null );
+
+                        if ( reference == null ) {
+                            node.inputTypes[ i ] = literalType( inputs[ i ] );
+                        } else {
+                            node.inputTypes[ i ] = sourceType( transformation, reference );
+                            node.sources.add( reference );
+                        }
+                    }
+                }
+            }
+        } catch ( final ModelspaceException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_COMPILING_PLAN, transformation.id() ) );
+        }
+
+        levels( nodes, transformation );
+
+        // share the results of identical operations
+        final List< Node > ordered = new ArrayList<>( nodes );
+        Collections.sort( ordered, LEVEL_ORDER );
+        final ValidationProblems problems = infer( ordered, transformation, factory );
+        final Map< String, Node > nodesBySignature = new HashMap<>();
+
+        for ( final Node node : ordered ) {
+            final String signature = signature( node, factory );
+
+            if ( signature != null ) {
+                final Node canonical = nodesBySignature.get( signature );
+
+                if ( canonical == null ) {
+                    nodesBySignature.put( signature, node );
+                } else {
+                    node.canonical = canonical;
+                }
+            }
+        }
+
+        final List< Node > evaluated = new ArrayList<>( nodes.size() );
+
+        for ( final Node node : nodes ) {
+            if ( node.canonical == node ) {
+                final Set< Node > dependencies = new LinkedHashSet<>();
+
+                for ( final Node dependency : node.dependencies ) {
+                    dependencies.add( dependency.canonical );
+                }
+
+                node.dependencies.clear();
+                node.dependencies.addAll( dependencies );
+                node.level = -1;
+                evaluated.add( node );
+            }
+        }
+
+        List< List< Node > > levels = levels( evaluated, transformation );
+        ordered.clear();
+
+        for ( final List< Node > level : levels ) {
+            ordered.addAll( level );
+        }
+
+        final List< Node > folded = fold( new ExecutionPlan( transformation,
+                                                             ordered,
+                                                             levels,
+                                                             nodesByPath,
+                                                             new TreeMap< String, Set< Node > >(),
+                                                             0,
+                                                             version,
+                                                             Collections.< Node >emptyList(),
+                                                             problems ), factory );
+
+        if ( !folded.isEmpty() ) {
+            ordered.removeAll( folded );
+
+            for ( final Node node : ordered ) {
+                node.level = -1;
+            }
+
+            levels = levels( ordered, transformation );
+            ordered.clear();
+
+            for ( final List< Node > level : levels ) {
+                ordered.addAll( level );
+            }
+        }
+
+        for ( final Node node : nodes ) {
+            if ( node.canonical != node ) {
+                node.level = node.canonical.level;
+            }
+        }
+
+        for ( int i = 0; i < levels.size(); ++i ) {
+            levels.set( i, Collections.unmodifiableList( levels.get( i ) ) );
+        }
+
+        // reverse index from source paths, and from operations, to the operations reading them
+        final NavigableMap< String, Set< Node > > nodesBySource = new TreeMap<>();
+
+        for ( final Node node : nodes ) {
+            for ( final String source : node.sources ) {
+                Set< Node > readers = nodesBySource.get( source );
+
+                if ( readers == null ) {
+                    readers = new LinkedHashSet<>();
+                    nodesBySource.put( source, readers );
+                }
+
+                readers.add( node.canonical );
+            }
+        }
+
+        for ( final Node node : ordered ) {
+            for ( final Node dependency : node.dependencies ) {
+                dependency.dependents.add( node );
+            }
+        }
+
+        return new ExecutionPlan( transformation,
+                                  ordered,
+                                  levels,
+                                  nodesByPath,
+                                  nodesBySource,
+                                  nodes.size() - evaluated.size(),
+                                  version,
+                                  folded,
+                                  problems );
+    }
+
+    private static OperationDescriptor< ? > deterministicDescriptor( final Node node,
+                                                                    final TransformationFactory factory ) {
+        final OperationDescriptor< ? > descriptor = operationDescriptor( node, factory );
+
+        if ( ( descriptor == null ) || !descriptor.deterministic() || Void.class.equals( descriptor.type() ) ) {
+            return null;
+        }
+
+        return descriptor;
+    }
+
+    /**
+     * @return <code>true</code> if no value can be an instance of both types
+     */
+    private static boolean disjoint( final Class< ? > thisType,
+                                     final Class< ? > thatType ) {
+        if ( ( thisType == null ) || ( thatType == null )
+             || thisType.isAssignableFrom( thatType ) || thatType.isAssignableFrom( thisType ) ) {
+            return false;
+        }
+
+        // a subclass of one class can still implement any interface
+        return ( ( !thisType.isInterface() && !thatType.isInterface() )
+                 || Modifier.isFinal( thisType.getModifiers() )
+                 || Modifier.isFinal( thatType.getModifiers() ) );
+    }
+
+    static TransformationFactory factory( final Transformation transformation ) {
+        try {
+            return TransformationFactory.REGISTRY.get( transformation.model().modelspace() );
+        } catch ( final Exception e ) {
+            return null; // operations will be treated as non-deterministic
+        }
+    }
+
+    /**
+     * Evaluates, once, the deterministic operations whose inputs are all literals or results of other folded operations.
+     * 
+     * @return the folded nodes (never <code>null</code>)
+     */
+    private static List< Node > fold( final ExecutionPlan plan,
+                                      final TransformationFactory factory ) {
+        final List< Node > folded = new ArrayList<>();
+
+        // a plan with type errors is never executed
+        if ( ( factory == null ) || plan.problems.isError() ) {
+            return folded;
+        }
+
+        final ExecutionContext context = new ExecutionContext( plan );
+
+        for ( final Node node : plan.nodes ) {
+            if ( !foldable( node, factory ) ) {
+                continue;
+            }
+
+            final ExecutionContext.Binding binding = context.enter( node );
+
+            try {
+                node.constant = node.operation.get();
+                node.folded = true;
+                context.result( node.key, node.constant );
+                folded.add( node );
+            } catch ( final ChrysalixException | RuntimeException e ) {
+                // problem is reported when the operation is executed
+                LOGGER.debug( e, "Operation '%s' could not be folded", node.key );
+            } finally {
+                context.exit( binding );
+            }
+        }
+
+        return folded;
+    }
+
+    private static boolean foldable( final Node node,
+                                     final TransformationFactory factory ) {
+        // operations without inputs of their own, like those delegating to child operations, are never folded
+        if ( !node.literal || ( node.inputs == null ) || ( node.inputs.length == 0 ) ) {
+            return false;
+        }
+
+        for ( final Object input : node.inputs ) {
+            if ( ( input instanceof Node ) && !( ( Node ) input ).canonical.folded ) {
+                return false;
+            }
+        }
+
+        return ( deterministicDescriptor( node, factory ) != null );
+    }
+
+    /**
+     * Infers the result type of each node, which must follow the nodes it depends on, checks the types of its inputs, and records
+     * the strategy its operation chooses.
+     * 
+     * @return the type errors and, as information, the chosen strategies (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the transformation cannot be identified or an operation's strategy cannot be determined
+     */
+    private static ValidationProblems infer( final List< Node > ordered,
+                                             final Transformation transformation,
+                                             final TransformationFactory factory ) throws ChrysalixException {
+        final ValidationProblems problems = TransformationFactory.createValidationProblems();
+
+        for ( final Node node : ordered ) {
+            final OperationDescriptor< ? > descriptor = operationDescriptor( node, factory );
+
+            if ( descriptor == null ) {
+                continue;
+            }
+
+            node.deterministic = descriptor.deterministic();
+
+            for ( int i = 0; i < node.inputs.length; ++i ) {
+                if ( node.inputs[ i ] instanceof Node ) {
+                    node.inputTypes[ i ] = ( ( Node ) node.inputs[ i ] ).type;
+                }
+
+                final ValueDescriptor< ? > input = inputDescriptor( descriptor, node.inputIds[ i ], factory );
+
+                if ( input == null ) {
+                    continue;
+                }
+
+                // a reference to a source property is passed as the property itself, not its value
+                if ( !( node.inputs[ i ] instanceof Node ) && modelElement( input.type() ) ) {
+                    node.inputTypes[ i ] = input.type();
+                } else if ( disjoint( node.inputTypes[ i ], input.type() ) ) {
+                    problems.add( TransformationFactory.createError( transformation.id(),
+                                                                     ChrysalixI18n.localize( TYPE_MISMATCH,
+                                                                                             input.name(),
+                                                                                             node.key,
+                                                                                             transformation.id(),
+                                                                                             node.inputTypes[ i ].getName(),
+                                                                                             input.type().getName() ) ) );
+                }
+            }
+
+            node.type = descriptor.resultType( node.inputTypes.clone() );
+            node.strategy = descriptor.strategy( node.operation );
+
+            if ( node.strategy != null ) {
+                problems.add( TransformationFactory.createInfo( transformation.id(),
+                                                                ChrysalixI18n.localize( STRATEGY,
+                                                                                        node.key,
+                                                                                        transformation.id(),
+                                                                                        node.strategy ) ) );
+            }
+        }
+
+        return problems;
+    }
+
+    private static ValueDescriptor< ? > inputDescriptor( final OperationDescriptor< ? > descriptor,
+                                                         final String inputId,
+                                                         final TransformationFactory factory ) {
+        if ( ( inputId == null ) || inputId.isEmpty() ) {
+            return null;
+        }
+
+        final ValueDescriptor< ? > input = factory.inputDescriptor( descriptor, inputId );
+
+        if ( input != null ) {
+            return input;
+        }
+
+        // inputs can also be added using the descriptor identifier
+        for ( final ValueDescriptor< ? > candidate : descriptor.inputDescriptors() ) {
+            if ( inputId.equals( candidate.id() ) ) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    private static int level( final Node node,
+                              final Transformation transformation,
+                              final Set< Node > visiting ) throws ChrysalixException {
+        if ( node.level >= 0 ) {
+            return node.level;
+        }
+
+        if ( !visiting.add( node ) ) {
+            throw new ChrysalixException( ChrysalixI18n.localize( CYCLE_FOUND, transformation.id(), node.key ) );
+        }
+
+        int level = 0;
+
+        for ( final Node dependency : node.dependencies ) {
+            if ( !dependency.folded ) {
+                level = Math.max( level, level( dependency, transformation, visiting ) + 1 );
+            }
+        }
+
+        visiting.remove( node );
+        node.level = level;
+        return level;
+    }
+
+    private static List< List< Node > > levels( final List< Node > nodes,
+                                                final Transformation transformation ) throws ChrysalixException {
+        final List< List< Node > > levels = new ArrayList<>();
+
+        for ( final Node node : nodes ) {
+            level( node, transformation, new LinkedHashSet< Node >() );
+
+            while ( levels.size() <= node.level ) {
+                levels.add( new ArrayList< Node >() );
+            }
+        }
+
+        // keep transformation order within a level
+        for ( final Node node : nodes ) {
+            levels.get( node.level ).add( node );
+        }
+
+        return levels;
+    }
+
+    private static Class< ? > literalType( final Value< ? > input ) throws ModelspaceException {
+        final ModelObject modelObject = input.modelObect();
+
+        if ( ( modelObject == null ) || !modelObject.hasProperty( ChrysalixLexicon.Input.VALUE ) ) {
+            return null;
+        }
+
+        final Object value = modelObject.property( ChrysalixLexicon.Input.VALUE ).value();
+
+        // detached inputs can hold values and properties by reference, whose types are only known when they are read
+        if ( ( value == null ) || ( value instanceof Value< ? > ) || ( value instanceof ModelProperty ) ) {
+            return null;
+        }
+
+        return value.getClass();
+    }
+
+    /**
+     * @return <code>true</code> if the type is a model element, like a {@link ModelProperty property}, rather than a value
+     */
+    private static boolean modelElement( final Class< ? > type ) {
+        return ( ( type != null ) && ModelElement.class.isAssignableFrom( type ) );
+    }
+
+    private static OperationDescriptor< ? > operationDescriptor( final Node node,
+                                                                final TransformationFactory factory ) {
+        if ( factory == null ) {
+            return null;
+        }
+
+        try {
+            final ValueDescriptor< ? > descriptor = factory.descriptor( node.operation.descriptorId() );
+            return ( ( descriptor instanceof OperationDescriptor ) ? ( OperationDescriptor< ? > ) descriptor : null );
+        } catch ( final ChrysalixException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * @param input
+     *        the input whose reference is being requested (cannot be <code>null</code>)
+     * @return the path the input refers to or <code>null</code> if the input holds a literal value
+     * @throws ModelspaceException
+     *         if the input's model object cannot be read
+     */
+    static String reference( final Value< ? > input ) throws ModelspaceException {
+        final ModelObject modelObject = input.modelObect();
+
+        if ( ( modelObject != null )
+             && modelObject.hasProperty( ChrysalixLexicon.Input.PATH )
+             && modelObject.property( ChrysalixLexicon.Input.PATH ).booleanValue()
+             && modelObject.hasProperty( ChrysalixLexicon.Input.VALUE ) ) {
+            return modelObject.property( ChrysalixLexicon.Input.VALUE ).stringValue();
+        }
+
+        return null;
+    }
+
+    private static void readers( final Set< Node > readers,
+                                 final Deque< Node > pending ) {
+        if ( readers != null ) {
+            pending.addAll( readers );
+        }
+    }
+
+    /**
+     * @return the structural signature of a node or <code>null</code> if its result cannot be shared
+     */
+    private static String signature( final Node node,
+                                     final TransformationFactory factory ) {
+        // operations without inputs of their own, like those delegating to child operations, are never shared
+        if ( ( node.inputs == null ) || ( node.inputs.length == 0 ) ) {
+            return null;
+        }
+
+        final OperationDescriptor< ? > descriptor = deterministicDescriptor( node, factory );
+
+        if ( descriptor == null ) {
+            return null;
+        }
+
+        final StringBuilder builder = new StringBuilder( descriptor.id() ).append( '(' );
+
+        for ( final Object input : node.inputs ) {
+            if ( input instanceof Node ) {
+                final Node dependency = ( ( Node ) input ).canonical;
+
+                if ( dependency.signature == null ) {
+                    return null; // depends on an operation that is not shared
+                }
+
+                builder.append( '{' ).append( dependency.signature ).append( '}' );
+            } else if ( input == null ) {
+                return null;
+            } else {
+                builder.append( input );
+            }
+
+            builder.append( ',' );
+        }
+
+        node.signature = builder.append( ')' ).toString();
+        return node.signature;
+    }
+
+    private static String signature( final Value< ? > input,
+                                     final String reference ) throws ModelspaceException {
+        try {
+            final StringBuilder builder = new StringBuilder( String.valueOf( input.descriptorId() ) );
+
+            if ( reference != null ) {
+                return builder.append( "=@" ).append( reference ).toString();
+            }
+
+            final ModelObject modelObject = input.modelObect();
+
+            if ( ( modelObject == null ) || !modelObject.hasProperty( ChrysalixLexicon.Input.VALUE ) ) {
+                return builder.append( "=null" ).toString();
+            }
+
+            final Object value = modelObject.property( ChrysalixLexicon.Input.VALUE ).value();
+
+            if ( value == null ) {
+                return builder.append( "=null" ).toString();
+            }
+
+            return builder.append( '=' ).append( value.getClass().getName() ).append( ':' ).append( value ).toString();
+        } catch ( final ChrysalixException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the type of the values of the source property at the specified path or <code>null</code> if not known
+     */
+    private static Class< ? > sourceType( final Transformation transformation,
+                                          final String path ) {
+        try {
+            final ModelProperty property = transformation.model().property( path );
+
+            if ( property == null ) {
+                return null;
+            }
+
+            final PropertyDescriptor descriptor = property.descriptor();
+
+            if ( descriptor.multiple() ) {
+                return Object[].class;
+            }
+
+            switch ( descriptor.type() ) {
+                case BOOLEAN:
+                    return Boolean.class;
+                case DATE:
+                    return Calendar.class;
+                case DECIMAL:
+                    return BigDecimal.class;
+                case DOUBLE:
+                    return Double.class;
+                case LONG:
+                    return Long.class;
+                case NAME:
+                case PATH:
+                case STRING:
+                case URI:
+                    return String.class;
+                default:
+                    return null;
+            }
+        } catch ( final Exception e ) {
+            return null; // the path is not a property, for instance an operation of another transformation
+        }
+    }
+
+    private final Transformation transformation;
+    private final List< Node > nodes;
+    private final List< List< Node > > levels;
+    private final Map< String, Node > nodesByPath;
+    private final NavigableMap< String, Set< Node > > nodesBySource;
+    private final List< String > relativeSources = new ArrayList<>();
+    private final int shared;
+    private final long definitionVersion;
+    private final List< Node > folded;
+    private final ValidationProblems problems;
+    private volatile String fingerprint;
+
+    private ExecutionPlan( final Transformation transformation,
+                           final List< Node > nodes,
+                           final List< List< Node > > levels,
+                           final Map< String, Node > nodesByPath,
+                           final NavigableMap< String, Set< Node > > nodesBySource,
+                           final int shared,
+                           final long definitionVersion,
+                           final List< Node > folded,
+                           final ValidationProblems problems ) {
+        this.transformation = transformation;
+        this.nodes = Collections.unmodifiableList( nodes );
+        this.levels = Collections.unmodifiableList( levels );
+        this.nodesByPath = nodesByPath;
+        this.nodesBySource = nodesBySource;
+
+        for ( final String source : nodesBySource.keySet() ) {
+            if ( !source.startsWith( "/" ) ) {
+                this.relativeSources.add( source );
+            }
+        }
+
+        this.shared = shared;
+        this.definitionVersion = definitionVersion;
+        this.folded = Collections.unmodifiableList( folded );
+        this.problems = problems;
+    }
+
+    /**
+     * Finds the operations that must be evaluated again after the specified source paths changed. A changed path affects the
+     * operations reading it, any path below it, or any object above it, and every operation downstream of those. Operations that
+     * are not {@link OperationDescriptor#deterministic() deterministic}, like those reading the children of a source object, can
+     * read paths that are not known until they are evaluated, so they are affected by every change.
+     * 
+     * @param changedPaths
+     *        the absolute paths of the changed source properties or nodes (cannot be <code>null</code> but can be empty)
+     * @return the affected nodes, in evaluation order (never <code>null</code> but can be empty)
+     */
+    public List< Node > affected( final Collection< String > changedPaths ) {
+        CheckArg.notNull( changedPaths, "changedPaths" );
+        final Deque< Node > pending = new ArrayDeque<>();
+        boolean changed = false;
+
+        for ( final String path : changedPaths ) {
+            if ( ( path == null ) || path.isEmpty() ) {
+                continue;
+            }
+
+            readers( this.nodesBySource.get( path ), pending );
+
+            // every path below the changed path sorts between "path/" and "path0"
+            for ( final Set< Node > readers : this.nodesBySource.subMap( path + '/', true, path + '0', false ).values() ) {
+                readers( readers, pending );
+            }
+
+            // objects read by reference are affected by changes to their properties and children
+            for ( int slash = path.lastIndexOf( '/' ); slash > 0; slash = path.lastIndexOf( '/', slash - 1 ) ) {
+                readers( this.nodesBySource.get( path.substring( 0, slash ) ), pending );
+            }
+
+            for ( final String source : this.relativeSources ) {
+                if ( path.endsWith( '/' + source ) ) {
+                    readers( this.nodesBySource.get( source ), pending );
+                }
+            }
+
+            changed = true;
+        }
+
+        if ( !changed ) {
+            return Collections.emptyList();
+        }
+
+        for ( final Node node : this.nodes ) {
+            if ( !node.deterministic ) {
+                pending.push( node );
+            }
+        }
+
+        if ( pending.isEmpty() ) {
+            return Collections.emptyList();
+        }
+
+        final Set< Node > affected = new HashSet<>();
+
+        while ( !pending.isEmpty() ) {
+            final Node node = pending.pop();
+
+            if ( affected.add( node ) ) {
+                pending.addAll( node.dependents );
+            }
+        }
+
+        final List< Node > result = new ArrayList<>( affected.size() );
+
+        for ( final Node node : this.nodes ) {
+            if ( affected.contains( node ) ) {
+                result.add( node );
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the {@link TransformationFactory#definitionVersion(String) definition version} of the transformation when this plan
+     *         was compiled or -1 if unknown
+     */
+    public long definitionVersion() {
+        return this.definitionVersion;
+    }
+
+    /**
+     * @return the nodes whose results were computed when the plan was compiled, in evaluation order (never <code>null</code>)
+     */
+    public List< Node > folded() {
+        return this.folded;
+    }
+
+    /**
+     * Describes the operations of the plan, and their inputs, in a form that, unlike the {@link #definitionVersion() definition
+     * version}, identifies the transformation's definition across processes.
+     * 
+     * @return the description or <code>null</code> if the results of the plan cannot be reused because an operation is not known
+     *         to be {@link OperationDescriptor#deterministic() deterministic}
+     */
+    public String fingerprint() {
+        String fingerprint = this.fingerprint;
+
+        if ( fingerprint == null ) {
+            fingerprint = NO_FINGERPRINT;
+            final TransformationFactory factory = factory( this.transformation );
+
+            if ( factory != null ) {
+                final Map< String, Node > nodes = new TreeMap<>();
+
+                for ( final Node node : this.nodesByPath.values() ) {
+                    nodes.put( node.key, node );
+                }
+
+                final StringBuilder builder = new StringBuilder();
+
+                try {
+                    builder.append( this.transformation.id() );
+
+                    for ( final Node node : nodes.values() ) {
+                        final ValueDescriptor< ? > descriptor = factory.descriptor( node.operation.descriptorId() );
+
+                        if ( !( descriptor instanceof OperationDescriptor )
+                             || !( ( OperationDescriptor< ? > ) descriptor ).deterministic() ) {
+                            builder.setLength( 0 );
+                            break;
+                        }
+
+                        builder.append( '\n' ).append( node.key ).append( '=' ).append( descriptor.id() ).append( '(' );
+
+                        for ( final Object input : node.inputs ) {
+                            if ( input instanceof Node ) {
+                                builder.append( '@' ).append( ( ( Node ) input ).key );
+                            } else {
+                                builder.append( input );
+                            }
+
+                            builder.append( ',' );
+                        }
+
+                        builder.append( ')' );
+                    }
+                } catch ( final ChrysalixException e ) {
+                    builder.setLength( 0 );
+                }
+
+                fingerprint = builder.toString();
+            }
+
+            this.fingerprint = fingerprint;
+        }
+
+        return ( fingerprint.isEmpty() ? null : fingerprint );
+    }
+
+    /**
+     * @return the nodes grouped by level, where a level only depends on earlier levels (never <code>null</code>)
+     */
+    public List< List< Node > > levels() {
+        return this.levels;
+    }
+
+    /**
+     * @param path
+     *        the absolute or model-relative path of an operation (can be <code>null</code> or empty)
+     * @return the node of the operation at that path or <code>null</code> if the path is not an operation of this plan
+     */
+    public Node node( final String path ) {
+        return ( ( path == null ) ? null : this.nodesByPath.get( path ) );
+    }
+
+    /**
+     * @return all nodes that are evaluated, in evaluation order (never <code>null</code>)
+     */
+    public List< Node > nodes() {
+        return this.nodes;
+    }
+
+    /**
+     * @return the type errors found when the plan was compiled, which prevent it from being executed (never <code>null</code>)
+     */
+    public ValidationProblems problems() {
+        return this.problems;
+    }
+
+    /**
+     * @return the number of operations that are not evaluated because they share the result of an identical operation
+     */
+    public int shared() {
+        return this.shared;
+    }
+
+    /**
+     * @return the paths of the model properties, and of operations outside of this plan, read by the operations of this plan
+     *         (never <code>null</code>)
+     */
+    public Set< String > sources() {
+        return Collections.unmodifiableSet( this.nodesBySource.keySet() );
+    }
+
+    /**
+     * @return the transformation this plan was compiled from (never <code>null</code>)
+     */
+    public Transformation transformation() {
+        return this.transformation;
+    }
+
+    /**
+     * @return the number of nodes in the widest level, which is the maximum useful parallelism of this plan
+     */
+    public int width() {
+        int width = 0;
+
+        for ( final List< Node > level : this.levels ) {
+            width = Math.max( width, level.size() );
+        }
+
+        return width;
+    }
+
+    /**
+     * A single {@link Operation operation} of an {@link ExecutionPlan execution plan}.
+     */
+    public static final class Node {
+
+        private final String key;
+        private final Operation< ? > operation;
+        private final int index;
+        private final Set< Node > dependencies = new LinkedHashSet<>();
+        private final Set< Node > dependents = new LinkedHashSet<>();
+        private final Set< String > sources = new LinkedHashSet<>();
+        private int level = -1;
+        private Node canonical = this;
+        private Object[] inputs;
+        private String[] inputIds;
+        private Class< ? >[] inputTypes;
+        private Class< ? > type;
+        private String signature;
+        private String strategy;
+        private boolean literal = true;
+        private boolean deterministic = true;
+        private boolean folded;
+        private Object constant;
+
+        Node( final String key,
+              final Operation< ? > operation,
+              final int index ) {
+            this.key = key;
+            this.operation = operation;
+            this.index = index;
+        }
+
+        /**
+         * @return the node whose result this node shares, which is this node unless an identical operation precedes it (never
+         *         <code>null</code>)
+         */
+        public Node canonical() {
+            return this.canonical;
+        }
+
+        /**
+         * @return the result computed when the plan was compiled or <code>null</code> if the node was not {@link #folded() folded}
+         */
+        public Object constant() {
+            return this.constant;
+        }
+
+        /**
+         * @return the nodes this node's operation takes as input (never <code>null</code>)
+         */
+        public Set< Node > dependencies() {
+            return Collections.unmodifiableSet( this.dependencies );
+        }
+
+        /**
+         * @return the evaluated nodes that take this node's result as input (never <code>null</code>)
+         */
+        public Set< Node > dependents() {
+            return Collections.unmodifiableSet( this.dependents );
+        }
+
+        /**
+         * @return <code>true</code> if the operation only depends on literal values and its result was computed when the plan was
+         *         compiled
+         */
+        public boolean folded() {
+            return this.folded;
+        }
+
+        /**
+         * @return the position of the operation within its transformation
+         */
+        public int index() {
+            return this.index;
+        }
+
+        /**
+         * @return the inferred concrete types of the node's inputs, in input order, where a <code>null</code> element is a type
+         *         that is not known (never <code>null</code>)
+         */
+        public Class< ? >[] inputTypes() {
+            return ( ( this.inputTypes == null ) ? new Class< ? >[ 0 ] : this.inputTypes.clone() );
+        }
+
+        /**
+         * @return the absolute path of the node's operation, which uniquely identifies the node (never <code>null</code>)
+         */
+        public String key() {
+            return this.key;
+        }
+
+        /**
+         * @return the level of the node (zero if it does not depend on other nodes)
+         */
+        public int level() {
+            return this.level;
+        }
+
+        /**
+         * @return the node's operation (never <code>null</code>)
+         */
+        public Operation< ? > operation() {
+            return this.operation;
+        }
+
+        /**
+         * @return the paths read by the node's operation that are not operations of the plan (never <code>null</code>)
+         */
+        public Set< String > sources() {
+            return Collections.unmodifiableSet( this.sources );
+        }
+
+        /**
+         * @return the name of the strategy the node's operation chose when the plan was compiled or <code>null</code> if it does
+         *         not choose one
+         * @see OperationDescriptor#strategy(Operation)
+         */
+        public String strategy() {
+            return this.strategy;
+        }
+
+        /**
+         * {@inheritDoc}
+         * 
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return this.key;
+        }
+
+        /**
+         * @return the inferred concrete type of the operation's result or <code>null</code> if not known
+         */
+        public Class< ? > type() {
+            return this.type;
+        }
+
+    }
+
+}
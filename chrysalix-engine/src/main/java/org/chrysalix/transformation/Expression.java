@@ -0,0 +1,87 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import java.lang.invoke.MethodHandle;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.modelspace.ModelObject;
+
+/**
+ * An expression {@link ExpressionCompiler compiled} into a chain of {@link MethodHandle method handles}. Evaluating it runs the
+ * chain directly, without parsing or interpreting the expression text again. Instances are immutable and thread safe.
+ */
+public final class Expression {
+
+    private static final String ERROR_EVALUATING = "Error evaluating expression '%s'";
+
+    private final MethodHandle handle;
+    private final String text;
+
+    Expression( final String text,
+                final MethodHandle handle ) {
+        assert handle.type().equals( ExpressionCompiler.EVALUATOR );
+        this.text = text;
+        this.handle = handle;
+    }
+
+    /**
+     * @param context
+     *        the model object whose properties are referenced by the expression (can be <code>null</code> if the expression does
+     *        not reference properties)
+     * @return the value of the expression (can be <code>null</code>)
+     * @throws ChrysalixException
+     *         if the expression cannot be evaluated
+     */
+    public Object evaluate( final ModelObject context ) throws ChrysalixException {
+        try {
+            return ( Object ) this.handle.invokeExact( context );
+        } catch ( final ChrysalixException e ) {
+            throw e;
+        } catch ( final Error e ) {
+            throw e;
+        } catch ( final Throwable e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_EVALUATING, this.text ) );
+        }
+    }
+
+    /**
+     * @return the expression text (never <code>null</code>)
+     */
+    public String text() {
+        return this.text;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return this.text;
+    }
+
+}
@@ -0,0 +1,745 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.CheckArg;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.ModelspaceException;
+
+/**
+ * Compiles the transformation expression language into {@link Expression expressions}. An expression is parsed once and compiled
+ * into a chain of {@link MethodHandle method handles}, which the JVM can inline like handwritten code, and compiled expressions are
+ * cached by their text.
+ * <p>
+ * The language has:
+ * <ul>
+ * <li>number literals, such as <code>42</code> and <code>2.5e3</code>, and string literals in single quotes, where a quote is
+ * doubled to escape it</li>
+ * <li>property references to the context object, such as <code>@length</code>, or <code>@[columns/id/length]</code> for a
+ * path of child names ending with a property name, which are <code>null</code> when the context object, a child, or the property
+ * does not exist</li>
+ * <li>the <code>+</code>, <code>-</code>, <code>*</code>, <code>/</code>, and <code>%</code> operators, unary minus, and
+ * parentheses</li>
+ * <li>calls of operations by the simple class name of their descriptor identifier, such as <code>SquareRoot(@area)</code> or
+ * <code>Max(@a, @b, 0)</code></li>
+ * </ul>
+ * Arithmetic follows the {@link ExecutionContext#precision() precision} of the current execution, as the arithmetic operations
+ * do: in the {@link Precision#MIXED mixed} precision, and outside of an execution, it is done with <code>long</code>s on integral
+ * operands and otherwise with <code>double</code>s. The remainder operator, like the modulus operation, does not use decimals.
+ * Any <code>null</code> operand makes the result <code>null</code>. Calls of the arithmetic, minimum, maximum, and single-input
+ * trigonometric, logarithmic, and conversion operations are compiled to direct kernels, and the single-input ones compute with
+ * <code>double</code>s in every precision, as their operations do. Calls of any other
+ * operation calculate a detached operation whose inputs are the arguments: all arguments are inputs of the first input
+ * descriptor if the operation has one, or if the first descriptor is unbounded and all others are optional, and each argument is
+ * an input of the corresponding descriptor otherwise. Each call is bound to its own detached operation per thread, which is reused
+ * by every evaluation, and its results are not recorded in the {@link ExecutionContext execution context} since they depend on
+ * the arguments of each evaluation.
+ */
+public final class ExpressionCompiler {
+
+    /**
+     * The type of a compiled expression's method handle.
+     */
+    static final MethodType EVALUATOR = MethodType.methodType( Object.class, ModelObject.class );
+
+    /**
+     * The maximum number of cached expressions. The cache is cleared when it is full.
+     */
+    static final int MAX_CACHED = 1024;
+
+    private static final String ERROR_FINDING_PATH = "Unable to find the path of operation '%s' called by an expression";
+    private static final String EXPECTED = "Expected %s at position %s of expression '%s'";
+    private static final String TOO_MANY_ARGUMENTS =
+        "Operation '%s' takes at most %s arguments but has %s at position %s of expression '%s'";
+    private static final String UNKNOWN_OPERATION = "Unknown operation '%s' at position %s of expression '%s'";
+    private static final String WRONG_ARGUMENT_COUNT = "Operation '%s' takes one argument but has %s at position %s of expression '%s'";
+
+    private static final MethodType BINARY = MethodType.methodType( Object.class, Object.class, Object.class );
+    private static final MethodType UNARY = MethodType.methodType( Object.class, Object.class );
+    private static final MethodHandle ADD;
+    private static final MethodHandle DIVIDE;
+    private static final MethodHandle INVOKE;
+    private static final MethodHandle MULTIPLY;
+    private static final MethodHandle NEGATE;
+    private static final MethodHandle PROPERTY;
+    private static final MethodHandle REMAINDER;
+    private static final MethodHandle SUBTRACT;
+    private static final Map< String, MethodHandle > FOLDS = new HashMap<>();
+    private static final Map< String, MethodHandle > FUNCTIONS = new HashMap<>();
+
+    static {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        try {
+            ADD = lookup.findStatic( ExpressionCompiler.class, "add", BINARY );
+            DIVIDE = lookup.findStatic( ExpressionCompiler.class, "divide", BINARY );
+            MULTIPLY = lookup.findStatic( ExpressionCompiler.class, "multiply", BINARY );
+            NEGATE = lookup.findStatic( ExpressionCompiler.class, "negate", UNARY );
+            REMAINDER = lookup.findStatic( ExpressionCompiler.class, "remainder", BINARY );
+            SUBTRACT = lookup.findStatic( ExpressionCompiler.class, "subtract", BINARY );
+            PROPERTY = lookup.findStatic( ExpressionCompiler.class,
+                                          "property",
+                                          MethodType.methodType( Object.class, ModelObject.class, String[].class, String.class ) );
+            INVOKE = lookup.findVirtual( Invocation.class, "invoke", MethodType.methodType( Object.class, Object[].class ) );
+
+            FOLDS.put( "Add", ADD );
+            FOLDS.put( "Divide", DIVIDE );
+            FOLDS.put( "Max", lookup.findStatic( ExpressionCompiler.class, "max", BINARY ) );
+            FOLDS.put( "Min", lookup.findStatic( ExpressionCompiler.class, "min", BINARY ) );
+            FOLDS.put( "Multiply", MULTIPLY );
+            FOLDS.put( "Subtract", SUBTRACT );
+
+            final MethodHandle toDouble =
+                lookup.findStatic( ExpressionCompiler.class, "toDouble", MethodType.methodType( double.class, Object.class ) );
+            final MethodHandle isNull =
+                lookup.findStatic( ExpressionCompiler.class, "isNull", MethodType.methodType( boolean.class, Object.class ) );
+            final MethodHandle nullResult =
+                MethodHandles.dropArguments( MethodHandles.constant( Object.class, null ), 0, Object.class );
+            final String[][] functions = { { "ArcCosine", "acos" }, { "ArcSine", "asin" }, { "ArcTangent", "atan" },
+                            { "Cosine", "cos" }, { "CubeRoot", "cbrt" }, { "HyperbolicCosine", "cosh" },
+                            { "HyperbolicSine", "sinh" }, { "HyperbolicTangent", "tanh" }, { "Log", "log" },
+                            { "Log10", "log10" }, { "PowerOfE", "exp" }, { "PowerOfEMinus1", "expm1" }, { "Sine", "sin" },
+                            { "SquareRoot", "sqrt" }, { "Tangent", "tan" }, { "ToDegrees", "toDegrees" },
+                            { "ToRadians", "toRadians" } };
+
+            for ( final String[] function : functions ) {
+                final MethodHandle math =
+                    lookup.findStatic( Math.class, function[ 1 ], MethodType.methodType( double.class, double.class ) );
+                final MethodHandle kernel = MethodHandles.filterArguments( math, 0, toDouble ).asType( UNARY );
+                FUNCTIONS.put( function[ 0 ], MethodHandles.guardWithTest( isNull, nullResult, kernel ) );
+            }
+        } catch ( final ReflectiveOperationException e ) {
+            throw new ExceptionInInitializerError( e );
+        }
+    }
+
+    private static Object add( final Object thisValue,
+                               final Object thatValue ) {
+        if ( ( thisValue == null ) || ( thatValue == null ) ) return null;
+        final Precision precision = precision();
+        if ( precision.mode() == Precision.Mode.DECIMAL ) {
+            final MathContext mathContext = precision.mathContext();
+            return decimal( thisValue, mathContext ).add( decimal( thatValue, null ), mathContext );
+        }
+        if ( ( precision.mode() == Precision.Mode.MIXED ) && integral( thisValue ) && integral( thatValue ) ) {
+            return ( ( Number ) thisValue ).longValue() + ( ( Number ) thatValue ).longValue();
+        }
+        return ( ( Number ) thisValue ).doubleValue() + ( ( Number ) thatValue ).doubleValue();
+    }
+
+    /**
+     * Creates a handle that evaluates every operand against the same context and passes their results to the function.
+     */
+    private static MethodHandle apply( final MethodHandle function,
+                                       final List< MethodHandle > operands ) {
+        final MethodHandle filtered =
+            MethodHandles.filterArguments( function, 0, operands.toArray( new MethodHandle[ operands.size() ] ) );
+        return MethodHandles.permuteArguments( filtered, EVALUATOR, new int[ operands.size() ] );
+    }
+
+    private static MethodHandle apply( final MethodHandle function,
+                                       final MethodHandle... operands ) {
+        final List< MethodHandle > list = new ArrayList<>( operands.length );
+
+        for ( final MethodHandle operand : operands ) {
+            list.add( operand );
+        }
+
+        return apply( function, list );
+    }
+
+    private static MethodHandle constant( final Object value ) {
+        return MethodHandles.dropArguments( MethodHandles.constant( Object.class, value ), 0, ModelObject.class );
+    }
+
+    /**
+     * @return the value as a decimal, rounded if a math context is specified
+     */
+    private static BigDecimal decimal( final Object value,
+                                       final MathContext mathContext ) {
+        final BigDecimal decimal = Precision.toDecimal( ( Number ) value );
+        return ( ( mathContext == null ) ? decimal : decimal.round( mathContext ) );
+    }
+
+    private static Object divide( final Object thisValue,
+                                  final Object thatValue ) {
+        if ( ( thisValue == null ) || ( thatValue == null ) ) return null;
+        final Precision precision = precision();
+        if ( precision.mode() == Precision.Mode.DECIMAL ) {
+            final MathContext mathContext = precision.mathContext();
+            return decimal( thisValue, mathContext ).divide( decimal( thatValue, null ), mathContext );
+        }
+        if ( ( precision.mode() == Precision.Mode.MIXED ) && integral( thisValue ) && integral( thatValue ) ) {
+            return ( ( Number ) thisValue ).longValue() / ( ( Number ) thatValue ).longValue();
+        }
+        return ( ( Number ) thisValue ).doubleValue() / ( ( Number ) thatValue ).doubleValue();
+    }
+
+    private static boolean integral( final Object value ) {
+        return ( value instanceof Long ) || ( value instanceof Integer ) || ( value instanceof Short ) || ( value instanceof Byte );
+    }
+
+    private static boolean isNull( final Object value ) {
+        return ( value == null );
+    }
+
+    private static Object max( final Object thisValue,
+                               final Object thatValue ) {
+        if ( ( thisValue == null ) || ( thatValue == null ) ) return null;
+        final Precision precision = precision();
+        if ( precision.mode() == Precision.Mode.DECIMAL ) {
+            final BigDecimal thisDecimal = decimal( thisValue, null );
+            final BigDecimal thatDecimal = decimal( thatValue, null );
+            return ( ( thatDecimal.compareTo( thisDecimal ) > 0 ) ? thatDecimal : thisDecimal ).round( precision.mathContext() );
+        }
+        if ( ( precision.mode() == Precision.Mode.MIXED ) && integral( thisValue ) && integral( thatValue ) ) {
+            return Math.max( ( ( Number ) thisValue ).longValue(), ( ( Number ) thatValue ).longValue() );
+        }
+        return Math.max( ( ( Number ) thisValue ).doubleValue(), ( ( Number ) thatValue ).doubleValue() );
+    }
+
+    private static Object min( final Object thisValue,
+                               final Object thatValue ) {
+        if ( ( thisValue == null ) || ( thatValue == null ) ) return null;
+        final Precision precision = precision();
+        if ( precision.mode() == Precision.Mode.DECIMAL ) {
+            final BigDecimal thisDecimal = decimal( thisValue, null );
+            final BigDecimal thatDecimal = decimal( thatValue, null );
+            return ( ( thatDecimal.compareTo( thisDecimal ) < 0 ) ? thatDecimal : thisDecimal ).round( precision.mathContext() );
+        }
+        if ( ( precision.mode() == Precision.Mode.MIXED ) && integral( thisValue ) && integral( thatValue ) ) {
+            return Math.min( ( ( Number ) thisValue ).longValue(), ( ( Number ) thatValue ).longValue() );
+        }
+        return Math.min( ( ( Number ) thisValue ).doubleValue(), ( ( Number ) thatValue ).doubleValue() );
+    }
+
+    private static Object multiply( final Object thisValue,
+                                    final Object thatValue ) {
+        if ( ( thisValue == null ) || ( thatValue == null ) ) return null;
+        final Precision precision = precision();
+        if ( precision.mode() == Precision.Mode.DECIMAL ) {
+            final MathContext mathContext = precision.mathContext();
+            return decimal( thisValue, mathContext ).multiply( decimal( thatValue, null ), mathContext );
+        }
+        if ( ( precision.mode() == Precision.Mode.MIXED ) && integral( thisValue ) && integral( thatValue ) ) {
+            return ( ( Number ) thisValue ).longValue() * ( ( Number ) thatValue ).longValue();
+        }
+        return ( ( Number ) thisValue ).doubleValue() * ( ( Number ) thatValue ).doubleValue();
+    }
+
+    private static Object negate( final Object value ) {
+        if ( value == null ) return null;
+        final Precision precision = precision();
+        if ( precision.mode() == Precision.Mode.DECIMAL ) return decimal( value, precision.mathContext() ).negate();
+        if ( ( precision.mode() == Precision.Mode.MIXED ) && integral( value ) ) return -( ( Number ) value ).longValue();
+        return -( ( Number ) value ).doubleValue();
+    }
+
+    /**
+     * @return the precision of the current execution, or the mixed precision outside of an execution (never <code>null</code>)
+     */
+    private static Precision precision() {
+        final ExecutionContext context = ExecutionContext.current();
+        return ( ( context == null ) ? Precision.MIXED : context.precision() );
+    }
+
+    private static Object property( final ModelObject context,
+                                     final String[] parents,
+                                     final String name ) throws ModelspaceException {
+        ModelObject object = context;
+
+        for ( int i = 0; ( object != null ) && ( i < parents.length ); ++i ) {
+            object = object.child( parents[ i ] );
+        }
+
+        final ModelProperty property = ( ( object == null ) ? null : object.property( name ) );
+
+        if ( property == null ) {
+            return null;
+        }
+
+        return ( property.descriptor().multiple() ? property.values() : property.value() );
+    }
+
+    private static Object remainder( final Object thisValue,
+                                     final Object thatValue ) {
+        if ( ( thisValue == null ) || ( thatValue == null ) ) return null;
+        if ( integral( thisValue ) && integral( thatValue ) ) {
+            return ( ( Number ) thisValue ).longValue() % ( ( Number ) thatValue ).longValue();
+        }
+        return ( ( Number ) thisValue ).doubleValue() % ( ( Number ) thatValue ).doubleValue();
+    }
+
+    private static Object subtract( final Object thisValue,
+                                    final Object thatValue ) {
+        if ( ( thisValue == null ) || ( thatValue == null ) ) return null;
+        final Precision precision = precision();
+        if ( precision.mode() == Precision.Mode.DECIMAL ) {
+            final MathContext mathContext = precision.mathContext();
+            return decimal( thisValue, mathContext ).subtract( decimal( thatValue, null ), mathContext );
+        }
+        if ( ( precision.mode() == Precision.Mode.MIXED ) && integral( thisValue ) && integral( thatValue ) ) {
+            return ( ( Number ) thisValue ).longValue() - ( ( Number ) thatValue ).longValue();
+        }
+        return ( ( Number ) thisValue ).doubleValue() - ( ( Number ) thatValue ).doubleValue();
+    }
+
+    private static double toDouble( final Object value ) {
+        return ( ( Number ) value ).doubleValue();
+    }
+
+    private static boolean variadic( final ValueDescriptor< ? >[] inputs ) {
+        if ( ( inputs.length == 0 ) || ( ( inputs.length > 1 ) && !inputs[ 0 ].unbounded() ) ) {
+            return false;
+        }
+
+        for ( int i = 1; i < inputs.length; ++i ) {
+            if ( inputs[ i ].requiredValueCount() != 0 ) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private final ConcurrentMap< String, Expression > expressions = new ConcurrentHashMap<>();
+    private final TransformationFactory factory;
+
+    /**
+     * @param factory
+     *        the factory whose operations can be called by expressions (cannot be <code>null</code>)
+     */
+    public ExpressionCompiler( final TransformationFactory factory ) {
+        CheckArg.notNull( factory, "factory" );
+        this.factory = factory;
+    }
+
+    /**
+     * @return the number of cached expressions
+     */
+    public int cached() {
+        return this.expressions.size();
+    }
+
+    /**
+     * @param text
+     *        the expression text (cannot be <code>null</code> or empty)
+     * @return the compiled expression, which is cached and shared with every caller compiling the same text (never
+     *         <code>null</code>)
+     * @throws ChrysalixException
+     *         if the expression is not valid
+     */
+    public Expression compile( final String text ) throws ChrysalixException {
+        CheckArg.notEmpty( text, "text" );
+        Expression expression = this.expressions.get( text );
+
+        if ( expression == null ) {
+            expression = new Expression( text, new Parser( text ).parse() );
+
+            if ( this.expressions.size() >= MAX_CACHED ) {
+                this.expressions.clear();
+            }
+
+            final Expression existing = this.expressions.putIfAbsent( text, expression );
+
+            if ( existing != null ) {
+                expression = existing;
+            }
+        }
+
+        return expression;
+    }
+
+    private OperationDescriptor< ? > operationDescriptor( final String name ) {
+        for ( final ValueDescriptor< ? > descriptor : this.factory.descriptors() ) {
+            if ( ( descriptor instanceof OperationDescriptor )
+                 && descriptor.id().substring( descriptor.id().lastIndexOf( '.' ) + 1 ).equals( name ) ) {
+                return ( OperationDescriptor< ? > ) descriptor;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * The call of an operation without a kernel. Each thread evaluates the call with its own detached operation, whose inputs are
+     * replaced by the arguments of each evaluation.
+     */
+    private static final class Invocation {
+
+        private final OperationDescriptor< ? > descriptor;
+        private final TransformationFactory factory;
+        private final ValueDescriptor< ? >[] inputs;
+        private final ThreadLocal< Operation< ? > > operation = new ThreadLocal<>();
+        private final boolean variadic;
+
+        Invocation( final TransformationFactory factory,
+                    final OperationDescriptor< ? > descriptor ) {
+            this.factory = factory;
+            this.descriptor = descriptor;
+            this.inputs = descriptor.inputDescriptors();
+            this.variadic = variadic( this.inputs );
+        }
+
+        Object invoke( final Object[] arguments ) throws ChrysalixException {
+            Operation< ? > operation = this.operation.get();
+
+            if ( operation == null ) {
+                operation = this.factory.createDetachedOperation( this.descriptor );
+                this.operation.set( operation );
+            }
+
+            if ( this.variadic ) {
+                operation.setInput( this.inputs[ 0 ].name(), arguments );
+            } else if ( arguments.length != 0 ) {
+                // setting an input removes the inputs of every descriptor
+                operation.setInput( this.inputs[ 0 ].name(), arguments[ 0 ] );
+
+                for ( int i = 1; i < arguments.length; ++i ) {
+                    operation.addInput( this.inputs[ i ].name(), arguments[ i ] );
+                }
+            }
+
+            final ExecutionContext context = ExecutionContext.current();
+
+            if ( context == null ) {
+                return operation.get();
+            }
+
+            final String path;
+
+            try {
+                path = operation.absolutePath();
+            } catch ( final ModelspaceException e ) {
+                throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_FINDING_PATH, this.descriptor.id() ) );
+            }
+
+            try {
+                return operation.get();
+            } finally {
+                // the result depends on the arguments of this evaluation so it must not be reused
+                context.forget( path );
+            }
+        }
+
+    }
+
+    /**
+     * A recursive descent parser that builds the method handle of each construct as it is parsed.
+     */
+    private final class Parser {
+
+        private int position;
+        private final String text;
+
+        Parser( final String text ) {
+            this.text = text;
+        }
+
+        // additive := multiplicative ( ( '+' | '-' ) multiplicative )*
+        private MethodHandle additive() throws ChrysalixException {
+            MethodHandle result = multiplicative();
+
+            while ( true ) {
+                if ( accept( '+' ) ) {
+                    result = apply( ADD, result, multiplicative() );
+                } else if ( accept( '-' ) ) {
+                    result = apply( SUBTRACT, result, multiplicative() );
+                } else {
+                    return result;
+                }
+            }
+        }
+
+        private boolean accept( final char c ) {
+            skipWhitespace();
+
+            if ( ( this.position < this.text.length() ) && ( this.text.charAt( this.position ) == c ) ) {
+                ++this.position;
+                return true;
+            }
+
+            return false;
+        }
+
+        private MethodHandle call( final String name,
+                                   final int start ) throws ChrysalixException {
+            final List< MethodHandle > arguments = new ArrayList<>();
+
+            if ( !accept( ')' ) ) {
+                do {
+                    arguments.add( additive() );
+                } while ( accept( ',' ) );
+
+                expect( ')' );
+            }
+
+            final MethodHandle fold = FOLDS.get( name );
+
+            if ( ( fold != null ) && !arguments.isEmpty() ) {
+                MethodHandle result = arguments.get( 0 );
+
+                for ( int i = 1; i < arguments.size(); ++i ) {
+                    result = apply( fold, result, arguments.get( i ) );
+                }
+
+                return result;
+            }
+
+            final MethodHandle function = FUNCTIONS.get( name );
+
+            if ( function != null ) {
+                if ( arguments.size() != 1 ) {
+                    throw new ChrysalixException( ChrysalixI18n.localize( WRONG_ARGUMENT_COUNT,
+                                                                          name,
+                                                                          arguments.size(),
+                                                                          start,
+                                                                          this.text ) );
+                }
+
+                return apply( function, arguments );
+            }
+
+            final OperationDescriptor< ? > descriptor = operationDescriptor( name );
+
+            if ( descriptor == null ) {
+                throw new ChrysalixException( ChrysalixI18n.localize( UNKNOWN_OPERATION, name, start, this.text ) );
+            }
+
+            final int inputs = descriptor.inputDescriptors().length;
+
+            if ( !variadic( descriptor.inputDescriptors() ) && ( arguments.size() > inputs ) ) {
+                throw new ChrysalixException( ChrysalixI18n.localize( TOO_MANY_ARGUMENTS,
+                                                                      name,
+                                                                      inputs,
+                                                                      arguments.size(),
+                                                                      start,
+                                                                      this.text ) );
+            }
+
+            final MethodHandle invoke = INVOKE.bindTo( new Invocation( ExpressionCompiler.this.factory, descriptor ) );
+            return apply( invoke.asCollector( Object[].class, arguments.size() ), arguments );
+        }
+
+        private void expect( final char c ) throws ChrysalixException {
+            if ( !accept( c ) ) {
+                throw new ChrysalixException( ChrysalixI18n.localize( EXPECTED, "'" + c + "'", this.position, this.text ) );
+            }
+        }
+
+        private String identifier() {
+            final int start = this.position;
+
+            while ( ( this.position < this.text.length() ) && isIdentifierPart( this.text.charAt( this.position ) ) ) {
+                ++this.position;
+            }
+
+            return this.text.substring( start, this.position );
+        }
+
+        private boolean isIdentifierPart( final char c ) {
+            return Character.isLetterOrDigit( c ) || ( c == '_' ) || ( c == ':' );
+        }
+
+        // multiplicative := unary ( ( '*' | '/' | '%' ) unary )*
+        private MethodHandle multiplicative() throws ChrysalixException {
+            MethodHandle result = unary();
+
+            while ( true ) {
+                if ( accept( '*' ) ) {
+                    result = apply( MULTIPLY, result, unary() );
+                } else if ( accept( '/' ) ) {
+                    result = apply( DIVIDE, result, unary() );
+                } else if ( accept( '%' ) ) {
+                    result = apply( REMAINDER, result, unary() );
+                } else {
+                    return result;
+                }
+            }
+        }
+
+        private MethodHandle number() throws ChrysalixException {
+            final int start = this.position;
+            boolean floating = false;
+
+            while ( this.position < this.text.length() ) {
+                final char c = this.text.charAt( this.position );
+
+                if ( ( c == '.' ) || ( c == 'e' ) || ( c == 'E' ) ) {
+                    floating = true;
+                } else if ( ( ( c == '+' ) || ( c == '-' ) ) && floating
+                            && ( Character.toLowerCase( this.text.charAt( this.position - 1 ) ) == 'e' ) ) {
+                    // exponent sign
+                } else if ( !Character.isDigit( c ) ) {
+                    break;
+                }
+
+                ++this.position;
+            }
+
+            final String literal = this.text.substring( start, this.position );
+
+            try {
+                if ( !floating ) {
+                    try {
+                        return constant( Long.valueOf( literal ) );
+                    } catch ( final NumberFormatException e ) {
+                        // too large for a long
+                    }
+                }
+
+                return constant( Double.valueOf( literal ) );
+            } catch ( final NumberFormatException e ) {
+                throw new ChrysalixException( e, ChrysalixI18n.localize( EXPECTED, "a number", start, this.text ) );
+            }
+        }
+
+        MethodHandle parse() throws ChrysalixException {
+            final MethodHandle result = additive();
+            skipWhitespace();
+
+            if ( this.position != this.text.length() ) {
+                throw new ChrysalixException( ChrysalixI18n.localize( EXPECTED, "an operator", this.position, this.text ) );
+            }
+
+            return result;
+        }
+
+        // primary := number | string | property | call | '(' additive ')'
+        private MethodHandle primary() throws ChrysalixException {
+            skipWhitespace();
+            final int start = this.position;
+
+            if ( start == this.text.length() ) {
+                throw new ChrysalixException( ChrysalixI18n.localize( EXPECTED, "a value", start, this.text ) );
+            }
+
+            final char c = this.text.charAt( start );
+
+            if ( accept( '(' ) ) {
+                final MethodHandle result = additive();
+                expect( ')' );
+                return result;
+            }
+
+            if ( Character.isDigit( c ) || ( c == '.' ) ) {
+                return number();
+            }
+
+            if ( c == '\'' ) {
+                return string();
+            }
+
+            if ( accept( '@' ) ) {
+                return property();
+            }
+
+            final String name = identifier();
+
+            if ( name.isEmpty() || !accept( '(' ) ) {
+                throw new ChrysalixException( ChrysalixI18n.localize( EXPECTED, "a value", start, this.text ) );
+            }
+
+            return call( name, start );
+        }
+
+        private MethodHandle property() throws ChrysalixException {
+            final String path;
+
+            if ( ( this.position < this.text.length() ) && ( this.text.charAt( this.position ) == '[' ) ) {
+                final int end = this.text.indexOf( ']', this.position );
+
+                if ( end == -1 ) {
+                    throw new ChrysalixException( ChrysalixI18n.localize( EXPECTED, "']'", this.text.length(), this.text ) );
+                }
+
+                path = this.text.substring( this.position + 1, end ).trim();
+                this.position = end + 1;
+            } else {
+                path = identifier();
+            }
+
+            if ( path.isEmpty() || path.startsWith( "/" ) || path.endsWith( "/" ) || path.contains( "//" ) ) {
+                throw new ChrysalixException( ChrysalixI18n.localize( EXPECTED, "a property name", this.position, this.text ) );
+            }
+
+            final String[] segments = path.split( "/" );
+            final String[] parents = Arrays.copyOf( segments, segments.length - 1 );
+            return MethodHandles.insertArguments( PROPERTY, 1, parents, segments[ segments.length - 1 ] );
+        }
+
+        private void skipWhitespace() {
+            while ( ( this.position < this.text.length() ) && Character.isWhitespace( this.text.charAt( this.position ) ) ) {
+                ++this.position;
+            }
+        }
+
+        private MethodHandle string() throws ChrysalixException {
+            final StringBuilder value = new StringBuilder();
+            final int start = this.position++;
+
+            while ( this.position < this.text.length() ) {
+                final char c = this.text.charAt( this.position++ );
+
+                if ( c != '\'' ) {
+                    value.append( c );
+                } else if ( ( this.position < this.text.length() ) && ( this.text.charAt( this.position ) == '\'' ) ) {
+                    value.append( c );
+                    ++this.position;
+                } else {
+                    return constant( value.toString() );
+                }
+            }
+
+            throw new ChrysalixException( ChrysalixI18n.localize( EXPECTED, "a closing quote", start, this.text ) );
+        }
+
+        // unary := '-' unary | primary
+        private MethodHandle unary() throws ChrysalixException {
+            if ( accept( '-' ) ) {
+                return apply( NEGATE, unary() );
+            }
+
+            return primary();
+        }
+
+    }
+
+}
@@ -45,6 +45,14 @@ public interface OperationDescriptor< T > extends ValueDescriptor< T > {
      */
     OperationDescriptor< ? >[] NO_DESCRIPTORS = {};
 
+    /**
+     * An operation is deterministic if it always produces the same result for the same inputs. Results of deterministic operations
+     * can be shared between identical operations and reused within an execution.
+     * 
+     * @return <code>true</code> if the operation's result only depends on its inputs
+     */
+    boolean deterministic();
+
     /**
      * @return a collection of descriptors for the inputs (never <code>null</code> but can be empty)
      */
@@ -66,4 +74,28 @@ public interface OperationDescriptor< T > extends ValueDescriptor< T > {
     Operation< T > newInstance( final ModelObject operation,
                                 final Transformation transformation ) throws ChrysalixException, ModelspaceException;
 
+    /**
+     * Narrows the {@link #type() declared result type} using the concrete types of the inputs of an operation instance. The
+     * {@link ExecutionPlan execution plan} uses this to infer the result type of every operation before the transformation is
+     * executed.
+     * 
+     * @param inputTypes
+     *        the concrete types of the operation's inputs, in input order, where a <code>null</code> element is a type that is not
+     *        known (cannot be <code>null</code> but can be empty)
+     * @return the concrete type of the result, which is the declared type if it cannot be narrowed (never <code>null</code>)
+     */
+    Class< ? > resultType( final Class< ? >[] inputTypes );
+
+    /**
+     * Reports how an operation instance computes its result when the descriptor's operations choose between implementations based
+     * on their inputs. The {@link ExecutionPlan execution plan} records the strategy of every operation when it is compiled.
+     * 
+     * @param operation
+     *        an operation created by this descriptor (cannot be <code>null</code>)
+     * @return the name of the strategy or <code>null</code> if the operation does not choose one
+     * @throws ChrysalixException
+     *         if the operation's inputs cannot be read
+     */
+    String strategy( final Operation< ? > operation ) throws ChrysalixException;
+
 }
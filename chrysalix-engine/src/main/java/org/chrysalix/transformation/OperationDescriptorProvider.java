@@ -26,7 +26,11 @@ package org.chrysalix.transformation;
 import java.util.List;
 
 /**
- * A collection of built-in {@link Operation operation} descriptors.
+ * A collection of {@link Operation operation} descriptors.
+ * <p>
+ * Providers listed in a <code>META-INF/services/org.chrysalix.transformation.OperationDescriptorProvider</code> resource are
+ * found using a {@link java.util.ServiceLoader service loader} and added to every {@link TransformationFactory transformation
+ * factory}, so operation packs only need to be on the classpath to be available.
  */
 public interface OperationDescriptorProvider {
 
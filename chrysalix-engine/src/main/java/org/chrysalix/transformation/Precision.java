@@ -0,0 +1,162 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+import org.chrysalix.common.CheckArg;
+
+/**
+ * The precision of the arithmetic done by numeric {@link Operation operations} during an {@link ExecutionContext execution}. The
+ * same operations, with the same descriptors, are used in every mode:
+ * <ul>
+ * <li>{@link Mode#MIXED}, the default, computes with <code>long</code>s when all terms are integral and with <code>double</code>s
+ * otherwise</li>
+ * <li>{@link Mode#DOUBLE} computes with primitive <code>double</code>s only, which is the fastest mode as no intermediate result
+ * is allocated</li>
+ * <li>{@link Mode#DECIMAL} computes with {@link BigDecimal}s rounded using a {@link MathContext math context}, so that decimal
+ * values like monetary amounts are exact</li>
+ * </ul>
+ * The {@link ExecutionPlan#folded() folded} results and {@link ExecutionPlan.Node#type() inferred types} of an execution plan
+ * assume the default mode, so folded operations are evaluated again by executions using another mode.
+ * 
+ * @see TransformationExecutor#execute(ExecutionPlan, Precision)
+ */
+public final class Precision {
+
+    /**
+     * The precision of a {@link Mode#DECIMAL decimal} mode using the {@link MathContext#DECIMAL128 IEEE 754R Decimal128} format.
+     */
+    public static final Precision DECIMAL = new Precision( Mode.DECIMAL, MathContext.DECIMAL128 );
+
+    /**
+     * The precision of the {@link Mode#DOUBLE double} mode.
+     */
+    public static final Precision DOUBLE = new Precision( Mode.DOUBLE, null );
+
+    /**
+     * The precision of the default {@link Mode#MIXED mixed} mode.
+     */
+    public static final Precision MIXED = new Precision( Mode.MIXED, null );
+
+    /**
+     * @param mathContext
+     *        the precision and rounding of every result (cannot be <code>null</code>)
+     * @return a decimal precision (never <code>null</code>)
+     */
+    public static Precision decimal( final MathContext mathContext ) {
+        CheckArg.notNull( mathContext, "mathContext" );
+        return new Precision( Mode.DECIMAL, mathContext );
+    }
+
+    /**
+     * Converts a number to a decimal without losing precision. A <code>double</code> is converted using its shortest decimal
+     * representation, so <code>0.1</code> becomes exactly <code>0.1</code>.
+     * 
+     * @param number
+     *        the number being converted (cannot be <code>null</code>)
+     * @return the decimal (never <code>null</code>)
+     * @throws NumberFormatException
+     *         if the number is infinite or not a number
+     */
+    public static BigDecimal toDecimal( final Number number ) {
+        CheckArg.notNull( number, "number" );
+
+        if ( number instanceof BigDecimal ) {
+            return ( BigDecimal ) number;
+        }
+
+        if ( ( number instanceof Long ) || ( number instanceof Integer ) || ( number instanceof Short ) || ( number instanceof Byte ) ) {
+            return BigDecimal.valueOf( number.longValue() );
+        }
+
+        if ( ( number instanceof Double ) || ( number instanceof Float ) ) {
+            return BigDecimal.valueOf( number.doubleValue() );
+        }
+
+        if ( number instanceof BigInteger ) {
+            return new BigDecimal( ( BigInteger ) number );
+        }
+
+        return new BigDecimal( number.toString() );
+    }
+
+    private final MathContext mathContext;
+    private final Mode mode;
+
+    private Precision( final Mode mode,
+                       final MathContext mathContext ) {
+        this.mode = mode;
+        this.mathContext = mathContext;
+    }
+
+    /**
+     * @return the precision and rounding of decimal results or <code>null</code> if the mode is not {@link Mode#DECIMAL decimal}
+     */
+    public MathContext mathContext() {
+        return this.mathContext;
+    }
+
+    /**
+     * @return the mode (never <code>null</code>)
+     */
+    public Mode mode() {
+        return this.mode;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return ( ( this.mathContext == null ) ? this.mode.toString() : ( this.mode + " " + this.mathContext ) );
+    }
+
+    /**
+     * The modes of numeric arithmetic.
+     */
+    public enum Mode {
+
+        /**
+         * Arithmetic with {@link BigDecimal decimals}.
+         */
+        DECIMAL,
+
+        /**
+         * Arithmetic with <code>double</code>s.
+         */
+        DOUBLE,
+
+        /**
+         * Arithmetic with <code>long</code>s when all terms are integral and with <code>double</code>s otherwise.
+         */
+        MIXED
+
+    }
+
+}
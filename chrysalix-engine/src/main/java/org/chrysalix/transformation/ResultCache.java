@@ -0,0 +1,474 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.CheckArg;
+import org.modelspace.Model;
+import org.modelspace.ModelProperty;
+import org.modelspace.Modelspace;
+import org.modelspace.ModelspaceException;
+
+/**
+ * A size-bounded, disk-backed cache of {@link TransformationExecutor#execute(Transformation, ResultCache) transformation
+ * execution} results. An entry is keyed by a {@link ExecutionPlan#fingerprint() fingerprint} of the transformation's definition
+ * and a fingerprint of the source property values read by its operations, so an entry is only found while neither has changed.
+ * An entry holds the operation results and the target property writes of the execution. When an entry is found, the operations
+ * are not evaluated and only the target properties that no longer hold the cached values are written again.
+ * <p>
+ * Entries are stored one per file in the cache directory and survive restarts. When the files exceed the maximum size, the least
+ * recently used entries are deleted. Only executions whose results and written values are all {@link Serializable serializable}
+ * and whose operations are all {@link OperationDescriptor#deterministic() deterministic} are cached.
+ */
+public final class ResultCache {
+
+    private static final String ENTRY_SUFFIX = ".result";
+    private static final String ERROR_DELETING_ENTRY = "Unable to delete result cache entry '%s'";
+    private static final String ERROR_FINGERPRINTING_SOURCES = "Unable to fingerprint the sources of transformation '%s'";
+    private static final String ERROR_OPENING_CACHE = "Unable to open result cache directory '%s'";
+    private static final String ERROR_READING_ENTRY = "Unable to read result cache entry '%s'";
+    private static final String ERROR_WRITING_ENTRY = "Unable to write result cache entry '%s'";
+    private static final String INVALID_MAXIMUM_SIZE = "The maximum result cache size must be positive but was %s";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int ID_DIGEST_LENGTH = 8;
+
+    private static String digest( final String text ) {
+        try {
+            final byte[] bytes = MessageDigest.getInstance( "SHA-256" ).digest( text.getBytes( StandardCharsets.UTF_8 ) );
+            final char[] chars = new char[ bytes.length * 2 ];
+
+            for ( int i = 0; i < bytes.length; ++i ) {
+                chars[ i * 2 ] = HEX[ ( bytes[ i ] >> 4 ) & 0xF ];
+                chars[ i * 2 + 1 ] = HEX[ bytes[ i ] & 0xF ];
+            }
+
+            return new String( chars );
+        } catch ( final NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( e ); // every JVM provides SHA-256
+        }
+    }
+
+    private static String prefix( final String transformationId ) {
+        return digest( transformationId ).substring( 0, ID_DIGEST_LENGTH * 2 ) + '-';
+    }
+
+    private static boolean serializable( final Object value ) {
+        if ( value instanceof Object[] ) {
+            for ( final Object item : ( Object[] ) value ) {
+                if ( !serializable( item ) ) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return ( ( value == null ) || ( value instanceof Serializable ) );
+    }
+
+    private final Path directory;
+    private final long maximumSize;
+    private final LinkedHashMap< String, Long > sizes = new LinkedHashMap<>( 16, 0.75f, true ); // least recently used first
+    private long size;
+
+    /**
+     * Opens a cache, creating its directory if necessary. Entries stored in the directory by earlier processes are reused.
+     * 
+     * @param directory
+     *        the directory holding the cache entries (cannot be <code>null</code>)
+     * @param maximumSize
+     *        the maximum total size, in bytes, of the cache entries (must be positive)
+     * @throws ChrysalixException
+     *         if the directory cannot be created or read
+     */
+    public ResultCache( final Path directory,
+                        final long maximumSize ) throws ChrysalixException {
+        CheckArg.notNull( directory, "directory" );
+
+        if ( maximumSize <= 0 ) {
+            throw new IllegalArgumentException( ChrysalixI18n.localize( INVALID_MAXIMUM_SIZE, maximumSize ) );
+        }
+
+        this.directory = directory;
+        this.maximumSize = maximumSize;
+
+        try {
+            Files.createDirectories( directory );
+            final List< Path > entries = entries( "" );
+            final Map< Path, FileTime > modified = new LinkedHashMap<>();
+
+            for ( final Path entry : entries ) {
+                modified.put( entry, Files.getLastModifiedTime( entry ) );
+            }
+
+            Collections.sort( entries, new Comparator< Path >() {
+
+                @Override
+                public int compare( final Path first,
+                                    final Path second ) {
+                    return modified.get( first ).compareTo( modified.get( second ) );
+                }
+            } );
+
+            for ( final Path entry : entries ) {
+                final long entrySize = Files.size( entry );
+                this.sizes.put( key( entry ), entrySize );
+                this.size += entrySize;
+            }
+        } catch ( final IOException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_OPENING_CACHE, directory ) );
+        }
+
+        evict();
+    }
+
+    private void delete( final String key ) {
+        final Long entrySize = this.sizes.remove( key );
+
+        if ( entrySize != null ) {
+            this.size -= entrySize;
+        }
+
+        try {
+            Files.deleteIfExists( this.directory.resolve( key + ENTRY_SUFFIX ) );
+        } catch ( final IOException e ) {
+            TransformationExecutor.LOGGER.warn( e, ERROR_DELETING_ENTRY, key );
+        }
+    }
+
+    private List< Path > entries( final String prefix ) throws IOException {
+        final List< Path > entries = new ArrayList<>();
+
+        try ( final DirectoryStream< Path > stream = Files.newDirectoryStream( this.directory, prefix + '*' + ENTRY_SUFFIX ) ) {
+            for ( final Path entry : stream ) {
+                entries.add( entry );
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * @return the number of entries in the cache
+     */
+    public synchronized int entries() {
+        return this.sizes.size();
+    }
+
+    private void evict() {
+        while ( ( this.size > this.maximumSize ) && !this.sizes.isEmpty() ) {
+            delete( this.sizes.keySet().iterator().next() );
+        }
+    }
+
+    /**
+     * Deletes all entries.
+     */
+    public synchronized void invalidate() {
+        for ( final String key : new ArrayList<>( this.sizes.keySet() ) ) {
+            delete( key );
+        }
+    }
+
+    /**
+     * Deletes the entries of a transformation.
+     * 
+     * @param transformationId
+     *        the identifier of the transformation whose entries are deleted (cannot be <code>null</code> or empty)
+     */
+    public synchronized void invalidate( final String transformationId ) {
+        CheckArg.notEmpty( transformationId, "transformationId" );
+        final String prefix = prefix( transformationId );
+
+        for ( final String key : new ArrayList<>( this.sizes.keySet() ) ) {
+            if ( key.startsWith( prefix ) ) {
+                delete( key );
+            }
+        }
+    }
+
+    /**
+     * Computes the key of the results of executing a plan with the current source property values.
+     * 
+     * @param plan
+     *        the plan whose key is being requested (cannot be <code>null</code>)
+     * @return the key or <code>null</code> if the results of the plan cannot be cached
+     * @throws ChrysalixException
+     *         if the transformation identifier cannot be obtained
+     */
+    public String key( final ExecutionPlan plan ) throws ChrysalixException {
+        CheckArg.notNull( plan, "plan" );
+        final String fingerprint = plan.fingerprint();
+
+        if ( fingerprint == null ) {
+            return null;
+        }
+
+        final String id = plan.transformation().id();
+        final StringBuilder builder = new StringBuilder( fingerprint );
+
+        try {
+            final Model model = plan.transformation().model();
+
+            for ( final String source : plan.sources() ) {
+                builder.append( '\n' ).append( source ).append( '=' );
+                final ModelProperty property = model.property( source );
+
+                if ( property == null ) {
+                    builder.append( "null" );
+                    continue;
+                }
+
+                for ( final Object value : property.values() ) {
+                    if ( value instanceof Calendar ) {
+                        final Calendar calendar = ( Calendar ) value;
+                        builder.append( calendar.getTimeInMillis() ).append( calendar.getTimeZone().getID() );
+                    } else if ( value != null ) {
+                        builder.append( value.getClass().getName() ).append( ':' ).append( value );
+                    }
+
+                    builder.append( ',' );
+                }
+            }
+        } catch ( final ModelspaceException | RuntimeException e ) {
+            TransformationExecutor.LOGGER.debug( e, ERROR_FINGERPRINTING_SOURCES, id );
+            return null;
+        }
+
+        return prefix( id ) + digest( builder.toString() );
+    }
+
+    private String key( final Path entry ) {
+        final String name = entry.getFileName().toString();
+        return name.substring( 0, name.length() - ENTRY_SUFFIX.length() );
+    }
+
+    /**
+     * Stores the results and committed writes of an execution.
+     * 
+     * @param key
+     *        the {@link #key(ExecutionPlan) key} of the plan when it was executed (cannot be <code>null</code> or empty)
+     * @param context
+     *        the context of the execution (cannot be <code>null</code>)
+     * @return <code>true</code> if the results were stored
+     */
+    public synchronized boolean put( final String key,
+                                     final ExecutionContext context ) {
+        CheckArg.notEmpty( key, "key" );
+        CheckArg.notNull( context, "context" );
+        final Entry entry = new Entry();
+
+        for ( final ExecutionPlan.Node node : context.plan().nodes() ) {
+            if ( context.hasResult( node.key() ) ) {
+                final Object result = context.result( node.key() );
+
+                if ( !serializable( result ) ) {
+                    return false;
+                }
+
+                entry.results.put( node.key(), result );
+            }
+        }
+
+        try {
+            for ( final ExecutionContext.PendingWrite write : context.committed() ) {
+                if ( !serializable( write.values ) ) {
+                    return false;
+                }
+
+                entry.writes.add( new Write( write.model().absolutePath(),
+                                             write.modelRelativePath(),
+                                             write.values ) );
+            }
+        } catch ( final ModelspaceException e ) {
+            TransformationExecutor.LOGGER.debug( e, ERROR_WRITING_ENTRY, key );
+            return false;
+        }
+
+        final Path path = this.directory.resolve( key + ENTRY_SUFFIX );
+        final Path temporary = this.directory.resolve( key + ENTRY_SUFFIX + ".tmp" );
+
+        try {
+            try ( final OutputStream stream = Files.newOutputStream( temporary );
+                  final ObjectOutputStream output = new ObjectOutputStream( stream ) ) {
+                output.writeObject( entry );
+            }
+
+            Files.move( temporary, path, StandardCopyOption.REPLACE_EXISTING );
+            final Long replaced = this.sizes.remove( key );
+
+            if ( replaced != null ) {
+                this.size -= replaced;
+            }
+
+            final long entrySize = Files.size( path );
+            this.sizes.put( key, entrySize );
+            this.size += entrySize;
+        } catch ( final IOException e ) {
+            TransformationExecutor.LOGGER.warn( e, ERROR_WRITING_ENTRY, key );
+
+            try {
+                Files.deleteIfExists( temporary );
+            } catch ( final IOException ignored ) {
+                // reported above
+            }
+
+            return false;
+        }
+
+        evict();
+        return this.sizes.containsKey( key );
+    }
+
+    /**
+     * Restores the results of an earlier execution of a plan and writes the target properties that no longer hold the values
+     * written by that execution.
+     * 
+     * @param key
+     *        the {@link #key(ExecutionPlan) key} of the plan (cannot be <code>null</code> or empty)
+     * @param plan
+     *        the plan whose results are being restored (cannot be <code>null</code>)
+     * @return the context holding the restored results or <code>null</code> if the cache has no usable entry for the key
+     * @throws ChrysalixException
+     *         if a target property cannot be written
+     */
+    public synchronized ExecutionContext restore( final String key,
+                                                  final ExecutionPlan plan ) throws ChrysalixException {
+        CheckArg.notEmpty( key, "key" );
+        CheckArg.notNull( plan, "plan" );
+
+        if ( !this.sizes.containsKey( key ) ) {
+            return null;
+        }
+
+        final Path path = this.directory.resolve( key + ENTRY_SUFFIX );
+        final Entry entry;
+
+        try ( final InputStream stream = Files.newInputStream( path );
+              final ObjectInputStream input = new ObjectInputStream( stream ) ) {
+            entry = ( Entry ) input.readObject();
+            Files.setLastModifiedTime( path, FileTime.fromMillis( System.currentTimeMillis() ) );
+        } catch ( final IOException | ClassNotFoundException | ClassCastException e ) {
+            TransformationExecutor.LOGGER.warn( e, ERROR_READING_ENTRY, key );
+            delete( key );
+            return null;
+        }
+
+        // find every target before writing any so a missing target does not leave a partial rewrite
+        final List< ModelProperty > targets = new ArrayList<>( entry.writes.size() );
+
+        try {
+            final Modelspace modelspace = plan.transformation().model().modelspace();
+
+            for ( final Write write : entry.writes ) {
+                final Model model = modelspace.model( write.model );
+                final ModelProperty target = ( ( model == null ) ? null : model.property( write.path ) );
+
+                if ( target == null ) {
+                    return null;
+                }
+
+                targets.add( target );
+            }
+
+            for ( int i = 0; i < targets.size(); ++i ) {
+                final Object[] values = entry.writes.get( i ).values;
+
+                if ( !Arrays.equals( targets.get( i ).values(), values ) ) {
+                    targets.get( i ).set( values );
+                }
+            }
+        } catch ( final ModelspaceException e ) {
+            throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_READING_ENTRY, key ) );
+        }
+
+        this.sizes.get( key ); // now the most recently used
+        final ExecutionContext context = new ExecutionContext( plan );
+
+        for ( final Map.Entry< String, Object > result : entry.results.entrySet() ) {
+            context.result( result.getKey(), result.getValue() );
+        }
+
+        return context;
+    }
+
+    /**
+     * @return the total size, in bytes, of the cache entries
+     */
+    public synchronized long size() {
+        return this.size;
+    }
+
+    private static final class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final LinkedHashMap< String, Object > results = new LinkedHashMap<>();
+        final ArrayList< Write > writes = new ArrayList<>();
+
+    }
+
+    private static final class Write implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final String model;
+        final String path;
+        final Object[] values;
+
+        Write( final String model,
+               final String path,
+               final Object[] values ) {
+            this.model = model;
+            this.path = path;
+            this.values = values;
+        }
+
+    }
+
+}
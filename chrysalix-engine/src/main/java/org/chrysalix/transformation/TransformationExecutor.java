@@ -0,0 +1,455 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.CheckArg;
+import org.chrysalix.common.Logger;
+
+/**
+ * Evaluates the {@link Operation operations} of a {@link Transformation transformation}. The transformation is compiled into an
+ * {@link ExecutionPlan execution plan} and each level of the plan is evaluated concurrently using an {@link ExecutorService
+ * executor}. Operations that are independent of each other, for instance several {@link Operation operations} feeding different
+ * target properties, therefore run in parallel. Source reads are thread-safe as each read uses its own repository session. Target
+ * property writes are deferred to the {@link ExecutionContext execution context} and committed serially, in plan order, after all
+ * levels have been evaluated, so results do not depend on scheduling.
+ * <p>
+ * Each operation is evaluated at most once per execution. Operations shared by several operations, and identical operations
+ * {@link ExecutionPlan combined} by the plan, reuse the first result.
+ * <p>
+ * Plans are cached by transformation and recompiled when the transformation's definition changes, so operations folded into
+ * constants by the plan are not recomputed by later executions.
+ * <p>
+ * When source properties change, an {@link #execute(ExecutionPlan, ExecutionContext, Collection) incremental execution} only
+ * evaluates the operations {@link ExecutionPlan#affected(Collection) affected} by the change, reusing the earlier results of all
+ * other operations, and only writes the target properties of the evaluated operations.
+ */
+public final class TransformationExecutor implements AutoCloseable {
+
+    private static final String ERROR_EVALUATING_OPERATION = "Error evaluating operation '%s' of transformation '%s'";
+    private static final String EXECUTION_INTERRUPTED = "Execution of transformation '%s' was interrupted";
+    private static final String TYPE_ERRORS = "Transformation '%s' has %s type errors and cannot be executed: %s";
+    static final Logger LOGGER = Logger.logger( TransformationExecutor.class );
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final ConcurrentMap< String, ExecutionPlan > plans = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an executor that uses a {@link ForkJoinPool fork/join pool} sized to the number of available processors. The
+     * pool is shut down when the executor is {@link #close() closed}.
+     */
+    public TransformationExecutor() {
+        this.executor = new ForkJoinPool();
+        this.ownsExecutor = true;
+    }
+
+    /**
+     * @param executor
+     *        the executor used to evaluate independent operations (cannot be <code>null</code>). It is not shut down when this
+     *        executor is {@link #close() closed}.
+     */
+    public TransformationExecutor( final ExecutorService executor ) {
+        CheckArg.notNull( executor, "executor" );
+        this.executor = executor;
+        this.ownsExecutor = false;
+    }
+
+    private void checkTypes( final ExecutionPlan plan ) throws ChrysalixException {
+        if ( plan.problems().isError() ) {
+            // the plan also reports the strategies of its operations as information
+            final List< ValidationProblem > errors = new ArrayList<>();
+
+            for ( final ValidationProblem problem : plan.problems() ) {
+                if ( problem.isError() ) {
+                    errors.add( problem );
+                }
+            }
+
+            throw new ChrysalixException( ChrysalixI18n.localize( TYPE_ERRORS,
+                                                                  plan.transformation().id(),
+                                                                  errors.size(),
+                                                                  errors.get( 0 ).message() ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.lang.AutoCloseable#close()
+     */
+    @Override
+    public void close() {
+        if ( this.ownsExecutor ) {
+            this.executor.shutdown();
+        }
+    }
+
+    /**
+     * Evaluates all operations of the specified transformation and commits their target property writes.
+     * 
+     * @param transformation
+     *        the transformation being executed (cannot be <code>null</code>)
+     * @return the context holding the operation results (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the transformation cannot be compiled, if an operation fails, or if a write cannot be committed
+     */
+    public ExecutionContext execute( final Transformation transformation ) throws ChrysalixException {
+        CheckArg.notNull( transformation, "transformation" );
+        return execute( plan( transformation ) );
+    }
+
+    /**
+     * Evaluates all operations of the specified transformation, with the specified numeric precision, and commits their target
+     * property writes.
+     * 
+     * @param transformation
+     *        the transformation being executed (cannot be <code>null</code>)
+     * @param precision
+     *        the precision of the numeric operations (cannot be <code>null</code>)
+     * @return the context holding the operation results (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the transformation cannot be compiled, if an operation fails, or if a write cannot be committed
+     */
+    public ExecutionContext execute( final Transformation transformation,
+                                     final Precision precision ) throws ChrysalixException {
+        CheckArg.notNull( transformation, "transformation" );
+        return execute( plan( transformation ), precision );
+    }
+
+    /**
+     * Evaluates all operations of the specified transformation and commits their target property writes, unless the cache holds
+     * the results of an earlier execution of the same transformation definition with the same source property values. In that
+     * case the operations are not evaluated and only the target properties no longer holding the cached values are written.
+     * 
+     * @param transformation
+     *        the transformation being executed (cannot be <code>null</code>)
+     * @param cache
+     *        the cache holding the results of earlier executions (cannot be <code>null</code>)
+     * @return the context holding the operation results (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the transformation cannot be compiled, if an operation fails, or if a write cannot be committed
+     */
+    public ExecutionContext execute( final Transformation transformation,
+                                     final ResultCache cache ) throws ChrysalixException {
+        CheckArg.notNull( transformation, "transformation" );
+        CheckArg.notNull( cache, "cache" );
+        final ExecutionPlan plan = plan( transformation );
+        final String key = cache.key( plan );
+
+        if ( key != null ) {
+            final ExecutionContext cached = cache.restore( key, plan );
+
+            if ( cached != null ) {
+                LOGGER.debug( "Reused cached results of transformation '%s'", plan.transformation().id() );
+                return cached;
+            }
+        }
+
+        final ExecutionContext context = execute( plan );
+
+        if ( key != null ) {
+            cache.put( key, context );
+        }
+
+        return context;
+    }
+
+    /**
+     * Discards all cached plans.
+     */
+    public void invalidate() {
+        this.plans.clear();
+    }
+
+    /**
+     * Discards the cached plan of a transformation.
+     * 
+     * @param transformationId
+     *        the identifier of the transformation whose plan is discarded (cannot be <code>null</code> or empty)
+     */
+    public void invalidate( final String transformationId ) {
+        CheckArg.notEmpty( transformationId, "transformationId" );
+        this.plans.remove( transformationId );
+    }
+
+    /**
+     * Obtains the plan for a transformation. A plan is compiled once and reused until the transformation's
+     * {@link TransformationFactory#definitionVersion(String) definition version} changes.
+     * 
+     * @param transformation
+     *        the transformation whose plan is being requested (cannot be <code>null</code>)
+     * @return the plan (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the transformation cannot be compiled
+     */
+    public ExecutionPlan plan( final Transformation transformation ) throws ChrysalixException {
+        CheckArg.notNull( transformation, "transformation" );
+        final TransformationFactory factory = ExecutionPlan.factory( transformation );
+
+        if ( factory == null ) {
+            return ExecutionPlan.compile( transformation, null ); // versions are unknown so do not cache
+        }
+
+        final String id = transformation.id();
+        final ExecutionPlan cached = this.plans.get( id );
+
+        if ( ( cached != null ) && ( cached.definitionVersion() == factory.definitionVersion( id ) ) ) {
+            return cached;
+        }
+
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation, factory );
+        this.plans.put( id, plan );
+        LOGGER.debug( "Compiled plan for transformation '%s' with %s operations, %s shared and %s folded",
+                      id,
+                      plan.nodes().size(),
+                      plan.shared(),
+                      plan.folded().size() );
+        return plan;
+    }
+
+    /**
+     * Evaluates all operations of the specified plan and commits their target property writes.
+     * 
+     * @param plan
+     *        the plan being executed (cannot be <code>null</code>)
+     * @return the context holding the operation results (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if an operation fails or if a write cannot be committed
+     */
+    public ExecutionContext execute( final ExecutionPlan plan ) throws ChrysalixException {
+        return execute( plan, Precision.MIXED );
+    }
+
+    /**
+     * Evaluates all operations of the specified plan, with the specified numeric precision, and commits their target property
+     * writes. Unless the precision is the default, the operations folded by the plan are evaluated again first.
+     * 
+     * @param plan
+     *        the plan being executed (cannot be <code>null</code>)
+     * @param precision
+     *        the precision of the numeric operations (cannot be <code>null</code>)
+     * @return the context holding the operation results (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if an operation fails or if a write cannot be committed
+     */
+    public ExecutionContext execute( final ExecutionPlan plan,
+                                     final Precision precision ) throws ChrysalixException {
+        return execute( plan, precision, ThreadLocalRandom.current().nextLong() );
+    }
+
+    /**
+     * Evaluates all operations of the specified plan, with the specified numeric precision and pseudo-random seed, and commits
+     * their target property writes. Executing the same plan with the same seed replays the values of its random operations.
+     * 
+     * @param plan
+     *        the plan being executed (cannot be <code>null</code>)
+     * @param precision
+     *        the precision of the numeric operations (cannot be <code>null</code>)
+     * @param seed
+     *        the {@link ExecutionContext#seed() seed} of the pseudo-random values of the execution
+     * @return the context holding the operation results (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if an operation fails or if a write cannot be committed
+     */
+    public ExecutionContext execute( final ExecutionPlan plan,
+                                     final Precision precision,
+                                     final long seed ) throws ChrysalixException {
+        CheckArg.notNull( plan, "plan" );
+        checkTypes( plan );
+        final ExecutionContext context = new ExecutionContext( plan, precision, seed );
+        final long start = System.nanoTime();
+
+        if ( precision.mode() != Precision.Mode.MIXED ) {
+            for ( final ExecutionPlan.Node node : plan.folded() ) {
+                evaluate( context, node );
+            }
+        }
+
+        for ( final List< ExecutionPlan.Node > level : plan.levels() ) {
+            if ( level.size() == 1 ) {
+                evaluate( context, level.get( 0 ) ); // no need to hand off
+            } else {
+                evaluate( context, level );
+            }
+        }
+
+        final int writes = context.pendingWrites();
+        context.commit();
+        LOGGER.debug( "Executed %s operations in %s levels and committed %s writes for transformation '%s' in %s ms",
+                      plan.nodes().size(),
+                      plan.levels().size(),
+                      writes,
+                      plan.transformation().id(),
+                      ( System.nanoTime() - start ) / 1000000 );
+        return context;
+    }
+
+    /**
+     * Evaluates only the operations of the specified plan that are affected by changes to the specified source paths, reusing the
+     * results of the earlier execution for all other operations, and commits the target property writes of the evaluated
+     * operations. If the earlier execution was not of the same plan, for instance because the transformation's definition has
+     * changed since, all operations are evaluated.
+     * 
+     * @param plan
+     *        the plan being executed (cannot be <code>null</code>)
+     * @param previous
+     *        the context of the earlier execution (can be <code>null</code> if there was none)
+     * @param changedPaths
+     *        the absolute paths of the changed source properties or nodes (cannot be <code>null</code> but can be empty)
+     * @return the context holding the operation results (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if an operation fails or if a write cannot be committed
+     */
+    public ExecutionContext execute( final ExecutionPlan plan,
+                                     final ExecutionContext previous,
+                                     final Collection< String > changedPaths ) throws ChrysalixException {
+        CheckArg.notNull( plan, "plan" );
+        CheckArg.notNull( changedPaths, "changedPaths" );
+
+        if ( ( previous == null ) || ( previous.plan() != plan ) ) {
+            return execute( plan );
+        }
+
+        checkTypes( plan );
+        final Set< ExecutionPlan.Node > affected = new HashSet<>( plan.affected( changedPaths ) );
+        final ExecutionContext context = new ExecutionContext( plan, previous, affected );
+
+        if ( affected.isEmpty() ) {
+            return context;
+        }
+
+        final long start = System.nanoTime();
+
+        for ( final List< ExecutionPlan.Node > level : plan.levels() ) {
+            final List< ExecutionPlan.Node > stale = new ArrayList<>( level.size() );
+
+            for ( final ExecutionPlan.Node node : level ) {
+                if ( affected.contains( node ) ) {
+                    stale.add( node );
+                }
+            }
+
+            if ( stale.size() == 1 ) {
+                evaluate( context, stale.get( 0 ) ); // no need to hand off
+            } else if ( !stale.isEmpty() ) {
+                evaluate( context, stale );
+            }
+        }
+
+        final int writes = context.pendingWrites();
+        context.commit();
+        LOGGER.debug( "Re-executed %s of %s operations and committed %s writes for transformation '%s' in %s ms",
+                      affected.size(),
+                      plan.nodes().size(),
+                      writes,
+                      plan.transformation().id(),
+                      ( System.nanoTime() - start ) / 1000000 );
+        return context;
+    }
+
+    private void evaluate( final ExecutionContext context,
+                           final List< ExecutionPlan.Node > level ) throws ChrysalixException {
+        final List< Callable< Void > > tasks = new ArrayList<>( level.size() );
+
+        for ( final ExecutionPlan.Node node : level ) {
+            tasks.add( new Callable< Void >() {
+
+                @Override
+                public Void call() throws ChrysalixException {
+                    evaluate( context, node );
+                    return null;
+                }
+
+            } );
+        }
+
+        final List< Future< Void > > futures;
+
+        try {
+            futures = this.executor.invokeAll( tasks );
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new ChrysalixException( e, ChrysalixI18n.localize( EXECUTION_INTERRUPTED,
+                                                                     context.plan().transformation().id() ) );
+        }
+
+        ChrysalixException error = null;
+
+        for ( int i = 0; i < futures.size(); ++i ) {
+            try {
+                futures.get( i ).get();
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new ChrysalixException( e, ChrysalixI18n.localize( EXECUTION_INTERRUPTED,
+                                                                         context.plan().transformation().id() ) );
+            } catch ( final ExecutionException e ) {
+                final ChrysalixException pe =
+                    ( e.getCause() instanceof ChrysalixException )
+                        ? ( ChrysalixException ) e.getCause()
+                        : new ChrysalixException( e.getCause(),
+                                                  ChrysalixI18n.localize( ERROR_EVALUATING_OPERATION,
+                                                                          level.get( i ).key(),
+                                                                          context.plan().transformation().id() ) );
+
+                if ( error == null ) {
+                    error = pe;
+                } else {
+                    error.addSuppressed( pe );
+                }
+            }
+        }
+
+        if ( error != null ) {
+            throw error;
+        }
+    }
+
+    void evaluate( final ExecutionContext context,
+                   final ExecutionPlan.Node node ) throws ChrysalixException {
+        final ExecutionContext.Binding binding = context.enter( node );
+
+        try {
+            context.result( node.key(), node.operation().get() );
+        } finally {
+            context.exit( binding );
+        }
+    }
+
+}
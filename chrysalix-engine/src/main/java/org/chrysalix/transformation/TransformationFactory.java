@@ -32,7 +32,12 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.chrysalix.Chrysalix;
 import org.chrysalix.ChrysalixException;
@@ -41,6 +46,7 @@ import org.chrysalix.ChrysalixLexicon;
 import org.chrysalix.common.CheckArg;
 import org.chrysalix.common.Logger;
 import org.chrysalix.operation.BuiltInOperationDescriptorProvider;
+import org.chrysalix.operation.DetachedModel;
 import org.chrysalix.operation.ValueDescriptorImpl;
 import org.chrysalix.transformation.ValidationProblem.Severity;
 import org.modelspace.Model;
@@ -66,6 +72,7 @@ public class TransformationFactory {
         "An error occurred adding target models to transformation '%s.'";
     private static final String ERROR_DESCRIPTOR_TYPE = "Error descriptor '%s' was not an operation descriptor";
     private static final String ERROR_FINDING_OPERATION_DESCRIPTOR = "Error trying to find operation descriptor with ID '%s'";
+    private static final String ERROR_FINDING_OPERATION_PROVIDERS = "Error loading operation descriptor providers";
     private static final String ERROR_FINDING_OPERATIONS = "Unable to obtain operations for transformation model '%s'";
     private static final String ERROR_FINDING_SOURCE_MODELS = "Unable to obtain source models for transformation model '%s'";
     private static final String ERROR_FINDING_TARGET_MODELS = "Unable to obtain targets models for transformation model '%s'";
@@ -88,11 +95,12 @@ public class TransformationFactory {
 
     private static final OperationDescriptorProvider BUILT_IN_OP_PROVIDER = new BuiltInOperationDescriptorProvider();
     static final Logger LOGGER = Logger.logger( TransformationFactory.class );
+    private static final List< OperationDescriptorProvider > SERVICE_OP_PROVIDERS = serviceOperationProviders();
 
     /**
-     * A descriptor registry
+     * A descriptor registry. The registry is safe to read and update concurrently.
      */
-    public static final Map< Modelspace, TransformationFactory > REGISTRY = new HashMap<>();
+    public static final ConcurrentMap< Modelspace, TransformationFactory > REGISTRY = new ConcurrentHashMap<>();
 
     /**
      * @param transformationId
@@ -249,9 +257,32 @@ public class TransformationFactory {
         return createValueDescriptor( valueId, valueDescription, valueName, valueType, true, 1, false );
     }
 
+    private static List< OperationDescriptorProvider > serviceOperationProviders() {
+        final List< OperationDescriptorProvider > providers = new ArrayList<>();
+
+        try {
+            for ( final OperationDescriptorProvider provider : ServiceLoader.load( OperationDescriptorProvider.class,
+                                                                                  TransformationFactory.class.getClassLoader() ) ) {
+                // the built-in provider is always added, so ignore it if it is also registered as a service
+                if ( !( provider instanceof BuiltInOperationDescriptorProvider ) ) {
+                    providers.add( provider );
+                }
+            }
+        } catch ( final ServiceConfigurationError e ) {
+            LOGGER.error( e, ERROR_FINDING_OPERATION_PROVIDERS );
+        }
+
+        return providers;
+    }
+
     private final Modelspace modeler;
     private final Set< OperationDescriptorProvider > operationProviders;
     private final Set< ValueDescriptor< ? >> descriptors;
+    private final ConcurrentMap< String, ValueDescriptor< ? > > descriptorsById = new ConcurrentHashMap<>();
+    private final ConcurrentMap< String, Map< String, ValueDescriptor< ? > > > inputDescriptorsByOperation =
+        new ConcurrentHashMap<>();
+    private final ConcurrentMap< String, AtomicLong > definitionVersions = new ConcurrentHashMap<>();
+    private final ExpressionCompiler expressionCompiler = new ExpressionCompiler( this );
 
     /**
      * @param factoryModeler
@@ -260,14 +291,16 @@ public class TransformationFactory {
     public TransformationFactory( final Modelspace factoryModeler ) {
         CheckArg.notNull( factoryModeler, "factoryModeler" );
         this.modeler = factoryModeler;
-        this.descriptors = new HashSet<>();
+        this.descriptors = Collections.newSetFromMap( new ConcurrentHashMap< ValueDescriptor< ? >, Boolean >() );
 
-        this.operationProviders = new HashSet<>( 5 );
+        this.operationProviders = Collections.newSetFromMap( new ConcurrentHashMap< OperationDescriptorProvider, Boolean >( 5 ) );
         addOperationProvider( BUILT_IN_OP_PROVIDER );
 
-        if ( !REGISTRY.containsKey( this.modeler ) ) {
-            REGISTRY.put( this.modeler, this );
+        for ( final OperationDescriptorProvider provider : SERVICE_OP_PROVIDERS ) {
+            addOperationProvider( provider );
         }
+
+        REGISTRY.putIfAbsent( this.modeler, this );
     }
 
     /**
@@ -280,10 +313,45 @@ public class TransformationFactory {
         if ( this.operationProviders.add( provider ) ) {
             for ( final ValueDescriptor< ? > descriptor : provider.descriptors() ) {
                 this.descriptors.add( descriptor );
+                this.descriptorsById.putIfAbsent( descriptor.id(), descriptor );
             }
         }
     }
 
+    /**
+     * @return a new in-memory model for operations and values that are never persisted (never <code>null</code>)
+     */
+    public DetachedModel createDetachedModel() {
+        return new DetachedModel( this.modeler );
+    }
+
+    /**
+     * Creates an operation that holds its inputs in memory and does not belong to a transformation.
+     * 
+     * @param descriptor
+     *        the descriptor of the operation being created (cannot be <code>null</code>)
+     * @return the new detached operation (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the operation cannot be created
+     * @see DetachedModel
+     */
+    public < T > Operation< T > createDetachedOperation( final OperationDescriptor< T > descriptor ) throws ChrysalixException {
+        return createDetachedModel().newOperation( descriptor, null );
+    }
+
+    /**
+     * @param descriptor
+     *        the descriptor of the value being created (cannot be <code>null</code>)
+     * @param initialValue
+     *        the initial value (can be <code>null</code>)
+     * @return a new value that is only held in memory (never <code>null</code>)
+     * @see DetachedModel
+     */
+    public < T > Value< T > createDetachedValue( final ValueDescriptor< T > descriptor,
+                                                 final Object initialValue ) {
+        return createDetachedModel().newValue( descriptor, initialValue );
+    }
+
     /**
      * Creates a new transformation or retrieves the existing one.
      * 
@@ -316,6 +384,30 @@ public class TransformationFactory {
         return new TransformationImpl( this.modeler, path );
     }
 
+    /**
+     * Indicates the definition of a transformation has changed, for instance because an operation or an operation input was added,
+     * removed, or changed. Any {@link ExecutionPlan execution plan} compiled for an earlier version is stale.
+     * 
+     * @param transformationId
+     *        the identifier of the transformation whose definition changed (cannot be <code>null</code> or empty)
+     * @return the new definition version
+     */
+    public long definitionChanged( final String transformationId ) {
+        CheckArg.notEmpty( transformationId, "transformationId" );
+        return version( transformationId ).incrementAndGet();
+    }
+
+    /**
+     * @param transformationId
+     *        the identifier of the transformation whose definition version is being requested (cannot be <code>null</code> or
+     *        empty)
+     * @return the current definition version
+     */
+    public long definitionVersion( final String transformationId ) {
+        CheckArg.notEmpty( transformationId, "transformationId" );
+        return version( transformationId ).get();
+    }
+
     /**
      * @param id
      *        the identifier of the descriptor being requested (cannot be <code>null</code> or empty)
@@ -326,14 +418,13 @@ public class TransformationFactory {
      */
     public ValueDescriptor< ? > descriptor( final String id ) throws ChrysalixException {
         CheckArg.notEmpty( id, "id" );
+        final ValueDescriptor< ? > descriptor = this.descriptorsById.get( id );
 
-        for ( final ValueDescriptor< ? > descriptor : descriptors() ) {
-            if ( id.equals( descriptor.id() ) ) {
-                return descriptor;
-            }
+        if ( descriptor == null ) {
+            throw new ChrysalixException( ChrysalixI18n.localize( ERROR_FINDING_OPERATION_DESCRIPTOR, id ) );
         }
 
-        throw new ChrysalixException( ChrysalixI18n.localize( ERROR_FINDING_OPERATION_DESCRIPTOR, id ) );
+        return descriptor;
     }
 
     /**
@@ -343,6 +434,45 @@ public class TransformationFactory {
         return Collections.unmodifiableSet( this.descriptors );
     }
 
+    /**
+     * @return the compiler of the expressions used by this factory's transformations, which caches compiled expressions (never
+     *         <code>null</code>)
+     */
+    public ExpressionCompiler expressionCompiler() {
+        return this.expressionCompiler;
+    }
+
+    /**
+     * Input descriptors are indexed by name the first time an operation descriptor's inputs are requested.
+     * 
+     * @param operationDescriptor
+     *        the descriptor of the operation whose input descriptor is being requested (cannot be <code>null</code>)
+     * @param name
+     *        the name of the input descriptor being requested (cannot be <code>null</code> or empty)
+     * @return the first input descriptor with the specified name or <code>null</code> if not found
+     */
+    public ValueDescriptor< ? > inputDescriptor( final OperationDescriptor< ? > operationDescriptor,
+                                                 final String name ) {
+        CheckArg.notNull( operationDescriptor, "operationDescriptor" );
+        CheckArg.notEmpty( name, "name" );
+        Map< String, ValueDescriptor< ? > > inputs = this.inputDescriptorsByOperation.get( operationDescriptor.id() );
+
+        if ( inputs == null ) {
+            final ValueDescriptor< ? >[] inputDescriptors = operationDescriptor.inputDescriptors();
+            inputs = new HashMap<>( inputDescriptors.length * 2 );
+
+            for ( final ValueDescriptor< ? > descriptor : inputDescriptors ) {
+                if ( !inputs.containsKey( descriptor.name() ) ) {
+                    inputs.put( descriptor.name(), descriptor );
+                }
+            }
+
+            this.inputDescriptorsByOperation.putIfAbsent( operationDescriptor.id(), Collections.unmodifiableMap( inputs ) );
+        }
+
+        return inputs.get( name );
+    }
+
     /**
      * @return the modeler associated with this factory (never <code>null</code>)
      */
@@ -350,6 +480,21 @@ public class TransformationFactory {
         return this.modeler;
     }
 
+    private AtomicLong version( final String transformationId ) {
+        AtomicLong version = this.definitionVersions.get( transformationId );
+
+        if ( version == null ) {
+            final AtomicLong added = new AtomicLong();
+            version = this.definitionVersions.putIfAbsent( transformationId, added );
+
+            if ( version == null ) {
+                version = added;
+            }
+        }
+
+        return version;
+    }
+
     private static final class Problem implements ValidationProblem {
 
         private final Severity severity;
@@ -673,7 +818,11 @@ public class TransformationFactory {
 
     private static class TransformationImpl implements Transformation {
 
+        private volatile TransformationFactory factory;
         private final Model model;
+        private volatile Operation< ? >[] operations;
+        private final ConcurrentMap< String, Operation< ? > > operationsByPath = new ConcurrentHashMap<>();
+        private volatile long operationsVersion;
 
         /**
          * Constructs an existing transformation model.
@@ -738,6 +887,7 @@ public class TransformationFactory {
                                   opName,
                                   operation.descriptorId(),
                                   id() );
+                    definitionChanged();
                 } catch ( final Exception e ) {
                     try {
                         throw new ChrysalixException( e,
@@ -850,8 +1000,73 @@ public class TransformationFactory {
             }
         }
 
+        /**
+         * Operation instances are created once per operation node and reused until an operation is added or removed or the
+         * definition version of the transformation changes.
+         */
+        private Operation< ? >[] cachedOperations() throws ChrysalixException {
+            final TransformationFactory factory = factory();
+            final long version = ( ( factory == null ) ? 0 : factory.definitionVersion( id() ) );
+            final Operation< ? >[] cached = this.operations;
+
+            if ( ( cached != null ) && ( version == this.operationsVersion ) ) {
+                return cached;
+            }
+
+            final List< Operation< ? > > operations = new ArrayList<>();
+            final Set< String > paths = new HashSet<>();
+
+            try {
+                for ( final ModelObject kid : this.model.childrenOfType( ChrysalixLexicon.Operation.NODE_TYPE ) ) {
+                    final String path = kid.absolutePath();
+                    Operation< ? > operation = this.operationsByPath.get( path );
+
+                    if ( operation == null ) {
+                        final ValueDescriptor< ? > descriptor = factory().descriptor( kid.name() );
+
+                        if ( !( descriptor instanceof OperationDescriptor ) ) {
+                            throw new ChrysalixException( ChrysalixI18n.localize( ERROR_DESCRIPTOR_TYPE, descriptor.id() ) );
+                        }
+
+                        operation = ( ( OperationDescriptor< ? > ) descriptor ).newInstance( kid, this );
+                        final Operation< ? > existing = this.operationsByPath.putIfAbsent( path, operation );
+
+                        if ( existing != null ) {
+                            operation = existing;
+                        }
+                    }
+
+                    operations.add( operation );
+                    paths.add( path );
+                }
+            } catch ( final ModelspaceException e ) {
+                throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_FINDING_OPERATIONS, getName() ) );
+            }
+
+            // forget operations whose nodes have been removed
+            this.operationsByPath.keySet().retainAll( paths );
+
+            final Operation< ? >[] result = operations.toArray( new Operation< ? >[ operations.size() ] );
+            this.operationsVersion = version;
+            this.operations = result;
+            return result;
+        }
+
+        private void definitionChanged() throws ChrysalixException {
+            this.operations = null;
+            final TransformationFactory factory = factory();
+
+            if ( factory != null ) {
+                factory.definitionChanged( id() );
+            }
+        }
+
         private TransformationFactory factory() {
-            return REGISTRY.get( this.model.modelspace() );
+            if ( this.factory == null ) {
+                this.factory = REGISTRY.get( this.model.modelspace() );
+            }
+
+            return this.factory;
         }
 
         private String getName() {
@@ -892,8 +1107,8 @@ public class TransformationFactory {
         @Override
         public Iterator< Operation< ? >> iterator() {
             try {
-                final List< Operation< ? >> copy = Arrays.asList( operations() );
-                return copy.iterator();
+                final List< Operation< ? >> copy = Arrays.asList( cachedOperations() );
+                return Collections.unmodifiableList( copy ).iterator();
             } catch ( final Exception e ) {
                 throw new RuntimeException( e );
             }
@@ -931,24 +1146,7 @@ public class TransformationFactory {
          */
         @Override
         public Operation< ? >[] operations() throws ChrysalixException {
-            final List< Operation< ? > > operations = new ArrayList<>();
-
-            try {
-                for ( final ModelObject kid : this.model.childrenOfType( ChrysalixLexicon.Operation.NODE_TYPE ) ) {
-                    final ValueDescriptor< ? > descriptor = factory().descriptor( kid.name() );
-
-                    if ( descriptor instanceof OperationDescriptor ) {
-                        final Operation< ? > operation = ( ( OperationDescriptor< ? > ) descriptor ).newInstance( kid, this );
-                        operations.add( operation );
-                    } else {
-                        throw new ChrysalixException( ChrysalixI18n.localize( ERROR_DESCRIPTOR_TYPE, descriptor.id() ) );
-                    }
-                }
-            } catch ( final ModelspaceException e ) {
-                throw new ChrysalixException( e, ChrysalixI18n.localize( ERROR_FINDING_OPERATIONS, getName() ) );
-            }
-
-            return operations.toArray( new Operation< ? >[ operations.size() ] );
+            return cachedOperations().clone();
         }
 
         /**
@@ -965,6 +1163,7 @@ public class TransformationFactory {
 
                 try {
                     this.model.removeChild( operation.descriptorId() );
+                    definitionChanged();
                 } catch ( final Exception e ) {
                     throw new ChrysalixException( e,
                                                   ChrysalixI18n.localize( ERROR_REMOVING_TRANSFORMATION_OPERATION,
@@ -0,0 +1,232 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.CheckArg;
+
+/**
+ * Keeps the target properties of {@link #watch(Transformation) watched} transformations up to date as their source properties
+ * change. The results of the last execution of each transformation are kept so that a {@link #changed(Collection) change} only
+ * re-evaluates the operations {@link ExecutionPlan#affected(Collection) affected} by it, and only writes their target
+ * properties. A transformation whose definition has changed is executed again in full.
+ * <p>
+ * The watcher is a JCR {@link EventListener event listener}, so a host application can register it with the
+ * {@link javax.jcr.observation.ObservationManager observation manager} of the repository workspace holding the source models.
+ * Modelspace writes target properties through its own sessions, so registering the watcher with <code>noLocal</code> set does
+ * not hide those writes. Instead, a change to a path that a transformation wrote in its last execution is ignored, once, by that
+ * transformation, so that committing its results does not execute it again. Other watched transformations still react to it.
+ */
+public final class TransformationWatcher implements EventListener {
+
+    private static final String ERROR_PROCESSING_EVENTS = "Error processing repository change events";
+    private static final String ERROR_REEXECUTING_TRANSFORMATION = "Error re-executing transformation '%s'";
+
+    private final TransformationExecutor executor;
+    private final Map< String, Watched > watched = new LinkedHashMap<>();
+
+    /**
+     * @param executor
+     *        the executor used to execute the watched transformations (cannot be <code>null</code>)
+     */
+    public TransformationWatcher( final TransformationExecutor executor ) {
+        CheckArg.notNull( executor, "executor" );
+        this.executor = executor;
+    }
+
+    /**
+     * Re-evaluates the operations of the watched transformations that are affected by changes to the specified paths.
+     * 
+     * @param changedPaths
+     *        the absolute paths of the changed properties or nodes (cannot be <code>null</code> but can be empty)
+     * @return the identifiers of the transformations that were re-executed (never <code>null</code> but can be empty)
+     * @throws ChrysalixException
+     *         if a transformation cannot be re-executed (all affected transformations are attempted)
+     */
+    public synchronized Set< String > changed( final Collection< String > changedPaths ) throws ChrysalixException {
+        CheckArg.notNull( changedPaths, "changedPaths" );
+        final Set< String > executed = new LinkedHashSet<>();
+        ChrysalixException error = null;
+
+        for ( final Watched watched : this.watched.values() ) {
+            final String id = watched.transformation.id();
+
+            try {
+                final ExecutionPlan plan = this.executor.plan( watched.transformation );
+                final Collection< String > paths = watched.unwritten( changedPaths );
+
+                if ( ( plan == watched.context.plan() ) && plan.affected( paths ).isEmpty() ) {
+                    continue;
+                }
+
+                watched.executed( this.executor.execute( plan, watched.context, paths ) );
+                executed.add( id );
+            } catch ( final ChrysalixException e ) {
+                final ChrysalixException pe =
+                    new ChrysalixException( e, ChrysalixI18n.localize( ERROR_REEXECUTING_TRANSFORMATION, id ) );
+
+                if ( error == null ) {
+                    error = pe;
+                } else {
+                    error.addSuppressed( pe );
+                }
+            }
+        }
+
+        if ( error != null ) {
+            throw error;
+        }
+
+        return executed;
+    }
+
+    /**
+     * @param transformationId
+     *        the identifier of a transformation (can be <code>null</code> or empty)
+     * @return the context of the last execution of the transformation or <code>null</code> if it is not being watched
+     */
+    public synchronized ExecutionContext context( final String transformationId ) {
+        final Watched watched = this.watched.get( transformationId );
+        return ( ( watched == null ) ? null : watched.context );
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see javax.jcr.observation.EventListener#onEvent(javax.jcr.observation.EventIterator)
+     */
+    @Override
+    public void onEvent( final EventIterator events ) {
+        final List< String > paths = new ArrayList<>();
+
+        try {
+            while ( events.hasNext() ) {
+                final Event event = events.nextEvent();
+                final String path = event.getPath();
+
+                if ( path != null ) {
+                    paths.add( path );
+                }
+            }
+
+            changed( paths );
+        } catch ( final RepositoryException | ChrysalixException e ) {
+            TransformationExecutor.LOGGER.error( e, ERROR_PROCESSING_EVENTS );
+        }
+    }
+
+    /**
+     * Stops watching a transformation.
+     * 
+     * @param transformationId
+     *        the identifier of the transformation (cannot be <code>null</code> or empty)
+     * @return <code>true</code> if the transformation was being watched
+     */
+    public synchronized boolean unwatch( final String transformationId ) {
+        CheckArg.notEmpty( transformationId, "transformationId" );
+        return ( this.watched.remove( transformationId ) != null );
+    }
+
+    /**
+     * Executes a transformation and keeps its target properties up to date with its source properties from then on.
+     * 
+     * @param transformation
+     *        the transformation being watched (cannot be <code>null</code>)
+     * @return the context of the initial execution (never <code>null</code>)
+     * @throws ChrysalixException
+     *         if the transformation cannot be executed
+     */
+    public synchronized ExecutionContext watch( final Transformation transformation ) throws ChrysalixException {
+        CheckArg.notNull( transformation, "transformation" );
+        final ExecutionContext context = this.executor.execute( transformation );
+        this.watched.put( transformation.id(), new Watched( transformation, context ) );
+        return context;
+    }
+
+    /**
+     * @return the identifiers of the watched transformations (never <code>null</code> but can be empty)
+     */
+    public synchronized Set< String > watched() {
+        return Collections.unmodifiableSet( new LinkedHashSet<>( this.watched.keySet() ) );
+    }
+
+    private static final class Watched {
+
+        final Transformation transformation;
+        ExecutionContext context;
+        final Set< String > written = new HashSet<>();
+
+        Watched( final Transformation transformation,
+                 final ExecutionContext context ) {
+            this.transformation = transformation;
+            executed( context );
+        }
+
+        void executed( final ExecutionContext context ) {
+            this.context = context;
+            this.written.clear();
+
+            for ( final ExecutionContext.PendingWrite write : context.committed() ) {
+                this.written.add( write.path() );
+            }
+        }
+
+        /**
+         * @return the changed paths that were not written by the last execution, whose writes are each ignored only once
+         */
+        Collection< String > unwritten( final Collection< String > changedPaths ) {
+            if ( this.written.isEmpty() ) {
+                return changedPaths;
+            }
+
+            final List< String > paths = new ArrayList<>( changedPaths.size() );
+
+            for ( final String path : changedPaths ) {
+                if ( !this.written.remove( path ) ) {
+                    paths.add( path );
+                }
+            }
+
+            return paths;
+        }
+
+    }
+
+}
@@ -40,6 +40,9 @@ public interface Value< T > extends ModelElement {
     /**
      * A {@link Number number} term sorter that sorts the term values in ascending order. If there is an error accessing either
      * term's value a zero is returned.
+     * <p>
+     * Every comparison reads both values, so sorting <em>n</em> repository-backed values this way performs O(<em>n</em> log
+     * <em>n</em>) reads. Use a {@link ValueSorter} to sort or select from more than a few values, since it reads each value once.
      */
     public static final Comparator< Value< Number > > ASCENDING_NUMBER_SORTER = new Comparator< Value< Number > >() {
 
@@ -78,6 +81,8 @@ public interface Value< T > extends ModelElement {
     /**
      * A {@link Number number} value sorter that sorts in descending order. If there is an error accessing either value a zero is
      * returned.
+     * 
+     * @see #ASCENDING_NUMBER_SORTER for why a {@link ValueSorter} is usually preferable
      */
     public static final Comparator< Value< Number > > DESCENDING_NUMBER_SORTER = new Comparator< Value< Number > >() {
 
@@ -0,0 +1,266 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixI18n;
+import org.chrysalix.common.CheckArg;
+
+/**
+ * Orders {@link Number number} {@link Value values} by reading each value exactly once. The values are read into a primitive
+ * <code>double</code> key array when the sorter is constructed, and an index permutation over those keys is then sorted, or only
+ * partially ordered when a single {@link #select(int) rank} is wanted, without touching the values again. This is much cheaper
+ * than sorting with {@link Value#ASCENDING_NUMBER_SORTER}, which reads both values, possibly from the repository, for every
+ * comparison.
+ * <p>
+ * The ascending order is the one the comparators produce: <code>null</code> values come first, and equal values keep their
+ * original relative order. Equal values also keep their original relative order in descending order. Instances are not thread
+ * safe.
+ * 
+ * @param <V>
+ *        the type of value being sorted
+ */
+public final class ValueSorter< V extends Value< ? > > {
+
+    private static final String NOT_A_NUMBER = "The value at index %s is not a number: %s";
+
+    private static < V > List< V > asList( final V[] values ) {
+        CheckArg.notNull( values, "values" );
+        return Arrays.asList( values );
+    }
+
+    private final double[] keys;
+    private final int nulls;
+    private final Number[] numbers;
+    private final int[] order;
+    private boolean sorted;
+    private final List< V > values;
+
+    /**
+     * Reads every value once.
+     * 
+     * @param values
+     *        the values being sorted (cannot be <code>null</code> but can be empty)
+     * @throws ChrysalixException
+     *         if a value cannot be read or is not a {@link Number number}
+     */
+    public ValueSorter( final Collection< ? extends V > values ) throws ChrysalixException {
+        CheckArg.notNull( values, "values" );
+        this.values = new ArrayList<>( values );
+        final int size = this.values.size();
+        this.keys = new double[ size ];
+        this.numbers = new Number[ size ];
+        this.order = new int[ size ];
+        int nullCount = 0;
+
+        // null values are placed first, in their original order, followed by the indexes still to be ordered
+        for ( int i = 0; i < size; ++i ) {
+            final Object value = this.values.get( i ).get();
+
+            if ( value == null ) {
+                this.order[ nullCount++ ] = i;
+            } else if ( value instanceof Number ) {
+                this.numbers[ i ] = ( Number ) value;
+                this.keys[ i ] = this.numbers[ i ].doubleValue();
+            } else {
+                throw new ChrysalixException( ChrysalixI18n.localize( NOT_A_NUMBER, i, value ) );
+            }
+        }
+
+        this.nulls = nullCount;
+
+        for ( int i = 0, j = nullCount; i < size; ++i ) {
+            if ( this.numbers[ i ] != null ) {
+                this.order[ j++ ] = i;
+            }
+        }
+    }
+
+    /**
+     * Reads every value once.
+     * 
+     * @param values
+     *        the values being sorted (cannot be <code>null</code> but can be empty)
+     * @throws ChrysalixException
+     *         if a value cannot be read or is not a {@link Number number}
+     */
+    public ValueSorter( final V[] values ) throws ChrysalixException {
+        this( asList( values ) );
+    }
+
+    /**
+     * @return the values in ascending order (never <code>null</code>)
+     */
+    public List< V > ascending() {
+        sort();
+        final List< V > result = new ArrayList<>( this.order.length );
+
+        for ( final int index : this.order ) {
+            result.add( this.values.get( index ) );
+        }
+
+        return result;
+    }
+
+    private int compare( final int thisIndex,
+                         final int thatIndex ) {
+        final int result = Double.compare( this.keys[ thisIndex ], this.keys[ thatIndex ] );
+        return ( ( result == 0 ) ? Integer.compare( thisIndex, thatIndex ) : result );
+    }
+
+    /**
+     * @return the values in descending order, where <code>null</code> values come last and equal values still keep their original
+     *         relative order (never <code>null</code>)
+     */
+    public List< V > descending() {
+        sort();
+        final List< V > result = new ArrayList<>( this.order.length );
+
+        // the ascending order groups equal values together, so the groups are taken in reverse and each keeps its original order
+        for ( int end = this.order.length; end > this.nulls; ) {
+            final double key = this.keys[ this.order[ end - 1 ] ];
+            int start = end - 1;
+
+            while ( ( start > this.nulls ) && ( Double.compare( this.keys[ this.order[ start - 1 ] ], key ) == 0 ) ) {
+                --start;
+            }
+
+            for ( int i = start; i < end; ++i ) {
+                result.add( this.values.get( this.order[ i ] ) );
+            }
+
+            end = start;
+        }
+
+        for ( int i = 0; i < this.nulls; ++i ) {
+            result.add( this.values.get( this.order[ i ] ) );
+        }
+
+        return result;
+    }
+
+    private void mergeSort( final int[] source,
+                            final int[] target,
+                            final int from,
+                            final int to ) {
+        if ( ( to - from ) < 2 ) return;
+        final int middle = ( from + to ) >>> 1;
+
+        // the roles of the arrays alternate at each level so that no copying back is needed
+        mergeSort( target, source, from, middle );
+        mergeSort( target, source, middle, to );
+
+        for ( int i = from, left = from, right = middle; i < to; ++i ) {
+            if ( ( right >= to ) || ( ( left < middle ) && ( compare( source[ left ], source[ right ] ) <= 0 ) ) ) {
+                target[ i ] = source[ left++ ];
+            } else {
+                target[ i ] = source[ right++ ];
+            }
+        }
+    }
+
+    /**
+     * The number at the supplied rank, as originally read from its value.
+     * 
+     * @param rank
+     *        the zero-based index into the ascending order
+     * @return the number (<code>null</code> if the value was <code>null</code>)
+     * @throws IndexOutOfBoundsException
+     *         if the rank is not less than the {@link #size() size}
+     */
+    public Number number( final int rank ) {
+        return this.numbers[ this.order[ selectIndex( rank ) ] ];
+    }
+
+    /**
+     * Finds the value at the supplied rank, using quickselect in expected linear time if the values have not already been
+     * sorted.
+     * 
+     * @param rank
+     *        the zero-based index into the ascending order
+     * @return the value a full ascending sort would place at that rank (never <code>null</code>)
+     * @throws IndexOutOfBoundsException
+     *         if the rank is not less than the {@link #size() size}
+     */
+    public V select( final int rank ) {
+        return this.values.get( this.order[ selectIndex( rank ) ] );
+    }
+
+    private int selectIndex( final int rank ) {
+        if ( ( rank < 0 ) || ( rank >= this.order.length ) ) throw new IndexOutOfBoundsException( Integer.toString( rank ) );
+        if ( this.sorted || ( rank < this.nulls ) ) return rank;
+        int left = this.nulls;
+        int right = this.order.length - 1;
+
+        // Hoare partitioning with a median-of-three pivot
+        while ( left < right ) {
+            final int middle = ( left + right ) >>> 1;
+            if ( compare( this.order[ middle ], this.order[ left ] ) < 0 ) swap( left, middle );
+            if ( compare( this.order[ right ], this.order[ left ] ) < 0 ) swap( left, right );
+            if ( compare( this.order[ right ], this.order[ middle ] ) < 0 ) swap( middle, right );
+            final int pivot = this.order[ middle ];
+            int i = left;
+            int j = right;
+
+            while ( i <= j ) {
+                while ( compare( this.order[ i ], pivot ) < 0 ) ++i;
+                while ( compare( this.order[ j ], pivot ) > 0 ) --j;
+                if ( i <= j ) swap( i++, j-- );
+            }
+
+            if ( rank <= j ) right = j;
+            else if ( rank >= i ) left = i;
+            else break;
+        }
+
+        return rank;
+    }
+
+    /**
+     * @return the number of values
+     */
+    public int size() {
+        return this.order.length;
+    }
+
+    private void sort() {
+        if ( this.sorted ) return;
+        final int[] copy = this.order.clone();
+        mergeSort( copy, this.order, this.nulls, this.order.length );
+        this.sorted = true;
+    }
+
+    private void swap( final int i,
+                       final int j ) {
+        final int temp = this.order[ i ];
+        this.order[ i ] = this.order[ j ];
+        this.order[ j ] = temp;
+    }
+
+}
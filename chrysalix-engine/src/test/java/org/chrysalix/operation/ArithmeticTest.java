@@ -0,0 +1,90 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.chrysalix.transformation.Precision;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.Value;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class ArithmeticTest {
+
+    private static final Precision DECIMAL = Precision.decimal( new MathContext( 4 ) );
+    private static TransformationFactory FACTORY;
+
+    @BeforeClass
+    public static void initializeFactory() {
+        FACTORY = new TransformationFactory( mock( Modelspace.class ) );
+    }
+
+    private static Value< ? >[] terms( final Number... numbers ) {
+        final Value< ? >[] terms = new Value< ? >[ numbers.length ];
+
+        for ( int i = 0; i < numbers.length; ++i ) {
+            terms[ i ] = FACTORY.createDetachedValue( Add.TERM_DESCRIPTOR, numbers[ i ] );
+        }
+
+        return terms;
+    }
+
+    @Test
+    public void shouldAddInEachMode() throws Exception {
+        assertThat( Arithmetic.ADD.calculate( terms( 0.1, 0.2 ), Precision.DOUBLE ), is( ( Number ) ( 0.1 + 0.2 ) ) );
+        assertThat( Arithmetic.ADD.calculate( terms( 0.1, 0.2 ), DECIMAL ), is( ( Number ) new BigDecimal( "0.3" ) ) );
+    }
+
+    @Test
+    public void shouldFindExtremesInEachMode() throws Exception {
+        assertThat( Arithmetic.max( terms( 0.1, 3L, 0.2 ), Precision.DOUBLE ), is( ( Number ) 3.0 ) );
+        assertThat( Arithmetic.max( terms( 0.1, 3L, 0.2 ), DECIMAL ), is( ( Number ) new BigDecimal( "3" ) ) );
+        assertThat( Arithmetic.min( terms( 2L, 0.1, 0.2 ), Precision.DOUBLE ), is( ( Number ) 0.1 ) );
+        assertThat( Arithmetic.min( terms( 2L, 0.1, 0.2 ), DECIMAL ), is( ( Number ) new BigDecimal( "0.1" ) ) );
+        assertThat( Arithmetic.max( terms( 1.23456 ), DECIMAL ), is( ( Number ) new BigDecimal( "1.235" ) ) );
+    }
+
+    @Test
+    public void shouldFindMeanInEachMode() throws Exception {
+        assertThat( Arithmetic.mean( terms( 0.1, 0.2, 1L ), Precision.DOUBLE ), is( ( Number ) ( ( 0.1 + 0.2 + 1.0 ) / 3 ) ) );
+        assertThat( Arithmetic.mean( terms( 0.1, 0.2, 1L ), DECIMAL ), is( ( Number ) new BigDecimal( "0.4333" ) ) );
+    }
+
+    @Test
+    public void shouldFindMedianInEachMode() throws Exception {
+        assertThat( Arithmetic.median( 0.2, 0.3, Precision.DOUBLE ), is( ( Number ) ( ( 0.2 + 0.3 ) / 2 ) ) );
+        assertThat( Arithmetic.median( 0.2, 0.3, DECIMAL ), is( ( Number ) new BigDecimal( "0.25" ) ) );
+        assertThat( Arithmetic.median( 7L, null, Precision.DOUBLE ), is( ( Number ) 7.0 ) );
+        assertThat( Arithmetic.median( 7L, null, DECIMAL ), is( ( Number ) new BigDecimal( "7" ) ) );
+    }
+
+}
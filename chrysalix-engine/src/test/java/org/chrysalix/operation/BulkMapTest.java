@@ -0,0 +1,136 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.chrysalix.transformation.ExecutionContext;
+import org.chrysalix.transformation.ExecutionPlan;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationExecutor;
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.ModelObject;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class BulkMapTest {
+
+    private DetachedModel model;
+    private ModelObject source;
+    private ModelObject target;
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+        this.source = this.model.addChild( "elements" )[ 0 ];
+        this.target = this.model.addChild( "columns" )[ 0 ];
+    }
+
+    private BulkMap bulkMap( final Object... optionalInputs ) throws Exception {
+        final BulkMap bulkMap = ( BulkMap ) ( Operation< ? > ) this.model.newOperation( BulkMap.DESCRIPTOR, null );
+        bulkMap.addInput( BulkMap.SOURCE_DESCRIPTOR.name(), this.source );
+        bulkMap.addInput( BulkMap.SOURCE_PROP_DESCRIPTOR.name(), "type" );
+        bulkMap.addInput( BulkMap.TARGET_DESCRIPTOR.name(), this.target );
+        bulkMap.addInput( BulkMap.TARGET_PROP_DESCRIPTOR.name(), "datatype" );
+
+        for ( int i = 0; i < optionalInputs.length; i += 2 ) {
+            bulkMap.addInput( ( String ) optionalInputs[ i ], optionalInputs[ i + 1 ] );
+        }
+
+        return bulkMap;
+    }
+
+    private void item( final String name,
+                       final String type ) throws Exception {
+        final ModelObject item = this.source.addChild( name )[ 0 ];
+
+        if ( type != null ) {
+            item.setProperty( "type", type );
+        }
+    }
+
+    @Test
+    public void shouldDeferWritesToExecutionContext() throws Exception {
+        item( "e1", "string" );
+        this.target.addChild( "e1" );
+        final BulkMap bulkMap = bulkMap();
+
+        final Transformation transformation = mock( Transformation.class );
+        when( transformation.id() ).thenReturn( "/transformation" );
+        when( transformation.operations() ).thenReturn( new Operation< ? >[] { bulkMap } );
+
+        try ( final TransformationExecutor executor = new TransformationExecutor() ) {
+            final ExecutionContext context = executor.execute( ExecutionPlan.compile( transformation ) );
+            assertThat( context.result( bulkMap.absolutePath() ), is( ( Object ) 1 ) );
+        }
+
+        assertThat( this.target.child( "e1" ).property( "datatype" ).stringValue(), is( "string" ) );
+    }
+
+    @Test
+    public void shouldMapMatchingChildren() throws Exception {
+        item( "e1", "string" );
+        item( "e2", "integer" );
+        item( "x3", "date" );
+        this.target.addChild( "col_e1", "col_e2", "col_x3" );
+
+        final BulkMap bulkMap = bulkMap( BulkMap.SOURCE_PATTERN_DESCRIPTOR.name(), "e*",
+                                         BulkMap.TARGET_TEMPLATE_DESCRIPTOR.name(), "col_{name}",
+                                         BulkMap.BATCH_SIZE_DESCRIPTOR.name(), 1 );
+        assertThat( bulkMap.get(), is( 2 ) );
+        assertThat( this.target.child( "col_e1" ).property( "datatype" ).stringValue(), is( "string" ) );
+        assertThat( this.target.child( "col_e2" ).property( "datatype" ).stringValue(), is( "integer" ) );
+        assertThat( this.target.child( "col_x3" ).property( "datatype" ), is( nullValue() ) );
+        assertThat( bulkMap.itemProblems().isEmpty(), is( true ) );
+    }
+
+    @Test
+    public void shouldReportItemProblemsWithoutStopping() throws Exception {
+        item( "e1", null );
+        item( "e2", "integer" );
+        item( "e3", "string" );
+        this.target.addChild( "e1", "e3" );
+
+        final BulkMap bulkMap = bulkMap();
+        assertThat( bulkMap.get(), is( 1 ) );
+        assertThat( this.target.child( "e3" ).property( "datatype" ).stringValue(), is( "string" ) );
+        assertThat( bulkMap.itemProblems().size(), is( 2 ) );
+        assertThat( bulkMap.itemProblems().isWarning(), is( true ) );
+    }
+
+    @Test
+    public void shouldRequireSourceAndTarget() throws Exception {
+        final BulkMap bulkMap = ( BulkMap ) ( Operation< ? > ) this.model.newOperation( BulkMap.DESCRIPTOR, null );
+        bulkMap.addInput( BulkMap.SOURCE_DESCRIPTOR.name(), this.source );
+        assertThat( bulkMap.problems().isError(), is( true ) );
+    }
+
+}
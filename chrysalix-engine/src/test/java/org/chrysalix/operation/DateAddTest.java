@@ -0,0 +1,82 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Calendar;
+
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class DateAddTest {
+
+    private DetachedModel model;
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+    }
+
+    private DateAdd add( final Object date,
+                         final long amount,
+                         final Object... optionalInputs ) throws Exception {
+        final DateAdd add = ( DateAdd ) this.model.newOperation( DateAdd.DESCRIPTOR, null );
+        add.addInput( DateAdd.DATE_DESCRIPTOR.name(), date );
+        add.addInput( DateAdd.AMOUNT_DESCRIPTOR.name(), amount );
+
+        for ( int i = 0; i < optionalInputs.length; i += 2 ) {
+            add.addInput( ( String ) optionalInputs[ i ], optionalInputs[ i + 1 ] );
+        }
+
+        return add;
+    }
+
+    @Test
+    public void shouldAddAmountsInUnits() throws Exception {
+        assertThat( add( 1000L, 500L ).get(), is( ( Object ) 1500L ) );
+        assertThat( add( 0L, -2L, DateAdd.UNIT_DESCRIPTOR.name(), "days" ).get(), is( ( Object ) ( -2 * Dates.MILLIS_PER_DAY ) ) );
+        assertThat( add( "2012-02-29", 1L, DateAdd.UNIT_DESCRIPTOR.name(), "YEARS" ).get(),
+                    is( ( Object ) Dates.parseIso( "2013-02-28" ) ) );
+    }
+
+    @Test
+    public void shouldProvideCalendarWhenRequested() throws Exception {
+        final Object result = add( "2014-06-30T17:05:00Z", 1L,
+                                   DateAdd.UNIT_DESCRIPTOR.name(), "MONTHS",
+                                   DateAdd.CALENDAR_DESCRIPTOR.name(), true ).get();
+        assertThat( ( ( Calendar ) result ).getTimeInMillis(), is( Dates.parseIso( "2014-07-30T17:05:00Z" ) ) );
+    }
+
+    @Test
+    public void shouldReportInvalidUnit() throws Exception {
+        assertThat( add( 0L, 1L, DateAdd.UNIT_DESCRIPTOR.name(), "FORTNIGHTS" ).problems().isError(), is( true ) );
+    }
+
+}
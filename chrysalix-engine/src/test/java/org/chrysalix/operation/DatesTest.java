@@ -0,0 +1,85 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings( "javadoc" )
+public final class DatesTest {
+
+    @Test
+    public void shouldAddMonthsKeepingDayOfMonthWhenPossible() {
+        assertThat( Dates.formatIso( Dates.plusMonths( Dates.parseIso( "2012-01-31T10:00:00Z" ), 1 ) ),
+                    is( "2012-02-29T10:00:00Z" ) );
+        assertThat( Dates.formatIso( Dates.plusMonths( Dates.parseIso( "2012-03-15" ), -15 ) ), is( "2010-12-15T00:00:00Z" ) );
+    }
+
+    @Test
+    public void shouldConvertDateValuesToMillis() {
+        final Calendar calendar = Dates.calendar( 1234L, Dates.UTC );
+        assertThat( Dates.millis( calendar ), is( 1234L ) );
+        assertThat( Dates.millis( calendar.getTime() ), is( 1234L ) );
+        assertThat( Dates.millis( 1234 ), is( 1234L ) );
+        assertThat( Dates.millis( "1970-01-01T00:00:01.234Z" ), is( 1234L ) );
+        assertThat( Dates.millis( Boolean.TRUE ), is( Dates.INVALID ) );
+    }
+
+    @Test
+    public void shouldFormatAndParseIsoLikeSimpleDateFormat() throws Exception {
+        final SimpleDateFormat format = new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'" );
+        format.setTimeZone( Dates.UTC );
+        final Random random = new Random( 42 );
+
+        for ( int i = 0; i < 10000; ++i ) {
+            final long millis = ( random.nextLong() % ( 200L * 365 * Dates.MILLIS_PER_DAY ) ) + ( 30L * 365 * Dates.MILLIS_PER_DAY );
+            final String text = format.format( millis );
+            assertThat( Dates.parseIso( text ), is( millis ) );
+            assertThat( Dates.formatIso( millis ).substring( 0, 19 ), is( text.substring( 0, 19 ) ) );
+            assertThat( Dates.parseIso( Dates.formatIso( millis ) ), is( millis ) );
+        }
+    }
+
+    @Test
+    public void shouldParseIsoOffsetsAndSqlTimestamps() {
+        assertThat( Dates.parseIso( "2014-06-30T19:05:09+02:00" ), is( Dates.parseIso( "2014-06-30T17:05:09Z" ) ) );
+        assertThat( Dates.parseIso( "2014-06-30 17:05:09.1234567" ), is( Dates.parseIso( "2014-06-30T17:05:09.123" ) ) );
+        assertThat( Dates.parseIso( "2014-06-30" ), is( 16251 * Dates.MILLIS_PER_DAY ) );
+    }
+
+    @Test
+    public void shouldReportInvalidIsoText() {
+        for ( final String text : new String[] { "", "2014", "2014-13-01", "2014-02-30", "2014-06-30T24:00:00", "2014-06-30T17:05",
+                        "2014-06-30T17:05:09.", "2014-06-30T17:05:09+0200", "2014-06-30Z1", "2014/06/30" } ) {
+            assertThat( text, Dates.parseIso( text ), is( Dates.INVALID ) );
+        }
+    }
+
+}
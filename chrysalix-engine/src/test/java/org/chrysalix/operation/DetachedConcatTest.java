@@ -0,0 +1,92 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.io.StringWriter;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class DetachedConcatTest {
+
+    private Concat concat;
+
+    @Before
+    public void beforeEach() throws Exception {
+        final DetachedModel model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+        this.concat = ( Concat ) model.newOperation( Concat.DESCRIPTOR, null );
+    }
+
+    @Test
+    public void shouldConcatTermsWithSeparator() throws Exception {
+        this.concat.addInput( Concat.TERM_DESCRIPTOR.name(), "a", 1L, "b" );
+        this.concat.addInput( Concat.SEPARATOR_DESCRIPTOR.name(), ", " );
+        assertThat( this.concat.get(), is( "a, 1, b" ) );
+    }
+
+    @Test
+    public void shouldConcatTermsWithoutSeparator() throws Exception {
+        this.concat.addInput( Concat.TERM_DESCRIPTOR.name(), "a", "", 2.5 );
+        assertThat( this.concat.get(), is( "a2.5" ) );
+    }
+
+    @Test
+    public void shouldNotWriteWhenTermsAreMissing() throws Exception {
+        this.concat.addInput( Concat.TERM_DESCRIPTOR.name(), "a" );
+        this.concat.addInput( Concat.SEPARATOR_DESCRIPTOR.name(), "-" );
+        assertThat( this.concat.problems().isError(), is( true ) );
+
+        try {
+            this.concat.writeTo( new StringWriter() );
+            fail();
+        } catch ( final ChrysalixException e ) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldWriteSameTextAsResult() throws Exception {
+        final Object[] terms = new Object[ 1000 ];
+
+        for ( int i = 0; i < terms.length; ++i ) {
+            terms[ i ] = "term" + i;
+        }
+
+        this.concat.addInput( Concat.TERM_DESCRIPTOR.name(), terms );
+        this.concat.addInput( Concat.SEPARATOR_DESCRIPTOR.name(), "\n" );
+        final StringWriter writer = new StringWriter();
+        this.concat.writeTo( writer );
+        assertThat( writer.toString(), is( this.concat.get() ) );
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.chrysalix.ChrysalixLexicon;
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.ModelObject;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class DetachedMedianTest {
+
+    private ModelObject add;
+    private Median median;
+
+    // the terms are held by the child add operation, whose model object is not created by the detached model
+    private void addTerms( final Object... terms ) throws Exception {
+        for ( final Object term : terms ) {
+            final ModelObject input = this.add.addChildOfType( ChrysalixLexicon.Input.NODE_TYPE, Add.TERM_DESCRIPTOR.id() )[ 0 ];
+            input.setProperty( ChrysalixLexicon.Input.PATH, false );
+            input.setProperty( ChrysalixLexicon.Input.VALUE, term );
+        }
+    }
+
+    @Before
+    public void beforeEach() throws Exception {
+        final DetachedModel model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+        final ModelObject operation = model.addChildOfType( ChrysalixLexicon.Operation.NODE_TYPE, Median.DESCRIPTOR.id() )[ 0 ];
+        this.add = operation.addChildOfType( ChrysalixLexicon.Operation.NODE_TYPE, Add.TERM_DESCRIPTOR.id() )[ 0 ];
+        operation.addChildOfType( ChrysalixLexicon.Operation.NODE_TYPE, Divide.TERM_DESCRIPTOR.id() );
+        this.median = ( Median ) Median.DESCRIPTOR.newInstance( operation, null );
+    }
+
+    @Test
+    public void shouldComputeExactMedianUnlessApproximate() throws Exception {
+        addTerms( 3, 1, 10, 2 );
+        assertThat( this.median.get(), is( ( Number ) 2.5D ) );
+        this.median.addInput( Median.APPROXIMATE_DESCRIPTOR.name(), false );
+        assertThat( this.median.get(), is( ( Number ) 2.5D ) );
+    }
+
+    @Test
+    public void shouldEstimateMedianWhenApproximate() throws Exception {
+        final Object[] terms = new Object[ 10001 ];
+
+        for ( int i = 0; i < terms.length; ++i ) {
+            terms[ i ] = ( i * 7919 ) % terms.length;
+        }
+
+        addTerms( terms );
+        assertThat( this.median.get(), is( ( Number ) 5000 ) );
+        this.median.addInput( Median.APPROXIMATE_DESCRIPTOR.name(), true );
+        final Number estimate = this.median.get();
+        assertThat( estimate instanceof Double, is( true ) );
+        assertThat( Math.abs( estimate.doubleValue() - 5000 ) < 100, is( true ) );
+    }
+
+    @Test
+    public void shouldReportMoreThanOneApproximateFlag() throws Exception {
+        addTerms( 1, 2 );
+        this.median.addInput( Median.APPROXIMATE_DESCRIPTOR.name(), true, false );
+        assertThat( this.median.problems().isError(), is( true ) );
+        this.median.removeInput( Median.APPROXIMATE_DESCRIPTOR.name(), false );
+        assertThat( this.median.problems().isError(), is( false ) );
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import org.chrysalix.ChrysalixLexicon;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.Value;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.ModelObject;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class DetachedModelTest {
+
+    private static final String TERM = Add.TERM_DESCRIPTOR.name();
+
+    private TransformationFactory factory;
+    private Modelspace modelspace;
+
+    @Before
+    public void beforeEach() {
+        this.modelspace = mock( Modelspace.class );
+        this.factory = new TransformationFactory( this.modelspace );
+    }
+
+    @Test
+    public void shouldCalculateDetachedOperation() throws Exception {
+        final Operation< Number > add = this.factory.createDetachedOperation( Add.DESCRIPTOR );
+        add.addInput( TERM, 1, 2, 3.5 );
+        assertThat( add.inputs().length, is( 3 ) );
+        assertThat( add.get(), is( ( Number ) 6.5 ) );
+    }
+
+    @Test
+    public void shouldComposeDetachedOperations() throws Exception {
+        final DetachedModel model = this.factory.createDetachedModel();
+        final Operation< Number > add = model.newOperation( Add.DESCRIPTOR, null );
+        add.addInput( TERM, 2, 3 );
+
+        final Operation< Number > multiply = model.newOperation( Multiply.DESCRIPTOR, null );
+        multiply.addInput( Multiply.TERM_DESCRIPTOR.name(), add, 4 );
+        assertThat( multiply.get(), is( ( Number ) 20L ) );
+
+        // the add operation is held by reference so later changes are seen
+        add.addInput( TERM, 5 );
+        assertThat( multiply.get(), is( ( Number ) 40L ) );
+    }
+
+    @Test
+    public void shouldHoldValuesByReference() throws Exception {
+        final DetachedModel model = this.factory.createDetachedModel();
+        final Value< Number > value = model.newValue( Add.TERM_DESCRIPTOR, 5 );
+        final Operation< Number > add = model.newOperation( Add.DESCRIPTOR, null );
+        add.addInput( TERM, value, 1 );
+        assertThat( add.get(), is( ( Number ) 6L ) );
+
+        value.modelObect().setProperty( ChrysalixLexicon.Input.VALUE, 10 );
+        assertThat( add.get(), is( ( Number ) 11L ) );
+    }
+
+    @Test
+    public void shouldNotChangeTransformationDefinition() throws Exception {
+        final Transformation transformation = mock( Transformation.class );
+        when( transformation.id() ).thenReturn( "/my/transformation" );
+
+        final Operation< Number > add = this.factory.createDetachedModel().newOperation( Add.DESCRIPTOR, transformation );
+        add.addInput( TERM, 1 );
+        assertThat( add.transformation(), is( transformation ) );
+        assertThat( this.factory.definitionVersion( "/my/transformation" ), is( 0L ) );
+    }
+
+    @Test
+    public void shouldNotUseModelspace() throws Exception {
+        final Operation< Number > add = this.factory.createDetachedOperation( Add.DESCRIPTOR );
+        add.addInput( TERM, 1, 2, 3 );
+        add.removeInput( TERM, 1 );
+        assertThat( add.get(), is( ( Number ) 5L ) );
+        verifyZeroInteractions( this.modelspace );
+    }
+
+    @Test
+    public void shouldRemoveInputHeldByReference() throws Exception {
+        final DetachedModel model = this.factory.createDetachedModel();
+        final Operation< Number > first = model.newOperation( Add.DESCRIPTOR, null );
+        first.addInput( TERM, 1, 2 );
+        final Operation< Number > second = model.newOperation( Add.DESCRIPTOR, null );
+        second.addInput( TERM, 10, 20 );
+
+        final Operation< Number > add = model.newOperation( Add.DESCRIPTOR, null );
+        add.addInput( TERM, first, second, 100 );
+        add.removeInput( TERM, second );
+        assertThat( add.inputs().length, is( 2 ) );
+        assertThat( add.get(), is( ( Number ) 103L ) );
+    }
+
+    @Test
+    public void shouldTrackPathsOfSameNameSiblings() throws Exception {
+        final DetachedModel model = this.factory.createDetachedModel();
+        final ModelObject[] kids = model.addChildOfType( ChrysalixLexicon.Input.NODE_TYPE, "input", "input", "other" );
+        assertThat( kids[ 0 ].absolutePath(), is( model.absolutePath() + "/input" ) );
+        assertThat( kids[ 1 ].absolutePath(), is( model.absolutePath() + "/input[2]" ) );
+        assertThat( kids[ 1 ].index(), is( 1 ) );
+        assertThat( kids[ 2 ].modelRelativePath(), is( "other" ) );
+        assertThat( model.childHasSameNameSiblings( "input" ), is( true ) );
+        assertThat( model.childrenOfType( ChrysalixLexicon.Input.NODE_TYPE ).length, is( 3 ) );
+        assertThat( model.childrenOfType( ChrysalixLexicon.Operation.NODE_TYPE ).length, is( 0 ) );
+    }
+
+    @Test
+    public void shouldRemovePropertySetToNull() throws Exception {
+        final ModelObject kid = this.factory.createDetachedModel().addChild( "kid" )[ 0 ];
+        kid.setProperty( "prop", 5L );
+        assertThat( kid.property( "prop" ).longValue(), is( 5L ) );
+        assertThat( kid.property( "prop" ).stringValue(), is( "5" ) );
+
+        kid.setProperty( "prop", ( Object ) null );
+        assertThat( kid.hasProperty( "prop" ), is( false ) );
+        assertThat( kid.property( "prop" ), is( nullValue() ) );
+    }
+
+}
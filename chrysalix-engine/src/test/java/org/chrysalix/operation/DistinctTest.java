@@ -0,0 +1,113 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.OperationDescriptor;
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.ModelObject;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class DistinctTest {
+
+    private ModelObject customers;
+    private DetachedModel model;
+    private ModelObject orders;
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+        this.customers = this.model.addChild( "customers" )[ 0 ];
+        this.customers.addChild( "id", "name", "balance" );
+        this.customers.child( "id" ).setProperty( "type", "integer" );
+        this.customers.child( "name" ).setProperty( "type", "string" );
+        this.customers.child( "balance" ).setProperty( "type", "decimal" );
+        this.orders = this.model.addChild( "orders" )[ 0 ];
+        this.orders.addChild( "id", "customer", "total" );
+        this.orders.child( "id" ).setProperty( "type", "integer" );
+        this.orders.child( "customer" ).setProperty( "type", "integer" );
+        this.orders.child( "total" ).setProperty( "type", "decimal" );
+    }
+
+    private < T > T newOperation( final Class< T > type,
+                                  final OperationDescriptor< ? > descriptor,
+                                  final String collectionInput,
+                                  final Object... optionalInputs ) throws Exception {
+        final Operation< ? > operation = this.model.newOperation( descriptor, null );
+        operation.addInput( collectionInput, this.customers, this.orders );
+
+        for ( int i = 0; i < optionalInputs.length; i += 2 ) {
+            operation.addInput( ( String ) optionalInputs[ i ], optionalInputs[ i + 1 ] );
+        }
+
+        return type.cast( operation );
+    }
+
+    @Test
+    public void shouldCountDistinctValuesAcrossCollections() throws Exception {
+        final ApproxCountDistinct count = newOperation( ApproxCountDistinct.class,
+                                                        ApproxCountDistinct.DESCRIPTOR,
+                                                        ApproxCountDistinct.COLLECTION_DESCRIPTOR.name(),
+                                                        ApproxCountDistinct.VALUE_PROP_DESCRIPTOR.name(), "type" );
+        assertThat( count.get(), is( 3L ) );
+        assertThat( newOperation( ApproxCountDistinct.class,
+                                  ApproxCountDistinct.DESCRIPTOR,
+                                  ApproxCountDistinct.COLLECTION_DESCRIPTOR.name() ).get(), is( 5L ) );
+    }
+
+    @Test
+    public void shouldDeduplicateNamesAcrossCollections() throws Exception {
+        final Distinct distinct = newOperation( Distinct.class, Distinct.DESCRIPTOR, Distinct.COLLECTION_DESCRIPTOR.name() );
+        assertThat( distinct.get(), is( new Object[] { "id", "name", "balance", "customer", "total" } ) );
+    }
+
+    @Test
+    public void shouldDeduplicateNumbersOfDifferentTypes() throws Exception {
+        this.customers.child( "id" ).setProperty( "length", 4, 8L, 4L );
+        this.customers.child( "name" ).setProperty( "length", 40.0D, 2.5D );
+        this.orders.child( "total" ).setProperty( "length", 8, 40, 2.5F );
+        final Distinct distinct = newOperation( Distinct.class,
+                                                Distinct.DESCRIPTOR,
+                                                Distinct.COLLECTION_DESCRIPTOR.name(),
+                                                Distinct.VALUE_PROP_DESCRIPTOR.name(), "length" );
+        assertThat( distinct.get(), is( new Object[] { 4, 8L, 40.0D, 2.5D } ) );
+    }
+
+    @Test
+    public void shouldReportPrecisionOutOfRange() throws Exception {
+        final ApproxCountDistinct count = newOperation( ApproxCountDistinct.class,
+                                                        ApproxCountDistinct.DESCRIPTOR,
+                                                        ApproxCountDistinct.COLLECTION_DESCRIPTOR.name(),
+                                                        ApproxCountDistinct.PRECISION_DESCRIPTOR.name(), 3 );
+        assertThat( count.problems().isError(), is( true ) );
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings( "javadoc" )
+public final class DoubleParserTest {
+
+    private final DoubleParser parser = new DoubleParser();
+
+    private void assertParsed( final String text ) {
+        assertThat( text, this.parser.parse( text ), is( Double.parseDouble( text ) ) );
+        assertThat( text, this.parser.valid(), is( true ) );
+    }
+
+    private void assertInvalid( final String text ) {
+        assertThat( text, Double.isNaN( this.parser.parse( text ) ), is( true ) );
+        assertThat( text, this.parser.valid(), is( false ) );
+    }
+
+    @Test
+    public void shouldParseColumnAndCountInvalidValues() {
+        final double[] values = this.parser.parse( new String[] { "1.5", "x", null, " -2 " } );
+        assertThat( values.length, is( 4 ) );
+        assertThat( values[ 0 ], is( 1.5 ) );
+        assertThat( Double.isNaN( values[ 1 ] ), is( true ) );
+        assertThat( Double.isNaN( values[ 2 ] ), is( true ) );
+        assertThat( values[ 3 ], is( -2.0 ) );
+        assertThat( this.parser.invalid(), is( 2 ) );
+        assertThat( this.parser.valid(), is( false ) );
+    }
+
+    @Test
+    public void shouldParseDecimalText() {
+        for ( final String text : new String[] { "0", "-0", "+1", "42", "3.14159", ".5", "5.", "1e10", "1E-10", "-2.5e+3",
+                        "0.000001", "123456789012345", "1234567890123456789012", "0.1234567890123456789", "1e308", "1e309",
+                        "4.9e-324", "1e-400", "2.2250738585072014E-308", "9007199254740993", "9999999999999999999",
+                        "9223372036854775808.5", " \t12.5\n" } ) {
+            assertParsed( text );
+        }
+    }
+
+    @Test
+    public void shouldParseRandomValuesLikeDouble() {
+        final Random random = new Random( 42 );
+
+        for ( int i = 0; i < 100000; ++i ) {
+            assertParsed( Double.toString( Double.longBitsToDouble( random.nextLong() & 0x7fefffffffffffffL ) ) );
+            assertParsed( Long.toString( random.nextLong() % 1000000000 ) + '.' + random.nextInt( 100000 ) );
+        }
+    }
+
+    @Test
+    public void shouldParseRegion() {
+        assertThat( this.parser.parse( "a=12.75;", 2, 7 ), is( 12.75 ) );
+        assertThat( this.parser.valid(), is( true ) );
+    }
+
+    @Test
+    public void shouldParseSpecialValues() {
+        assertThat( Double.isNaN( this.parser.parse( "NaN" ) ), is( true ) );
+        assertThat( this.parser.valid(), is( true ) );
+        assertThat( this.parser.parse( "-Infinity" ), is( Double.NEGATIVE_INFINITY ) );
+        assertThat( this.parser.parse( "INF" ), is( Double.POSITIVE_INFINITY ) );
+        assertThat( this.parser.valid(), is( true ) );
+    }
+
+    @Test
+    public void shouldReportInvalidTextWithoutThrowing() {
+        for ( final String text : new String[] { "", " ", "-", ".", "e5", "1e", "1e+", "1.2.3", "12a", "0x1p3", "1d", "nan",
+                        "--1" } ) {
+            assertInvalid( text );
+        }
+
+        assertInvalid( null );
+    }
+
+}
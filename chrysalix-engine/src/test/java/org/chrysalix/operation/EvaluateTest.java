@@ -0,0 +1,65 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.ModelObject;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class EvaluateTest {
+
+    private DetachedModel model;
+    private ModelObject table;
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+        this.table = this.model.addChild( "table" )[ 0 ];
+        this.table.setProperty( "rows", 40 );
+        this.table.setProperty( "pageSize", 8 );
+    }
+
+    @Test
+    public void shouldEvaluateExpressionAgainstContext() throws Exception {
+        final Evaluate evaluate = ( Evaluate ) this.model.newOperation( Evaluate.DESCRIPTOR, null );
+        evaluate.addInput( Evaluate.EXPRESSION_DESCRIPTOR.name(), "(@rows + @pageSize - 1) / @pageSize" );
+        evaluate.addInput( Evaluate.CONTEXT_DESCRIPTOR.name(), this.table );
+        assertThat( evaluate.get(), is( ( Object ) 5L ) );
+    }
+
+    @Test
+    public void shouldReportInvalidExpression() throws Exception {
+        final Evaluate evaluate = ( Evaluate ) this.model.newOperation( Evaluate.DESCRIPTOR, null );
+        evaluate.addInput( Evaluate.EXPRESSION_DESCRIPTOR.name(), "1 +" );
+        assertThat( evaluate.problems().isError(), is( true ) );
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.chrysalix.operation.Filter.Strategy;
+import org.chrysalix.transformation.ExecutionPlan;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.ModelObject;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class FilterTest {
+
+    private ModelObject columns;
+    private TransformationFactory factory;
+    private DetachedModel model;
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.factory = new TransformationFactory( mock( Modelspace.class ) );
+        this.model = this.factory.createDetachedModel();
+        this.columns = this.model.addChild( "columns" )[ 0 ];
+        this.columns.addChildOfType( "sql:column", "customer_id", "customer_name", "order_id", "order_date" );
+        this.columns.addChildOfType( "sql:index", "customer_idx" );
+        this.columns.child( "customer_id" ).setProperty( "length", 4 );
+        this.columns.child( "customer_name" ).setProperty( "length", 40L );
+        this.columns.child( "order_id" ).setProperty( "length", 8 );
+        this.columns.child( "order_date" ).setProperty( "length", 12.5D );
+    }
+
+    private Filter filter( final Object collection,
+                           final Object... optionalInputs ) throws Exception {
+        final Filter filter = ( Filter ) ( Operation< ? > ) this.model.newOperation( Filter.DESCRIPTOR, null );
+        filter.addInput( Filter.COLLECTION_DESCRIPTOR.name(), collection );
+
+        for ( int i = 0; i < optionalInputs.length; i += 2 ) {
+            filter.addInput( ( String ) optionalInputs[ i ], optionalInputs[ i + 1 ] );
+        }
+
+        return filter;
+    }
+
+    private String[] names( final ModelObject[] objects ) throws Exception {
+        final String[] names = new String[ objects.length ];
+
+        for ( int i = 0; i < objects.length; ++i ) {
+            names[ i ] = objects[ i ].name();
+        }
+
+        return names;
+    }
+
+    @Test
+    public void shouldFilterByNamePatternInRepository() throws Exception {
+        final ModelObject collection = spy( this.columns );
+        final Filter filter = filter( collection, Filter.NAME_PATTERN_DESCRIPTOR.name(), "customer_*" );
+        assertThat( filter.strategy(), is( Strategy.NAME_PATTERN ) );
+        assertThat( names( filter.get() ), is( new String[] { "customer_id", "customer_name", "customer_idx" } ) );
+        verify( collection, never() ).children();
+    }
+
+    @Test
+    public void shouldFilterByPropertyRange() throws Exception {
+        final Filter filter = filter( this.columns,
+                                      Filter.PROPERTY_DESCRIPTOR.name(), "length",
+                                      Filter.MIN_DESCRIPTOR.name(), 5,
+                                      Filter.MAX_DESCRIPTOR.name(), 20 );
+        assertThat( names( filter.get() ), is( new String[] { "order_id", "order_date" } ) );
+    }
+
+    @Test
+    public void shouldFilterByPropertyValueAndType() throws Exception {
+        assertThat( names( filter( this.columns,
+                                   Filter.PROPERTY_DESCRIPTOR.name(), "length",
+                                   Filter.VALUE_DESCRIPTOR.name(), 40 ).get() ), is( new String[] { "customer_name" } ) );
+        assertThat( filter( this.columns, Filter.TYPE_DESCRIPTOR.name(), "sql:index" ).get().length, is( 1 ) );
+    }
+
+    @Test
+    public void shouldReportStrategyInExecutionPlan() throws Exception {
+        final Filter byName = filter( this.columns, Filter.NAME_PATTERN_DESCRIPTOR.name(), "customer_*" );
+        final Filter scan = filter( this.columns, Filter.NAME_PATTERN_DESCRIPTOR.name(), "order_??" );
+        final Transformation transformation = mock( Transformation.class );
+        when( transformation.id() ).thenReturn( "/transformation" );
+        when( transformation.operations() ).thenReturn( new Operation< ? >[] { byName, scan } );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation, this.factory );
+
+        assertThat( plan.node( byName.absolutePath() ).strategy(), is( Strategy.NAME_PATTERN.name() ) );
+        assertThat( plan.node( scan.absolutePath() ).strategy(), is( Strategy.SCAN.name() ) );
+        assertThat( plan.problems().size(), is( 2 ) );
+        assertThat( plan.problems().isError(), is( false ) );
+    }
+
+    @Test
+    public void shouldReportMissingProperty() throws Exception {
+        assertThat( filter( this.columns, Filter.VALUE_DESCRIPTOR.name(), 40 ).problems().isError(), is( true ) );
+    }
+
+    @Test
+    public void shouldScanWhenPatternIsNotRepositoryPattern() throws Exception {
+        final ModelObject collection = spy( this.columns );
+        final Filter filter = filter( collection,
+                                      Filter.NAME_PATTERN_DESCRIPTOR.name(), "order_??",
+                                      Filter.TYPE_DESCRIPTOR.name(), "sql:column" );
+        assertThat( filter.strategy(), is( Strategy.SCAN ) );
+        assertThat( names( filter.get() ), is( new String[] { "order_id" } ) );
+        verify( collection, never() ).children( anyString() );
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class FormatDateTest {
+
+    private DetachedModel model;
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+    }
+
+    private FormatDate format( final Object date,
+                               final Object... optionalInputs ) throws Exception {
+        final FormatDate format = ( FormatDate ) this.model.newOperation( FormatDate.DESCRIPTOR, null );
+        format.addInput( FormatDate.DATE_DESCRIPTOR.name(), date );
+
+        for ( int i = 0; i < optionalInputs.length; i += 2 ) {
+            format.addInput( ( String ) optionalInputs[ i ], optionalInputs[ i + 1 ] );
+        }
+
+        return format;
+    }
+
+    @Test
+    public void shouldFormatAsIsoByDefault() throws Exception {
+        assertThat( format( 86400500L ).get(), is( "1970-01-02T00:00:00.500Z" ) );
+        assertThat( format( Dates.calendar( 0L, Dates.UTC ) ).get(), is( "1970-01-01T00:00:00Z" ) );
+    }
+
+    @Test
+    public void shouldFormatUsingPatternAndTimeZone() throws Exception {
+        assertThat( format( "2014-06-30T15:05:00Z",
+                            FormatDate.PATTERN_DESCRIPTOR.name(), "yyyy-MM-dd HH:mm:ss",
+                            FormatDate.TIME_ZONE_DESCRIPTOR.name(), "GMT+02:00" ).get(), is( "2014-06-30 17:05:00" ) );
+        assertThat( format( 0L, FormatDate.TIME_ZONE_DESCRIPTOR.name(), "GMT+02:00" ).get(), is( "1970-01-01T02:00:00.000+02:00" ) );
+    }
+
+    @Test
+    public void shouldReportValuesThatAreNotDates() throws Exception {
+        assertThat( format( "yesterday" ).problems().isError(), is( true ) );
+    }
+
+}
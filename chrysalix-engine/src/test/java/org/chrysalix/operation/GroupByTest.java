@@ -0,0 +1,170 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.ModelObject;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class GroupByTest {
+
+    private ModelObject columns;
+    private DetachedModel model;
+
+    private void addColumn( final String name,
+                            final String type,
+                            final Object length ) throws Exception {
+        final ModelObject column = this.columns.addChild( name )[ 0 ];
+        column.setProperty( "type", type );
+
+        if ( length != null ) {
+            column.setProperty( "length", length );
+        }
+    }
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+        this.columns = this.model.addChild( "columns" )[ 0 ];
+        addColumn( "id", "integer", 4 );
+        addColumn( "name", "string", 40 );
+        addColumn( "street", "string", 80 );
+        addColumn( "city", "string", 30 );
+        addColumn( "balance", "decimal", 12.5D );
+        addColumn( "notes", "clob", null );
+    }
+
+    private GroupBy groupBy( final Object... aggregates ) throws Exception {
+        final GroupBy groupBy = ( GroupBy ) ( Operation< ? > ) this.model.newOperation( GroupBy.DESCRIPTOR, null );
+        groupBy.addInput( GroupBy.COLLECTION_DESCRIPTOR.name(), this.columns );
+        groupBy.addInput( GroupBy.KEY_PROP_DESCRIPTOR.name(), "type" );
+        groupBy.addInput( GroupBy.VALUE_PROP_DESCRIPTOR.name(), "length" );
+
+        for ( final Object aggregate : aggregates ) {
+            groupBy.addInput( GroupBy.AGGREGATE_DESCRIPTOR.name(), aggregate );
+        }
+
+        return groupBy;
+    }
+
+    @Test
+    public void shouldComputeEachAggregatePerGroup() throws Exception {
+        @SuppressWarnings( "unchecked" ) final Map< String, Object > groups =
+            ( Map< String, Object > ) groupBy( Count.DESCRIPTOR, Average.DESCRIPTOR.id(), Max.DESCRIPTOR ).get();
+        assertThat( groups.size(), is( 4 ) );
+        assertThat( groups.keySet().iterator().next(), is( "integer" ) );
+
+        final Object[] strings = ( Object[] ) groups.get( "string" );
+        assertThat( strings[ 0 ], is( ( Object ) 3L ) );
+        assertThat( strings[ 1 ], is( ( Object ) 50L ) );
+        assertThat( strings[ 2 ], is( ( Object ) 80L ) );
+
+        final Object[] clobs = ( Object[] ) groups.get( "clob" );
+        assertThat( clobs[ 0 ], is( ( Object ) 1L ) );
+        assertThat( clobs[ 1 ], is( nullValue() ) );
+    }
+
+    @Test
+    public void shouldProduceSameGroupsWhenSpilling() throws Exception {
+        for ( int i = 0; i < 1000; ++i ) {
+            addColumn( "column" + i, "type" + ( i % 100 ), i );
+        }
+
+        final GroupBy inMemory = groupBy( Count.DESCRIPTOR, Add.DESCRIPTOR, Min.DESCRIPTOR );
+        final GroupBy spilling = groupBy( Count.DESCRIPTOR, Add.DESCRIPTOR, Min.DESCRIPTOR );
+        spilling.addInput( GroupBy.MAX_GROUPS_DESCRIPTOR.name(), 3 );
+
+        @SuppressWarnings( "unchecked" ) final Map< String, Object > expected = ( Map< String, Object > ) inMemory.get();
+        @SuppressWarnings( "unchecked" ) final Map< String, Object > actual = ( Map< String, Object > ) spilling.get();
+        assertThat( actual.size(), is( expected.size() ) );
+
+        for ( final Map.Entry< String, Object > entry : expected.entrySet() ) {
+            final Object[] expectedValues = ( Object[] ) entry.getValue();
+            final Object[] actualValues = ( Object[] ) actual.get( entry.getKey() );
+
+            for ( int i = 0; i < expectedValues.length; ++i ) {
+                assertThat( actualValues[ i ], is( expectedValues[ i ] ) );
+            }
+        }
+
+        final Object[] type7 = ( Object[] ) actual.get( "type7" );
+        assertThat( type7[ 0 ], is( ( Object ) 10L ) );
+        assertThat( type7[ 1 ], is( ( Object ) 4570L ) );
+        assertThat( type7[ 2 ], is( ( Object ) 7L ) );
+    }
+
+    @Test
+    public void shouldSpillGroupsWithKeysLongerThanModifiedUtf8Allows() throws Exception {
+        final StringBuilder key = new StringBuilder();
+
+        while ( key.length() <= 0x10000 ) {
+            key.append( "long\u00e9" );
+        }
+
+        addColumn( "long1", key.toString(), 1 );
+        addColumn( "long2", key.toString(), 2 );
+        final GroupBy groupBy = groupBy( Count.DESCRIPTOR, Add.DESCRIPTOR );
+        groupBy.addInput( GroupBy.MAX_GROUPS_DESCRIPTOR.name(), 1 );
+
+        @SuppressWarnings( "unchecked" ) final Map< String, Object > groups = ( Map< String, Object > ) groupBy.get();
+        assertThat( groups.size(), is( 5 ) );
+        final Object[] values = ( Object[] ) groups.get( key.toString() );
+        assertThat( values[ 0 ], is( ( Object ) 2L ) );
+        assertThat( values[ 1 ], is( ( Object ) 3L ) );
+    }
+
+    @Test
+    public void shouldReportUnsupportedAggregate() throws Exception {
+        final GroupBy groupBy = groupBy( Count.DESCRIPTOR, Median.DESCRIPTOR );
+        assertThat( groupBy.problems().isError(), is( true ) );
+        assertThat( groupBy( Count.DESCRIPTOR ).problems().isError(), is( false ) );
+    }
+
+    @Test
+    public void shouldReturnAggregateOfRequestedGroup() throws Exception {
+        final GroupBy groupBy = groupBy( Add.DESCRIPTOR.name() );
+        groupBy.addInput( GroupBy.GROUP_DESCRIPTOR.name(), "string" );
+        assertThat( groupBy.get(), is( ( Object ) 150L ) );
+
+        final GroupBy decimals = groupBy( Add.DESCRIPTOR );
+        decimals.addInput( GroupBy.GROUP_DESCRIPTOR.name(), "decimal" );
+        assertThat( decimals.get(), is( ( Object ) 12.5D ) );
+
+        final GroupBy missing = groupBy( Add.DESCRIPTOR );
+        missing.addInput( GroupBy.GROUP_DESCRIPTOR.name(), "blob" );
+        assertThat( missing.get(), is( nullValue() ) );
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+@SuppressWarnings( "javadoc" )
+public final class HyperLogLogTest {
+
+    @Test
+    public void shouldCountNumbersOfDifferentTypesOnce() {
+        final HyperLogLog sketch = new HyperLogLog( HyperLogLog.DEFAULT_PRECISION );
+        sketch.add( 40 );
+        sketch.add( 40L );
+        sketch.add( 40.0D );
+        sketch.add( "40" );
+        sketch.add( 2.5F );
+        assertThat( sketch.estimate(), is( 3L ) );
+    }
+
+    @Test
+    public void shouldEstimateManyDistinctValuesWithinError() {
+        final HyperLogLog sketch = new HyperLogLog( HyperLogLog.DEFAULT_PRECISION );
+
+        for ( int i = 0; i < 1000000; ++i ) {
+            sketch.add( "value" + ( i % 500000 ) );
+        }
+
+        assertThat( Math.abs( sketch.estimate() - 500000 ) < ( 500000 * 0.03 ), is( true ) );
+    }
+
+    @Test
+    public void shouldMergeSketchesIntoUnion() {
+        final HyperLogLog first = new HyperLogLog( 12 );
+        final HyperLogLog second = new HyperLogLog( 12 );
+        final HyperLogLog union = new HyperLogLog( 12 );
+
+        for ( int i = 0; i < 30000; ++i ) {
+            first.add( i );
+            second.add( i + 20000 );
+            union.add( i );
+            union.add( i + 20000 );
+        }
+
+        first.merge( second );
+        assertThat( first.estimate(), is( union.estimate() ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldNotAllowPrecisionOutOfRange() {
+        new HyperLogLog( HyperLogLog.MAX_PRECISION + 1 );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldNotMergeSketchesOfDifferentPrecision() {
+        new HyperLogLog( 10 ).merge( new HyperLogLog( 11 ) );
+    }
+
+}
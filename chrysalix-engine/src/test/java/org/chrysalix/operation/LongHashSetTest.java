@@ -0,0 +1,60 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+@SuppressWarnings( "javadoc" )
+public final class LongHashSetTest {
+
+    @Test
+    public void shouldAddEachValueOnce() {
+        final LongHashSet set = new LongHashSet( 0 );
+        assertThat( set.add( 0 ), is( true ) );
+        assertThat( set.add( 0 ), is( false ) );
+        assertThat( set.add( -1 ), is( true ) );
+        assertThat( set.add( Long.MIN_VALUE ), is( true ) );
+        assertThat( set.add( -1 ), is( false ) );
+        assertThat( set.size(), is( 3 ) );
+    }
+
+    @Test
+    public void shouldGrowToHoldManyValues() {
+        final LongHashSet set = new LongHashSet( 0 );
+
+        for ( long i = 0; i < 100000; ++i ) {
+            assertThat( set.add( i * 1024 ), is( true ) );
+        }
+
+        for ( long i = 0; i < 100000; ++i ) {
+            assertThat( set.add( i * 1024 ), is( false ) );
+        }
+
+        assertThat( set.size(), is( 100000 ) );
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.chrysalix.transformation.ExecutionContext;
+import org.chrysalix.transformation.ExecutionPlan;
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.Transformation;
+import org.chrysalix.transformation.TransformationExecutor;
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.ModelObject;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class LookupTest {
+
+    private DetachedModel model;
+    private ModelObject tables;
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+        this.tables = this.model.addChild( "tables" )[ 0 ];
+        this.tables.addChild( "Customer", "Order", "Invoice" );
+        this.tables.child( "Customer" ).setProperty( "schema", "sales" );
+        this.tables.child( "Order" ).setProperty( "schema", "sales" );
+        this.tables.child( "Invoice" ).setProperty( "schema", "billing" );
+    }
+
+    private Lookup lookup( final Object collection,
+                           final Object key,
+                           final Object... optionalInputs ) throws Exception {
+        final Lookup lookup = ( Lookup ) ( Operation< ? > ) this.model.newOperation( Lookup.DESCRIPTOR, null );
+        lookup.addInput( Lookup.COLLECTION_DESCRIPTOR.name(), collection );
+        lookup.addInput( Lookup.KEY_DESCRIPTOR.name(), key );
+
+        for ( int i = 0; i < optionalInputs.length; i += 2 ) {
+            lookup.addInput( ( String ) optionalInputs[ i ], optionalInputs[ i + 1 ] );
+        }
+
+        return lookup;
+    }
+
+    @Test
+    public void shouldFindAllMatchesByKeyProperty() throws Exception {
+        final Lookup lookup = lookup( this.tables, "sales",
+                                      Lookup.KEY_PROP_DESCRIPTOR.name(), "schema",
+                                      Lookup.MULTIPLE_DESCRIPTOR.name(), true );
+        final Object[] matches = ( Object[] ) lookup.get();
+        assertThat( matches.length, is( 2 ) );
+        assertThat( matches[ 0 ], is( sameInstance( ( Object ) this.tables.child( "Customer" ) ) ) );
+        assertThat( matches[ 1 ], is( sameInstance( ( Object ) this.tables.child( "Order" ) ) ) );
+        assertThat( ( ( Object[] ) lookup( this.tables, "hr",
+                                           Lookup.KEY_PROP_DESCRIPTOR.name(), "schema",
+                                           Lookup.MULTIPLE_DESCRIPTOR.name(), true ).get() ).length, is( 0 ) );
+    }
+
+    @Test
+    public void shouldFindChildByName() throws Exception {
+        assertThat( lookup( this.tables, "Order" ).get(), is( sameInstance( ( Object ) this.tables.child( "Order" ) ) ) );
+        assertThat( lookup( this.tables, "Shipment" ).get(), is( nullValue() ) );
+    }
+
+    @Test
+    public void shouldIgnoreCaseWhenRequested() throws Exception {
+        assertThat( lookup( this.tables, "invoice" ).get(), is( nullValue() ) );
+        assertThat( lookup( this.tables, "invoice", Lookup.CASE_INSENSITIVE_DESCRIPTOR.name(), true ).get(),
+                    is( sameInstance( ( Object ) this.tables.child( "Invoice" ) ) ) );
+    }
+
+    @Test
+    public void shouldIndexCollectionOncePerExecution() throws Exception {
+        final ModelObject collection = mock( ModelObject.class );
+        when( collection.absolutePath() ).thenReturn( "/tables" );
+        when( collection.children() ).thenReturn( this.tables.children() );
+        final Lookup customer = lookup( collection, "Customer" );
+        final Lookup invoice = lookup( collection, "Invoice" );
+
+        final Transformation transformation = mock( Transformation.class );
+        when( transformation.id() ).thenReturn( "/transformation" );
+        when( transformation.operations() ).thenReturn( new Operation< ? >[] { customer, invoice } );
+
+        try ( final TransformationExecutor executor = new TransformationExecutor() ) {
+            final ExecutionContext context = executor.execute( ExecutionPlan.compile( transformation ) );
+            final Object match = context.result( invoice.absolutePath() );
+            assertThat( match, is( sameInstance( ( Object ) this.tables.child( "Invoice" ) ) ) );
+        }
+
+        verify( collection, times( 1 ) ).children();
+    }
+
+    @Test
+    public void shouldReturnValueProperty() throws Exception {
+        final Lookup lookup = lookup( this.tables, "Invoice", Lookup.VALUE_PROP_DESCRIPTOR.name(), "schema" );
+        assertThat( lookup.get(), is( ( Object ) "billing" ) );
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+@SuppressWarnings( "javadoc" )
+public final class NumberFrequenciesTest {
+
+    @Test
+    public void shouldCountWholeNumbersByValueRegardlessOfType() {
+        final NumberFrequencies frequencies = new NumberFrequencies();
+        frequencies.add( 10 );
+        frequencies.add( 10L );
+        frequencies.add( 10.0D );
+        assertThat( frequencies.distinct(), is( 1 ) );
+        assertThat( frequencies.modes(), is( new Number[] { 10 } ) );
+    }
+
+    @Test
+    public void shouldFindModesInFirstSeenOrder() {
+        final NumberFrequencies frequencies = new NumberFrequencies();
+
+        for ( final Number value : new Number[] { 12.34D, 10, 25, 10, -0.12F, 12.34D } ) {
+            frequencies.add( value );
+        }
+
+        assertThat( frequencies.total(), is( 6L ) );
+        assertThat( frequencies.modes(), is( new Number[] { 12.34D, 10 } ) );
+    }
+
+    @Test
+    public void shouldGrowPastInitialCapacity() {
+        final NumberFrequencies frequencies = new NumberFrequencies();
+
+        for ( int i = 0; i < 100000; ++i ) {
+            frequencies.add( i );
+        }
+
+        assertThat( frequencies.add( 99999 ), is( 2 ) );
+        assertThat( frequencies.add( 0.5D ), is( 1 ) );
+        assertThat( frequencies.distinct(), is( 100001 ) );
+        assertThat( frequencies.modes(), is( new Number[] { 99999 } ) );
+    }
+
+    @Test
+    public void shouldNotFindModeWhenAllValuesUnique() {
+        final NumberFrequencies frequencies = new NumberFrequencies();
+        frequencies.add( 1 );
+        frequencies.add( 1.5D );
+        frequencies.add( Double.NaN );
+        assertThat( frequencies.modes().length, is( 0 ) );
+    }
+
+}
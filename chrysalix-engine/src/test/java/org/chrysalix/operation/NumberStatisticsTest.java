@@ -0,0 +1,92 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+@SuppressWarnings( "javadoc" )
+public final class NumberStatisticsTest {
+
+    @Test
+    public void shouldKeepIntegralResultsWhenAllValuesIntegral() {
+        final NumberStatistics statistics = new NumberStatistics();
+        statistics.add( 10 );
+        statistics.add( ( short ) 25 );
+        statistics.add( -18L );
+        assertThat( statistics.count(), is( 3L ) );
+        assertThat( statistics.integral(), is( true ) );
+        assertThat( statistics.min(), is( ( Number ) ( -18L ) ) );
+        assertThat( statistics.max(), is( ( Number ) 25L ) );
+        assertThat( statistics.mean(), is( ( Number ) 5L ) );
+        assertThat( statistics.sum(), is( ( Number ) 17L ) );
+    }
+
+    @Test
+    public void shouldNotHaveResultsWhenEmpty() {
+        final NumberStatistics statistics = new NumberStatistics();
+        assertThat( statistics.count(), is( 0L ) );
+        assertThat( statistics.min(), is( nullValue() ) );
+        assertThat( statistics.max(), is( nullValue() ) );
+        assertThat( statistics.mean(), is( nullValue() ) );
+        assertThat( statistics.sum(), is( nullValue() ) );
+    }
+
+    @Test
+    public void shouldNotOverflowMeanOfLargeIntegralValues() {
+        final NumberStatistics statistics = new NumberStatistics();
+        statistics.add( Long.MAX_VALUE );
+        statistics.add( Long.MAX_VALUE );
+        assertThat( statistics.mean(), is( ( Number ) ( double ) Long.MAX_VALUE ) );
+        assertThat( statistics.max(), is( ( Number ) Long.MAX_VALUE ) );
+        assertThat( statistics.sum(), is( ( Number ) ( 2.0D * Long.MAX_VALUE ) ) );
+    }
+
+    @Test
+    public void shouldPromoteToDoubleWhenValueNotIntegral() {
+        final NumberStatistics statistics = new NumberStatistics();
+        statistics.add( 10 );
+        statistics.add( 12.34D );
+        statistics.add( 25 );
+        assertThat( statistics.integral(), is( false ) );
+        assertThat( statistics.min(), is( ( Number ) 10.0D ) );
+        assertThat( statistics.max(), is( ( Number ) 25.0D ) );
+        assertThat( statistics.mean().doubleValue(), is( ( 10 + 12.34D + 25 ) / 3 ) );
+    }
+
+    @Test
+    public void shouldStreamManyValuesAccurately() {
+        final NumberStatistics statistics = new NumberStatistics();
+
+        for ( int i = 0; i < 1000000; ++i ) {
+            statistics.add( 1.0E9D + ( i % 2 ) );
+        }
+
+        assertThat( Math.abs( statistics.mean().doubleValue() - ( 1.0E9D + 0.5D ) ) < 1.0E-6D, is( true ) );
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Calendar;
+
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class ParseDateTest {
+
+    private DetachedModel model;
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+    }
+
+    private ParseDate parse( final String input,
+                             final Object... optionalInputs ) throws Exception {
+        final ParseDate parse = ( ParseDate ) this.model.newOperation( ParseDate.DESCRIPTOR, null );
+        parse.addInput( ParseDate.INPUT_DESCRIPTOR.name(), input );
+
+        for ( int i = 0; i < optionalInputs.length; i += 2 ) {
+            parse.addInput( ( String ) optionalInputs[ i ], optionalInputs[ i + 1 ] );
+        }
+
+        return parse;
+    }
+
+    @Test
+    public void shouldParseIsoTextToMillis() throws Exception {
+        assertThat( parse( "1970-01-02T00:00:00.5Z" ).get(), is( ( Object ) 86400500L ) );
+    }
+
+    @Test
+    public void shouldParsePatternToCalendar() throws Exception {
+        final Object result = parse( "30.06.2014 17:05",
+                                     ParseDate.PATTERN_DESCRIPTOR.name(), "dd.MM.yyyy HH:mm",
+                                     ParseDate.TIME_ZONE_DESCRIPTOR.name(), "GMT+02:00",
+                                     ParseDate.CALENDAR_DESCRIPTOR.name(), true ).get();
+        assertThat( ( ( Calendar ) result ).getTimeInMillis(), is( Dates.parseIso( "2014-06-30T15:05:00Z" ) ) );
+        assertThat( ( ( Calendar ) result ).get( Calendar.HOUR_OF_DAY ), is( 17 ) );
+    }
+
+    @Test
+    public void shouldReportTextThatCannotBeParsed() throws Exception {
+        assertThat( parse( "30.06.2014" ).problems().isError(), is( true ) );
+        assertThat( parse( "30.06.2014", ParseDate.PATTERN_DESCRIPTOR.name(), "dd.MM.yyyy HH:mm" ).problems().isError(), is( true ) );
+        assertThat( parse( "30.06.2014", ParseDate.PATTERN_DESCRIPTOR.name(), "qq" ).problems().isError(), is( true ) );
+    }
+
+}
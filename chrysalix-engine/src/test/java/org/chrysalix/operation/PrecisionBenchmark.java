@@ -0,0 +1,98 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.mockito.Mockito.mock;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.transformation.Precision;
+import org.chrysalix.transformation.TransformationFactory;
+import org.chrysalix.transformation.Value;
+import org.modelspace.Modelspace;
+
+/**
+ * Compares the cost of the numeric aggregates in each {@link Precision precision} mode. It is not run by the build; run it with
+ * the test class path and, optionally, the number of terms and rounds as arguments.
+ */
+@SuppressWarnings( "javadoc" )
+public final class PrecisionBenchmark {
+
+    private static final int ROUNDS = 20;
+    private static final int TERMS = 100000;
+
+    // the mixed mode computes the aggregates through number statistics
+    private static NumberStatistics mixed( final Value< ? >[] terms ) throws ChrysalixException {
+        final NumberStatistics statistics = new NumberStatistics();
+
+        for ( final Value< ? > term : terms ) {
+            statistics.add( ( Number ) term.get() );
+        }
+
+        return statistics;
+    }
+
+    public static void main( final String[] args ) throws Exception {
+        final int count = ( ( args.length > 0 ) ? Integer.parseInt( args[ 0 ] ) : TERMS );
+        final int rounds = ( ( args.length > 1 ) ? Integer.parseInt( args[ 1 ] ) : ROUNDS );
+        final TransformationFactory factory = new TransformationFactory( mock( Modelspace.class ) );
+        final java.util.Random random = new java.util.Random( 42 );
+        final Value< ? >[] terms = new Value< ? >[ count ];
+
+        for ( int i = 0; i < count; ++i ) {
+            final Number term = ( ( ( i & 1 ) == 0 ) ? ( Number ) random.nextLong() : ( Number ) random.nextDouble() );
+            terms[ i ] = factory.createDetachedValue( Add.TERM_DESCRIPTOR, term );
+        }
+
+        final Precision[] precisions = { Precision.MIXED, Precision.DOUBLE, Precision.DECIMAL };
+
+        // the first pass only warms up the JIT compiler
+        for ( int pass = 0; pass < 2; ++pass ) {
+            for ( final Precision precision : precisions ) {
+                long mean = 0;
+                long max = 0;
+                Object sink = null;
+
+                for ( int round = 0; round < rounds; ++round ) {
+                    long start = System.nanoTime();
+                    final boolean mixed = ( precision.mode() == Precision.Mode.MIXED );
+                    sink = ( mixed ? mixed( terms ).mean() : Arithmetic.mean( terms, precision ) );
+                    mean += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    sink = ( mixed ? mixed( terms ).max() : Arithmetic.max( terms, precision ) );
+                    max += System.nanoTime() - start;
+                }
+
+                if ( pass == 1 ) {
+                    System.out.printf( "%-8s mean %8.1f ns/term   max %8.1f ns/term   (last result %s)%n",
+                                       precision.mode(),
+                                       ( double ) mean / rounds / count,
+                                       ( double ) max / rounds / count,
+                                       sink );
+                }
+            }
+        }
+    }
+
+}
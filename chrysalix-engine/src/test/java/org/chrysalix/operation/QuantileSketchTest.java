@@ -0,0 +1,81 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings( "javadoc" )
+public final class QuantileSketchTest {
+
+    @Test
+    public void shouldBeExactForFewValues() {
+        final QuantileSketch sketch = new QuantileSketch( 0.5D );
+        sketch.add( 3 );
+        sketch.add( 1 );
+        sketch.add( 2 );
+        assertThat( sketch.estimate(), is( 2.0D ) );
+        sketch.add( 4 );
+        assertThat( sketch.estimate(), is( 2.5D ) );
+    }
+
+    @Test
+    public void shouldEstimateMedianOfManyValues() {
+        final Random random = new Random( 11 );
+        final QuantileSketch sketch = new QuantileSketch( 0.5D );
+
+        for ( int i = 0; i < 100000; ++i ) {
+            sketch.add( random.nextDouble() * 1000 );
+        }
+
+        assertThat( sketch.count(), is( 100000L ) );
+        assertThat( Math.abs( sketch.estimate() - 500 ) < 10, is( true ) );
+    }
+
+    @Test
+    public void shouldEstimateUpperQuantile() {
+        final QuantileSketch sketch = new QuantileSketch( 0.9D );
+
+        for ( int i = 1; i <= 10000; ++i ) {
+            sketch.add( ( i * 7919 ) % 10000 );
+        }
+
+        assertThat( Math.abs( sketch.estimate() - 9000 ) < 100, is( true ) );
+    }
+
+    @Test
+    public void shouldNotHaveEstimateWhenEmpty() {
+        assertThat( Double.isNaN( new QuantileSketch( 0.5D ).estimate() ), is( true ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldNotAllowQuantileOutOfRange() {
+        new QuantileSketch( 1.5D );
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Test;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class ReplaceTest {
+
+    @Test
+    public void shouldReplaceAllMatchesUsingGroups() throws Exception {
+        final DetachedModel model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+        final Replace replace = ( Replace ) model.newOperation( Replace.DESCRIPTOR, null );
+        replace.addInput( Replace.INPUT_DESCRIPTOR.name(), "orderLineItem" );
+        replace.addInput( Replace.PATTERN_DESCRIPTOR.name(), "([a-z])([A-Z])" );
+        replace.addInput( Replace.REPLACEMENT_DESCRIPTOR.name(), "$1_$2" );
+        assertThat( replace.get(), is( "order_Line_Item" ) );
+    }
+
+}
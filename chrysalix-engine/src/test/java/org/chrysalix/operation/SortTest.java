@@ -0,0 +1,120 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.chrysalix.transformation.Operation;
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.ModelObject;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class SortTest {
+
+    private ModelObject columns;
+    private DetachedModel model;
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+        this.columns = this.model.addChild( "columns" )[ 0 ];
+    }
+
+    private Sort sort( final Object... optionalInputs ) throws Exception {
+        final Sort sort = ( Sort ) ( Operation< ? > ) this.model.newOperation( Sort.DESCRIPTOR, null );
+        sort.addInput( Sort.COLLECTION_DESCRIPTOR.name(), this.columns );
+
+        for ( int i = 0; i < optionalInputs.length; i += 2 ) {
+            sort.addInput( ( String ) optionalInputs[ i ], optionalInputs[ i + 1 ] );
+        }
+
+        return sort;
+    }
+
+    @Test
+    public void shouldSortChildNamesInMemory() throws Exception {
+        this.columns.addChild( "street", "city", "name", "id" );
+        final Sort sort = sort();
+        assertThat( sort.get(), is( new Object[] { "city", "id", "name", "street" } ) );
+        assertThat( sort.spilledRuns(), is( 0 ) );
+        assertThat( sort( Sort.DESCENDING_DESCRIPTOR.name(), true ).get(),
+                    is( new Object[] { "street", "name", "id", "city" } ) );
+    }
+
+    @Test
+    public void shouldSortExternallyAboveThreshold() throws Exception {
+        final java.util.Random random = new java.util.Random( 42 );
+
+        for ( int i = 0; i < 1000; ++i ) {
+            this.columns.addChild( "column" + i )[ 0 ].setProperty( "length", random.nextInt( 500 ) );
+        }
+
+        final Object[] expected = sort( Sort.VALUE_PROP_DESCRIPTOR.name(), "length" ).get();
+        final Sort sort = sort( Sort.VALUE_PROP_DESCRIPTOR.name(), "length", Sort.THRESHOLD_DESCRIPTOR.name(), 7 );
+        assertThat( sort.get(), is( expected ) );
+        assertThat( sort.spilledRuns(), is( 143 ) );
+        assertThat( sort.spilledValues(), is( 1000L ) );
+
+        for ( int i = 1; i < expected.length; ++i ) {
+            assertThat( ( Integer ) expected[ i - 1 ] <= ( Integer ) expected[ i ], is( true ) );
+        }
+    }
+
+    @Test
+    public void shouldKeepCollectionOrderOfEqualValuesWhenDescending() throws Exception {
+        final Object[] lengths = { 7, 3L, 7.0D, 9, 3.0D, 7L, 3 };
+
+        for ( int i = 0; i < lengths.length; ++i ) {
+            this.columns.addChild( "column" + i )[ 0 ].setProperty( "length", lengths[ i ] );
+        }
+
+        final Object[] expected = { 9, 7, 7.0D, 7L, 3L, 3.0D, 3 };
+        assertThat( sort( Sort.VALUE_PROP_DESCRIPTOR.name(), "length", Sort.DESCENDING_DESCRIPTOR.name(), true ).get(),
+                    is( expected ) );
+        assertThat( sort( Sort.VALUE_PROP_DESCRIPTOR.name(),
+                          "length",
+                          Sort.DESCENDING_DESCRIPTOR.name(),
+                          true,
+                          Sort.THRESHOLD_DESCRIPTOR.name(),
+                          2 ).get(), is( expected ) );
+    }
+
+    @Test
+    public void shouldSortNumbersBeforeStrings() throws Exception {
+        this.columns.addChild( "a", "b", "c", "d", "e" );
+        this.columns.child( "a" ).setProperty( "length", "varies" );
+        this.columns.child( "b" ).setProperty( "length", 40L );
+        this.columns.child( "c" ).setProperty( "length", 2.5D );
+        this.columns.child( "d" ).setProperty( "length", -3 );
+        this.columns.child( "e" ).setProperty( "length", ( short ) 7 );
+        assertThat( sort( Sort.VALUE_PROP_DESCRIPTOR.name(), "length" ).get(),
+                    is( new Object[] { -3, 2.5D, 7.0D, 40L, "varies" } ) );
+    }
+
+}
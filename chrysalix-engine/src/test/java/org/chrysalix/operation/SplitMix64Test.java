@@ -0,0 +1,60 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+@SuppressWarnings( "javadoc" )
+public final class SplitMix64Test {
+
+    @Test
+    public void shouldDrawDoublesBetweenZeroAndOne() {
+        final SplitMix64 random = new SplitMix64( 42L );
+
+        for ( int i = 0; i < 100000; ++i ) {
+            final double value = random.nextDouble();
+            assertThat( ( value >= 0.0 ) && ( value < 1.0 ), is( true ) );
+        }
+    }
+
+    @Test
+    public void shouldMatchReferenceImplementation() {
+        final SplitMix64 random = new SplitMix64( 1234567L );
+        assertThat( random.nextLong(), is( 6457827717110365317L ) );
+        assertThat( random.nextLong(), is( 3203168211198807973L ) );
+    }
+
+    @Test
+    public void shouldSplitIndependentStreamsByName() {
+        final SplitMix64 random = new SplitMix64( 42L );
+        assertThat( random.split( "/a" ).nextLong(), is( random.split( "/a" ).nextLong() ) );
+        assertThat( random.split( "/a" ).nextLong(), is( not( random.split( "/b" ).nextLong() ) ) );
+        assertThat( random.split( "/a" ).nextLong(), is( not( new SplitMix64( 43L ).split( "/a" ).nextLong() ) ) );
+    }
+
+}
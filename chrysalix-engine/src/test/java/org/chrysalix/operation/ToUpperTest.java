@@ -0,0 +1,67 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.chrysalix.transformation.TransformationFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class ToUpperTest {
+
+    private DetachedModel model;
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.model = new TransformationFactory( mock( Modelspace.class ) ).createDetachedModel();
+    }
+
+    private String toUpper( final String input,
+                            final String... locale ) throws Exception {
+        final ToUpper toUpper = ( ToUpper ) this.model.newOperation( ToUpper.DESCRIPTOR, null );
+        toUpper.addInput( ToUpper.INPUT_DESCRIPTOR.name(), input );
+
+        if ( locale.length != 0 ) {
+            toUpper.addInput( ToUpper.LOCALE_DESCRIPTOR.name(), ( Object[] ) locale );
+        }
+
+        return toUpper.get();
+    }
+
+    @Test
+    public void shouldConvertIndependentlyOfDefaultLocale() throws Exception {
+        assertThat( toUpper( "line_item" ), is( "LINE_ITEM" ) );
+    }
+
+    @Test
+    public void shouldConvertUsingLocale() throws Exception {
+        assertThat( toUpper( "id", "tr" ), is( "\u0130D" ) );
+    }
+
+}
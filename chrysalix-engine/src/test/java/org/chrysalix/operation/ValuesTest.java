@@ -0,0 +1,52 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.operation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+@SuppressWarnings( "javadoc" )
+public final class ValuesTest {
+
+    @Test
+    public void shouldConvertPatterns() {
+        assertThat( Values.glob( "e*" ).matcher( "element" ).matches(), is( true ) );
+        assertThat( Values.glob( "e?" ).matcher( "e1" ).matches(), is( true ) );
+        assertThat( Values.glob( "e?" ).matcher( "e12" ).matches(), is( false ) );
+        assertThat( Values.glob( "a.b*" ).matcher( "axb" ).matches(), is( false ) );
+        assertThat( Values.glob( "a.b*" ).matcher( "a.bc" ).matches(), is( true ) );
+    }
+
+    @Test
+    public void shouldOrderNullsThenNumbersThenStrings() {
+        final Object[] values = { "b", 2.5, null, Long.MAX_VALUE, "a", Long.MAX_VALUE - 1, 1 };
+        Arrays.sort( values, Values.ORDER );
+        assertThat( values, is( new Object[] { null, 1, 2.5, Long.MAX_VALUE - 1, Long.MAX_VALUE, "a", "b" } ) );
+    }
+
+}
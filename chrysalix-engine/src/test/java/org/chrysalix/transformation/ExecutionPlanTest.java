@@ -0,0 +1,336 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixLexicon;
+import org.chrysalix.operation.Add;
+import org.chrysalix.operation.BulkMap;
+import org.chrysalix.operation.Map;
+import org.chrysalix.operation.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.modelspace.Model;
+import org.modelspace.ModelObject;
+import org.modelspace.ModelProperty;
+import org.modelspace.Modelspace;
+import org.modelspace.PropertyDescriptor;
+
+@SuppressWarnings( { "javadoc", "unchecked" } )
+public final class ExecutionPlanTest {
+
+    static Modelspace MODELSPACE;
+    static TransformationFactory FACTORY;
+
+    @BeforeClass
+    public static void initializeFactory() {
+        MODELSPACE = mock( Modelspace.class );
+        FACTORY = new TransformationFactory( MODELSPACE );
+    }
+
+    static Operation< Object > operation( final String path,
+                                          final Value< ? >... inputs ) throws Exception {
+        return operation( path, Add.DESCRIPTOR.id(), inputs );
+    }
+
+    static Operation< Object > operation( final String path,
+                                          final String descriptorId,
+                                          final Value< ? >... inputs ) throws Exception {
+        final Operation< Object > operation = mock( Operation.class );
+        when( operation.descriptorId() ).thenReturn( descriptorId );
+        when( operation.absolutePath() ).thenReturn( path );
+        when( operation.modelRelativePath() ).thenReturn( path.substring( path.lastIndexOf( '/' ) + 1 ) );
+        when( operation.inputs() ).thenReturn( inputs );
+        return operation;
+    }
+
+    static Value< ? > literal( final Object literal ) throws Exception {
+        final ModelObject modelObject = mock( ModelObject.class );
+        final ModelProperty path = mock( ModelProperty.class );
+        final ModelProperty value = mock( ModelProperty.class );
+        when( modelObject.hasProperty( ChrysalixLexicon.Input.PATH ) ).thenReturn( true );
+        when( modelObject.property( ChrysalixLexicon.Input.PATH ) ).thenReturn( path );
+        when( modelObject.hasProperty( ChrysalixLexicon.Input.VALUE ) ).thenReturn( true );
+        when( modelObject.property( ChrysalixLexicon.Input.VALUE ) ).thenReturn( value );
+        when( path.booleanValue() ).thenReturn( false );
+        when( value.value() ).thenReturn( literal );
+        when( value.stringValue() ).thenReturn( String.valueOf( literal ) );
+
+        final Value< Object > input = mock( Value.class );
+        when( input.modelObect() ).thenReturn( modelObject );
+        when( input.get() ).thenReturn( literal );
+        return input;
+    }
+
+    static Value< ? > reference( final String referencedPath ) throws Exception {
+        final ModelObject modelObject = mock( ModelObject.class );
+        final ModelProperty path = mock( ModelProperty.class );
+        final ModelProperty value = mock( ModelProperty.class );
+        when( modelObject.hasProperty( ChrysalixLexicon.Input.PATH ) ).thenReturn( true );
+        when( modelObject.property( ChrysalixLexicon.Input.PATH ) ).thenReturn( path );
+        when( modelObject.hasProperty( ChrysalixLexicon.Input.VALUE ) ).thenReturn( true );
+        when( modelObject.property( ChrysalixLexicon.Input.VALUE ) ).thenReturn( value );
+        when( path.booleanValue() ).thenReturn( true );
+        when( value.stringValue() ).thenReturn( referencedPath );
+
+        final Value< Object > input = mock( Value.class );
+        when( input.modelObect() ).thenReturn( modelObject );
+        return input;
+    }
+
+    static Transformation registered( final Transformation transformation ) throws Exception {
+        final Model model = mock( Model.class );
+        when( model.modelspace() ).thenReturn( MODELSPACE );
+        when( transformation.model() ).thenReturn( model );
+        return transformation;
+    }
+
+    static Transformation transformation( final Operation< ? >... operations ) throws Exception {
+        final Transformation transformation = mock( Transformation.class );
+        when( transformation.id() ).thenReturn( "/transformation" );
+        when( transformation.operations() ).thenReturn( operations );
+        return transformation;
+    }
+
+    @Test
+    public void shouldFindOperationsAffectedByChangedSources() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", reference( "/model/object/prop" ) );
+        final Operation< Object > b = operation( "/transformation/b", reference( "other/prop" ) );
+        final Operation< Object > c = operation( "/transformation/c", reference( "/transformation/a" ), literal( 1 ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( c, b, a ) );
+
+        assertThat( plan.sources().size(), is( 2 ) );
+        assertThat( plan.node( "/transformation/a" ).dependents().size(), is( 1 ) );
+        assertThat( plan.affected( Arrays.asList( "/model/object/prop" ) ).size(), is( 2 ) );
+        assertThat( plan.affected( Arrays.asList( "/model/object/prop" ) ).get( 0 ).key(), is( "/transformation/a" ) );
+        assertThat( plan.affected( Arrays.asList( "/model/object/prop" ) ).get( 1 ).key(), is( "/transformation/c" ) );
+        assertThat( plan.affected( Arrays.asList( "/model/object" ) ).size(), is( 2 ) );
+        assertThat( plan.affected( Arrays.asList( "/model/objects" ) ).isEmpty(), is( true ) );
+        assertThat( plan.affected( Arrays.asList( "/model/other/prop" ) ).size(), is( 1 ) );
+        assertThat( plan.affected( Arrays.asList( "/model/other/prop" ) ).get( 0 ).key(), is( "/transformation/b" ) );
+        assertThat( plan.affected( Collections.< String >emptyList() ).isEmpty(), is( true ) );
+    }
+
+    @Test
+    public void shouldFindNonDeterministicOperationsAffectedByAnyChange() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", BulkMap.DESCRIPTOR.id(), literal( "coll" ) );
+        final Operation< Object > b = operation( "/transformation/b", reference( "/model/object/prop" ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( registered( transformation( a, b ) ) );
+        assertThat( plan.affected( Arrays.asList( "/model/coll/child/prop" ) ).size(), is( 1 ) );
+        assertThat( plan.affected( Arrays.asList( "/model/coll/child/prop" ) ).get( 0 ).key(), is( "/transformation/a" ) );
+        assertThat( plan.affected( Arrays.asList( "/model/object/prop" ) ).size(), is( 2 ) );
+        assertThat( plan.affected( Collections.< String >emptyList() ).isEmpty(), is( true ) );
+    }
+
+    @Test
+    public void shouldFindOperationsReadingObjectsAboveChangedPaths() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", reference( "/model/object" ) );
+        final Operation< Object > b = operation( "/transformation/b", reference( "/model/objects/prop" ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( a, b ) );
+        assertThat( plan.affected( Arrays.asList( "/model/object/child/prop" ) ).size(), is( 1 ) );
+        assertThat( plan.affected( Arrays.asList( "/model/object/child/prop" ) ).get( 0 ).key(), is( "/transformation/a" ) );
+        assertThat( plan.affected( Arrays.asList( "/model/objects/other" ) ).isEmpty(), is( true ) );
+        assertThat( plan.affected( Arrays.asList( "/model" ) ).size(), is( 2 ) );
+    }
+
+    @Test
+    public void shouldFindNodesByAbsoluteAndRelativePath() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", literal( 1 ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( a ) );
+        assertThat( plan.node( "/transformation/a" ).operation(), is( sameInstance( ( Object ) a ) ) );
+        assertThat( plan.node( "a" ).operation(), is( sameInstance( ( Object ) a ) ) );
+        assertThat( plan.node( "/transformation/b" ), is( nullValue() ) );
+        assertThat( plan.node( null ), is( nullValue() ) );
+    }
+
+    @Test
+    public void shouldFoldLiteralOnlyOperations() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", literal( 1L ), literal( 2L ) );
+        final Operation< Object > b = operation( "/transformation/b", reference( "/transformation/a" ), literal( 3L ) );
+        final Operation< Object > c = operation( "/transformation/c", reference( "/transformation/b" ), reference( "/model/prop" ) );
+        when( a.get() ).thenReturn( 3L );
+        when( b.get() ).thenReturn( 6L );
+        final ExecutionPlan plan = ExecutionPlan.compile( registered( transformation( c, b, a ) ) );
+
+        assertThat( plan.folded().size(), is( 2 ) );
+        assertThat( plan.node( "/transformation/a" ).folded(), is( true ) );
+        assertThat( plan.node( "/transformation/b" ).constant(), is( ( Object ) 6L ) );
+        assertThat( plan.node( "/transformation/c" ).folded(), is( false ) );
+        assertThat( plan.nodes().size(), is( 1 ) );
+        assertThat( plan.levels().size(), is( 1 ) );
+        assertThat( plan.node( "/transformation/c" ).level(), is( 0 ) );
+        verify( c, never() ).get();
+    }
+
+    @Test
+    public void shouldInferResultTypes() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", literal( 1 ), literal( 2L ) );
+        final Operation< Object > b = operation( "/transformation/b", reference( "/transformation/a" ), literal( 2.5 ) );
+        final Operation< Object > c = operation( "/transformation/c", reference( "/transformation/a" ), reference( "/model/prop" ) );
+        final Operation< Object > d = operation( "/transformation/d", reference( "/transformation/c" ), reference( "/model/other" ) );
+        final Transformation transformation = registered( transformation( a, b, c, d ) );
+        final ModelProperty prop = mock( ModelProperty.class );
+        final PropertyDescriptor descriptor = mock( PropertyDescriptor.class );
+        when( descriptor.type() ).thenReturn( PropertyDescriptor.Type.LONG );
+        when( prop.descriptor() ).thenReturn( descriptor );
+        when( transformation.model().property( "/model/prop" ) ).thenReturn( prop );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation );
+
+        assertThat( plan.problems().isEmpty(), is( true ) );
+        assertThat( plan.node( "/transformation/a" ).inputTypes()[ 0 ], is( ( Object ) Integer.class ) );
+        assertThat( plan.node( "/transformation/a" ).type(), is( ( Object ) Long.class ) );
+        assertThat( plan.node( "/transformation/b" ).type(), is( ( Object ) Double.class ) );
+        assertThat( plan.node( "/transformation/c" ).inputTypes()[ 1 ], is( ( Object ) Long.class ) );
+        assertThat( plan.node( "/transformation/c" ).type(), is( ( Object ) Long.class ) );
+        assertThat( plan.node( "/transformation/d" ).type(), is( ( Object ) Number.class ) );
+    }
+
+    @Test
+    public void shouldIgnoreReferencesToModelProperties() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", reference( "/model/object/prop" ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( a ) );
+        assertThat( plan.levels().size(), is( 1 ) );
+        assertThat( plan.node( "/transformation/a" ).dependencies().isEmpty(), is( true ) );
+    }
+
+    @Test
+    public void shouldOrderDependentOperationsIntoLevels() throws Exception {
+        final Operation< Object > sum = operation( "/transformation/sum",
+                                                   reference( "/transformation/a" ),
+                                                   reference( "b" ) );
+        final Operation< Object > a = operation( "/transformation/a", literal( 1 ) );
+        final Operation< Object > b = operation( "/transformation/b", reference( "/model/object/prop" ) );
+        final Operation< Object > c = operation( "/transformation/c", literal( 3 ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( sum, a, b, c ) );
+
+        assertThat( plan.levels().size(), is( 2 ) );
+        assertThat( plan.width(), is( 3 ) );
+        assertThat( plan.levels().get( 0 ).size(), is( 3 ) );
+        assertThat( plan.levels().get( 0 ).get( 0 ).key(), is( "/transformation/a" ) );
+        assertThat( plan.levels().get( 0 ).get( 1 ).key(), is( "/transformation/b" ) );
+        assertThat( plan.levels().get( 0 ).get( 2 ).key(), is( "/transformation/c" ) );
+        assertThat( plan.levels().get( 1 ).get( 0 ).key(), is( "/transformation/sum" ) );
+        assertThat( plan.node( "/transformation/sum" ).dependencies().size(), is( 2 ) );
+        assertThat( plan.node( "/transformation/sum" ).level(), is( 1 ) );
+        assertThat( plan.nodes().get( 3 ).key(), is( "/transformation/sum" ) );
+    }
+
+    @Test
+    public void shouldNotFoldFailingOperations() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", literal( "one" ), literal( 2L ) );
+        when( a.get() ).thenThrow( new ChrysalixException( "invalid term" ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( a ), FACTORY );
+        assertThat( plan.folded().isEmpty(), is( true ) );
+        assertThat( plan.nodes().size(), is( 1 ) );
+    }
+
+    @Test
+    public void shouldNotFoldNonDeterministicOperations() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", Random.DESCRIPTOR.id(), literal( 1L ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( a ), FACTORY );
+        assertThat( plan.folded().isEmpty(), is( true ) );
+        verify( a, never() ).get();
+    }
+
+    @Test
+    public void shouldNotFoldOperationsWithoutInputs() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a" );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( a ), FACTORY );
+        assertThat( plan.folded().isEmpty(), is( true ) );
+        verify( a, never() ).get();
+    }
+
+    @Test
+    public void shouldNotShareNonDeterministicOperations() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", Random.DESCRIPTOR.id() );
+        final Operation< Object > b = operation( "/transformation/b", Random.DESCRIPTOR.id() );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( a, b ), FACTORY );
+        assertThat( plan.shared(), is( 0 ) );
+        assertThat( plan.nodes().size(), is( 2 ) );
+    }
+
+    @Test
+    public void shouldNotShareOperationsWithoutResult() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", Map.DESCRIPTOR.id(), reference( "/model/object/prop" ) );
+        final Operation< Object > b = operation( "/transformation/b", Map.DESCRIPTOR.id(), reference( "/model/object/prop" ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( a, b ), FACTORY );
+        assertThat( plan.shared(), is( 0 ) );
+    }
+
+    @Test
+    public void shouldNotShareOperationsWithDifferentInputs() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", literal( 1L ), reference( "/model/prop" ) );
+        final Operation< Object > b = operation( "/transformation/b", literal( 3L ), reference( "/model/prop" ) );
+        final Operation< Object > c = operation( "/transformation/c", literal( 1.0 ), reference( "/model/prop" ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( a, b, c ), FACTORY );
+        assertThat( plan.shared(), is( 0 ) );
+    }
+
+    @Test
+    public void shouldShareIdenticalOperations() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", literal( 1L ), reference( "/model/object/prop" ) );
+        final Operation< Object > b = operation( "/transformation/b", literal( 1L ), reference( "/model/object/prop" ) );
+        final Operation< Object > useA = operation( "/transformation/useA", reference( "/transformation/a" ) );
+        final Operation< Object > useB = operation( "/transformation/useB", reference( "/transformation/b" ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( useA, useB, a, b ), FACTORY );
+
+        assertThat( plan.shared(), is( 2 ) );
+        assertThat( plan.nodes().size(), is( 2 ) );
+        assertThat( plan.node( "/transformation/b" ).canonical(), is( sameInstance( plan.node( "/transformation/a" ) ) ) );
+        assertThat( plan.node( "/transformation/useB" ).canonical(), is( sameInstance( plan.node( "/transformation/useA" ) ) ) );
+        assertThat( plan.levels().get( 1 ).get( 0 ).key(), is( "/transformation/useA" ) );
+    }
+
+    @Test
+    public void shouldReportTypeErrorsWithoutFolding() throws Exception {
+        final Value< ? > text = literal( "text" );
+        when( text.descriptorId() ).thenReturn( Add.TERM_DESCRIPTOR.name() );
+        final Operation< Object > a = operation( "/transformation/a", text, literal( 1 ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( registered( transformation( a ) ) );
+
+        assertThat( plan.problems().isError(), is( true ) );
+        assertThat( plan.folded().isEmpty(), is( true ) );
+        verify( a, never() ).get();
+    }
+
+    @Test( expected = ChrysalixException.class )
+    public void shouldRejectCycles() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", reference( "/transformation/b" ) );
+        final Operation< Object > b = operation( "/transformation/b", reference( "/transformation/a" ) );
+        ExecutionPlan.compile( transformation( a, b ) );
+    }
+
+}
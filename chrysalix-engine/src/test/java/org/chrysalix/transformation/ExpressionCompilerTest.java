@@ -0,0 +1,170 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import static org.chrysalix.transformation.ExecutionPlanTest.transformation;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.operation.DetachedModel;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.ModelObject;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class ExpressionCompilerTest {
+
+    private ExpressionCompiler compiler;
+    private ModelObject table;
+
+    @Before
+    public void beforeEach() throws Exception {
+        final TransformationFactory factory = new TransformationFactory( mock( Modelspace.class ) );
+        this.compiler = factory.expressionCompiler();
+        final DetachedModel model = factory.createDetachedModel();
+        this.table = model.addChild( "table" )[ 0 ];
+        this.table.setProperty( "width", 3 );
+        this.table.setProperty( "height", 4.0 );
+        this.table.addChild( "id" );
+        this.table.child( "id" ).setProperty( "length", 10L );
+    }
+
+    private Object evaluate( final String text ) throws Exception {
+        return this.compiler.compile( text ).evaluate( this.table );
+    }
+
+    @Test
+    public void shouldCacheCompiledExpressions() throws Exception {
+        final Expression expression = this.compiler.compile( "1 + @width" );
+        assertThat( this.compiler.compile( "1 + @width" ), is( sameInstance( expression ) ) );
+        assertThat( this.compiler.cached(), is( 1 ) );
+    }
+
+    @Test
+    public void shouldCallOperationsWithoutKernels() throws Exception {
+        assertThat( evaluate( "Power(2, 10)" ), is( ( Object ) 1024.0 ) );
+        assertThat( evaluate( "Concat('id', '-', @[id/length])" ), is( ( Object ) "id-10" ) );
+    }
+
+    @Test
+    public void shouldNotRecordResultsOfCallsInExecutionContext() throws Exception {
+        final ExecutionContext context = new ExecutionContext( ExecutionPlan.compile( transformation() ) );
+        final Expression expression = this.compiler.compile( "Power(@width, 2)" );
+        final ExecutionContext.Binding binding = context.enter( null );
+
+        try {
+            final int results = context.results();
+
+            for ( int i = 0; i < 100; ++i ) {
+                this.table.setProperty( "width", i );
+                assertThat( expression.evaluate( this.table ), is( ( Object ) ( double ) ( i * i ) ) );
+            }
+
+            assertThat( context.results(), is( results ) );
+        } finally {
+            context.exit( binding );
+        }
+    }
+
+    @Test
+    public void shouldEvaluateArithmeticWithPrecedence() throws Exception {
+        assertThat( evaluate( "1 + 2 * 3 - 8 / 4" ), is( ( Object ) 5L ) );
+        assertThat( evaluate( "(1 + 2) * -3 % 5" ), is( ( Object ) ( -4L ) ) );
+        assertThat( evaluate( "7 / 2.0" ), is( ( Object ) 3.5 ) );
+        assertThat( evaluate( "'it''s'" ), is( ( Object ) "it's" ) );
+    }
+
+    @Test
+    public void shouldEvaluateKernels() throws Exception {
+        assertThat( evaluate( "SquareRoot(@width * @width + @height * @height)" ), is( ( Object ) 5.0 ) );
+        assertThat( evaluate( "Max(@width, @[id/length], 7)" ), is( ( Object ) 10L ) );
+        assertThat( evaluate( "Min(@width, @height)" ), is( ( Object ) 3.0 ) );
+        assertThat( evaluate( "Add(1, 2, 3)" ), is( ( Object ) 6L ) );
+    }
+
+    @Test
+    public void shouldEvaluateMissingPropertiesAsNull() throws Exception {
+        assertThat( evaluate( "@depth + 1" ), is( nullValue() ) );
+        assertThat( evaluate( "@[missing/length]" ), is( nullValue() ) );
+        assertThat( this.compiler.compile( "@width" ).evaluate( null ), is( nullValue() ) );
+    }
+
+    @Test
+    public void shouldEvaluateFunctionsOfMissingPropertiesAsNull() throws Exception {
+        assertThat( evaluate( "SquareRoot(@missing)" ), is( nullValue() ) );
+        assertThat( evaluate( "Cosine(@[missing/length]) + 1" ), is( nullValue() ) );
+    }
+
+    @Test
+    public void shouldFollowPrecisionOfExecution() throws Exception {
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation() );
+        ExecutionContext context = new ExecutionContext( plan, Precision.decimal( new MathContext( 4 ) ) );
+        ExecutionContext.Binding binding = context.enter( null );
+
+        try {
+            assertThat( evaluate( "1 / 3" ), is( ( Object ) new BigDecimal( "0.3333" ) ) );
+            assertThat( evaluate( "Add(0.1, 0.2) - -@width" ), is( ( Object ) new BigDecimal( "3.3" ) ) );
+            assertThat( evaluate( "Max(@width, 2.5)" ), is( ( Object ) new BigDecimal( "3" ) ) );
+            assertThat( evaluate( "SquareRoot(@height)" ), is( ( Object ) 2.0 ) );
+        } finally {
+            context.exit( binding );
+        }
+
+        context = new ExecutionContext( plan, Precision.DOUBLE );
+        binding = context.enter( null );
+
+        try {
+            assertThat( evaluate( "7 / 2" ), is( ( Object ) 3.5 ) );
+            assertThat( evaluate( "Min(@width, 7)" ), is( ( Object ) 3.0 ) );
+        } finally {
+            context.exit( binding );
+        }
+
+        assertThat( evaluate( "7 / 2" ), is( ( Object ) 3L ) );
+    }
+
+    @Test( expected = ChrysalixException.class )
+    public void shouldFailToCompileUnbalancedParentheses() throws Exception {
+        this.compiler.compile( "(1 + 2" );
+    }
+
+    @Test( expected = ChrysalixException.class )
+    public void shouldFailToCompileUnknownOperation() throws Exception {
+        this.compiler.compile( "Bogus(1)" );
+    }
+
+    @Test( expected = ChrysalixException.class )
+    public void shouldFailToCompileWrongKernelArgumentCount() throws Exception {
+        this.compiler.compile( "SquareRoot(1, 2)" );
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+import org.junit.Test;
+
+@SuppressWarnings( "javadoc" )
+public final class PrecisionTest {
+
+    @Test
+    public void shouldConvertNumbersToDecimalsWithoutLosingPrecision() {
+        assertThat( Precision.toDecimal( 0.1 ), is( new BigDecimal( "0.1" ) ) );
+        assertThat( Precision.toDecimal( Long.MAX_VALUE ), is( new BigDecimal( Long.MAX_VALUE ) ) );
+        assertThat( Precision.toDecimal( 7 ), is( BigDecimal.valueOf( 7 ) ) );
+        assertThat( Precision.toDecimal( BigInteger.TEN.pow( 30 ) ), is( new BigDecimal( BigInteger.TEN.pow( 30 ) ) ) );
+    }
+
+    @Test
+    public void shouldProvideModesAndMathContexts() {
+        assertThat( Precision.MIXED.mode(), is( Precision.Mode.MIXED ) );
+        assertThat( Precision.DOUBLE.mode(), is( Precision.Mode.DOUBLE ) );
+        assertThat( Precision.DECIMAL.mathContext(), is( MathContext.DECIMAL128 ) );
+        assertThat( Precision.decimal( MathContext.DECIMAL32 ).mode(), is( Precision.Mode.DECIMAL ) );
+    }
+
+    @Test( expected = NumberFormatException.class )
+    public void shouldNotConvertInfinityToDecimal() {
+        Precision.toDecimal( Double.POSITIVE_INFINITY );
+    }
+
+}
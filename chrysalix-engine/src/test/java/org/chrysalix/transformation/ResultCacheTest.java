@@ -0,0 +1,168 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import static org.chrysalix.transformation.ExecutionPlanTest.MODELSPACE;
+import static org.chrysalix.transformation.ExecutionPlanTest.operation;
+import static org.chrysalix.transformation.ExecutionPlanTest.reference;
+import static org.chrysalix.transformation.ExecutionPlanTest.registered;
+import static org.chrysalix.transformation.ExecutionPlanTest.transformation;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.chrysalix.operation.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.modelspace.Model;
+import org.modelspace.ModelProperty;
+
+@SuppressWarnings( "javadoc" )
+public final class ResultCacheTest {
+
+    private Path directory;
+    private ExecutorService pool;
+    private TransformationExecutor executor;
+    private ModelProperty source;
+    private ModelProperty target;
+    private Operation< Object > operation;
+    private Transformation transformation;
+
+    @BeforeClass
+    public static void initializeFactory() {
+        ExecutionPlanTest.initializeFactory();
+    }
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.directory = Files.createTempDirectory( "results" );
+        this.pool = Executors.newFixedThreadPool( 2 );
+        this.executor = new TransformationExecutor( this.pool );
+
+        this.source = mock( ModelProperty.class );
+        when( this.source.values() ).thenReturn( new Object[] { 1L } );
+
+        final Model targetModel = mock( Model.class );
+        this.target = mock( ModelProperty.class );
+        when( this.target.model() ).thenReturn( targetModel );
+        when( this.target.modelRelativePath() ).thenReturn( "object/y" );
+        when( this.target.values() ).thenReturn( new Object[ 0 ] );
+        when( targetModel.absolutePath() ).thenReturn( "/target" );
+        when( targetModel.property( "object/y" ) ).thenReturn( this.target );
+        when( MODELSPACE.model( "/target" ) ).thenReturn( targetModel );
+
+        this.operation = operation( "/transformation/a", reference( "/model/object/x" ) );
+        when( this.operation.get() ).thenAnswer( new Answer< Object >() {
+
+            @Override
+            public Object answer( final InvocationOnMock invocation ) {
+                ExecutionContext.current().defer( ResultCacheTest.this.target, 3L );
+                return 3L;
+            }
+        } );
+        this.transformation = registered( transformation( this.operation ) );
+        when( this.transformation.model().property( "/model/object/x" ) ).thenReturn( this.source );
+    }
+
+    @After
+    public void afterEach() throws Exception {
+        this.executor.close();
+        this.pool.shutdownNow();
+        new ResultCache( this.directory, Long.MAX_VALUE ).invalidate();
+        Files.delete( this.directory );
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntries() throws Exception {
+        final ResultCache cache = new ResultCache( this.directory, 1 );
+        this.executor.execute( this.transformation, cache );
+        assertThat( cache.entries(), is( 0 ) );
+        assertThat( cache.size(), is( 0L ) );
+    }
+
+    @Test
+    public void shouldInvalidateEntriesOfTransformation() throws Exception {
+        final ResultCache cache = new ResultCache( this.directory, Long.MAX_VALUE );
+        this.executor.execute( this.transformation, cache );
+        cache.invalidate( "/other" );
+        assertThat( cache.entries(), is( 1 ) );
+        cache.invalidate( this.transformation.id() );
+        assertThat( cache.entries(), is( 0 ) );
+
+        this.executor.execute( this.transformation, cache );
+        verify( this.operation, times( 2 ) ).get();
+    }
+
+    @Test
+    public void shouldNotCacheNonDeterministicOperations() throws Exception {
+        final Operation< Object > random = operation( "/transformation/random", Random.DESCRIPTOR.id() );
+        final ResultCache cache = new ResultCache( this.directory, Long.MAX_VALUE );
+        final ExecutionPlan plan = this.executor.plan( registered( transformation( random ) ) );
+        assertThat( plan.fingerprint(), is( nullValue() ) );
+        assertThat( cache.key( plan ), is( nullValue() ) );
+    }
+
+    @Test
+    public void shouldReevaluateWhenSourcesChange() throws Exception {
+        final ResultCache cache = new ResultCache( this.directory, Long.MAX_VALUE );
+        this.executor.execute( this.transformation, cache );
+        when( this.source.values() ).thenReturn( new Object[] { 2L } );
+        this.executor.execute( this.transformation, cache );
+        verify( this.operation, times( 2 ) ).get();
+        assertThat( cache.entries(), is( 2 ) );
+    }
+
+    @Test
+    public void shouldReuseResultsAcrossInstances() throws Exception {
+        this.executor.execute( this.transformation, new ResultCache( this.directory, Long.MAX_VALUE ) );
+        verify( this.operation, times( 1 ) ).get();
+        verify( this.target, times( 1 ) ).set( 3L );
+
+        final ResultCache cache = new ResultCache( this.directory, Long.MAX_VALUE );
+        assertThat( cache.entries(), is( 1 ) );
+        final ExecutionContext context = this.executor.execute( this.transformation, cache );
+        verify( this.operation, times( 1 ) ).get();
+        assertThat( context.result( "/transformation/a" ), is( ( Object ) 3L ) );
+        verify( this.target, times( 2 ) ).set( 3L ); // target no longer held the cached value
+
+        when( this.target.values() ).thenReturn( new Object[] { 3L } );
+        this.executor.execute( this.transformation, cache );
+        verify( this.operation, times( 1 ) ).get();
+        verify( this.target, times( 2 ) ).set( 3L );
+    }
+
+}
@@ -0,0 +1,410 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import static org.chrysalix.transformation.ExecutionPlanTest.FACTORY;
+import static org.chrysalix.transformation.ExecutionPlanTest.literal;
+import static org.chrysalix.transformation.ExecutionPlanTest.operation;
+import static org.chrysalix.transformation.ExecutionPlanTest.reference;
+import static org.chrysalix.transformation.ExecutionPlanTest.registered;
+import static org.chrysalix.transformation.ExecutionPlanTest.transformation;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.ChrysalixLexicon;
+import org.chrysalix.operation.Add;
+import org.chrysalix.operation.DetachedModel;
+import org.chrysalix.operation.Divide;
+import org.chrysalix.operation.Map;
+import org.chrysalix.operation.Max;
+import org.chrysalix.operation.Min;
+import org.chrysalix.operation.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.modelspace.ModelProperty;
+import org.modelspace.PropertyDescriptor;
+
+@SuppressWarnings( "javadoc" )
+public final class TransformationExecutorTest {
+
+    private ExecutorService pool;
+    private TransformationExecutor executor;
+
+    @BeforeClass
+    public static void initializeFactory() {
+        ExecutionPlanTest.initializeFactory();
+    }
+
+    @Before
+    public void beforeEach() {
+        this.pool = Executors.newFixedThreadPool( 2 );
+        this.executor = new TransformationExecutor( this.pool );
+    }
+
+    @After
+    public void afterEach() {
+        this.executor.close();
+        this.pool.shutdownNow();
+    }
+
+    @Test
+    public void shouldCommitWritesInPlanOrder() throws Exception {
+        final ModelProperty first = mock( ModelProperty.class );
+        final ModelProperty second = mock( ModelProperty.class );
+        final Operation< Object > a = operation( "/transformation/a", literal( 1 ) );
+        final Operation< Object > b = operation( "/transformation/b", literal( 2 ) );
+        when( a.get() ).thenAnswer( new Answer< Object >() {
+
+            @Override
+            public Object answer( final InvocationOnMock invocation ) throws Exception {
+                ExecutionContext.current().defer( second, "a" );
+                return null;
+            }
+        } );
+        when( b.get() ).thenAnswer( new Answer< Object >() {
+
+            @Override
+            public Object answer( final InvocationOnMock invocation ) throws Exception {
+                ExecutionContext.current().defer( first, "b" );
+                verify( first, never() ).set( "b" );
+                return null;
+            }
+        } );
+
+        final ExecutionContext context = this.executor.execute( transformation( a, b ) );
+        final InOrder order = inOrder( first, second );
+        order.verify( second ).set( "a" );
+        order.verify( first ).set( "b" );
+        assertThat( context.pendingWrites(), is( 0 ) );
+        assertThat( context.result( "/transformation/a" ), is( nullValue() ) );
+        assertThat( context.hasResult( "/transformation/a" ), is( true ) );
+    }
+
+    @Test
+    public void shouldEvaluateFoldedOperationsAgainWithOtherPrecisions() throws Exception {
+        final Operation< Number > add = FACTORY.createDetachedOperation( Add.DESCRIPTOR );
+        add.addInput( Add.TERM_DESCRIPTOR.name(), 0.1, 0.2 );
+        final Operation< Number > divide = FACTORY.createDetachedOperation( Divide.DESCRIPTOR );
+        divide.addInput( Divide.TERM_DESCRIPTOR.name(), 1L, 3L );
+        final ExecutionPlan plan = ExecutionPlan.compile( registered( transformation( add, divide ) ) );
+        assertThat( plan.folded().size(), is( 2 ) );
+
+        ExecutionContext context = this.executor.execute( plan );
+        assertThat( context.result( add.absolutePath() ), is( ( Object ) ( 0.1 + 0.2 ) ) );
+        assertThat( context.result( divide.absolutePath() ), is( ( Object ) 0L ) );
+
+        context = this.executor.execute( plan, Precision.DOUBLE );
+        assertThat( context.result( add.absolutePath() ), is( ( Object ) ( 0.1 + 0.2 ) ) );
+        assertThat( context.result( divide.absolutePath() ), is( ( Object ) ( 1.0 / 3.0 ) ) );
+
+        context = this.executor.execute( plan, Precision.decimal( new MathContext( 4 ) ) );
+        assertThat( context.result( add.absolutePath() ), is( ( Object ) new BigDecimal( "0.3" ) ) );
+        assertThat( context.result( divide.absolutePath() ), is( ( Object ) new BigDecimal( "0.3333" ) ) );
+    }
+
+    @Test
+    public void shouldComputeMinimumAndMaximumWithEachPrecision() throws Exception {
+        final Operation< Number > max = FACTORY.createDetachedOperation( Max.DESCRIPTOR );
+        max.addInput( Max.TERM_DESCRIPTOR.name(), 0.1, 3L, 0.2 );
+        final Operation< Number > min = FACTORY.createDetachedOperation( Min.DESCRIPTOR );
+        min.addInput( Min.TERM_DESCRIPTOR.name(), 2L, 0.1, 0.2 );
+        final ExecutionPlan plan = ExecutionPlan.compile( registered( transformation( max, min ) ) );
+
+        ExecutionContext context = this.executor.execute( plan, Precision.DOUBLE );
+        assertThat( context.result( max.absolutePath() ), is( ( Object ) 3.0 ) );
+        assertThat( context.result( min.absolutePath() ), is( ( Object ) 0.1 ) );
+
+        context = this.executor.execute( plan, Precision.decimal( new MathContext( 4 ) ) );
+        assertThat( context.result( max.absolutePath() ), is( ( Object ) new BigDecimal( "3" ) ) );
+        assertThat( context.result( min.absolutePath() ), is( ( Object ) new BigDecimal( "0.1" ) ) );
+    }
+
+    @Test
+    public void shouldCheckTypesOfSourceValuesChangedSincePlanWasCompiled() throws Exception {
+        final Operation< Number > add = FACTORY.createDetachedOperation( Add.DESCRIPTOR );
+        add.addInput( Add.TERM_DESCRIPTOR.name(), 0L, 2L );
+        final Operation< Number > divide = FACTORY.createDetachedOperation( Divide.DESCRIPTOR );
+        divide.addInput( Divide.TERM_DESCRIPTOR.name(), 0L, 2.0 );
+        final DetachedModel addModel = ( DetachedModel ) add.model();
+        addModel.setProperty( "x", 3L );
+        final DetachedModel divideModel = ( DetachedModel ) divide.model();
+        divideModel.setProperty( "y", 3.0 );
+
+        // read the first term of each operation from a source property
+        add.inputs()[ 0 ].modelObect().setProperty( ChrysalixLexicon.Input.PATH, true );
+        add.inputs()[ 0 ].modelObect().setProperty( ChrysalixLexicon.Input.VALUE, "x" );
+        divide.inputs()[ 0 ].modelObect().setProperty( ChrysalixLexicon.Input.PATH, true );
+        divide.inputs()[ 0 ].modelObect().setProperty( ChrysalixLexicon.Input.VALUE, "y" );
+
+        final Transformation transformation = registered( transformation( add, divide ) );
+        when( transformation.model().property( "x" ) ).thenReturn( addModel.property( "x" ) );
+        when( transformation.model().property( "y" ) ).thenReturn( divideModel.property( "y" ) );
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation );
+        assertThat( plan.node( add.absolutePath() ).type(), is( ( Object ) Long.class ) );
+        assertThat( plan.node( divide.absolutePath() ).inputTypes()[ 0 ], is( ( Object ) Double.class ) );
+
+        ExecutionContext context = this.executor.execute( plan );
+        assertThat( context.result( add.absolutePath() ), is( ( Object ) 5L ) );
+        assertThat( context.result( divide.absolutePath() ), is( ( Object ) 1.5 ) );
+
+        // editing source values does not change the definition version, so the plan and its inferred types are reused
+        addModel.setProperty( "x", 2.5 );
+        divideModel.setProperty( "y", 3L );
+        context = this.executor.execute( plan, context, Arrays.asList( "x", "y" ) );
+        assertThat( context.result( add.absolutePath() ), is( ( Object ) 4.5 ) );
+        assertThat( context.result( divide.absolutePath() ), is( ( Object ) 1.5 ) );
+    }
+
+    @Test
+    public void shouldEvaluateIndependentOperationsConcurrently() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier( 2 );
+        final Answer< Object > waitForOther = new Answer< Object >() {
+
+            @Override
+            public Object answer( final InvocationOnMock invocation ) throws Exception {
+                barrier.await( 10, TimeUnit.SECONDS ); // times out if not run in parallel
+                return 1L;
+            }
+        };
+        final Operation< Object > a = operation( "/transformation/a", literal( 1 ) );
+        final Operation< Object > b = operation( "/transformation/b", literal( 2 ) );
+        when( a.get() ).thenAnswer( waitForOther );
+        when( b.get() ).thenAnswer( waitForOther );
+
+        final ExecutionContext context = this.executor.execute( transformation( a, b ) );
+        assertThat( context.result( "/transformation/a" ), is( ( Object ) 1L ) );
+        assertThat( context.result( "/transformation/b" ), is( ( Object ) 1L ) );
+        assertThat( ExecutionContext.current(), is( nullValue() ) );
+    }
+
+    @Test
+    public void shouldPassSourcePropertiesToMapOperations() throws Exception {
+        final Value< ? > source = reference( "/model/prop" );
+        when( source.descriptorId() ).thenReturn( Map.SOURCE_PROP_DESCRIPTOR.name() );
+        final Value< ? > target = reference( "/model/target" );
+        when( target.descriptorId() ).thenReturn( Map.TARGET_PROP_DESCRIPTOR.name() );
+        final Operation< Object > map = operation( "/transformation/map", Map.DESCRIPTOR.id(), source, target );
+        final Transformation transformation = registered( transformation( map ) );
+        final ModelProperty prop = mock( ModelProperty.class );
+        final PropertyDescriptor descriptor = mock( PropertyDescriptor.class );
+        when( descriptor.type() ).thenReturn( PropertyDescriptor.Type.STRING );
+        when( prop.descriptor() ).thenReturn( descriptor );
+        when( transformation.model().property( "/model/prop" ) ).thenReturn( prop );
+        when( transformation.model().property( "/model/target" ) ).thenReturn( prop );
+
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation );
+        assertThat( plan.problems().isEmpty(), is( true ) );
+        assertThat( plan.node( "/transformation/map" ).inputTypes()[ 0 ], is( ( Object ) ModelProperty.class ) );
+
+        this.executor.execute( plan );
+        verify( map ).get();
+    }
+
+    @Test
+    public void shouldPassResultsToDependentOperations() throws Exception {
+        final Operation< Object > sum = operation( "/transformation/sum",
+                                                   reference( "/transformation/a" ),
+                                                   reference( "/transformation/b" ) );
+        final Operation< Object > a = operation( "/transformation/a", literal( 1 ) );
+        final Operation< Object > b = operation( "/transformation/b", literal( 2 ) );
+        when( a.get() ).thenReturn( 1L );
+        when( b.get() ).thenReturn( 2L );
+        when( sum.get() ).thenAnswer( new Answer< Object >() {
+
+            @Override
+            public Object answer( final InvocationOnMock invocation ) {
+                final ExecutionContext context = ExecutionContext.current();
+                return ( Long ) context.result( "/transformation/a" ) + ( Long ) context.result( "b" );
+            }
+        } );
+
+        final ExecutionContext context = this.executor.execute( transformation( sum, a, b ) );
+        assertThat( context.result( "/transformation/sum" ), is( ( Object ) 3L ) );
+    }
+
+    @Test
+    public void shouldEvaluateIdenticalOperationsOnce() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", literal( 1L ), literal( 2L ) );
+        final Operation< Object > b = operation( "/transformation/b", literal( 1L ), literal( 2L ) );
+        when( a.get() ).thenReturn( 3L );
+        when( b.get() ).thenReturn( 3L );
+
+        final ExecutionContext context = this.executor.execute( ExecutionPlan.compile( transformation( a, b ), FACTORY ) );
+        verify( a, times( 1 ) ).get();
+        verify( b, never() ).get();
+        assertThat( context.hasResult( "/transformation/b" ), is( true ) );
+        assertThat( context.result( "/transformation/b" ), is( ( Object ) 3L ) );
+    }
+
+    @Test
+    public void shouldRecordResultsOfOperationsOutsideOfPlan() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", literal( 1 ) );
+        final ExecutionContext context = new ExecutionContext( ExecutionPlan.compile( transformation( a ) ) );
+        assertThat( context.hasResult( "/transformation/a/child" ), is( false ) );
+        context.result( "/transformation/a/child", null );
+        assertThat( context.hasResult( "/transformation/a/child" ), is( true ) );
+        assertThat( context.result( "/transformation/a/child" ), is( nullValue() ) );
+    }
+
+    @Test
+    public void shouldReevaluateOnlyOperationsAffectedByChanges() throws Exception {
+        final ModelProperty target = mock( ModelProperty.class );
+        final Operation< Object > sum = operation( "/transformation/sum",
+                                                   reference( "/transformation/a" ),
+                                                   reference( "/transformation/b" ) );
+        final Operation< Object > a = operation( "/transformation/a", reference( "/model/object/x" ) );
+        final Operation< Object > b = operation( "/transformation/b", reference( "/model/object/y" ) );
+        when( a.get() ).thenReturn( 1L, 10L );
+        when( b.get() ).thenAnswer( new Answer< Object >() {
+
+            @Override
+            public Object answer( final InvocationOnMock invocation ) {
+                ExecutionContext.current().defer( target, "b" );
+                return 2L;
+            }
+        } );
+        when( sum.get() ).thenAnswer( new Answer< Object >() {
+
+            @Override
+            public Object answer( final InvocationOnMock invocation ) {
+                final ExecutionContext context = ExecutionContext.current();
+                return ( Long ) context.result( "a" ) + ( Long ) context.result( "b" );
+            }
+        } );
+
+        final ExecutionPlan plan = ExecutionPlan.compile( transformation( sum, a, b ) );
+        final ExecutionContext first = this.executor.execute( plan );
+        assertThat( first.result( "/transformation/sum" ), is( ( Object ) 3L ) );
+
+        final ExecutionContext second = this.executor.execute( plan, first, Arrays.asList( "/model/object/x" ) );
+        assertThat( second.result( "/transformation/sum" ), is( ( Object ) 12L ) );
+        assertThat( second.result( "/transformation/b" ), is( ( Object ) 2L ) );
+        verify( a, times( 2 ) ).get();
+        verify( b, times( 1 ) ).get();
+        verify( sum, times( 2 ) ).get();
+        verify( target, times( 1 ) ).set( "b" );
+
+        final ExecutionContext third = this.executor.execute( plan, second, Arrays.asList( "/model/unrelated" ) );
+        assertThat( third.result( "/transformation/sum" ), is( ( Object ) 12L ) );
+        verify( sum, times( 2 ) ).get();
+    }
+
+    @Test
+    public void shouldRecompilePlanWhenDefinitionChanges() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", literal( 1L ), literal( 2L ) );
+        when( a.get() ).thenReturn( 3L );
+        final Transformation transformation = registered( transformation( a ) );
+
+        final ExecutionPlan plan = this.executor.plan( transformation );
+        assertThat( this.executor.plan( transformation ), is( sameInstance( plan ) ) );
+        verify( a, times( 1 ) ).get(); // folded once
+
+        FACTORY.definitionChanged( transformation.id() );
+        assertThat( this.executor.plan( transformation ), is( not( sameInstance( plan ) ) ) );
+        verify( a, times( 2 ) ).get();
+    }
+
+    @Test
+    public void shouldReportFailedOperationsAndSkipCommit() throws Exception {
+        final ModelProperty target = mock( ModelProperty.class );
+        final Operation< Object > a = operation( "/transformation/a", literal( 1 ) );
+        final Operation< Object > b = operation( "/transformation/b", literal( 2 ) );
+        when( a.get() ).thenThrow( new ChrysalixException( "a failed" ) );
+        when( b.get() ).thenAnswer( new Answer< Object >() {
+
+            @Override
+            public Object answer( final InvocationOnMock invocation ) {
+                ExecutionContext.current().defer( target, "b" );
+                return null;
+            }
+        } );
+
+        try {
+            this.executor.execute( transformation( a, b ) );
+            fail();
+        } catch ( final ChrysalixException e ) {
+            verify( target, never() ).set( "b" );
+        }
+    }
+
+    @Test
+    public void shouldRejectPlansWithTypeErrorsBeforeEvaluatingOperations() throws Exception {
+        final Value< ? > text = literal( "text" );
+        when( text.descriptorId() ).thenReturn( Add.TERM_DESCRIPTOR.name() );
+        final Operation< Object > a = operation( "/transformation/a", literal( 1 ) );
+        final Operation< Object > b = operation( "/transformation/b", text, reference( "/model/prop" ) );
+
+        try {
+            this.executor.execute( registered( transformation( a, b ) ) );
+            fail();
+        } catch ( final ChrysalixException e ) {
+            verify( a, never() ).get();
+            verify( b, never() ).get();
+        }
+    }
+
+    @Test
+    public void shouldReplayRandomOperationsWithSameSeed() throws Exception {
+        final Operation< Double > first = FACTORY.createDetachedOperation( Random.DESCRIPTOR );
+        final Operation< Double > second = FACTORY.createDetachedOperation( Random.DESCRIPTOR );
+        final Operation< Double > seeded = FACTORY.createDetachedOperation( Random.DESCRIPTOR );
+        seeded.addInput( Random.SEED_DESCRIPTOR.name(), 42L );
+        final ExecutionPlan plan = ExecutionPlan.compile( registered( transformation( first, second, seeded ) ) );
+
+        final ExecutionContext context = this.executor.execute( plan, Precision.MIXED, 7L );
+        final ExecutionContext replay = this.executor.execute( plan, Precision.MIXED, 7L );
+        final ExecutionContext other = this.executor.execute( plan, Precision.MIXED, 8L );
+        assertThat( replay.result( first.absolutePath() ), is( context.result( first.absolutePath() ) ) );
+        assertThat( replay.result( second.absolutePath() ), is( context.result( second.absolutePath() ) ) );
+        assertThat( context.result( first.absolutePath() ), is( not( context.result( second.absolutePath() ) ) ) );
+        assertThat( other.result( first.absolutePath() ), is( not( context.result( first.absolutePath() ) ) ) );
+        assertThat( other.result( seeded.absolutePath() ), is( context.result( seeded.absolutePath() ) ) );
+        assertThat( seeded.get(), is( context.result( seeded.absolutePath() ) ) );
+    }
+
+}
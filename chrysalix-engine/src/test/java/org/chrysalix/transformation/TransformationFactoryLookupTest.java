@@ -0,0 +1,74 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.chrysalix.ChrysalixException;
+import org.chrysalix.operation.Add;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class TransformationFactoryLookupTest {
+
+    private TransformationFactory factory;
+
+    @Before
+    public void constructFactory() {
+        this.factory = new TransformationFactory( mock( Modelspace.class ) );
+    }
+
+    @Test( expected = ChrysalixException.class )
+    public void shouldFailToFindUnknownDescriptor() throws Exception {
+        this.factory.descriptor( "unknown" );
+    }
+
+    @Test
+    public void shouldFindDescriptorById() throws Exception {
+        for ( final ValueDescriptor< ? > descriptor : this.factory.descriptors() ) {
+            assertThat( this.factory.descriptor( descriptor.id() ), is( sameInstance( ( Object ) descriptor ) ) );
+        }
+    }
+
+    @Test
+    public void shouldFindInputDescriptorByName() {
+        assertThat( this.factory.inputDescriptor( Add.DESCRIPTOR, Add.TERM_DESCRIPTOR.name() ),
+                    is( sameInstance( ( Object ) Add.TERM_DESCRIPTOR ) ) );
+        assertThat( this.factory.inputDescriptor( Add.DESCRIPTOR, "unknown" ), is( nullValue() ) );
+    }
+
+    @Test
+    public void shouldRegisterFirstFactoryForModelspace() {
+        assertThat( TransformationFactory.REGISTRY.get( this.factory.modelspace() ), is( sameInstance( this.factory ) ) );
+        new TransformationFactory( this.factory.modelspace() );
+        assertThat( TransformationFactory.REGISTRY.get( this.factory.modelspace() ), is( sameInstance( this.factory ) ) );
+    }
+
+}
@@ -24,6 +24,8 @@
 package org.chrysalix.transformation;
 
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.hamcrest.core.IsCollectionContaining.hasItems;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
@@ -349,4 +351,25 @@ public final class TransformationImplTest {
         assertThat( this.transformation.targets().length, is( 0 ) );
     }
 
+    @SuppressWarnings( "unchecked" )
+    @Test
+    public void shouldReuseOperationInstances() throws Exception {
+        final Operation< ? > op_1 = mock( Operation.class );
+        final Operation< ? > op_2 = mock( Operation.class );
+        this.transformation.add( op_1, op_2 );
+
+        final Operation< ? >[] first = this.transformation.operations();
+        final Operation< ? >[] second = this.transformation.operations();
+        assertThat( second, is( not( sameInstance( first ) ) ) );
+        assertThat( second.length, is( first.length ) );
+
+        for ( int i = 0; i < first.length; ++i ) {
+            assertThat( ( Object ) second[ i ], is( sameInstance( ( Object ) first[ i ] ) ) );
+        }
+
+        this.transformation.remove( op_2 );
+        assertThat( this.transformation.operations().length, is( 1 ) );
+        assertThat( ( Object ) this.transformation.operations()[ 0 ], is( sameInstance( ( Object ) first[ 0 ] ) ) );
+    }
+
 }
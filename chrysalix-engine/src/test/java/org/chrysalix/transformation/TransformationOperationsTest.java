@@ -0,0 +1,116 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.chrysalix.ChrysalixLexicon;
+import org.chrysalix.operation.Add;
+import org.chrysalix.operation.Subtract;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelspace.Metamodel;
+import org.modelspace.Model;
+import org.modelspace.ModelObject;
+import org.modelspace.Modelspace;
+
+@SuppressWarnings( "javadoc" )
+public final class TransformationOperationsTest {
+
+    private TransformationFactory factory;
+    private Model model;
+    private Transformation transformation;
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.factory = new TransformationFactory( mock( Modelspace.class ) );
+        final Metamodel metamodel = mock( Metamodel.class );
+        when( metamodel.id() ).thenReturn( Transformation.METAMODEL_ID );
+        this.model = mock( Model.class );
+        when( this.model.metamodel() ).thenReturn( metamodel );
+        when( this.model.modelspace() ).thenReturn( this.factory.modelspace() );
+        when( this.model.absolutePath() ).thenReturn( "/transformation" );
+        this.transformation = this.factory.createTransformation( this.model );
+    }
+
+    private ModelObject operation( final String path,
+                                   final String descriptorId ) throws Exception {
+        final ModelObject operation = mock( ModelObject.class );
+        when( operation.name() ).thenReturn( descriptorId );
+        when( operation.absolutePath() ).thenReturn( path );
+        when( operation.model() ).thenReturn( this.model );
+        return operation;
+    }
+
+    private void operations( final ModelObject... operations ) throws Exception {
+        when( this.model.childrenOfType( ChrysalixLexicon.Operation.NODE_TYPE ) ).thenReturn( operations );
+    }
+
+    @Test
+    public void shouldCreateOperationsAgainWhenDefinitionVersionChanges() throws Exception {
+        final ModelObject a = operation( "/transformation/a", Add.DESCRIPTOR.id() );
+        final ModelObject b = operation( "/transformation/b", Subtract.DESCRIPTOR.id() );
+        final ModelObject c = operation( "/transformation/c", Add.DESCRIPTOR.id() );
+        operations( a, b );
+        final Operation< ? >[] first = this.transformation.operations();
+
+        // changes to the model are not seen until the definition version changes
+        operations( a, c );
+        assertThat( this.transformation.operations().length, is( 2 ) );
+        assertThat( ( Object ) this.transformation.operations()[ 1 ], is( sameInstance( ( Object ) first[ 1 ] ) ) );
+
+        this.factory.definitionChanged( this.transformation.id() );
+        final Operation< ? >[] second = this.transformation.operations();
+        assertThat( second.length, is( 2 ) );
+        assertThat( ( Object ) second[ 0 ], is( sameInstance( ( Object ) first[ 0 ] ) ) );
+        assertThat( ( Object ) second[ 1 ], is( not( sameInstance( ( Object ) first[ 1 ] ) ) ) );
+        assertThat( second[ 1 ].descriptorId(), is( Add.DESCRIPTOR.id() ) );
+
+        // a removed operation is created again if its node comes back
+        operations( a, b );
+        this.factory.definitionChanged( this.transformation.id() );
+        assertThat( ( Object ) this.transformation.operations()[ 1 ], is( not( sameInstance( ( Object ) first[ 1 ] ) ) ) );
+        assertThat( this.transformation.operations()[ 1 ].descriptorId(), is( Subtract.DESCRIPTOR.id() ) );
+    }
+
+    @Test
+    public void shouldReuseOperationInstances() throws Exception {
+        operations( operation( "/transformation/a", Add.DESCRIPTOR.id() ),
+                    operation( "/transformation/b", Subtract.DESCRIPTOR.id() ) );
+        final Operation< ? >[] first = this.transformation.operations();
+        final Operation< ? >[] second = this.transformation.operations();
+        assertThat( second, is( not( sameInstance( first ) ) ) );
+        assertThat( second.length, is( 2 ) );
+
+        for ( int i = 0; i < first.length; ++i ) {
+            assertThat( ( Object ) second[ i ], is( sameInstance( ( Object ) first[ i ] ) ) );
+        }
+    }
+
+}
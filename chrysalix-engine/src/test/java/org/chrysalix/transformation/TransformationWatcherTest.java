@@ -0,0 +1,170 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import static org.chrysalix.transformation.ExecutionPlanTest.FACTORY;
+import static org.chrysalix.transformation.ExecutionPlanTest.operation;
+import static org.chrysalix.transformation.ExecutionPlanTest.reference;
+import static org.chrysalix.transformation.ExecutionPlanTest.registered;
+import static org.chrysalix.transformation.ExecutionPlanTest.transformation;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+
+import org.chrysalix.operation.BulkMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.modelspace.ModelProperty;
+
+@SuppressWarnings( "javadoc" )
+public final class TransformationWatcherTest {
+
+    private ExecutorService pool;
+    private TransformationExecutor executor;
+    private TransformationWatcher watcher;
+
+    @BeforeClass
+    public static void initializeFactory() {
+        ExecutionPlanTest.initializeFactory();
+    }
+
+    @Before
+    public void beforeEach() {
+        this.pool = Executors.newFixedThreadPool( 2 );
+        this.executor = new TransformationExecutor( this.pool );
+        this.watcher = new TransformationWatcher( this.executor );
+    }
+
+    @After
+    public void afterEach() {
+        this.executor.close();
+        this.pool.shutdownNow();
+    }
+
+    @Test
+    public void shouldNotReexecuteWhenUnrelatedPathsChange() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", reference( "/model/object/x" ) );
+        this.watcher.watch( registered( transformation( a ) ) );
+        assertThat( this.watcher.changed( Arrays.asList( "/model/other/x" ) ).isEmpty(), is( true ) );
+        verify( a, times( 1 ) ).get();
+    }
+
+    @Test
+    public void shouldReexecuteAffectedOperationsOnEvents() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", reference( "/model/object/x" ) );
+        final Operation< Object > b = operation( "/transformation/b", reference( "/model/object/y" ) );
+        when( a.get() ).thenReturn( 1L, 2L );
+        this.watcher.watch( registered( transformation( a, b ) ) );
+
+        final Event event = mock( Event.class );
+        when( event.getPath() ).thenReturn( "/model/object/x" );
+        final EventIterator events = mock( EventIterator.class );
+        when( events.hasNext() ).thenReturn( true, false );
+        when( events.nextEvent() ).thenReturn( event );
+        this.watcher.onEvent( events );
+
+        verify( a, times( 2 ) ).get();
+        verify( b, times( 1 ) ).get();
+        assertThat( this.watcher.context( "/transformation" ).result( "/transformation/a" ), is( ( Object ) 2L ) );
+    }
+
+    @Test
+    public void shouldReexecuteCollectionOperationsWhenChildrenOfSourceChange() throws Exception {
+        final Operation< Object > map = operation( "/transformation/map", BulkMap.DESCRIPTOR.id(), reference( "/model/coll" ) );
+        final Operation< Object > a = operation( "/transformation/a", reference( "/model/object/x" ) );
+        this.watcher.watch( registered( transformation( map, a ) ) );
+
+        final Set< String > reexecuted = this.watcher.changed( Arrays.asList( "/model/coll/child/prop" ) );
+        assertThat( reexecuted.contains( "/transformation" ), is( true ) );
+        verify( map, times( 2 ) ).get();
+        verify( a, times( 1 ) ).get();
+    }
+
+    @Test
+    public void shouldNotReexecuteWhenOwnWritesAreCommitted() throws Exception {
+        final ModelProperty target = mock( ModelProperty.class );
+        when( target.absolutePath() ).thenReturn( "/model/object/target" );
+        final Operation< Object > map =
+            operation( "/transformation/map", reference( "/model/object/x" ), reference( "/model/object/target" ) );
+        when( map.get() ).thenAnswer( new Answer< Object >() {
+
+            @Override
+            public Object answer( final InvocationOnMock invocation ) {
+                ExecutionContext.current().defer( target, 1L );
+                return null;
+            }
+
+        } );
+        this.watcher.watch( registered( transformation( map ) ) );
+        verify( target, times( 1 ) ).set( 1L );
+
+        assertThat( this.watcher.changed( Arrays.asList( "/model/object/target" ) ).isEmpty(), is( true ) );
+        verify( map, times( 1 ) ).get();
+
+        // a later change to the written path is made by someone else
+        assertThat( this.watcher.changed( Arrays.asList( "/model/object/target" ) ).contains( "/transformation" ), is( true ) );
+        verify( map, times( 2 ) ).get();
+    }
+
+    @Test
+    public void shouldReexecuteAllOperationsWhenDefinitionChanges() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", reference( "/model/object/x" ) );
+        final Operation< Object > b = operation( "/transformation/b", reference( "/model/object/y" ) );
+        final Transformation transformation = registered( transformation( a, b ) );
+        this.watcher.watch( transformation );
+
+        FACTORY.definitionChanged( transformation.id() );
+        assertThat( this.watcher.changed( Arrays.asList( "/transformation/c" ) ).contains( transformation.id() ), is( true ) );
+        verify( a, times( 2 ) ).get();
+        verify( b, times( 2 ) ).get();
+    }
+
+    @Test
+    public void shouldStopWatchingTransformations() throws Exception {
+        final Operation< Object > a = operation( "/transformation/a", reference( "/model/object/x" ) );
+        this.watcher.watch( registered( transformation( a ) ) );
+        assertThat( this.watcher.watched().contains( "/transformation" ), is( true ) );
+        assertThat( this.watcher.unwatch( "/transformation" ), is( true ) );
+        assertThat( this.watcher.context( "/transformation" ), is( nullValue() ) );
+        assertThat( this.watcher.changed( Arrays.asList( "/model/object/x" ) ).isEmpty(), is( true ) );
+        verify( a, times( 1 ) ).get();
+    }
+
+}
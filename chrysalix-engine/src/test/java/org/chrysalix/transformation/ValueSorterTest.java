@@ -0,0 +1,144 @@
+/*
+ * Chrysalix
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * See the AUTHORS.txt file in the distribution for a full listing of 
+ * individual contributors.
+ *
+ * Chrysalix is free software. Unless otherwise indicated, all code in Chrysalix
+ * is licensed to you under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * Chrysalix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.chrysalix.transformation;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.chrysalix.ChrysalixException;
+import org.junit.Test;
+
+@SuppressWarnings( { "javadoc", "unchecked" } )
+public final class ValueSorterTest {
+
+    private static Value< Number > value( final Number number ) throws ChrysalixException {
+        final Value< Number > value = mock( Value.class );
+        when( value.get() ).thenReturn( number );
+        return value;
+    }
+
+    @Test
+    public void shouldKeepOriginalOrderOfEqualValues() throws ChrysalixException {
+        final Value< Number > first = value( 1 );
+        final Value< Number > second = value( 1.0D );
+        final Value< Number > smallest = value( -1 );
+        final ValueSorter< Value< Number > > sorter = new ValueSorter<>( Arrays.asList( first, second, smallest ) );
+        assertThat( sorter.ascending(), is( Arrays.asList( smallest, first, second ) ) );
+    }
+
+    @Test
+    public void shouldKeepOriginalOrderOfEqualValuesWhenDescending() throws ChrysalixException {
+        final Value< Number > firstOne = value( 1 );
+        final Value< Number > firstNull = value( null );
+        final Value< Number > firstTwo = value( 2L );
+        final Value< Number > secondOne = value( 1.0D );
+        final Value< Number > secondNull = value( null );
+        final Value< Number > secondTwo = value( 2 );
+        final Value< Number > thirdOne = value( 1L );
+        final ValueSorter< Value< Number > > sorter =
+            new ValueSorter<>( Arrays.asList( firstOne, firstNull, firstTwo, secondOne, secondNull, secondTwo, thirdOne ) );
+        assertThat( sorter.descending(),
+                    is( Arrays.asList( firstTwo, secondTwo, firstOne, secondOne, thirdOne, firstNull, secondNull ) ) );
+        assertThat( sorter.ascending(),
+                    is( Arrays.asList( firstNull, secondNull, firstOne, secondOne, thirdOne, firstTwo, secondTwo ) ) );
+    }
+
+    @Test( expected = ChrysalixException.class )
+    public void shouldNotAllowNonNumberValue() throws ChrysalixException {
+        final Value< Object > value = mock( Value.class );
+        when( value.get() ).thenReturn( "value" );
+        new ValueSorter<>( new Value< ? >[] { value } );
+    }
+
+    @Test( expected = IndexOutOfBoundsException.class )
+    public void shouldNotSelectOutOfRange() throws ChrysalixException {
+        new ValueSorter<>( Collections.singletonList( value( 1 ) ) ).select( 1 );
+    }
+
+    @Test
+    public void shouldReadEachValueOnce() throws ChrysalixException {
+        final List< Value< Number > > values = new ArrayList<>();
+
+        for ( int i = 0; i < 50; ++i ) {
+            values.add( value( ( i * 31 ) % 50 ) );
+        }
+
+        final ValueSorter< Value< Number > > sorter = new ValueSorter<>( values );
+        sorter.select( 25 );
+        sorter.descending();
+
+        for ( final Value< Number > value : values ) {
+            verify( value, times( 1 ) ).get();
+        }
+    }
+
+    @Test
+    public void shouldSelectSameValuesAsSort() throws ChrysalixException {
+        final Random random = new Random( 7 );
+
+        for ( int size = 1; size < 200; size += 7 ) {
+            final List< Value< Number > > values = new ArrayList<>( size );
+
+            for ( int i = 0; i < size; ++i ) {
+                // few distinct values so that duplicates are exercised
+                values.add( value( ( i == ( size / 2 ) ) ? null : ( Number ) random.nextInt( ( size / 3 ) + 1 ) ) );
+            }
+
+            final List< Value< Number > > expected = new ArrayList<>( values );
+            Collections.sort( expected, Value.ASCENDING_NUMBER_SORTER );
+            final ValueSorter< Value< Number > > sorter = new ValueSorter<>( values );
+
+            for ( int rank = size - 1; rank >= 0; --rank ) {
+                assertThat( sorter.number( rank ), is( expected.get( rank ).get() ) );
+            }
+
+            assertThat( sorter.ascending(), is( expected ) );
+        }
+    }
+
+    @Test
+    public void shouldSortDescending() throws ChrysalixException {
+        final Value< Number > nullValue = value( null );
+        final Value< Number > small = value( 12.34D );
+        final Value< Number > large = value( 25 );
+        final List< Value< Number > > values = Arrays.asList( small, nullValue, large );
+        final ValueSorter< Value< Number > > sorter = new ValueSorter<>( values );
+        assertThat( sorter.descending(), is( Arrays.asList( large, small, nullValue ) ) );
+        assertThat( sorter.select( 0 ), is( nullValue ) );
+        assertThat( sorter.number( 0 ), is( nullValue() ) );
+        assertThat( sorter.size(), is( 3 ) );
+    }
+
+}